@@ -44,6 +44,10 @@ final class DispatcherFactory {
      * @return dispatcher instance
      */
     public Dispatcher getInstance() {
+        if (DispatcherImpl.class.getName().equals(dispatcherImpl)) {
+            // the default implementation is constructed directly
+            return new DispatcherImpl(conf);
+        }
         try {
             return (Dispatcher) Class.forName(dispatcherImpl)
                     .getConstructor(Configuration.class).newInstance(conf);
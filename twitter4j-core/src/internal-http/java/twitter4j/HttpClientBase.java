@@ -35,7 +35,7 @@ public abstract class HttpClientBase implements HttpClient, Serializable {
 
     public void write(DataOutputStream out, String outStr) throws IOException {
         out.writeBytes(outStr);
-        logger.debug(outStr);
+        logger.debug(() -> outStr);
     }
 
     @Override
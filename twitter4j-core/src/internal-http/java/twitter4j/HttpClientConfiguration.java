@@ -42,4 +42,12 @@ public interface HttpClientConfiguration {
     boolean isPrettyDebugEnabled();
 
     boolean isGZIPEnabled();
+
+    /**
+     * @return whether responses record the slice of the body each JSON object and array was parsed from, so that objects can retain their raw JSON forms
+     * @since Twitter4J 4.0.8
+     */
+    default boolean isJSONSourceRecorded() {
+        return false;
+    }
 }
@@ -21,13 +21,14 @@ import twitter4j.conf.ConfigurationContext;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 /**
  * @author Yusuke Yamamoto - yusuke at mac.com
  * @since Twitter4J 2.1.2
  */
 public final class HttpClientFactory {
-    private static final Constructor<?> HTTP_CLIENT_CONSTRUCTOR;
+    private static final Function<HttpClientConfiguration, HttpClient> HTTP_CLIENT_CREATOR;
     private static final String HTTP_CLIENT_IMPLEMENTATION = "twitter4j.http.httpClient";
 
     static {
@@ -42,21 +43,31 @@ public final class HttpClientFactory {
         }
         if (null == clazz) {
             try {
-                clazz = Class.forName("twitter4j.AlternativeHttpClientImpl");
+                clazz = Class.forName("twitter4j.AlternativeHttpClientImpl", false, HttpClientFactory.class.getClassLoader());
             } catch (ClassNotFoundException ignore) {
             }
         }
         if (null == clazz) {
+            // the bundled implementation is constructed directly
+            HTTP_CLIENT_CREATOR = HttpClientImpl::new;
+        } else {
+            Constructor<?> constructor;
             try {
-                clazz = Class.forName("twitter4j.HttpClientImpl");
-            } catch (ClassNotFoundException cnfe) {
-                throw new AssertionError(cnfe);
+                constructor = clazz.getConstructor(HttpClientConfiguration.class);
+            } catch (NoSuchMethodException nsme) {
+                throw new AssertionError(nsme);
             }
-        }
-        try {
-            HTTP_CLIENT_CONSTRUCTOR = clazz.getConstructor(HttpClientConfiguration.class);
-        } catch (NoSuchMethodException nsme) {
-            throw new AssertionError(nsme);
+            HTTP_CLIENT_CREATOR = conf -> {
+                try {
+                    return (HttpClient) constructor.newInstance(conf);
+                } catch (InstantiationException e) {
+                    throw new AssertionError(e);
+                } catch (IllegalAccessException e) {
+                    throw new AssertionError(e);
+                } catch (InvocationTargetException e) {
+                    throw new AssertionError(e);
+                }
+            };
         }
     }
 
@@ -68,17 +79,9 @@ public final class HttpClientFactory {
 
     public static HttpClient getInstance(HttpClientConfiguration conf) {
         HttpClient client = confClientMap.get(conf);
-        try {
-            if (client == null) {
-                client = (HttpClient) HTTP_CLIENT_CONSTRUCTOR.newInstance(conf);
-                confClientMap.put(conf, client);
-            }
-        } catch (InstantiationException e) {
-            throw new AssertionError(e);
-        } catch (IllegalAccessException e) {
-            throw new AssertionError(e);
-        } catch (InvocationTargetException e) {
-            throw new AssertionError(e);
+        if (client == null) {
+            client = HTTP_CLIENT_CREATOR.apply(conf);
+            confClientMap.put(conf, client);
         }
         return client;
     }
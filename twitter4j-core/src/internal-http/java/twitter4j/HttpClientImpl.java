@@ -127,18 +127,20 @@ class HttpClientImpl extends HttpClientBase implements HttpResponseCode, java.io
                             write(out, boundary + "--\r\n");
                             write(out, "\r\n");
                         } else {
-                            String postParam;
+                            byte[] bytes;
                             if (HttpParameter.containsJson(req.getParameters())) {
                                 con.setRequestProperty("Content-Type",
                                         "application/json");
-                                postParam = req.getParameters()[0].getJsonObject().toString();
+                                bytes = req.getParameters()[0].getJsonObject().toString().getBytes(StandardCharsets.UTF_8);
                             } else {
                                 con.setRequestProperty("Content-Type",
                                         "application/x-www-form-urlencoded");
-                                postParam = HttpParameter.encodeParameters(req.getParameters());
+                                // percent-encoded parameters are US-ASCII, no need to go through a String
+                                bytes = HttpParameter.encodeParametersToBytes(req.getParameters());
+                            }
+                            if (logger.isDebugEnabled()) {
+                                logger.debug("Post Params: ", new String(bytes, StandardCharsets.UTF_8));
                             }
-                            logger.debug("Post Params: ", postParam);
-                            byte[] bytes = postParam.getBytes(StandardCharsets.UTF_8);
                             con.setRequestProperty("Content-Length",
                                     Integer.toString(bytes.length));
                             con.setDoOutput(true);
@@ -157,7 +159,7 @@ class HttpClientImpl extends HttpClientBase implements HttpResponseCode, java.io
                             List<String> values = responseHeaders.get(key);
                             for (String value : values) {
                                 if (key != null) {
-                                    logger.debug(key + ": " + value);
+                                    logger.debug("{}: {}", key, value);
                                 } else {
                                     logger.debug(value);
                                 }
@@ -191,7 +193,7 @@ class HttpClientImpl extends HttpClientBase implements HttpResponseCode, java.io
                 if (logger.isDebugEnabled() && res != null) {
                     res.asString();
                 }
-                logger.debug("Sleeping " + CONF.getHttpRetryIntervalSeconds() + " seconds until the next retry.");
+                logger.debug("Sleeping {} seconds until the next retry.", CONF.getHttpRetryIntervalSeconds());
                 Thread.sleep(CONF.getHttpRetryIntervalSeconds() * 1000L);
             } catch (InterruptedException ignore) {
                 //nothing to do
@@ -209,7 +211,7 @@ class HttpClientImpl extends HttpClientBase implements HttpResponseCode, java.io
     private void setHeaders(HttpRequest req, HttpURLConnection connection) {
         if (logger.isDebugEnabled()) {
             logger.debug("Request: ");
-            logger.debug(req.getMethod().name() + " ", req.getURL());
+            logger.debug("{} {}", req.getMethod().name(), req.getURL());
         }
 
         String authorizationHeader;
@@ -220,9 +222,9 @@ class HttpClientImpl extends HttpClientBase implements HttpResponseCode, java.io
             connection.addRequestProperty("Authorization", authorizationHeader);
         }
         if (req.getRequestHeaders() != null) {
-            for (String key : req.getRequestHeaders().keySet()) {
-                connection.addRequestProperty(key, req.getRequestHeaders().get(key));
-                logger.debug(key + ": " + req.getRequestHeaders().get(key));
+            for (Map.Entry<String, String> header : req.getRequestHeaders().entrySet()) {
+                connection.addRequestProperty(header.getKey(), header.getValue());
+                logger.debug("{}: {}", header.getKey(), header.getValue());
             }
         }
     }
@@ -232,8 +234,8 @@ class HttpClientImpl extends HttpClientBase implements HttpResponseCode, java.io
         if (isProxyConfigured()) {
             if (CONF.getHttpProxyUser() != null && !CONF.getHttpProxyUser().equals("")) {
                 if (logger.isDebugEnabled()) {
-                    logger.debug("Proxy AuthUser: " + CONF.getHttpProxyUser());
-                    logger.debug("Proxy AuthPassword: " + CONF.getHttpProxyPassword().replaceAll(".", "*"));
+                    logger.debug("Proxy AuthUser: ", CONF.getHttpProxyUser());
+                    logger.debug("Proxy AuthPassword: ", CONF.getHttpProxyPassword().replaceAll(".", "*"));
                 }
                 Authenticator.setDefault(new Authenticator() {
                     @Override
@@ -252,7 +254,7 @@ class HttpClientImpl extends HttpClientBase implements HttpResponseCode, java.io
             final Proxy proxy = new Proxy(CONF.isHttpProxySocks() ? Proxy.Type.SOCKS : Proxy.Type.HTTP,
                     InetSocketAddress.createUnresolved(CONF.getHttpProxyHost(), CONF.getHttpProxyPort()));
             if (logger.isDebugEnabled()) {
-                logger.debug("Opening proxied connection(" + CONF.getHttpProxyHost() + ":" + CONF.getHttpProxyPort() + ")");
+                logger.debug("Opening proxied connection({}:{})", CONF.getHttpProxyHost(), CONF.getHttpProxyPort());
             }
             con = (HttpURLConnection) new URL(url).openConnection(proxy);
         } else {
@@ -20,7 +20,6 @@ import java.io.File;
 import java.io.InputStream;
 import java.io.Serial;
 import java.net.URLDecoder;
-import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
@@ -39,6 +38,9 @@ public final class HttpParameter implements Comparable<HttpParameter>, java.io.S
     private JSONObject jsonObject = null;
     private File file = null;
     private InputStream fileBody = null;
+    // percent-encoded name and value, computed on first use
+    private transient volatile byte[] encodedName = null;
+    private transient volatile byte[] encodedValue = null;
 
     public HttpParameter(String name, String value) {
         this.name = name;
@@ -254,22 +256,54 @@ public final class HttpParameter implements Comparable<HttpParameter>, java.io.S
         return compared;
     }
 
+    /*package*/ byte[] encodedName() {
+        byte[] encoded = encodedName;
+        if (encoded == null) {
+            encoded = PercentEncoder.encodeToBytes(name);
+            encodedName = encoded;
+        }
+        return encoded;
+    }
+
+    /*package*/ byte[] encodedValue() {
+        byte[] encoded = encodedValue;
+        if (encoded == null) {
+            encoded = PercentEncoder.encodeToBytes(value);
+            encodedValue = encoded;
+        }
+        return encoded;
+    }
+
     public static String encodeParameters(HttpParameter[] httpParams) {
         if (null == httpParams) {
             return "";
         }
-        StringBuilder buf = new StringBuilder();
+        return appendParameters(PercentEncoder.buffer(), httpParams).toString();
+    }
+
+    /**
+     * @param httpParams parameters to be encoded
+     * @return application/x-www-form-urlencoded body in US-ASCII bytes
+     * @since Twitter4J 4.0.8
+     */
+    public static byte[] encodeParametersToBytes(HttpParameter[] httpParams) {
+        if (null == httpParams) {
+            return new byte[0];
+        }
+        return appendParameters(PercentEncoder.buffer(), httpParams).toByteArray();
+    }
+
+    private static PercentEncoder appendParameters(PercentEncoder buf, HttpParameter[] httpParams) {
         for (int j = 0; j < httpParams.length; j++) {
             if (httpParams[j].isFile()) {
                 throw new IllegalArgumentException("parameter [" + httpParams[j].name + "]should be text");
             }
             if (j != 0) {
-                buf.append("&");
+                buf.append('&');
             }
-            buf.append(encode(httpParams[j].name))
-                    .append("=").append(encode(httpParams[j].value));
+            buf.appendEncodedName(httpParams[j], false).append('=').appendEncodedValue(httpParams[j], false);
         }
-        return buf.toString();
+        return buf;
     }
 
     /**
@@ -280,25 +314,7 @@ public final class HttpParameter implements Comparable<HttpParameter>, java.io.S
      * @see <a href="http://tools.ietf.org/html/rfc3986#section-2.1">RFC 3986 - Uniform Resource Identifier (URI): Generic Syntax - 2.1. Percent-Encoding</a>
      */
     public static String encode(String value) {
-        String encoded = null;
-        encoded = URLEncoder.encode(value, StandardCharsets.UTF_8);
-        StringBuilder buf = new StringBuilder(encoded.length());
-        char focus;
-        for (int i = 0; i < encoded.length(); i++) {
-            focus = encoded.charAt(i);
-            if (focus == '*') {
-                buf.append("%2A");
-            } else if (focus == '+') {
-                buf.append("%20");
-            } else if (focus == '%' && (i + 1) < encoded.length()
-                    && encoded.charAt(i + 1) == '7' && encoded.charAt(i + 2) == 'E') {
-                buf.append('~');
-                i += 2;
-            } else {
-                buf.append(focus);
-            }
-        }
-        return buf.toString();
+        return PercentEncoder.encode(value);
     }
 
     /**
@@ -129,12 +129,14 @@ public abstract class HttpResponse {
     public JSONObject asJSONObject() throws TwitterException {
         if (json == null) {
             try {
-                json = new JSONObject(asString());
-                if (CONF.isPrettyDebugEnabled()) {
-                    logger.debug(json.toString(1));
-                } else {
-                    logger.debug(responseAsString != null ? responseAsString :
-                        json.toString());
+                json = new JSONObject(asString(), CONF.isJSONSourceRecorded());
+                if (logger.isDebugEnabled()) {
+                    if (CONF.isPrettyDebugEnabled()) {
+                        logger.debug(json.toString(1));
+                    } else {
+                        logger.debug(responseAsString != null ? responseAsString :
+                            json.toString());
+                    }
                 }
             } catch (JSONException jsone) {
                 if (responseAsString == null) {
@@ -161,12 +163,14 @@ public abstract class HttpResponse {
     public JSONArray asJSONArray() throws TwitterException {
         if (jsonArray == null) {
             try {
-                jsonArray = new JSONArray(asString());
-                if (CONF.isPrettyDebugEnabled()) {
-                    logger.debug(jsonArray.toString(1));
-                } else {
-                    logger.debug(responseAsString != null ? responseAsString :
-                        jsonArray.toString());
+                jsonArray = new JSONArray(asString(), CONF.isJSONSourceRecorded());
+                if (logger.isDebugEnabled()) {
+                    if (CONF.isPrettyDebugEnabled()) {
+                        logger.debug(jsonArray.toString(1));
+                    } else {
+                        logger.debug(responseAsString != null ? responseAsString :
+                            jsonArray.toString());
+                    }
                 }
             } catch (JSONException jsone) {
                 if (logger.isDebugEnabled()) {
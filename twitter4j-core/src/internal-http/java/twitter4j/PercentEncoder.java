@@ -0,0 +1,260 @@
+/*
+ * Copyright 2007 Yusuke Yamamoto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package twitter4j;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Growable byte buffer percent-encoding values as per RFC 3986 2.1 in a single pass.<br>
+ * Characters are encoded to UTF-8 and escaped with a lookup table, without intermediate Strings.
+ * The buffer returned by {@link #buffer()} is reused by the calling thread.
+ *
+ * @author Yusuke Yamamoto - yusuke at mac.com
+ * @see <a href="http://tools.ietf.org/html/rfc3986#section-2.1">RFC 3986 - Uniform Resource Identifier (URI): Generic Syntax - 2.1. Percent-Encoding</a>
+ * @since Twitter4J 4.0.8
+ */
+public final class PercentEncoder {
+    private static final byte[] HEX = "0123456789ABCDEF".getBytes(StandardCharsets.US_ASCII);
+    // ALPHA / DIGIT / "-" / "." / "_" / "~"
+    private static final boolean[] UNRESERVED = new boolean[128];
+    private static final ThreadLocal<PercentEncoder> BUFFER = ThreadLocal.withInitial(() -> new PercentEncoder(1024));
+
+    static {
+        for (char c = 'a'; c <= 'z'; c++) {
+            UNRESERVED[c] = true;
+        }
+        for (char c = 'A'; c <= 'Z'; c++) {
+            UNRESERVED[c] = true;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            UNRESERVED[c] = true;
+        }
+        UNRESERVED['-'] = true;
+        UNRESERVED['.'] = true;
+        UNRESERVED['_'] = true;
+        UNRESERVED['~'] = true;
+    }
+
+    private byte[] bytes;
+    private int length = 0;
+
+    /**
+     * @param initialCapacity initial capacity in bytes
+     */
+    public PercentEncoder(int initialCapacity) {
+        bytes = new byte[Math.max(initialCapacity, 16)];
+    }
+
+    /**
+     * @return a cleared buffer reused by the calling thread
+     */
+    public static PercentEncoder buffer() {
+        PercentEncoder buffer = BUFFER.get();
+        buffer.length = 0;
+        return buffer;
+    }
+
+    /**
+     * @param value value to be encoded
+     * @return percent-encoded value
+     */
+    public static String encode(String value) {
+        if (isUnreserved(value)) {
+            return value;
+        }
+        return new PercentEncoder(value.length() * 3).appendEncoded(value, false).toString();
+    }
+
+    /**
+     * @param value value to be encoded
+     * @return percent-encoded value in US-ASCII bytes
+     */
+    public static byte[] encodeToBytes(String value) {
+        if (isUnreserved(value)) {
+            return value.getBytes(StandardCharsets.US_ASCII);
+        }
+        // not the thread local buffer, as callers may be in the middle of building it
+        return new PercentEncoder(value.length() * 3).appendEncoded(value, false).toByteArray();
+    }
+
+    private static boolean isUnreserved(String value) {
+        int len = value.length();
+        for (int i = 0; i < len; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x80 || !UNRESERVED[c]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, required));
+        }
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public PercentEncoder append(char ascii) {
+        ensureCapacity(length + 1);
+        bytes[length++] = (byte) ascii;
+        return this;
+    }
+
+    public PercentEncoder appendAscii(String ascii) {
+        int len = ascii.length();
+        ensureCapacity(length + len);
+        for (int i = 0; i < len; i++) {
+            bytes[length++] = (byte) ascii.charAt(i);
+        }
+        return this;
+    }
+
+    /**
+     * Appends the value percent-encoded.
+     *
+     * @param value value to be encoded
+     * @param twice true to append the encoded value encoded once more, as the parameters in the OAuth signature base string are
+     * @return this
+     */
+    public PercentEncoder appendEncoded(String value, boolean twice) {
+        int len = value.length();
+        // worst case is 3 UTF-8 bytes per char, each escaped to "%25XX"
+        ensureCapacity(length + len * (twice ? 15 : 9));
+        byte[] bytes = this.bytes;
+        int pos = length;
+        for (int i = 0; i < len; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                if (UNRESERVED[c]) {
+                    bytes[pos++] = (byte) c;
+                } else {
+                    pos = escape(bytes, pos, c, twice);
+                }
+            } else if (c < 0x800) {
+                pos = escape(bytes, pos, 0xc0 | (c >> 6), twice);
+                pos = escape(bytes, pos, 0x80 | (c & 0x3f), twice);
+            } else if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, value.charAt(++i));
+                pos = escape(bytes, pos, 0xf0 | (cp >> 18), twice);
+                pos = escape(bytes, pos, 0x80 | ((cp >> 12) & 0x3f), twice);
+                pos = escape(bytes, pos, 0x80 | ((cp >> 6) & 0x3f), twice);
+                pos = escape(bytes, pos, 0x80 | (cp & 0x3f), twice);
+            } else if (Character.isSurrogate(c)) {
+                // malformed surrogate is replaced with '?' as URLEncoder does
+                pos = escape(bytes, pos, '?', twice);
+            } else {
+                pos = escape(bytes, pos, 0xe0 | (c >> 12), twice);
+                pos = escape(bytes, pos, 0x80 | ((c >> 6) & 0x3f), twice);
+                pos = escape(bytes, pos, 0x80 | (c & 0x3f), twice);
+            }
+        }
+        length = pos;
+        return this;
+    }
+
+    /**
+     * Appends bytes already percent-encoded.
+     *
+     * @param encoded percent-encoded bytes
+     * @param twice   true to encode the bytes once more
+     * @return this
+     */
+    public PercentEncoder appendEncoded(byte[] encoded, boolean twice) {
+        if (!twice) {
+            ensureCapacity(length + encoded.length);
+            System.arraycopy(encoded, 0, bytes, length, encoded.length);
+            length += encoded.length;
+            return this;
+        }
+        // encoded bytes consist of unreserved characters and escapes. only '%' needs to be escaped again
+        ensureCapacity(length + encoded.length * 3);
+        byte[] bytes = this.bytes;
+        int pos = length;
+        for (byte b : encoded) {
+            if (b == '%') {
+                bytes[pos++] = '%';
+                bytes[pos++] = '2';
+                bytes[pos++] = '5';
+            } else {
+                bytes[pos++] = b;
+            }
+        }
+        length = pos;
+        return this;
+    }
+
+    /**
+     * Appends the name of the parameter, percent-encoded once and cached by the parameter.
+     *
+     * @param param parameter
+     * @param twice true to encode the name once more
+     * @return this
+     */
+    public PercentEncoder appendEncodedName(HttpParameter param, boolean twice) {
+        return appendEncoded(param.encodedName(), twice);
+    }
+
+    /**
+     * Appends the value of the parameter, percent-encoded once and cached by the parameter.
+     *
+     * @param param parameter
+     * @param twice true to encode the value once more
+     * @return this
+     */
+    public PercentEncoder appendEncodedValue(HttpParameter param, boolean twice) {
+        return appendEncoded(param.encodedValue(), twice);
+    }
+
+    private static int escape(byte[] bytes, int pos, int b, boolean twice) {
+        bytes[pos++] = '%';
+        if (twice) {
+            bytes[pos++] = '2';
+            bytes[pos++] = '5';
+        }
+        bytes[pos++] = HEX[(b >> 4) & 0xf];
+        bytes[pos++] = HEX[b & 0xf];
+        return pos;
+    }
+
+    /**
+     * @return a view of the content, valid until this buffer is modified
+     */
+    public ByteBuffer asByteBuffer() {
+        return ByteBuffer.wrap(bytes, 0, length);
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(bytes, length);
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(bytes, 0, length);
+    }
+
+    @Override
+    public String toString() {
+        return new String(bytes, 0, length, StandardCharsets.US_ASCII);
+    }
+}
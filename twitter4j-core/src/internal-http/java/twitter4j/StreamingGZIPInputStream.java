@@ -44,4 +44,13 @@ final class StreamingGZIPInputStream extends GZIPInputStream {
     public int available() throws IOException {
         return wrapped.available();
     }
+
+    /**
+     * Returns the compressed stream, positioned right after the gzip header. For readers inflating the data by themselves.
+     *
+     * @return the wrapped InputStream
+     */
+    InputStream getWrappedStream() {
+        return wrapped;
+    }
 }
@@ -76,7 +76,7 @@ class AccountSettingsJSONImpl extends TwitterResponseImpl implements AccountSett
         this(res, res.asJSONObject());
         if (conf.isJSONStoreEnabled()) {
             TwitterObjectFactory.clearThreadLocalMap();
-            TwitterObjectFactory.registerJSONObject(this, res.asJSONObject());
+            TwitterObjectFactory.registerJSONObject(conf, this, res.asJSONObject());
         }
     }
 
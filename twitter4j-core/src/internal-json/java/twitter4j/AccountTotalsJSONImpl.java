@@ -45,7 +45,7 @@ class AccountTotalsJSONImpl extends TwitterResponseImpl implements AccountTotals
         this(res, res.asJSONObject());
         if (conf.isJSONStoreEnabled()) {
             TwitterObjectFactory.clearThreadLocalMap();
-            TwitterObjectFactory.registerJSONObject(this, res.asJSONObject());
+            TwitterObjectFactory.registerJSONObject(conf, this, res.asJSONObject());
         }
     }
 
@@ -0,0 +1,718 @@
+/*
+ * Copyright 2007 Yusuke Yamamoto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package twitter4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary format for {@link Status}, {@link User} and {@link DirectMessage}, as an alternative to Java serialization for caches and queues.<br>
+ * A stream starts with a header carrying the format version, followed by any number of objects. Integers are written as varints,
+ * and short strings are written once per stream and referred to by index afterwards, so that repeated values such as
+ * source, lang and screen names cost a few bytes.<br>
+ * Entities are optional. When written without entities, decoded objects return empty entity arrays.<br>
+ * Objects decoded are equal to, and return the same values as, those created by {@link TwitterObjectFactory}, except for the rate limit status and the access level,
+ * which are not retained as in Java serialization.<br>
+ * Only objects created by Twitter4J can be encoded. Encoders and decoders are not thread safe.
+ *
+ * @author Yusuke Yamamoto - yusuke at mac.com
+ * @since Twitter4J 4.0.8
+ */
+public final class BinaryCodec {
+    /**
+     * version of the format written by this codec
+     */
+    public static final int VERSION = 1;
+
+    private static final byte[] MAGIC = {'T', '4', 'J', 'B'};
+    private static final int WITH_ENTITIES = 1;
+
+    private static final int NULL = 0;
+    private static final int STATUS = 1;
+    private static final int USER = 2;
+    private static final int DIRECT_MESSAGE = 3;
+
+    // strings longer than this are not put in the string table, as texts rarely repeat
+    private static final int MAX_TABLED_STRING_LENGTH = 64;
+    private static final int MAX_TABLE_SIZE = 8192;
+
+    private BinaryCodec() {
+        throw new AssertionError();
+    }
+
+    /**
+     * @param status status created by Twitter4J
+     * @return encoded bytes, including entities
+     */
+    public static byte[] encode(Status status) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+        try (Encoder encoder = new Encoder(bytes, true)) {
+            encoder.writeStatus(status);
+        } catch (IOException ioe) {
+            throw new AssertionError(ioe);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @param bytes bytes encoded by {@link #encode(Status)}
+     * @return decoded status
+     * @throws IOException when the bytes are not an encoded status
+     */
+    public static Status decodeStatus(byte[] bytes) throws IOException {
+        try (Decoder decoder = new Decoder(new ByteArrayInputStream(bytes))) {
+            return decoder.readStatus();
+        }
+    }
+
+    /**
+     * Writes objects to a stream. The stream header is written on construction.
+     */
+    public static final class Encoder implements Flushable, Closeable {
+        private final OutputStream out;
+        private final boolean withEntities;
+        private final byte[] buffer = new byte[8192];
+        private int position = 0;
+        private final Map<String, Integer> table = new HashMap<>();
+
+        /**
+         * @param out          stream to write to
+         * @param withEntities whether to write entities
+         * @throws IOException when failed to write the header
+         */
+        public Encoder(OutputStream out, boolean withEntities) throws IOException {
+            this.out = out;
+            this.withEntities = withEntities;
+            for (byte b : MAGIC) {
+                writeByte(b);
+            }
+            writeByte(VERSION);
+            writeByte(withEntities ? WITH_ENTITIES : 0);
+        }
+
+        /**
+         * @param status status created by Twitter4J, or null
+         * @throws IOException when failed to write
+         */
+        public void writeStatus(Status status) throws IOException {
+            if (status == null) {
+                writeByte(NULL);
+                return;
+            }
+            writeByte(STATUS);
+            implOf(status, StatusJSONImpl.class).writeTo(this);
+        }
+
+        /**
+         * @param user user created by Twitter4J, or null
+         * @throws IOException when failed to write
+         */
+        public void writeUser(User user) throws IOException {
+            if (user == null) {
+                writeByte(NULL);
+                return;
+            }
+            writeByte(USER);
+            implOf(user, UserJSONImpl.class).writeTo(this);
+        }
+
+        /**
+         * @param directMessage direct message created by Twitter4J, or null
+         * @throws IOException when failed to write
+         */
+        public void writeDirectMessage(DirectMessage directMessage) throws IOException {
+            if (directMessage == null) {
+                writeByte(NULL);
+                return;
+            }
+            writeByte(DIRECT_MESSAGE);
+            implOf(directMessage, DirectMessageJSONImpl.class).writeTo(this);
+        }
+
+        private static <T> T implOf(Object object, Class<T> implClass) {
+            if (!implClass.isInstance(object)) {
+                throw new IllegalArgumentException(object.getClass().getName() + " is not supported. Only objects created by Twitter4J can be encoded.");
+            }
+            return implClass.cast(object);
+        }
+
+        void writeByte(int b) throws IOException {
+            if (position == buffer.length) {
+                flushBuffer();
+            }
+            buffer[position++] = (byte) b;
+        }
+
+        void writeBoolean(boolean value) throws IOException {
+            writeByte(value ? 1 : 0);
+        }
+
+        /**
+         * writes an unsigned varint
+         */
+        void writeUnsigned(long value) throws IOException {
+            while ((value & ~0x7FL) != 0) {
+                writeByte((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            writeByte((int) value);
+        }
+
+        /**
+         * writes a zigzag encoded varint, so that small negative values such as -1 take a byte
+         */
+        void writeLong(long value) throws IOException {
+            writeUnsigned((value << 1) ^ (value >> 63));
+        }
+
+        void writeInt(int value) throws IOException {
+            writeLong(value);
+        }
+
+        void writeDouble(double value) throws IOException {
+            long bits = Double.doubleToRawLongBits(value);
+            for (int i = 0; i < 8; i++) {
+                writeByte((int) (bits >>> (i * 8)));
+            }
+        }
+
+        void writeDate(Date date) throws IOException {
+            if (date == null) {
+                writeByte(0);
+            } else {
+                writeByte(1);
+                writeLong(date.getTime());
+            }
+        }
+
+        /**
+         * writes 0 for null, 1 followed by UTF-8 bytes for a string not in the table, or index + 2 for a string in the table
+         */
+        void writeString(String value) throws IOException {
+            if (value == null) {
+                writeUnsigned(0);
+                return;
+            }
+            Integer index = table.get(value);
+            if (index != null) {
+                writeUnsigned(index + 2L);
+                return;
+            }
+            writeUnsigned(1);
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeUnsigned(bytes.length);
+            writeBytes(bytes);
+            if (isTabled(value, table.size())) {
+                table.put(value, table.size());
+            }
+        }
+
+        private void writeBytes(byte[] bytes) throws IOException {
+            if (bytes.length > buffer.length - position) {
+                flushBuffer();
+                if (bytes.length > buffer.length) {
+                    out.write(bytes);
+                    return;
+                }
+            }
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        void writeStrings(String[] values) throws IOException {
+            if (writeLength(values)) {
+                for (String value : values) {
+                    writeString(value);
+                }
+            }
+        }
+
+        void writeLongs(long[] values) throws IOException {
+            if (values == null) {
+                writeUnsigned(0);
+                return;
+            }
+            writeUnsigned(values.length + 1L);
+            for (long value : values) {
+                writeLong(value);
+            }
+        }
+
+        /**
+         * writes 0 for null, or length + 1
+         *
+         * @return true if the array is not null
+         */
+        boolean writeLength(Object[] array) throws IOException {
+            if (array == null) {
+                writeUnsigned(0);
+                return false;
+            }
+            writeUnsigned(array.length + 1L);
+            return true;
+        }
+
+        void writeGeoLocation(GeoLocation geoLocation) throws IOException {
+            if (geoLocation == null) {
+                writeByte(0);
+                return;
+            }
+            writeByte(1);
+            writeDouble(geoLocation.getLatitude());
+            writeDouble(geoLocation.getLongitude());
+        }
+
+        void writeGeoLocations(GeoLocation[][] geoLocations) throws IOException {
+            if (writeLength(geoLocations)) {
+                for (GeoLocation[] row : geoLocations) {
+                    if (writeLength(row)) {
+                        for (GeoLocation geoLocation : row) {
+                            writeGeoLocation(geoLocation);
+                        }
+                    }
+                }
+            }
+        }
+
+        void writeURLEntity(URLEntity entity) throws IOException {
+            if (entity == null) {
+                writeByte(0);
+                return;
+            }
+            writeByte(1);
+            writeInt(entity.getStart());
+            writeInt(entity.getEnd());
+            writeString(entity.getURL());
+            writeString(entity.getExpandedURL());
+            writeString(entity.getDisplayURL());
+        }
+
+        void writeURLEntities(URLEntity[] entities) throws IOException {
+            if (writeLength(entities)) {
+                for (URLEntity entity : entities) {
+                    writeURLEntity(entity);
+                }
+            }
+        }
+
+        /**
+         * writes entities, or nothing when entities are not written in this stream
+         */
+        void writeEntities(UserMentionEntity[] userMentions, URLEntity[] urls, HashtagEntity[] hashtags,
+                           MediaEntity[] medias, SymbolEntity[] symbols) throws IOException {
+            if (!withEntities) {
+                return;
+            }
+            if (writeLength(userMentions)) {
+                for (UserMentionEntity entity : userMentions) {
+                    writeInt(entity.getStart());
+                    writeInt(entity.getEnd());
+                    writeString(entity.getName());
+                    writeString(entity.getScreenName());
+                    writeLong(entity.getId());
+                }
+            }
+            writeURLEntities(urls);
+            if (writeLength(hashtags)) {
+                for (HashtagEntity entity : hashtags) {
+                    writeInt(entity.getStart());
+                    writeInt(entity.getEnd());
+                    writeString(entity.getText());
+                }
+            }
+            if (writeLength(medias)) {
+                for (MediaEntity entity : medias) {
+                    implOf(entity, MediaEntityJSONImpl.class).writeTo(this);
+                }
+            }
+            if (writeLength(symbols)) {
+                for (SymbolEntity entity : symbols) {
+                    writeInt(entity.getStart());
+                    writeInt(entity.getEnd());
+                    writeString(entity.getText());
+                }
+            }
+        }
+
+        private void flushBuffer() throws IOException {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            flushBuffer();
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+            out.close();
+        }
+    }
+
+    /**
+     * Reads objects from a stream. The stream header is read on construction.
+     */
+    public static final class Decoder implements Closeable {
+        private final InputStream in;
+        private final int version;
+        private final boolean withEntities;
+        private final byte[] buffer = new byte[8192];
+        private int position = 0;
+        private int limit = 0;
+        private final List<String> table = new ArrayList<>();
+
+        /**
+         * @param in stream to read from
+         * @throws IOException when the stream doesn't start with a header, or was written with a newer version
+         */
+        public Decoder(InputStream in) throws IOException {
+            this.in = in;
+            for (byte b : MAGIC) {
+                if (readByte() != b) {
+                    throw new StreamCorruptedException("Not a stream written by BinaryCodec.");
+                }
+            }
+            version = readByte();
+            if (version < 1 || version > VERSION) {
+                throw new StreamCorruptedException("Unsupported version: " + version);
+            }
+            withEntities = (readByte() & WITH_ENTITIES) != 0;
+        }
+
+        /**
+         * @return version of the format the stream was written with
+         */
+        public int getVersion() {
+            return version;
+        }
+
+        /**
+         * @return true if the stream has entities
+         */
+        public boolean isWithEntities() {
+            return withEntities;
+        }
+
+        /**
+         * @return status, or null if null was written
+         * @throws IOException when failed to read, or the next object is not a status
+         */
+        public Status readStatus() throws IOException {
+            return readType(STATUS) ? new StatusJSONImpl(this) : null;
+        }
+
+        /**
+         * @return user, or null if null was written
+         * @throws IOException when failed to read, or the next object is not a user
+         */
+        public User readUser() throws IOException {
+            return readType(USER) ? new UserJSONImpl(this) : null;
+        }
+
+        /**
+         * @return direct message, or null if null was written
+         * @throws IOException when failed to read, or the next object is not a direct message
+         */
+        public DirectMessage readDirectMessage() throws IOException {
+            return readType(DIRECT_MESSAGE) ? new DirectMessageJSONImpl(this) : null;
+        }
+
+        /**
+         * @return true if another object is available in the stream
+         * @throws IOException when failed to read
+         */
+        public boolean hasNext() throws IOException {
+            return fill();
+        }
+
+        private boolean readType(int expected) throws IOException {
+            int type = readByte();
+            if (type == NULL) {
+                return false;
+            }
+            if (type != expected) {
+                throw new StreamCorruptedException("Expected type " + expected + " but was " + type);
+            }
+            return true;
+        }
+
+        private boolean fill() throws IOException {
+            if (position < limit) {
+                return true;
+            }
+            limit = in.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return false;
+            }
+            return true;
+        }
+
+        int readByte() throws IOException {
+            if (!fill()) {
+                throw new EOFException();
+            }
+            return buffer[position++] & 0xFF;
+        }
+
+        boolean readBoolean() throws IOException {
+            return readByte() != 0;
+        }
+
+        long readUnsigned() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new StreamCorruptedException("Malformed varint.");
+        }
+
+        long readLong() throws IOException {
+            long value = readUnsigned();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        int readInt() throws IOException {
+            return (int) readLong();
+        }
+
+        double readDouble() throws IOException {
+            long bits = 0;
+            for (int i = 0; i < 8; i++) {
+                bits |= (long) readByte() << (i * 8);
+            }
+            return Double.longBitsToDouble(bits);
+        }
+
+        Date readDate() throws IOException {
+            return readByte() == 0 ? null : new Date(readLong());
+        }
+
+        String readString() throws IOException {
+            long tag = readUnsigned();
+            if (tag == 0) {
+                return null;
+            }
+            if (tag > 1) {
+                if (tag - 2 >= table.size()) {
+                    throw new StreamCorruptedException("Unknown string reference: " + (tag - 2));
+                }
+                return table.get((int) (tag - 2));
+            }
+            byte[] bytes = readBytes(readLength(Integer.MAX_VALUE));
+            String value = new String(bytes, StandardCharsets.UTF_8);
+            if (isTabled(value, table.size())) {
+                table.add(value);
+            }
+            return value;
+        }
+
+        /**
+         * Reads bytes of a length read from the stream. Allocates no more than the input buffered, growing as more arrives,
+         * so that a corrupted length fails with EOFException rather than allocating up to 2GB up front.
+         */
+        private byte[] readBytes(int length) throws IOException {
+            byte[] bytes = new byte[Math.min(length, Math.max(limit - position, buffer.length))];
+            int offset = 0;
+            while (offset < length) {
+                if (!fill()) {
+                    throw new EOFException();
+                }
+                if (offset == bytes.length) {
+                    bytes = Arrays.copyOf(bytes, (int) Math.min(length, bytes.length * 2L));
+                }
+                int n = Math.min(limit - position, bytes.length - offset);
+                System.arraycopy(buffer, position, bytes, offset, n);
+                position += n;
+                offset += n;
+            }
+            return bytes;
+        }
+
+        private int readLength(int max) throws IOException {
+            long length = readUnsigned();
+            if (length > max) {
+                throw new StreamCorruptedException("Invalid length: " + length);
+            }
+            return (int) length;
+        }
+
+        /**
+         * @return length of an array, or -1 for null
+         */
+        int readArrayLength() throws IOException {
+            return readLength(Integer.MAX_VALUE) - 1;
+        }
+
+        String[] readStrings() throws IOException {
+            int length = readArrayLength();
+            if (length == -1) {
+                return null;
+            }
+            String[] values = new String[length];
+            for (int i = 0; i < length; i++) {
+                values[i] = readString();
+            }
+            return values;
+        }
+
+        long[] readLongs() throws IOException {
+            int length = readArrayLength();
+            if (length == -1) {
+                return null;
+            }
+            long[] values = new long[length];
+            for (int i = 0; i < length; i++) {
+                values[i] = readLong();
+            }
+            return values;
+        }
+
+        GeoLocation readGeoLocation() throws IOException {
+            if (readByte() == 0) {
+                return null;
+            }
+            return new GeoLocation(readDouble(), readDouble());
+        }
+
+        GeoLocation[][] readGeoLocations() throws IOException {
+            int length = readArrayLength();
+            if (length == -1) {
+                return null;
+            }
+            GeoLocation[][] geoLocations = new GeoLocation[length][];
+            for (int i = 0; i < length; i++) {
+                int rowLength = readArrayLength();
+                if (rowLength != -1) {
+                    geoLocations[i] = new GeoLocation[rowLength];
+                    for (int j = 0; j < rowLength; j++) {
+                        geoLocations[i][j] = readGeoLocation();
+                    }
+                }
+            }
+            return geoLocations;
+        }
+
+        URLEntity readURLEntity() throws IOException {
+            if (readByte() == 0) {
+                return null;
+            }
+            return new URLEntityJSONImpl(readInt(), readInt(), readString(), readString(), readString());
+        }
+
+        URLEntity[] readURLEntities() throws IOException {
+            int length = readArrayLength();
+            if (length == -1) {
+                return null;
+            }
+            URLEntity[] entities = new URLEntity[length];
+            for (int i = 0; i < length; i++) {
+                entities[i] = readURLEntity();
+            }
+            return entities;
+        }
+
+        /**
+         * @return true if the stream has entities to be read by readXXXEntities methods in order
+         */
+        boolean hasEntities() {
+            return withEntities;
+        }
+
+        UserMentionEntity[] readUserMentionEntities() throws IOException {
+            int length = readArrayLength();
+            if (length == -1) {
+                return null;
+            }
+            UserMentionEntity[] entities = new UserMentionEntity[length];
+            for (int i = 0; i < length; i++) {
+                entities[i] = new UserMentionEntityJSONImpl(readInt(), readInt(), readString(), readString(), readLong());
+            }
+            return entities;
+        }
+
+        HashtagEntity[] readHashtagEntities() throws IOException {
+            int length = readArrayLength();
+            if (length == -1) {
+                return null;
+            }
+            HashtagEntity[] entities = new HashtagEntity[length];
+            for (int i = 0; i < length; i++) {
+                entities[i] = new HashtagEntityJSONImpl(readInt(), readInt(), readString());
+            }
+            return entities;
+        }
+
+        MediaEntity[] readMediaEntities() throws IOException {
+            int length = readArrayLength();
+            if (length == -1) {
+                return null;
+            }
+            MediaEntity[] entities = new MediaEntity[length];
+            for (int i = 0; i < length; i++) {
+                entities[i] = new MediaEntityJSONImpl(this);
+            }
+            return entities;
+        }
+
+        SymbolEntity[] readSymbolEntities() throws IOException {
+            int length = readArrayLength();
+            if (length == -1) {
+                return null;
+            }
+            SymbolEntity[] entities = new SymbolEntity[length];
+            for (int i = 0; i < length; i++) {
+                entities[i] = new HashtagEntityJSONImpl(readInt(), readInt(), readString());
+            }
+            return entities;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    /**
+     * decides whether a string is put in the table, identically on both ends
+     */
+    private static boolean isTabled(String value, int tableSize) {
+        return value.length() <= MAX_TABLED_STRING_LENGTH && tableSize < MAX_TABLE_SIZE;
+    }
+}
@@ -18,6 +18,7 @@ package twitter4j;
 
 import twitter4j.conf.Configuration;
 
+import java.io.IOException;
 import java.io.Serial;
 import java.util.*;
 
@@ -51,7 +52,7 @@ import java.util.*;
             init(event);
             if (conf.isJSONStoreEnabled()) {
                 TwitterObjectFactory.clearThreadLocalMap();
-                TwitterObjectFactory.registerJSONObject(this, event);
+                TwitterObjectFactory.registerJSONObject(conf, this, event);
             }
         } catch (JSONException jsone) {
             throw new TwitterException(jsone);
@@ -62,6 +63,52 @@ import java.util.*;
         init(json);
     }
 
+    /*package*/DirectMessageJSONImpl(BinaryCodec.Decoder in) throws IOException {
+        id = in.readLong();
+        text = in.readString();
+        senderId = in.readLong();
+        recipientId = in.readLong();
+        createdAt = in.readDate();
+        if (in.hasEntities()) {
+            userMentionEntities = in.readUserMentionEntities();
+            urlEntities = in.readURLEntities();
+            hashtagEntities = in.readHashtagEntities();
+            mediaEntities = in.readMediaEntities();
+            symbolEntities = in.readSymbolEntities();
+        } else {
+            userMentionEntities = new UserMentionEntity[0];
+            urlEntities = new URLEntity[0];
+            hashtagEntities = new HashtagEntity[0];
+            mediaEntities = new MediaEntity[0];
+            symbolEntities = new SymbolEntity[0];
+        }
+        int length = in.readArrayLength();
+        if (length != -1) {
+            quickReplies = new QuickReply[length];
+            for (int i = 0; i < length; i++) {
+                quickReplies[i] = new QuickReply(in.readString(), in.readString(), in.readString());
+            }
+        }
+        quickReplyResponse = in.readString();
+    }
+
+    /*package*/ void writeTo(BinaryCodec.Encoder out) throws IOException {
+        out.writeLong(id);
+        out.writeString(text);
+        out.writeLong(senderId);
+        out.writeLong(recipientId);
+        out.writeDate(createdAt);
+        out.writeEntities(userMentionEntities, urlEntities, hashtagEntities, mediaEntities, symbolEntities);
+        if (out.writeLength(quickReplies)) {
+            for (QuickReply quickReply : quickReplies) {
+                out.writeString(quickReply.getLabel());
+                out.writeString(quickReply.getDescription());
+                out.writeString(quickReply.getMetadata());
+            }
+        }
+        out.writeString(quickReplyResponse);
+    }
+
     private void init(JSONObject json) throws TwitterException {
         try {
             id = ParseUtil.getLong("id", json);
@@ -153,11 +200,11 @@ import java.util.*;
                     DirectMessage directMessage = new DirectMessageJSONImpl(json);
                     directMessages.add(directMessage);
                     if (conf.isJSONStoreEnabled()) {
-                        TwitterObjectFactory.registerJSONObject(directMessage, json);
+                        TwitterObjectFactory.registerJSONObject(conf, directMessage, json);
                     }
                 }
                 if (conf.isJSONStoreEnabled()) {
-                    TwitterObjectFactory.registerJSONObject(directMessages, list);
+                    TwitterObjectFactory.registerJSONObject(conf, directMessages, list);
                 }
                 return directMessages;
         } catch (JSONException jsone) {
@@ -66,12 +66,12 @@ class FriendshipJSONImpl implements Friendship {
                 JSONObject json = list.getJSONObject(i);
                 Friendship friendship = new FriendshipJSONImpl(json);
                 if (conf.isJSONStoreEnabled()) {
-                    TwitterObjectFactory.registerJSONObject(friendship, json);
+                    TwitterObjectFactory.registerJSONObject(conf, friendship, json);
                 }
                 friendshipList.add(friendship);
             }
             if (conf.isJSONStoreEnabled()) {
-                TwitterObjectFactory.registerJSONObject(friendshipList, list);
+                TwitterObjectFactory.registerJSONObject(conf, friendshipList, list);
             }
             return friendshipList;
         } catch (JSONException jsone) {
@@ -43,37 +43,86 @@ final class HTMLEntity {
     }
 
     static String unescape(String original) {
-        String returnValue = null;
-        if (original != null) {
-            StringBuilder buf = new StringBuilder(original);
-            unescape(buf);
-            returnValue = buf.toString();
+        if (original == null) {
+            return null;
         }
-        return returnValue;
+        int first = original.indexOf('&');
+        if (first == -1) {
+            return original;
+        }
+        // replacements are never longer than the entities
+        char[] unescaped = new char[original.length()];
+        original.getChars(0, first, unescaped, 0);
+        int length = unescape(original, first, unescaped, first);
+        return new String(unescaped, 0, length);
     }
 
     static void unescape(StringBuilder original) {
-        int index = 0;
-        int semicolonIndex;
-        String escaped;
-        String entity;
-        while (index < original.length()) {
-            index = original.indexOf("&", index);
-            if (-1 == index) {
+        int first = original.indexOf("&");
+        if (first == -1) {
+            return;
+        }
+        char[] unescaped = new char[original.length()];
+        int length = unescape(original.toString(), first, unescaped, first);
+        original.setLength(first);
+        original.append(unescaped, first, length - first);
+    }
+
+    /**
+     * Unescapes the text in a single forward scan, copying the runs between '&amp;'s in bulk.
+     *
+     * @param text      text
+     * @param from      index of the first '&amp;' in the text
+     * @param unescaped buffer to write to
+     * @param write     index in the buffer to start from
+     * @return length of the unescaped text in the buffer
+     */
+    private static int unescape(String text, int from, char[] unescaped, int write) {
+        int length = text.length();
+        int read = from;
+        while (read < length) {
+            int ampersand = text.indexOf('&', read);
+            if (ampersand == -1) {
+                ampersand = length;
+            }
+            text.getChars(read, ampersand, unescaped, write);
+            write += ampersand - read;
+            if (ampersand == length) {
                 break;
             }
-            semicolonIndex = original.indexOf(";", index);
-            if (-1 != semicolonIndex) {
-                escaped = original.substring(index, semicolonIndex + 1);
-                entity = escapeEntityMap.get(escaped);
-                if (entity != null) {
-                    original.replace(index, semicolonIndex + 1, entity);
+            Node entity = match(text, ampersand);
+            if (entity != null) {
+                String replacement = entity.unescaped;
+                for (int i = 0; i < replacement.length(); i++) {
+                    unescaped[write++] = replacement.charAt(i);
                 }
-                index++;
+                read = ampersand + entity.length;
             } else {
-                break;
+                unescaped[write++] = '&';
+                read = ampersand + 1;
+            }
+        }
+        return write;
+    }
+
+    /**
+     * @param text  text
+     * @param index index of '&amp;' in the text
+     * @return matched entity, or null
+     */
+    private static Node match(String text, int index) {
+        Node node = ENTITY_TRIE;
+        int length = Math.min(text.length(), index + ENTITY_TRIE.length);
+        for (int i = index + 1; i < length; i++) {
+            node = node.child(text.charAt(i));
+            if (node == null) {
+                return null;
+            }
+            if (node.unescaped != null) {
+                return node;
             }
         }
+        return null;
     }
 
     /**
@@ -116,9 +165,7 @@ final class HTMLEntity {
         int entityIndex = 0;
 
         int delta = 0;
-        int semicolonIndex;
-        String escaped;
-        String entity;
+        Node entity;
         StringBuilder unescaped = new StringBuilder(text.length());
         
 		/*
@@ -127,27 +174,18 @@ final class HTMLEntity {
 		 * indexes with Java standard character indexes. See: HTMLEntityTest.
 		 * testUnescapeAndSlideEntityIncdicesWithSurrogateCodePoints
 		 */
-		int textCodePointLength = text.codePointCount(0, text.length());
 		int codePoint;
-		for (int index = 0, twitterIndex = 0; index < text.length(); index +=
+		int twitterIndex = 0;
+		for (int index = 0; index < text.length(); index +=
 				Character.charCount(codePoint), twitterIndex++) {
 			codePoint = text.codePointAt(index);
-			if (codePoint == '&') {
-				semicolonIndex = text.indexOf(";", index);
-				if (-1 != semicolonIndex) {
-					escaped = text.substring(index, semicolonIndex + 1);
-					entity = escapeEntityMap.get(escaped);
-					if (entity != null) {
-						unescaped.append(entity);
-						index = semicolonIndex;
-						twitterIndex = text.codePointCount(0, semicolonIndex);
-						delta = 1 - escaped.length();
-					} else {
-						unescaped.appendCodePoint(codePoint);
-					}
-				} else {
-					unescaped.appendCodePoint(codePoint);
-				}
+			if (codePoint == '&' && (entity = match(text, index)) != null) {
+				unescaped.append(entity.unescaped);
+				// entities consist of ASCII characters. one char per code point
+				index += entity.length - 1;
+				twitterIndex += entity.length - 1;
+				delta = 1 - entity.length;
+				codePoint = ';';
 			} else {
 				unescaped.appendCodePoint(codePoint);
 			}
@@ -155,20 +193,21 @@ final class HTMLEntity {
 				if (handlingStart) {
 					if (entityIndexes[entityIndex].getStart() == (delta + twitterIndex)) {
 						entityIndexes[entityIndex]
-								.setStart(unescaped.length() - Character.charCount(text.codePointAt(index)));
+								.setStart(unescaped.length() - Character.charCount(codePoint));
 						handlingStart = false;
 					}
 				} else if (entityIndexes[entityIndex].getEnd() == (delta + twitterIndex)) {
 					entityIndexes[entityIndex]
-							.setEnd(unescaped.length() - Character.charCount(text.codePointAt(index)));
+							.setEnd(unescaped.length() - Character.charCount(codePoint));
 					entityIndex++;
 					handlingStart = true;
 				}
 			}
 			delta = 0;
 		}
+		// twitterIndex is the code point length of the text here
 		if (entityIndex < entityIndexes.length) {
-			if (entityIndexes[entityIndex].getEnd() == textCodePointLength) {
+			if (entityIndexes[entityIndex].getEnd() == twitterIndex) {
 				entityIndexes[entityIndex].setEnd(unescaped.length());
 			}
 		}
@@ -177,10 +216,10 @@ final class HTMLEntity {
     }
 
     private static final Map<String, String> entityEscapeMap = new HashMap<>();
-    private static final Map<String, String> escapeEntityMap = new HashMap<>();
+    // trie of the entities keyed by the characters following '&'
+    private static final Node ENTITY_TRIE = new Node();
 
-    static {
-        String[][] entities =
+    /*package*/ static final String[][] ENTITIES =
                 {{"&nbsp;", "&#160;"/* no-break space = non-breaking space */, "\u00A0"}
                         , {"&iexcl;", "&#161;"/* inverted exclamation mark */, "\u00A1"}
                         , {"&cent;", "&#162;"/* cent sign */, "\u00A2"}
@@ -460,10 +499,58 @@ final class HTMLEntity {
                         , {"&rsaquo;", "&#8250;"/* single right-pointing angle quotation mark */, "\u203A"}
 /* rsaquo is proposed but not yet ISO standardized */
                         , {"&euro;", "&#8364;" /* euro sign */, "\u20AC"}};
-        for (String[] entity : entities) {
+
+    static {
+        for (String[] entity : ENTITIES) {
             entityEscapeMap.put(entity[2], entity[0]);
-            escapeEntityMap.put(entity[0], entity[2]);
-            escapeEntityMap.put(entity[1], entity[2]);
+            ENTITY_TRIE.put(entity[0], entity[2]);
+            ENTITY_TRIE.put(entity[1], entity[2]);
+        }
+    }
+
+    private static final class Node {
+        // children indexed by the character minus base
+        private char base = 0;
+        private Node[] children = new Node[0];
+        // set on the node following ';'
+        private String unescaped;
+        // length of the entity for a terminal node. the root holds the length of the longest entity
+        private int length;
+
+        private Node child(char c) {
+            int index = c - base;
+            return index >= 0 && index < children.length ? children[index] : null;
+        }
+
+        private void put(String entity, String unescaped) {
+            Node node = this;
+            for (int i = 1; i < entity.length(); i++) {
+                char c = entity.charAt(i);
+                Node child = node.child(c);
+                if (child == null) {
+                    child = new Node();
+                    node.add(c, child);
+                }
+                node = child;
+            }
+            node.unescaped = unescaped;
+            node.length = entity.length();
+            length = Math.max(length, entity.length());
+        }
+
+        private void add(char c, Node child) {
+            if (children.length == 0) {
+                base = c;
+                children = new Node[1];
+            } else if (c < base) {
+                Node[] newChildren = new Node[children.length + base - c];
+                System.arraycopy(children, 0, newChildren, base - c, children.length);
+                children = newChildren;
+                base = c;
+            } else if (c - base >= children.length) {
+                children = Arrays.copyOf(children, c - base + 1);
+            }
+            children[c - base] = child;
         }
     }
 }
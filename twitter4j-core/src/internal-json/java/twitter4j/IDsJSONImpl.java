@@ -40,7 +40,7 @@ import java.util.Arrays;
         init(json);
         if (conf.isJSONStoreEnabled()) {
             TwitterObjectFactory.clearThreadLocalMap();
-            TwitterObjectFactory.registerJSONObject(this, json);
+            TwitterObjectFactory.registerJSONObject(conf, this, json);
         }
     }
 
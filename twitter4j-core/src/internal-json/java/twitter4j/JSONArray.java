@@ -49,6 +49,9 @@ public class JSONArray {
 
     private final List<Object> values;
 
+    // the slice of the text this array was parsed from, or null unless parsed by a JSONTokener recording sources
+    private RawJSON rawJSON;
+
     /**
      * Creates a {@code JSONArray} with no values.
      */
@@ -91,6 +94,7 @@ public class JSONArray {
         Object object = readFrom.nextValue();
         if (object instanceof JSONArray) {
             values = ((JSONArray) object).values;
+            this.rawJSON = ((JSONArray) object).rawJSON;
         } else {
             throw JSON.typeMismatch(object, "JSONArray");
         }
@@ -107,6 +111,16 @@ public class JSONArray {
         this(new JSONTokener(json));
     }
 
+    /**
+     * @param json         a JSON-encoded string containing an array.
+     * @param recordSource whether to record the slice of {@code json} this array and the values in it were parsed from
+     * @throws JSONException if the parse fails or doesn't yield a {@code
+     *                       JSONArray}.
+     */
+    JSONArray(String json, boolean recordSource) throws JSONException {
+        this(new JSONTokener(json, recordSource));
+    }
+
     /**
      * Creates a new {@code JSONArray} with values from the given primitive array.
      *
@@ -725,4 +739,15 @@ public class JSONArray {
         // diverge from the original, which doesn't implement hashCode
         return values.hashCode();
     }
+
+    void setRawJSON(RawJSON rawJSON) {
+        this.rawJSON = rawJSON;
+    }
+
+    /**
+     * @return the slice of the text this array was parsed from, or null if not recorded
+     */
+    RawJSON getRawJSON() {
+        return rawJSON;
+    }
 }
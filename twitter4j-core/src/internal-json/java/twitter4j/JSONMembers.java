@@ -0,0 +1,404 @@
+/*
+ * Copyright 2007 Yusuke Yamamoto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package twitter4j;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Insertion ordered name/value storage backing {@link JSONObject}.<br>
+ * Names and values are kept in parallel arrays, and numbers are stored unboxed. Objects with a few members are searched linearly, larger ones through an open addressing index.
+ * Names of members Twitter API returns are shared among all instances, see {@link #knownName(String, int, int)}.
+ *
+ * @author Yusuke Yamamoto - yusuke at mac.com
+ * @since Twitter4J 4.0.8
+ */
+final class JSONMembers {
+    static final byte OBJECT = 0;
+    static final byte INT = 1;
+    static final byte LONG = 2;
+    static final byte DOUBLE = 3;
+
+    // objects up to this size are searched without the index
+    private static final int LINEAR_SEARCH_LIMIT = 8;
+
+    private String[] names;
+    private Object[] values;
+    // allocated when the first number is stored
+    private long[] numbers = null;
+    private byte[] kinds = null;
+    private int size = 0;
+    // position + 1 of the member, 0 for an empty slot. null while linear search is used
+    private int[] index = null;
+    private int modCount = 0;
+
+    JSONMembers() {
+        this(LINEAR_SEARCH_LIMIT);
+    }
+
+    JSONMembers(int capacity) {
+        names = new String[capacity];
+        values = new Object[capacity];
+    }
+
+    int size() {
+        return size;
+    }
+
+    String name(int position) {
+        return names[position];
+    }
+
+    byte kind(int position) {
+        return kinds == null ? OBJECT : kinds[position];
+    }
+
+    /**
+     * @return the value at the position, boxing numbers
+     */
+    Object value(int position) {
+        switch (kind(position)) {
+            case INT:
+                return (int) numbers[position];
+            case LONG:
+                return numbers[position];
+            case DOUBLE:
+                return Double.longBitsToDouble(numbers[position]);
+            default:
+                return values[position];
+        }
+    }
+
+    /**
+     * @return the number at the position converted to long. the position must hold a number
+     */
+    long longValue(int position) {
+        return kinds[position] == DOUBLE ? (long) Double.longBitsToDouble(numbers[position]) : numbers[position];
+    }
+
+    /**
+     * @return the number at the position converted to double. the position must hold a number
+     */
+    double doubleValue(int position) {
+        return kinds[position] == DOUBLE ? Double.longBitsToDouble(numbers[position]) : (double) numbers[position];
+    }
+
+    /**
+     * @return position of the member, or -1
+     */
+    int indexOf(String name) {
+        if (name == null) {
+            return -1;
+        }
+        if (index == null) {
+            for (int i = 0; i < size; i++) {
+                if (names[i] == name) {
+                    return i;
+                }
+            }
+            for (int i = 0; i < size; i++) {
+                if (names[i].equals(name)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        int mask = index.length - 1;
+        for (int slot = hash(name) & mask; ; slot = (slot + 1) & mask) {
+            int position = index[slot] - 1;
+            if (position == -1) {
+                return -1;
+            }
+            if (names[position] == name || names[position].equals(name)) {
+                return position;
+            }
+        }
+    }
+
+    Object get(String name) {
+        int position = indexOf(name);
+        return position == -1 ? null : value(position);
+    }
+
+    /**
+     * Stores the value. Integer, Long and Double values are stored unboxed.
+     */
+    void put(String name, Object value) {
+        if (value instanceof Integer) {
+            putNumber(name, INT, (Integer) value);
+        } else if (value instanceof Long) {
+            putNumber(name, LONG, (Long) value);
+        } else if (value instanceof Double) {
+            putNumber(name, DOUBLE, Double.doubleToRawLongBits((Double) value));
+        } else {
+            int position = positionFor(name);
+            values[position] = value;
+            if (kinds != null) {
+                kinds[position] = OBJECT;
+            }
+        }
+    }
+
+    void putInt(String name, int value) {
+        putNumber(name, INT, value);
+    }
+
+    void putLong(String name, long value) {
+        putNumber(name, LONG, value);
+    }
+
+    void putDouble(String name, double value) {
+        putNumber(name, DOUBLE, Double.doubleToRawLongBits(value));
+    }
+
+    private void putNumber(String name, byte kind, long bits) {
+        int position = positionFor(name);
+        if (kinds == null) {
+            numbers = new long[names.length];
+            kinds = new byte[names.length];
+        }
+        kinds[position] = kind;
+        numbers[position] = bits;
+        values[position] = null;
+    }
+
+    /**
+     * @return position of the existing member, or a newly appended one
+     */
+    private int positionFor(String name) {
+        int position = indexOf(name);
+        if (position != -1) {
+            return position;
+        }
+        if (size == names.length) {
+            grow();
+        }
+        position = size++;
+        names[position] = name;
+        modCount++;
+        if (index != null) {
+            addToIndex(position);
+        } else if (size > LINEAR_SEARCH_LIMIT) {
+            rebuildIndex();
+        }
+        return position;
+    }
+
+    private void grow() {
+        int capacity = names.length * 2;
+        names = Arrays.copyOf(names, capacity);
+        values = Arrays.copyOf(values, capacity);
+        if (kinds != null) {
+            numbers = Arrays.copyOf(numbers, capacity);
+            kinds = Arrays.copyOf(kinds, capacity);
+        }
+        if (index != null) {
+            rebuildIndex();
+        }
+    }
+
+    private void rebuildIndex() {
+        // keep the load factor at most 1/2
+        index = new int[Integer.highestOneBit(names.length) * 4];
+        for (int i = 0; i < size; i++) {
+            addToIndex(i);
+        }
+    }
+
+    private void addToIndex(int position) {
+        int mask = index.length - 1;
+        int slot = hash(names[position]) & mask;
+        while (index[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        index[slot] = position + 1;
+    }
+
+    private static int hash(String name) {
+        int h = name.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * @return the value removed, or null
+     */
+    Object remove(String name) {
+        int position = indexOf(name);
+        if (position == -1) {
+            return null;
+        }
+        Object removed = value(position);
+        removeAt(position);
+        return removed;
+    }
+
+    private void removeAt(int position) {
+        int moved = size - position - 1;
+        System.arraycopy(names, position + 1, names, position, moved);
+        System.arraycopy(values, position + 1, values, position, moved);
+        if (kinds != null) {
+            System.arraycopy(numbers, position + 1, numbers, position, moved);
+            System.arraycopy(kinds, position + 1, kinds, position, moved);
+        }
+        size--;
+        names[size] = null;
+        values[size] = null;
+        modCount++;
+        if (index != null) {
+            rebuildIndex();
+        }
+    }
+
+    /**
+     * @return live view of the names in insertion order
+     */
+    Set<String> keySet() {
+        return new AbstractSet<String>() {
+            @Override
+            public Iterator<String> iterator() {
+                return new Iterator<String>() {
+                    private int next = 0;
+                    private int last = -1;
+                    private int expectedModCount = modCount;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < size;
+                    }
+
+                    @Override
+                    public String next() {
+                        if (expectedModCount != modCount) {
+                            throw new ConcurrentModificationException();
+                        }
+                        if (next >= size) {
+                            throw new NoSuchElementException();
+                        }
+                        last = next++;
+                        return names[last];
+                    }
+
+                    @Override
+                    public void remove() {
+                        if (last == -1) {
+                            throw new IllegalStateException();
+                        }
+                        if (expectedModCount != modCount) {
+                            throw new ConcurrentModificationException();
+                        }
+                        removeAt(last);
+                        next = last;
+                        last = -1;
+                        expectedModCount = modCount;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof String && indexOf((String) o) != -1;
+            }
+
+            @Override
+            public boolean remove(Object o) {
+                return o instanceof String && JSONMembers.this.remove((String) o) != null;
+            }
+        };
+    }
+
+    // names of members Twitter API returns
+    private static final String[] KNOWN_NAMES = {
+            "allow_dms_from", "always_use_https", "as_of", "aspect_ratio", "attachment", "attributes", "author_name",
+            "author_url", "bitrate", "blocking", "bounding_box", "cache_age", "can_dm", "code", "completed_in",
+            "connections", "contained_within", "content_type", "contributors", "contributors_enabled", "coordinates",
+            "count", "country", "country_code", "created_at", "created_timestamp", "crop", "current_user_retweet",
+            "default_profile", "default_profile_image", "delete", "description", "discoverable_by_email", "display",
+            "display_text_range", "display_url", "duration_millis", "email", "enabled", "end_time", "entities",
+            "event", "events", "expanded", "expanded_url", "ext_alt_text", "extended_entities", "extended_tweet",
+            "favorite_count", "favorited", "favorites", "favourites_count", "filter_level", "follow_request_sent",
+            "followed_by", "followers", "followers_count", "following", "friends", "friends_count", "full_name",
+            "full_text", "geo", "geo_enabled", "geometry", "has_extended_profile", "hashtags", "html", "id", "id_str",
+            "ids", "in_reply_to_screen_name", "in_reply_to_status_id", "in_reply_to_status_id_str",
+            "in_reply_to_user_id", "in_reply_to_user_id_str", "indices", "is_quote_status", "is_translation_enabled",
+            "is_translator", "label", "lang", "language", "large", "limit", "listed_count", "lists", "location",
+            "locations", "max_id", "media", "media_url", "media_url_https", "medium", "member_count", "message_create",
+            "message_data", "metadata", "mode", "muting", "name", "next_cursor", "next_cursor_str", "next_results",
+            "notifications", "notifications_enabled", "options", "place", "place_ids", "place_type", "places",
+            "polls", "position", "possibly_sensitive", "previous_cursor", "previous_cursor_str", "profile_background_color",
+            "profile_background_image_url", "profile_background_image_url_https", "profile_background_tile",
+            "profile_banner_url", "profile_image_url", "profile_image_url_https", "profile_link_color",
+            "profile_sidebar_border_color", "profile_sidebar_fill_color", "profile_text_color",
+            "profile_use_background_image", "protected", "provider_name", "provider_url", "query", "quick_reply",
+            "quick_reply_response", "quote_count", "quoted_status", "quoted_status_id", "quoted_status_id_str",
+            "quoted_status_permalink", "recipient_id", "refresh_url", "relationship", "remaining", "reply_count",
+            "reset", "resize", "resources", "result", "retweet_count", "retweeted", "retweeted_status", "scopes",
+            "screen_name", "scrub_geo", "search_metadata", "sender_id", "show_all_inline_media", "since_id",
+            "since_id_str", "sizes", "sleep_time", "slug", "small", "source", "start_time", "status", "statuses",
+            "statuses_count", "street_address", "subscriber_count", "symbols", "target", "text", "thumb",
+            "time_zone", "timestamp_ms", "translator_type", "trend_location", "trends", "truncated", "tweet_volume",
+            "type", "tzinfo_name", "up_to_status_id", "up_to_status_id_str", "updates", "uri", "url", "urls", "user",
+            "user_id", "user_id_str", "user_mentions", "users", "utc_offset", "variants", "verified", "version",
+            "video_info", "want_retweets", "warning", "width", "withheld_in_countries", "woeid",
+    };
+    private static final String[] NAME_TABLE = new String[Integer.highestOneBit(KNOWN_NAMES.length) * 4];
+
+    static {
+        int mask = NAME_TABLE.length - 1;
+        for (String name : KNOWN_NAMES) {
+            int slot = hash(name) & mask;
+            while (NAME_TABLE[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            NAME_TABLE[slot] = name;
+        }
+    }
+
+    /**
+     * Looks up the known member name equal to the region without creating a String.
+     *
+     * @param in    source
+     * @param start start index, inclusive
+     * @param end   end index, exclusive
+     * @return shared instance of the name, or null if the name is not known
+     */
+    static String knownName(String in, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + in.charAt(i);
+        }
+        h ^= h >>> 16;
+        int length = end - start;
+        int mask = NAME_TABLE.length - 1;
+        for (int slot = h & mask; ; slot = (slot + 1) & mask) {
+            String name = NAME_TABLE[slot];
+            if (name == null) {
+                return null;
+            }
+            if (name.length() == length && in.regionMatches(start, name, 0, length)) {
+                return name;
+            }
+        }
+    }
+}
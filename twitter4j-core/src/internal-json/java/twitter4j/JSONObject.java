@@ -19,7 +19,6 @@ package twitter4j;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
-import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
@@ -116,13 +115,16 @@ public class JSONObject {
         }
     };
 
-    private final LinkedHashMap<String, Object> nameValuePairs;
+    private final JSONMembers nameValuePairs;
+
+    // the slice of the text this object was parsed from, or null unless parsed by a JSONTokener recording sources
+    private RawJSON rawJSON;
 
     /**
      * Creates a {@code JSONObject} with no name/value mappings.
      */
     public JSONObject() {
-        nameValuePairs = new LinkedHashMap<>();
+        nameValuePairs = new JSONMembers();
     }
 
     /**
@@ -167,6 +169,7 @@ public class JSONObject {
         Object object = readFrom.nextValue();
         if (object instanceof JSONObject) {
             this.nameValuePairs = ((JSONObject) object).nameValuePairs;
+            this.rawJSON = ((JSONObject) object).rawJSON;
         } else {
             throw JSON.typeMismatch(object, "JSONObject");
         }
@@ -184,6 +187,16 @@ public class JSONObject {
         this(new JSONTokener(json));
     }
 
+    /**
+     * @param json         a JSON-encoded string containing an object.
+     * @param recordSource whether to record the slice of {@code json} this object and the values in it were parsed from
+     * @throws JSONException if the parse fails or doesn't yield a {@code
+     *                       JSONObject}.
+     */
+    JSONObject(String json, boolean recordSource) throws JSONException {
+        this(new JSONTokener(json, recordSource));
+    }
+
     /**
      * Creates a new {@code JSONObject} by copying mappings for the listed names
      * from the given object. Names that aren't present in {@code copyFrom} will
@@ -237,7 +250,7 @@ public class JSONObject {
      * @throws JSONException if value is NaN or infinite.
      */
     public JSONObject put(String name, double value) throws JSONException {
-        nameValuePairs.put(checkName(name), JSON.checkDouble(value));
+        nameValuePairs.putDouble(checkName(name), JSON.checkDouble(value));
         return this;
     }
 
@@ -251,7 +264,7 @@ public class JSONObject {
      * @throws JSONException Should not be possible.
      */
     public JSONObject put(String name, int value) throws JSONException {
-        nameValuePairs.put(checkName(name), value);
+        nameValuePairs.putInt(checkName(name), value);
         return this;
     }
 
@@ -265,7 +278,7 @@ public class JSONObject {
      * @throws JSONException Should not be possible.
      */
     public JSONObject put(String name, long value) throws JSONException {
-        nameValuePairs.put(checkName(name), value);
+        nameValuePairs.putLong(checkName(name), value);
         return this;
     }
 
@@ -420,7 +433,7 @@ public class JSONObject {
      * @return true if this object has a field named {@code name}
      */
     public boolean has(String name) {
-        return nameValuePairs.containsKey(name);
+        return nameValuePairs.indexOf(name) != -1;
     }
 
     /**
@@ -502,6 +515,10 @@ public class JSONObject {
      *                       to a double.
      */
     public double getDouble(String name) throws JSONException {
+        int position = nameValuePairs.indexOf(name);
+        if (position != -1 && nameValuePairs.kind(position) != JSONMembers.OBJECT) {
+            return nameValuePairs.doubleValue(position);
+        }
         Object object = get(name);
         Double result = JSON.toDouble(object);
         if (result == null) {
@@ -530,6 +547,10 @@ public class JSONObject {
      * @return The selected value or the fallback.
      */
     public double optDouble(String name, double fallback) {
+        int position = nameValuePairs.indexOf(name);
+        if (position != -1 && nameValuePairs.kind(position) != JSONMembers.OBJECT) {
+            return nameValuePairs.doubleValue(position);
+        }
         Object object = opt(name);
         Double result = JSON.toDouble(object);
         return result != null ? result : fallback;
@@ -545,6 +566,10 @@ public class JSONObject {
      *                       to an int.
      */
     public int getInt(String name) throws JSONException {
+        int position = nameValuePairs.indexOf(name);
+        if (position != -1 && nameValuePairs.kind(position) != JSONMembers.OBJECT) {
+            return intValue(position);
+        }
         Object object = get(name);
         Integer result = JSON.toInteger(object);
         if (result == null) {
@@ -573,6 +598,10 @@ public class JSONObject {
      * @return The selected value or the fallback.
      */
     public int optInt(String name, int fallback) {
+        int position = nameValuePairs.indexOf(name);
+        if (position != -1 && nameValuePairs.kind(position) != JSONMembers.OBJECT) {
+            return intValue(position);
+        }
         Object object = opt(name);
         Integer result = JSON.toInteger(object);
         return result != null ? result : fallback;
@@ -592,6 +621,10 @@ public class JSONObject {
      *                       to a long.
      */
     public long getLong(String name) throws JSONException {
+        int position = nameValuePairs.indexOf(name);
+        if (position != -1 && nameValuePairs.kind(position) != JSONMembers.OBJECT) {
+            return nameValuePairs.longValue(position);
+        }
         Object object = get(name);
         Long result = JSON.toLong(object);
         if (result == null) {
@@ -623,11 +656,28 @@ public class JSONObject {
      * @return The selected value or the fallback.
      */
     public long optLong(String name, long fallback) {
+        int position = nameValuePairs.indexOf(name);
+        if (position != -1 && nameValuePairs.kind(position) != JSONMembers.OBJECT) {
+            return nameValuePairs.longValue(position);
+        }
         Object object = opt(name);
         Long result = JSON.toLong(object);
         return result != null ? result : fallback;
     }
 
+    // same as Number.intValue() of the boxed value
+    private int intValue(int position) {
+        return nameValuePairs.kind(position) == JSONMembers.DOUBLE
+                ? (int) nameValuePairs.doubleValue(position) : (int) nameValuePairs.longValue(position);
+    }
+
+    /**
+     * @return storage of the members, for the parser and ParseUtil to access numbers without boxing
+     */
+    JSONMembers members() {
+        return nameValuePairs;
+    }
+
     /**
      * Returns the value mapped by {@code name} if it exists, coercing it if
      * necessary, or throws if no such mapping exists.
@@ -789,7 +839,7 @@ public class JSONObject {
      * @return the names.
      */
     public JSONArray names() {
-        return nameValuePairs.isEmpty()
+        return nameValuePairs.size() == 0
                 ? null
                 : new JSONArray(new ArrayList<>(nameValuePairs.keySet()));
     }
@@ -834,8 +884,19 @@ public class JSONObject {
 
     void writeTo(JSONStringer stringer) throws JSONException {
         stringer.object();
-        for (Map.Entry<String, Object> entry : nameValuePairs.entrySet()) {
-            stringer.key(entry.getKey()).value(entry.getValue());
+        for (int i = 0; i < nameValuePairs.size(); i++) {
+            stringer.key(nameValuePairs.name(i));
+            switch (nameValuePairs.kind(i)) {
+                case JSONMembers.INT:
+                case JSONMembers.LONG:
+                    stringer.value(nameValuePairs.longValue(i));
+                    break;
+                case JSONMembers.DOUBLE:
+                    stringer.value(nameValuePairs.doubleValue(i));
+                    break;
+                default:
+                    stringer.value(nameValuePairs.value(i));
+            }
         }
         stringer.endObject();
     }
@@ -944,4 +1005,15 @@ public class JSONObject {
         }
         return null;
     }
+
+    void setRawJSON(RawJSON rawJSON) {
+        this.rawJSON = rawJSON;
+    }
+
+    /**
+     * @return the slice of the text this object was parsed from, or null if not recorded
+     */
+    RawJSON getRawJSON() {
+        return rawJSON;
+    }
 }
@@ -78,12 +78,26 @@ public class JSONTokener {
      */
     private int pos;
 
+    /**
+     * Whether to record the slice of the input each object and array was parsed from.
+     */
+    private final boolean recordSource;
+
     /**
      * @param in JSON encoded string. Null is not permitted and will yield a
      *           tokener that throws {@code NullPointerExceptions} when methods are
      *           called.
      */
     public JSONTokener(String in) {
+        this(in, false);
+    }
+
+    /**
+     * @param in           JSON encoded string.
+     * @param recordSource whether to record the slice of {@code in} each object and array was parsed from
+     */
+    JSONTokener(String in, boolean recordSource) {
+        this.recordSource = recordSource;
         // consume an optional byte order mark (BOM) if it exists
         if (in != null && in.startsWith("\ufeff")) {
             in = in.substring(1);
@@ -92,6 +106,7 @@ public class JSONTokener {
     }
 
     public JSONTokener(Reader input) {
+        recordSource = false;
         try {
             StringBuilder s = new StringBuilder();
             char[] readBuf = new char[102400];
@@ -124,11 +139,23 @@ public class JSONTokener {
             case -1:
                 throw syntaxError("End of input");
 
-            case '{':
-                return readObject();
+            case '{': {
+                int start = pos - 1;
+                JSONObject object = readObject();
+                if (recordSource) {
+                    object.setRawJSON(new RawJSON(in, start, pos));
+                }
+                return object;
+            }
 
-            case '[':
-                return readArray();
+            case '[': {
+                int start = pos - 1;
+                JSONArray array = readArray();
+                if (recordSource) {
+                    array.setRawJSON(new RawJSON(in, start, pos));
+                }
+                return array;
+            }
 
             case '\'':
             case '"':
@@ -390,7 +417,7 @@ public class JSONTokener {
         }
 
         while (true) {
-            Object name = nextValue();
+            Object name = nextName();
             if (!(name instanceof String)) {
                 if (name == null) {
                     throw syntaxError("Names cannot be null");
@@ -413,7 +440,9 @@ public class JSONTokener {
                 pos++;
             }
 
-            result.put((String) name, nextValue());
+            if (!readIntegerInto(result, (String) name)) {
+                result.put((String) name, nextValue());
+            }
 
             switch (nextCleanInternal()) {
                 case '}':
@@ -427,6 +456,87 @@ public class JSONTokener {
         }
     }
 
+    /**
+     * Returns the next member name. Names known to be returned by Twitter API are returned as shared instances without creating a String.
+     */
+    private Object nextName() throws JSONException {
+        int c = nextCleanInternal();
+        if (c == '"') {
+            for (int end = pos; end < in.length(); end++) {
+                char ch = in.charAt(end);
+                if (ch == '"') {
+                    String known = JSONMembers.knownName(in, pos, end);
+                    if (known != null) {
+                        pos = end + 1;
+                        return known;
+                    }
+                    break;
+                } else if (ch == '\\') {
+                    break;
+                }
+            }
+        }
+        if (c != -1) {
+            pos--;
+        }
+        return nextValue();
+    }
+
+    /**
+     * Stores a decimal integer value directly as a primitive, avoiding the literal String and boxing.
+     *
+     * @return false if the next value is not a decimal integer which fits in long. the position is not changed in that case
+     */
+    private boolean readIntegerInto(JSONObject result, String name) {
+        int start = pos;
+        while (start < in.length() && " \t\r\n".indexOf(in.charAt(start)) != -1) {
+            start++;
+        }
+        int i = start;
+        boolean negative = i < in.length() && in.charAt(i) == '-';
+        if (negative) {
+            i++;
+        }
+        int digitsStart = i;
+        // accumulates negatively, as Long.MIN_VALUE has no positive counterpart
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long value = 0;
+        while (i < in.length()) {
+            char c = in.charAt(i);
+            if (c < '0' || c > '9') {
+                break;
+            }
+            int digit = c - '0';
+            if (value < limit / 10 || value * 10 < limit + digit) {
+                // overflows long
+                return false;
+            }
+            value = value * 10 - digit;
+            i++;
+        }
+        int digits = i - digitsStart;
+        // leading zeros mean octal, and other characters mean double, hex or unquoted string. leave them to readLiteral()
+        if (digits == 0 || (digits > 1 && in.charAt(digitsStart) == '0')) {
+            return false;
+        }
+        if (i < in.length()) {
+            char c = in.charAt(i);
+            if ("{}[]/\\:,=;# \t\f\r\n".indexOf(c) == -1) {
+                return false;
+            }
+        }
+        if (!negative) {
+            value = -value;
+        }
+        pos = i;
+        if (value <= Integer.MAX_VALUE && value >= Integer.MIN_VALUE) {
+            result.members().putInt(name, (int) value);
+        } else {
+            result.members().putLong(name, value);
+        }
+        return true;
+    }
+
     /**
      * Reads a sequence of values and the trailing closing brace ']' of an
      * array. The opening brace '[' should have already been read. Note that
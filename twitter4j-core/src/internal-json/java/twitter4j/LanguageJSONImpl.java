@@ -81,11 +81,11 @@ public class LanguageJSONImpl implements HelpResources.Language {
                 HelpResources.Language language = new LanguageJSONImpl(json);
                 languages.add(language);
                 if (conf.isJSONStoreEnabled()) {
-                    TwitterObjectFactory.registerJSONObject(language, json);
+                    TwitterObjectFactory.registerJSONObject(conf, language, json);
                 }
             }
             if (conf.isJSONStoreEnabled()) {
-                TwitterObjectFactory.registerJSONObject(languages, list);
+                TwitterObjectFactory.registerJSONObject(conf, languages, list);
             }
             return languages;
         } catch (JSONException jsone) {
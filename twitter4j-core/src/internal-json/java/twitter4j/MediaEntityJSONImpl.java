@@ -15,6 +15,7 @@
  */
 package twitter4j;
 
+import java.io.IOException;
 import java.io.Serial;
 import java.util.HashMap;
 import java.util.Map;
@@ -105,6 +106,79 @@ public class MediaEntityJSONImpl extends EntityIndex implements MediaEntity {
 
     }
 
+    /* package */ MediaEntityJSONImpl(BinaryCodec.Decoder in) throws IOException {
+        setStart(in.readInt());
+        setEnd(in.readInt());
+        this.id = in.readLong();
+        this.url = in.readString();
+        this.mediaURL = in.readString();
+        this.mediaURLHttps = in.readString();
+        this.expandedURL = in.readString();
+        this.displayURL = in.readString();
+        int length = in.readArrayLength();
+        if (length != -1) {
+            this.sizes = new HashMap<>(4);
+            for (int i = 0; i < length; i++) {
+                Size size = new Size();
+                Integer key = in.readInt();
+                size.width = in.readInt();
+                size.height = in.readInt();
+                size.resize = in.readInt();
+                this.sizes.put(key, size);
+            }
+        }
+        this.type = in.readString();
+        this.videoAspectRatioWidth = in.readInt();
+        this.videoAspectRatioHeight = in.readInt();
+        this.videoDurationMillis = in.readLong();
+        length = in.readArrayLength();
+        if (length != -1) {
+            this.videoVariants = new Variant[length];
+            for (int i = 0; i < length; i++) {
+                Variant variant = new Variant();
+                variant.bitrate = in.readInt();
+                variant.contentType = in.readString();
+                variant.url = in.readString();
+                this.videoVariants[i] = variant;
+            }
+        }
+        this.extAltText = in.readString();
+    }
+
+    /* package */ void writeTo(BinaryCodec.Encoder out) throws IOException {
+        out.writeInt(getStart());
+        out.writeInt(getEnd());
+        out.writeLong(id);
+        out.writeString(url);
+        out.writeString(mediaURL);
+        out.writeString(mediaURLHttps);
+        out.writeString(expandedURL);
+        out.writeString(displayURL);
+        if (sizes == null) {
+            out.writeUnsigned(0);
+        } else {
+            out.writeUnsigned(sizes.size() + 1L);
+            for (Map.Entry<Integer, MediaEntity.Size> entry : sizes.entrySet()) {
+                out.writeInt(entry.getKey());
+                out.writeInt(entry.getValue().getWidth());
+                out.writeInt(entry.getValue().getHeight());
+                out.writeInt(entry.getValue().getResize());
+            }
+        }
+        out.writeString(type);
+        out.writeInt(videoAspectRatioWidth);
+        out.writeInt(videoAspectRatioHeight);
+        out.writeLong(videoDurationMillis);
+        if (out.writeLength(videoVariants)) {
+            for (Variant variant : videoVariants) {
+                out.writeInt(variant.bitrate);
+                out.writeString(variant.contentType);
+                out.writeString(variant.url);
+            }
+        }
+        out.writeString(extAltText);
+    }
+
     @Override
     public long getId() {
         return id;
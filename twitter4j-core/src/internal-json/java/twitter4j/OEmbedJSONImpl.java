@@ -41,7 +41,7 @@ public class OEmbedJSONImpl extends TwitterResponseImpl implements OEmbed, java.
         init(json);
         if (conf.isJSONStoreEnabled()) {
             TwitterObjectFactory.clearThreadLocalMap();
-            TwitterObjectFactory.registerJSONObject(this, json);
+            TwitterObjectFactory.registerJSONObject(conf, this, json);
         }
     }
 
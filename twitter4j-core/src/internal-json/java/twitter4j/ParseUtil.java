@@ -20,10 +20,13 @@ import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.Arrays;
 import java.util.Date;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.LinkedBlockingQueue;
 
 /**
@@ -37,11 +40,44 @@ final class ParseUtil {
         throw new AssertionError();
     }
 
+    // low cardinality fields whose values are shared through StringPool.
+    // "name" is not listed as display names of users are not, see getPooledUnescapedString() for names of places
+    private static final Set<String> POOLED_NAMES = new HashSet<>(Arrays.asList(
+            "lang", "source", "filter_level", "location", "time_zone", "screen_name", "profile_background_color", "profile_text_color",
+            "profile_link_color", "profile_sidebar_fill_color", "profile_sidebar_border_color",
+            "profile_background_image_url", "profile_background_image_url_https",
+            "country", "country_code", "place_type", "full_name"));
+
     static String getUnescapedString(String str, JSONObject json) {
-        return HTMLEntity.unescape(getRawString(str, json));
+        return pooled(str, HTMLEntity.unescape(getString(str, json)));
     }
 
     public static String getRawString(String name, JSONObject json) {
+        return pooled(name, getString(name, json));
+    }
+
+    /**
+     * Shares the value through StringPool whatever the field name is. For fields of low cardinality only in some objects, such as names of places.
+     */
+    static String getPooledUnescapedString(String name, JSONObject json) {
+        return pooled(HTMLEntity.unescape(getString(name, json)));
+    }
+
+    private static String pooled(String name, String value) {
+        return POOLED_NAMES.contains(name) ? pooled(value) : value;
+    }
+
+    private static String pooled(String value) {
+        if (value != null) {
+            StringPool pool = StringPool.getInstance();
+            if (pool.isEnabled()) {
+                return pool.intern(value);
+            }
+        }
+        return value;
+    }
+
+    private static String getString(String name, JSONObject json) {
         try {
             if (json.isNull(name)) {
                 return null;
@@ -79,8 +115,10 @@ final class ParseUtil {
     }
 
 
+    private static final String TWITTER_DATE_FORMAT = "EEE MMM dd HH:mm:ss z yyyy";
+
     public static Date getDate(String name, JSONObject json) throws TwitterException {
-        return getDate(name, json, "EEE MMM d HH:mm:ss z yyyy");
+        return getDate(name, json, TWITTER_DATE_FORMAT);
     }
 
     public static Date getDate(String name, JSONObject json, String format) throws TwitterException {
@@ -92,14 +130,17 @@ final class ParseUtil {
         }
     }
 
-    private final static Map<String, LinkedBlockingQueue<SimpleDateFormat>> formatMapQueue = new HashMap<>();
+    private final static Map<String, LinkedBlockingQueue<SimpleDateFormat>> formatMapQueue = new ConcurrentHashMap<>();
 
     public static Date getDate(String dateString, String format) throws TwitterException {
-        LinkedBlockingQueue<SimpleDateFormat> simpleDateFormats = formatMapQueue.get(format);
-        if (simpleDateFormats == null) {
-            simpleDateFormats = new LinkedBlockingQueue<>();
-            formatMapQueue.put(format, simpleDateFormats);
+        if (TWITTER_DATE_FORMAT.equals(format) || "EEE MMM d HH:mm:ss z yyyy".equals(format)) {
+            long millis = TwitterDateParser.parse(dateString);
+            if (millis != TwitterDateParser.INVALID) {
+                return new Date(millis);
+            }
         }
+        // falls back to SimpleDateFormat for other formats
+        LinkedBlockingQueue<SimpleDateFormat> simpleDateFormats = formatMapQueue.computeIfAbsent(format, f -> new LinkedBlockingQueue<>());
         SimpleDateFormat sdf = simpleDateFormats.poll();
         if (null == sdf) {
             sdf = new SimpleDateFormat(format, Locale.US);
@@ -120,6 +161,13 @@ final class ParseUtil {
     }
 
     public static int getInt(String name, JSONObject json) {
+        JSONMembers members = json.members();
+        int position = members.indexOf(name);
+        if (position != -1 && members.kind(position) != JSONMembers.OBJECT && members.kind(position) != JSONMembers.DOUBLE) {
+            long value = members.longValue(position);
+            // consistent with Integer.valueOf() failing for values out of int range
+            return value <= Integer.MAX_VALUE && value >= Integer.MIN_VALUE ? (int) value : -1;
+        }
         return getInt(getRawString(name, json));
     }
 
@@ -137,6 +185,11 @@ final class ParseUtil {
     }
 
     public static long getLong(String name, JSONObject json) {
+        JSONMembers members = json.members();
+        int position = members.indexOf(name);
+        if (position != -1 && members.kind(position) != JSONMembers.OBJECT && members.kind(position) != JSONMembers.DOUBLE) {
+            return members.longValue(position);
+        }
         return getLong(getRawString(name, json));
     }
 
@@ -154,6 +207,11 @@ final class ParseUtil {
     }
 
     public static double getDouble(String name, JSONObject json) {
+        JSONMembers members = json.members();
+        int position = members.indexOf(name);
+        if (position != -1 && members.kind(position) != JSONMembers.OBJECT) {
+            return members.doubleValue(position);
+        }
         String str2 = getRawString(name, json);
         if (null == str2 || "".equals(str2) || "null".equals(str2)) {
             return -1;
@@ -18,6 +18,7 @@ package twitter4j;
 
 import twitter4j.conf.Configuration;
 
+import java.io.IOException;
 import java.io.Serial;
 import java.util.Arrays;
 
@@ -48,7 +49,7 @@ final class PlaceJSONImpl extends TwitterResponseImpl implements Place, java.io.
         init(json);
         if (conf.isJSONStoreEnabled()) {
             TwitterObjectFactory.clearThreadLocalMap();
-            TwitterObjectFactory.registerJSONObject(this, json);
+            TwitterObjectFactory.registerJSONObject(conf, this, json);
         }
     }
 
@@ -62,9 +63,52 @@ final class PlaceJSONImpl extends TwitterResponseImpl implements Place, java.io.
 
     }
 
+    PlaceJSONImpl(BinaryCodec.Decoder in) throws IOException {
+        super();
+        name = in.readString();
+        streetAddress = in.readString();
+        countryCode = in.readString();
+        id = in.readString();
+        country = in.readString();
+        placeType = in.readString();
+        url = in.readString();
+        fullName = in.readString();
+        boundingBoxType = in.readString();
+        boundingBoxCoordinates = in.readGeoLocations();
+        geometryType = in.readString();
+        geometryCoordinates = in.readGeoLocations();
+        int length = in.readArrayLength();
+        if (length != -1) {
+            containedWithIn = new Place[length];
+            for (int i = 0; i < length; i++) {
+                containedWithIn[i] = new PlaceJSONImpl(in);
+            }
+        }
+    }
+
+    void writeTo(BinaryCodec.Encoder out) throws IOException {
+        out.writeString(name);
+        out.writeString(streetAddress);
+        out.writeString(countryCode);
+        out.writeString(id);
+        out.writeString(country);
+        out.writeString(placeType);
+        out.writeString(url);
+        out.writeString(fullName);
+        out.writeString(boundingBoxType);
+        out.writeGeoLocations(boundingBoxCoordinates);
+        out.writeString(geometryType);
+        out.writeGeoLocations(geometryCoordinates);
+        if (out.writeLength(containedWithIn)) {
+            for (Place place : containedWithIn) {
+                ((PlaceJSONImpl) place).writeTo(out);
+            }
+        }
+    }
+
     private void init(JSONObject json) throws TwitterException {
         try {
-            name = ParseUtil.getUnescapedString("name", json);
+            name = ParseUtil.getPooledUnescapedString("name", json);
             streetAddress = ParseUtil.getUnescapedString("street_address", json);
             countryCode = ParseUtil.getRawString("country_code", json);
             id = ParseUtil.getRawString("id", json);
@@ -150,11 +194,11 @@ final class PlaceJSONImpl extends TwitterResponseImpl implements Place, java.io.
                 Place place = new PlaceJSONImpl(json);
                 places.add(place);
                 if (conf.isJSONStoreEnabled()) {
-                    TwitterObjectFactory.registerJSONObject(place, json);
+                    TwitterObjectFactory.registerJSONObject(conf, place, json);
                 }
             }
             if (conf.isJSONStoreEnabled()) {
-                TwitterObjectFactory.registerJSONObject(places, list);
+                TwitterObjectFactory.registerJSONObject(conf, places, list);
             }
             return places;
         } catch (JSONException jsone) {
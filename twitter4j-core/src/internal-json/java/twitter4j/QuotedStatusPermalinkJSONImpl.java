@@ -16,6 +16,7 @@
 
 package twitter4j;
 
+import java.io.IOException;
 import java.io.Serial;
 import java.util.Objects;
 
@@ -42,6 +43,23 @@ import java.util.Objects;
     /* package */ QuotedStatusPermalinkJSONImpl() {
     }
 
+    /* package */ QuotedStatusPermalinkJSONImpl(BinaryCodec.Decoder in) throws IOException {
+        super();
+        setStart(in.readInt());
+        setEnd(in.readInt());
+        this.url = in.readString();
+        this.expandedURL = in.readString();
+        this.displayURL = in.readString();
+    }
+
+    /* package */ void writeTo(BinaryCodec.Encoder out) throws IOException {
+        out.writeInt(getStart());
+        out.writeInt(getEnd());
+        out.writeString(url);
+        out.writeString(expandedURL);
+        out.writeString(displayURL);
+    }
+
     private void init(JSONObject json) throws TwitterException {
         try {
             if (!json.isNull("url")) {
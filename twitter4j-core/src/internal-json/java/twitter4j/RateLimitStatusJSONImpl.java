@@ -44,7 +44,7 @@ import java.util.Map;
         Map<String, RateLimitStatus> map = createRateLimitStatuses(json);
         if (conf.isJSONStoreEnabled()) {
             TwitterObjectFactory.clearThreadLocalMap();
-            TwitterObjectFactory.registerJSONObject(map, json);
+            TwitterObjectFactory.registerJSONObject(conf, map, json);
         }
         return map;
     }
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2007 Yusuke Yamamoto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package twitter4j;
+
+/**
+ * The slice of a response body or a stream line an object was parsed from.<br>
+ * The body is shared among objects parsed from it until the raw JSON of an object is asked for the first time,
+ * when the slice is copied out and the reference to the body is released.
+ *
+ * @author Yusuke Yamamoto - yusuke at mac.com
+ * @since Twitter4J 4.0.8
+ */
+final class RawJSON {
+    private String source;
+    private final int start;
+    private final int end;
+    private String json;
+
+    RawJSON(String source, int start, int end) {
+        this.source = source;
+        this.start = start;
+        this.end = end;
+    }
+
+    @Override
+    public synchronized String toString() {
+        if (json == null) {
+            json = source.substring(start, end);
+            source = null;
+        }
+        return json;
+    }
+
+    /**
+     * An object retaining the slice it was parsed from, when jsonStorePerObject is enabled.
+     */
+    interface Holder {
+        RawJSON getRawJSON();
+
+        void setRawJSON(RawJSON rawJSON);
+    }
+}
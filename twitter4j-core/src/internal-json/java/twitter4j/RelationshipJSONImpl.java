@@ -48,7 +48,7 @@ import java.util.Objects;
         this(res, res.asJSONObject());
         if (conf.isJSONStoreEnabled()) {
             TwitterObjectFactory.clearThreadLocalMap();
-            TwitterObjectFactory.registerJSONObject(this, res.asJSONObject());
+            TwitterObjectFactory.registerJSONObject(conf, this, res.asJSONObject());
         }
     }
 
@@ -91,12 +91,12 @@ import java.util.Objects;
                 JSONObject json = list.getJSONObject(i);
                 Relationship relationship = new RelationshipJSONImpl(json);
                 if (conf.isJSONStoreEnabled()) {
-                    TwitterObjectFactory.registerJSONObject(relationship, json);
+                    TwitterObjectFactory.registerJSONObject(conf, relationship, json);
                 }
                 relationships.add(relationship);
             }
             if (conf.isJSONStoreEnabled()) {
-                TwitterObjectFactory.registerJSONObject(relationships, list);
+                TwitterObjectFactory.registerJSONObject(conf, relationships, list);
             }
             return relationships;
         } catch (JSONException jsone) {
@@ -23,11 +23,12 @@ import java.util.ArrayList;
  * @author Yusuke Yamamoto - yusuke at mac.com
  * @since Twitter4J 2.1.3
  */
-class ResponseListImpl<T> extends ArrayList<T> implements ResponseList<T> {
+class ResponseListImpl<T> extends ArrayList<T> implements ResponseList<T>, RawJSON.Holder {
     @Serial
     private static final long serialVersionUID = 9105950888010803544L;
     private transient RateLimitStatus rateLimitStatus = null;
     private transient AccessLevel accessLevel;
+    private transient RawJSON rawJSON = null;
 
     ResponseListImpl(HttpResponse res) {
         super();
@@ -59,4 +60,14 @@ class ResponseListImpl<T> extends ArrayList<T> implements ResponseList<T> {
     public AccessLevel getAccessLevel() {
         return accessLevel;
     }
+
+    @Override
+    public RawJSON getRawJSON() {
+        return rawJSON;
+    }
+
+    @Override
+    public void setRawJSON(RawJSON rawJSON) {
+        this.rawJSON = rawJSON;
+    }
 }
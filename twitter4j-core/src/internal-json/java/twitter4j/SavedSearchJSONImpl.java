@@ -45,7 +45,7 @@ import java.util.Date;
         JSONObject json = res.asJSONObject();
         init(json);
         if (conf.isJSONStoreEnabled()) {
-            TwitterObjectFactory.registerJSONObject(this, json);
+            TwitterObjectFactory.registerJSONObject(conf, this, json);
         }
     }
 
@@ -67,11 +67,11 @@ import java.util.Date;
                 SavedSearch savedSearch = new SavedSearchJSONImpl(savedSearchesJSON);
                 savedSearches.add(savedSearch);
                 if (conf.isJSONStoreEnabled()) {
-                    TwitterObjectFactory.registerJSONObject(savedSearch, savedSearchesJSON);
+                    TwitterObjectFactory.registerJSONObject(conf, savedSearch, savedSearchesJSON);
                 }
             }
             if (conf.isJSONStoreEnabled()) {
-                TwitterObjectFactory.registerJSONObject(savedSearches, json);
+                TwitterObjectFactory.registerJSONObject(conf, savedSearches, json);
             }
             return savedSearches;
         } catch (JSONException jsone) {
@@ -18,6 +18,7 @@ package twitter4j;
 
 import twitter4j.conf.Configuration;
 
+import java.io.IOException;
 import java.io.Serial;
 import java.util.Arrays;
 import java.util.Date;
@@ -76,7 +77,7 @@ import static twitter4j.ParseUtil.getDate;
         init(json);
         if (conf.isJSONStoreEnabled()) {
             TwitterObjectFactory.clearThreadLocalMap();
-            TwitterObjectFactory.registerJSONObject(this, json);
+            TwitterObjectFactory.registerJSONObject(conf, this, json);
         }
     }
 
@@ -84,7 +85,7 @@ import static twitter4j.ParseUtil.getDate;
         super();
         init(json);
         if (conf.isJSONStoreEnabled()) {
-            TwitterObjectFactory.registerJSONObject(this, json);
+            TwitterObjectFactory.registerJSONObject(conf, this, json);
         }
     }
 
@@ -98,6 +99,92 @@ import static twitter4j.ParseUtil.getDate;
 
     }
 
+    /*package*/ StatusJSONImpl(BinaryCodec.Decoder in) throws IOException {
+        super();
+        id = in.readLong();
+        createdAt = in.readDate();
+        text = in.readString();
+        displayTextRangeStart = in.readInt();
+        displayTextRangeEnd = in.readInt();
+        source = in.readString();
+        int flags = in.readInt();
+        isTruncated = (flags & 1) != 0;
+        isFavorited = (flags & 2) != 0;
+        isRetweeted = (flags & 4) != 0;
+        isPossiblySensitive = (flags & 8) != 0;
+        inReplyToStatusId = in.readLong();
+        inReplyToUserId = in.readLong();
+        inReplyToScreenName = in.readString();
+        favoriteCount = in.readInt();
+        retweetCount = in.readLong();
+        geoLocation = in.readGeoLocation();
+        if (in.readBoolean()) {
+            place = new PlaceJSONImpl(in);
+        }
+        lang = in.readString();
+        contributorsIDs = in.readLongs();
+        user = in.readUser();
+        retweetedStatus = in.readStatus();
+        if (in.hasEntities()) {
+            userMentionEntities = in.readUserMentionEntities();
+            urlEntities = in.readURLEntities();
+            hashtagEntities = in.readHashtagEntities();
+            mediaEntities = in.readMediaEntities();
+            symbolEntities = in.readSymbolEntities();
+        } else {
+            userMentionEntities = new UserMentionEntity[0];
+            urlEntities = new URLEntity[0];
+            hashtagEntities = new HashtagEntity[0];
+            mediaEntities = new MediaEntity[0];
+            symbolEntities = new SymbolEntity[0];
+        }
+        currentUserRetweetId = in.readLong();
+        String[] placeIds = in.readStrings();
+        if (placeIds != null) {
+            scopes = new ScopesImpl(placeIds);
+        }
+        withheldInCountries = in.readStrings();
+        quotedStatus = in.readStatus();
+        quotedStatusId = in.readLong();
+        if (in.readBoolean()) {
+            quotedStatusPermalink = new QuotedStatusPermalinkJSONImpl(in);
+        }
+    }
+
+    /*package*/ void writeTo(BinaryCodec.Encoder out) throws IOException {
+        out.writeLong(id);
+        out.writeDate(createdAt);
+        out.writeString(text);
+        out.writeInt(displayTextRangeStart);
+        out.writeInt(displayTextRangeEnd);
+        out.writeString(source);
+        out.writeInt((isTruncated ? 1 : 0) | (isFavorited ? 2 : 0) | (isRetweeted ? 4 : 0) | (isPossiblySensitive ? 8 : 0));
+        out.writeLong(inReplyToStatusId);
+        out.writeLong(inReplyToUserId);
+        out.writeString(inReplyToScreenName);
+        out.writeInt(favoriteCount);
+        out.writeLong(retweetCount);
+        out.writeGeoLocation(geoLocation);
+        out.writeBoolean(place != null);
+        if (place != null) {
+            ((PlaceJSONImpl) place).writeTo(out);
+        }
+        out.writeString(lang);
+        out.writeLongs(contributorsIDs);
+        out.writeUser(user);
+        out.writeStatus(retweetedStatus);
+        out.writeEntities(userMentionEntities, urlEntities, hashtagEntities, mediaEntities, symbolEntities);
+        out.writeLong(currentUserRetweetId);
+        out.writeStrings(scopes == null ? null : scopes.getPlaceIds());
+        out.writeStrings(withheldInCountries);
+        out.writeStatus(quotedStatus);
+        out.writeLong(quotedStatusId);
+        out.writeBoolean(quotedStatusPermalink != null);
+        if (quotedStatusPermalink != null) {
+            ((QuotedStatusPermalinkJSONImpl) quotedStatusPermalink).writeTo(out);
+        }
+    }
+
     private void init(JSONObject json) throws TwitterException {
         id = ParseUtil.getLong("id", json);
         source = ParseUtil.getUnescapedString("source", json);
@@ -447,12 +534,12 @@ import static twitter4j.ParseUtil.getDate;
                 JSONObject json = list.getJSONObject(i);
                 Status status = new StatusJSONImpl(json);
                 if (conf.isJSONStoreEnabled()) {
-                    TwitterObjectFactory.registerJSONObject(status, json);
+                    TwitterObjectFactory.registerJSONObject(conf, status, json);
                 }
                 statuses.add(status);
             }
             if (conf.isJSONStoreEnabled()) {
-                TwitterObjectFactory.registerJSONObject(statuses, list);
+                TwitterObjectFactory.registerJSONObject(conf, statuses, list);
             }
             return statuses;
         } catch (JSONException jsone) {
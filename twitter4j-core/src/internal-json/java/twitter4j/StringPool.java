@@ -0,0 +1,141 @@
+/*
+ * Copyright 2007 Yusuke Yamamoto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package twitter4j;
+
+import twitter4j.conf.ConfigurationContext;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded pool sharing String instances of values which repeat across parsed objects, such as lang, source, time_zone and place names.<br>
+ * Enabled when stringPoolSize is configured. The pool is a fixed size cache where a value evicts another one with the same hash slot, so it never grows and needs no locking.<br>
+ * There is one pool per class loader, sized from the global configuration (twitter4j.properties or the twitter4j.stringPoolSize system property)
+ * when first used. The stringPoolSize of Configuration instances built otherwise has no effect.
+ *
+ * @author Yusuke Yamamoto - yusuke at mac.com
+ * @since Twitter4J 4.0.8
+ */
+public final class StringPool {
+    // Strings are immutable, so racy reads and writes of the slots are safe
+    private final String[] slots;
+    private final int mask;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param capacity maximum number of values to be pooled. rounded up to a power of two. 0 disables pooling
+     */
+    StringPool(int capacity) {
+        if (capacity <= 0) {
+            slots = null;
+            mask = 0;
+        } else {
+            int size = Math.max(2, Integer.highestOneBit(capacity - 1) << 1);
+            slots = new String[size];
+            mask = size - 1;
+        }
+    }
+
+    /**
+     * @return the pool used for parsing
+     */
+    public static StringPool getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    // the global configuration is loaded on the first lookup, not when parsing classes are initialized
+    private static final class Holder {
+        private static final StringPool INSTANCE = new StringPool(ConfigurationContext.getInstance().getStringPoolSize());
+    }
+
+    /**
+     * @return true if the pool is enabled
+     */
+    public boolean isEnabled() {
+        return slots != null;
+    }
+
+    /**
+     * @param value value
+     * @return the pooled instance equal to value, or value itself after pooling it
+     */
+    String intern(String value) {
+        if (value == null || slots == null) {
+            return value;
+        }
+        int h = value.hashCode();
+        int slot = (h ^ (h >>> 16)) & mask;
+        // look up two adjacent slots so that two frequent values sharing a slot don't keep evicting each other
+        int other = slot ^ 1;
+        String pooled = slots[slot];
+        if (pooled != null && pooled.equals(value)) {
+            hits.increment();
+            return pooled;
+        }
+        String pooledOther = slots[other];
+        if (pooledOther != null && pooledOther.equals(value)) {
+            hits.increment();
+            return pooledOther;
+        }
+        misses.increment();
+        if (pooled != null && pooledOther == null) {
+            slots[other] = value;
+        } else {
+            slots[slot] = value;
+        }
+        return value;
+    }
+
+    /**
+     * @return number of slots, 0 when disabled
+     */
+    public int getCapacity() {
+        return slots == null ? 0 : slots.length;
+    }
+
+    /**
+     * @return number of values found in the pool
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return number of values not found in the pool
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return ratio of values found in the pool, or 0 when nothing has been looked up
+     */
+    public double getHitRate() {
+        long hit = hits.sum();
+        long total = hit + misses.sum();
+        return total == 0 ? 0 : (double) hit / total;
+    }
+
+    @Override
+    public String toString() {
+        return "StringPool{" +
+                "capacity=" + getCapacity() +
+                ", hitCount=" + getHitCount() +
+                ", missCount=" + getMissCount() +
+                '}';
+    }
+}
@@ -48,7 +48,7 @@ import java.util.Iterator;
         init(res.asString(), conf.isJSONStoreEnabled());
         if (conf.isJSONStoreEnabled()) {
             TwitterObjectFactory.clearThreadLocalMap();
-            TwitterObjectFactory.registerJSONObject(this, res.asString());
+            TwitterObjectFactory.registerJSONObject(conf, this, res.asString());
         }
     }
 
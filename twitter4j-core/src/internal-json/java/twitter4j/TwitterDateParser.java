@@ -0,0 +1,138 @@
+/*
+ * Copyright 2007 Yusuke Yamamoto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package twitter4j;
+
+/**
+ * Parses dates in the format Twitter API uses for created_at, e.g. "Wed Aug 27 13:08:45 +0000 2008", by character position.<br>
+ * The last parsed date is cached as consecutive statuses in a stream tend to share the same second.
+ *
+ * @author Yusuke Yamamoto - yusuke at mac.com
+ * @since Twitter4J 4.0.8
+ */
+final class TwitterDateParser {
+    /**
+     * returned when the string is not in the expected format
+     */
+    static final long INVALID = Long.MIN_VALUE;
+
+    private static final int LENGTH = "Wed Aug 27 13:08:45 +0000 2008".length();
+    private static final String MONTHS = "JanFebMarAprMayJunJulAugSepOctNovDec";
+
+    private static volatile Cached last = new Cached("", INVALID);
+
+    private TwitterDateParser() {
+        throw new AssertionError();
+    }
+
+    /**
+     * @param date date string
+     * @return milliseconds since the epoch, or {@link #INVALID} if the string is not in "EEE MMM dd HH:mm:ss Z yyyy" format
+     */
+    static long parse(String date) {
+        Cached cached = last;
+        if (cached.date.equals(date)) {
+            return cached.millis;
+        }
+        long millis = parseFields(date);
+        if (millis != INVALID) {
+            last = new Cached(date, millis);
+        }
+        return millis;
+    }
+
+    private static long parseFields(String s) {
+        if (s.length() != LENGTH || s.charAt(3) != ' ' || s.charAt(7) != ' ' || s.charAt(10) != ' '
+                || s.charAt(13) != ':' || s.charAt(16) != ':' || s.charAt(19) != ' ' || s.charAt(25) != ' ') {
+            return INVALID;
+        }
+        for (int i = 0; i < 3; i++) {
+            if (!Character.isLetter(s.charAt(i))) {
+                return INVALID;
+            }
+        }
+        int month = month(s.charAt(4), s.charAt(5), s.charAt(6));
+        int day = digits(s, 8, 2);
+        int hour = digits(s, 11, 2);
+        int minute = digits(s, 14, 2);
+        int second = digits(s, 17, 2);
+        int offsetHours = digits(s, 21, 2);
+        int offsetMinutes = digits(s, 23, 2);
+        int year = digits(s, 26, 4);
+        char sign = s.charAt(20);
+        if (month < 0 || day < 1 || day > 31 || hour < 0 || hour > 23 || minute < 0 || minute > 59
+                || second < 0 || second > 60 || offsetHours < 0 || offsetMinutes < 0 || year < 0
+                || (sign != '+' && sign != '-')) {
+            return INVALID;
+        }
+        long offsetSeconds = (offsetHours * 60L + offsetMinutes) * 60L;
+        if (sign == '-') {
+            offsetSeconds = -offsetSeconds;
+        }
+        long epochSeconds = epochDay(year, month, day) * 86400L + hour * 3600L + minute * 60L + second - offsetSeconds;
+        return epochSeconds * 1000L;
+    }
+
+    /**
+     * @return 1-based month, or -1 if not a valid abbreviation
+     */
+    private static int month(char c1, char c2, char c3) {
+        for (int i = 0; i < MONTHS.length(); i += 3) {
+            if (MONTHS.charAt(i) == c1 && MONTHS.charAt(i + 1) == c2 && MONTHS.charAt(i + 2) == c3) {
+                return i / 3 + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the decimal value, or -1 if the range contains a non-digit character
+     */
+    private static int digits(String s, int offset, int length) {
+        int value = 0;
+        for (int i = offset; i < offset + length; i++) {
+            int digit = s.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * @return days since 1970-01-01 in the proleptic Gregorian calendar
+     */
+    private static long epochDay(int year, int month, int day) {
+        // shift the year to start in March so that the leap day comes last
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    private static final class Cached {
+        final String date;
+        final long millis;
+
+        Cached(String date, long millis) {
+            this.date = date;
+            this.millis = millis;
+        }
+    }
+}
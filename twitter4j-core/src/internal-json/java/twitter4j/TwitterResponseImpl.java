@@ -29,12 +29,13 @@ import static twitter4j.TwitterResponse.AccessLevel.NONE;
  * @see twitter4j.Status
  * @see twitter4j.User
  */
-/*package*/ abstract class TwitterResponseImpl implements TwitterResponse, java.io.Serializable {
+/*package*/ abstract class TwitterResponseImpl implements TwitterResponse, RawJSON.Holder, java.io.Serializable {
 
     @Serial
     private static final long serialVersionUID = 7422171124869859808L;
     private transient RateLimitStatus rateLimitStatus = null;
     private final transient AccessLevel accessLevel;
+    private transient RawJSON rawJSON = null;
 
     public TwitterResponseImpl() {
         accessLevel = NONE;
@@ -54,4 +55,14 @@ import static twitter4j.TwitterResponse.AccessLevel.NONE;
     public AccessLevel getAccessLevel() {
         return accessLevel;
     }
+
+    @Override
+    public RawJSON getRawJSON() {
+        return rawJSON;
+    }
+
+    @Override
+    public void setRawJSON(RawJSON rawJSON) {
+        this.rawJSON = rawJSON;
+    }
 }
@@ -18,6 +18,7 @@ package twitter4j;
 
 import twitter4j.conf.Configuration;
 
+import java.io.IOException;
 import java.io.Serial;
 import java.util.Arrays;
 import java.util.Date;
@@ -83,7 +84,7 @@ import java.util.Date;
         JSONObject json = res.asJSONObject();
         init(json);
         if (conf.isJSONStoreEnabled()) {
-            TwitterObjectFactory.registerJSONObject(this, json);
+            TwitterObjectFactory.registerJSONObject(conf, this, json);
         }
     }
 
@@ -97,6 +98,96 @@ import java.util.Date;
 
     }
 
+    /*package*/UserJSONImpl(BinaryCodec.Decoder in) throws IOException {
+        super();
+        id = in.readLong();
+        name = in.readString();
+        email = in.readString();
+        screenName = in.readString();
+        location = in.readString();
+        description = in.readString();
+        descriptionURLEntities = in.readURLEntities();
+        urlEntity = in.readURLEntity();
+        profileImageUrl = in.readString();
+        profileImageUrlHttps = in.readString();
+        url = in.readString();
+        int flags = in.readInt();
+        isContributorsEnabled = (flags & 1) != 0;
+        isDefaultProfileImage = (flags & 1 << 1) != 0;
+        isProtected = (flags & 1 << 2) != 0;
+        profileUseBackgroundImage = (flags & 1 << 3) != 0;
+        isDefaultProfile = (flags & 1 << 4) != 0;
+        showAllInlineMedia = (flags & 1 << 5) != 0;
+        profileBackgroundTiled = (flags & 1 << 6) != 0;
+        isGeoEnabled = (flags & 1 << 7) != 0;
+        isVerified = (flags & 1 << 8) != 0;
+        translator = (flags & 1 << 9) != 0;
+        isFollowRequestSent = (flags & 1 << 10) != 0;
+        followersCount = in.readInt();
+        friendsCount = in.readInt();
+        favouritesCount = in.readInt();
+        statusesCount = in.readInt();
+        listedCount = in.readInt();
+        utcOffset = in.readInt();
+        status = in.readStatus();
+        profileBackgroundColor = in.readString();
+        profileTextColor = in.readString();
+        profileLinkColor = in.readString();
+        profileSidebarFillColor = in.readString();
+        profileSidebarBorderColor = in.readString();
+        createdAt = in.readDate();
+        timeZone = in.readString();
+        profileBackgroundImageUrl = in.readString();
+        profileBackgroundImageUrlHttps = in.readString();
+        profileBannerImageUrl = in.readString();
+        lang = in.readString();
+        withheldInCountries = in.readStrings();
+    }
+
+    /*package*/ void writeTo(BinaryCodec.Encoder out) throws IOException {
+        out.writeLong(id);
+        out.writeString(name);
+        out.writeString(email);
+        out.writeString(screenName);
+        out.writeString(location);
+        out.writeString(description);
+        out.writeURLEntities(descriptionURLEntities);
+        out.writeURLEntity(urlEntity);
+        out.writeString(profileImageUrl);
+        out.writeString(profileImageUrlHttps);
+        out.writeString(url);
+        out.writeInt((isContributorsEnabled ? 1 : 0)
+                | (isDefaultProfileImage ? 1 << 1 : 0)
+                | (isProtected ? 1 << 2 : 0)
+                | (profileUseBackgroundImage ? 1 << 3 : 0)
+                | (isDefaultProfile ? 1 << 4 : 0)
+                | (showAllInlineMedia ? 1 << 5 : 0)
+                | (profileBackgroundTiled ? 1 << 6 : 0)
+                | (isGeoEnabled ? 1 << 7 : 0)
+                | (isVerified ? 1 << 8 : 0)
+                | (translator ? 1 << 9 : 0)
+                | (isFollowRequestSent ? 1 << 10 : 0));
+        out.writeInt(followersCount);
+        out.writeInt(friendsCount);
+        out.writeInt(favouritesCount);
+        out.writeInt(statusesCount);
+        out.writeInt(listedCount);
+        out.writeInt(utcOffset);
+        out.writeStatus(status);
+        out.writeString(profileBackgroundColor);
+        out.writeString(profileTextColor);
+        out.writeString(profileLinkColor);
+        out.writeString(profileSidebarFillColor);
+        out.writeString(profileSidebarBorderColor);
+        out.writeDate(createdAt);
+        out.writeString(timeZone);
+        out.writeString(profileBackgroundImageUrl);
+        out.writeString(profileBackgroundImageUrlHttps);
+        out.writeString(profileBannerImageUrl);
+        out.writeString(lang);
+        out.writeStrings(withheldInCountries);
+    }
+
     private void init(JSONObject json) throws TwitterException {
         try {
             id = ParseUtil.getLong("id", json);
@@ -528,12 +619,12 @@ import java.util.Date;
                 JSONObject userJson = list.getJSONObject(i);
                 User user = new UserJSONImpl(userJson);
                 if (conf.isJSONStoreEnabled()) {
-                    TwitterObjectFactory.registerJSONObject(user, userJson);
+                    TwitterObjectFactory.registerJSONObject(conf, user, userJson);
                 }
                 users.add(user);
             }
             if (conf.isJSONStoreEnabled()) {
-                TwitterObjectFactory.registerJSONObject(users, json);
+                TwitterObjectFactory.registerJSONObject(conf, users, json);
             }
             return users;
         } catch (JSONException jsone) {
@@ -560,11 +651,11 @@ import java.util.Date;
                 User user = new UserJSONImpl(json);
                 users.add(user);
                 if (conf.isJSONStoreEnabled()) {
-                    TwitterObjectFactory.registerJSONObject(user, json);
+                    TwitterObjectFactory.registerJSONObject(conf, user, json);
                 }
             }
             if (conf.isJSONStoreEnabled()) {
-                TwitterObjectFactory.registerJSONObject(users, list);
+                TwitterObjectFactory.registerJSONObject(conf, users, list);
             }
             return users;
         } catch (JSONException jsone) {
@@ -53,7 +53,7 @@ import java.util.Date;
         JSONObject json = res.asJSONObject();
         init(json);
         if (conf.isJSONStoreEnabled()) {
-            TwitterObjectFactory.registerJSONObject(this, json);
+            TwitterObjectFactory.registerJSONObject(conf, this, json);
         }
     }
 
@@ -175,11 +175,11 @@ import java.util.Date;
                 UserList userList = new UserListJSONImpl(userListJson);
                 users.add(userList);
                 if (conf.isJSONStoreEnabled()) {
-                    TwitterObjectFactory.registerJSONObject(userList, userListJson);
+                    TwitterObjectFactory.registerJSONObject(conf, userList, userListJson);
                 }
             }
             if (conf.isJSONStoreEnabled()) {
-                TwitterObjectFactory.registerJSONObject(users, json);
+                TwitterObjectFactory.registerJSONObject(conf, users, json);
             }
             return users;
         } catch (JSONException jsone) {
@@ -202,11 +202,11 @@ import java.util.Date;
                 UserList userList = new UserListJSONImpl(userListJson);
                 users.add(userList);
                 if (conf.isJSONStoreEnabled()) {
-                    TwitterObjectFactory.registerJSONObject(userList, userListJson);
+                    TwitterObjectFactory.registerJSONObject(conf, userList, userListJson);
                 }
             }
             if (conf.isJSONStoreEnabled()) {
-                TwitterObjectFactory.registerJSONObject(users, list);
+                TwitterObjectFactory.registerJSONObject(conf, users, list);
             }
             return users;
         } catch (JSONException jsone) {
@@ -61,7 +61,7 @@ import java.util.Objects;
                 this.name = json.getString("name");
             }
             if (!json.isNull("screen_name")) {
-                this.screenName = json.getString("screen_name");
+                this.screenName = ParseUtil.getRawString("screen_name", json);
             }
             id = ParseUtil.getLong("id", json);
         } catch (JSONException jsone) {
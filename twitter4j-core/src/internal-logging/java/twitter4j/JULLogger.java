@@ -55,7 +55,9 @@ final class JULLogger extends Logger {
 
     @Override
     public void debug(String message, String message2) {
-        LOGGER.fine(message + message2);
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.fine(message + message2);
+        }
     }
 
     @Override
@@ -65,7 +67,9 @@ final class JULLogger extends Logger {
 
     @Override
     public void info(String message, String message2) {
-        LOGGER.info(message + message2);
+        if (LOGGER.isLoggable(Level.INFO)) {
+            LOGGER.info(message + message2);
+        }
     }
 
     @Override
@@ -75,7 +79,9 @@ final class JULLogger extends Logger {
 
     @Override
     public void warn(String message, String message2) {
-        LOGGER.warning(message + message2);
+        if (LOGGER.isLoggable(Level.WARNING)) {
+            LOGGER.warning(message + message2);
+        }
     }
 
     @Override
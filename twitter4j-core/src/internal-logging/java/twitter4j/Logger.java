@@ -21,6 +21,8 @@ import twitter4j.conf.ConfigurationContext;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.ServiceLoader;
+import java.util.function.Supplier;
 
 /**
  * @author Yusuke Yamamoto - yusuke at mac.com
@@ -49,6 +51,10 @@ public abstract class Logger {
         if (loggerFactoryImpl != null) {
             loggerFactory = getLoggerFactoryIfAvailable(loggerFactoryImpl, loggerFactoryImpl);
         }
+        // LoggerFactory registered in META-INF/services
+        if (null == loggerFactory) {
+            loggerFactory = ServiceLoader.load(LoggerFactory.class, Logger.class.getClassLoader()).findFirst().orElse(null);
+        }
         // use SLF4J if it's found in the classpath
         if (null == loggerFactory) {
             loggerFactory = getLoggerFactoryIfAvailable("org.slf4j.impl.StaticLoggerBinder", "twitter4j.SLF4JLoggerFactory");
@@ -63,7 +69,7 @@ public abstract class Logger {
         }
         // on Google App Engine, use java.twitter4j.JULogger
         if (null == loggerFactory) {
-            loggerFactory = getLoggerFactoryIfAvailable("com.google.appengine.api.urlfetch.URLFetchService", "twitter4j.JULLoggerFactory");
+            loggerFactory = getLoggerFactoryIfAvailable("com.google.appengine.api.urlfetch.URLFetchService", JULLoggerFactory::new);
         }
         // otherwise, use the default logger
         if (null == loggerFactory) {
@@ -71,27 +77,39 @@ public abstract class Logger {
         }
         LOGGER_FACTORY = loggerFactory;
 
-        try {
-            Method method = conf.getClass().getMethod("dumpConfiguration");
-            method.setAccessible(true);
-            method.invoke(conf);
-        } catch (IllegalAccessException ignore) {
-        } catch (InvocationTargetException ignore) {
-        } catch (NoSuchMethodException ignore) {
+        // dumpConfiguration() logs nothing unless debug is enabled. skip the reflective call otherwise
+        if (conf.isDebugEnabled()) {
+            try {
+                Method method = conf.getClass().getMethod("dumpConfiguration");
+                method.setAccessible(true);
+                method.invoke(conf);
+            } catch (IllegalAccessException ignore) {
+            } catch (InvocationTargetException ignore) {
+            } catch (NoSuchMethodException ignore) {
+            }
         }
     }
 
     private static LoggerFactory getLoggerFactoryIfAvailable(String checkClassName, String implementationClass) {
+        return getLoggerFactoryIfAvailable(checkClassName, () -> {
+            try {
+                return (LoggerFactory) Class.forName(implementationClass).getDeclaredConstructor().newInstance();
+            } catch (ClassNotFoundException | NoSuchMethodException ignore) {
+                return null;
+            } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+                throw new AssertionError(e);
+            }
+        });
+    }
+
+    private static LoggerFactory getLoggerFactoryIfAvailable(String checkClassName, Supplier<LoggerFactory> implementation) {
         try {
-            Class.forName(checkClassName);
-            return (LoggerFactory) Class.forName(implementationClass).newInstance();
+            // probe without initializing the class. initializing a logging framework may read its own configuration
+            Class.forName(checkClassName, false, Logger.class.getClassLoader());
+            return implementation.get();
         } catch (ClassNotFoundException ignore) {
-        } catch (InstantiationException e) {
-            throw new AssertionError(e);
         } catch (SecurityException ignore) {
             // Unsigned applets are not allowed to access System properties
-        } catch (IllegalAccessException e) {
-            throw new AssertionError(e);
         }
         return null;
     }
@@ -184,4 +202,181 @@ public abstract class Logger {
      */
     public abstract void error(String message, Throwable th);
 
+    /**
+     * Logs the pattern with "{}" replaced by the argument, only when debug level logging is enabled.<br>
+     * Note that debug(String, String) is chosen for a String argument, which concatenates the two.
+     *
+     * @param pattern message pattern
+     * @param arg     argument
+     * @since Twitter4J 4.0.8
+     */
+    public void debug(String pattern, Object arg) {
+        if (isDebugEnabled()) {
+            debug(format(pattern, arg));
+        }
+    }
+
+    /**
+     * Logs the pattern with each "{}" replaced by the arguments, only when debug level logging is enabled.
+     *
+     * @param pattern message pattern
+     * @param arg1    first argument
+     * @param arg2    second argument
+     * @since Twitter4J 4.0.8
+     */
+    public void debug(String pattern, Object arg1, Object arg2) {
+        if (isDebugEnabled()) {
+            debug(format(pattern, arg1, arg2));
+        }
+    }
+
+    /**
+     * Logs the pattern with each "{}" replaced by the arguments, only when debug level logging is enabled.
+     *
+     * @param pattern message pattern
+     * @param args    arguments
+     * @since Twitter4J 4.0.8
+     */
+    public void debug(String pattern, Object... args) {
+        if (isDebugEnabled()) {
+            debug(format(pattern, args));
+        }
+    }
+
+    /**
+     * Logs the supplied message. The supplier is called only when debug level logging is enabled.
+     *
+     * @param message message supplier
+     * @since Twitter4J 4.0.8
+     */
+    public void debug(Supplier<String> message) {
+        if (isDebugEnabled()) {
+            debug(message.get());
+        }
+    }
+
+    /**
+     * Logs the pattern with "{}" replaced by the argument, only when info level logging is enabled.<br>
+     * Note that info(String, String) is chosen for a String argument, which concatenates the two.
+     *
+     * @param pattern message pattern
+     * @param arg     argument
+     * @since Twitter4J 4.0.8
+     */
+    public void info(String pattern, Object arg) {
+        if (isInfoEnabled()) {
+            info(format(pattern, arg));
+        }
+    }
+
+    /**
+     * Logs the pattern with each "{}" replaced by the arguments, only when info level logging is enabled.
+     *
+     * @param pattern message pattern
+     * @param arg1    first argument
+     * @param arg2    second argument
+     * @since Twitter4J 4.0.8
+     */
+    public void info(String pattern, Object arg1, Object arg2) {
+        if (isInfoEnabled()) {
+            info(format(pattern, arg1, arg2));
+        }
+    }
+
+    /**
+     * Logs the pattern with each "{}" replaced by the arguments, only when info level logging is enabled.
+     *
+     * @param pattern message pattern
+     * @param args    arguments
+     * @since Twitter4J 4.0.8
+     */
+    public void info(String pattern, Object... args) {
+        if (isInfoEnabled()) {
+            info(format(pattern, args));
+        }
+    }
+
+    /**
+     * Logs the supplied message. The supplier is called only when info level logging is enabled.
+     *
+     * @param message message supplier
+     * @since Twitter4J 4.0.8
+     */
+    public void info(Supplier<String> message) {
+        if (isInfoEnabled()) {
+            info(message.get());
+        }
+    }
+
+    /**
+     * Logs the pattern with "{}" replaced by the argument, only when warn level logging is enabled.<br>
+     * Note that warn(String, String) is chosen for a String argument, which concatenates the two.
+     *
+     * @param pattern message pattern
+     * @param arg     argument
+     * @since Twitter4J 4.0.8
+     */
+    public void warn(String pattern, Object arg) {
+        if (isWarnEnabled()) {
+            warn(format(pattern, arg));
+        }
+    }
+
+    /**
+     * Logs the pattern with each "{}" replaced by the arguments, only when warn level logging is enabled.
+     *
+     * @param pattern message pattern
+     * @param arg1    first argument
+     * @param arg2    second argument
+     * @since Twitter4J 4.0.8
+     */
+    public void warn(String pattern, Object arg1, Object arg2) {
+        if (isWarnEnabled()) {
+            warn(format(pattern, arg1, arg2));
+        }
+    }
+
+    /**
+     * Logs the pattern with each "{}" replaced by the arguments, only when warn level logging is enabled.
+     *
+     * @param pattern message pattern
+     * @param args    arguments
+     * @since Twitter4J 4.0.8
+     */
+    public void warn(String pattern, Object... args) {
+        if (isWarnEnabled()) {
+            warn(format(pattern, args));
+        }
+    }
+
+    /**
+     * Logs the supplied message. The supplier is called only when warn level logging is enabled.
+     *
+     * @param message message supplier
+     * @since Twitter4J 4.0.8
+     */
+    public void warn(Supplier<String> message) {
+        if (isWarnEnabled()) {
+            warn(message.get());
+        }
+    }
+
+    /**
+     * @param pattern message pattern
+     * @param args    arguments replacing "{}" in the pattern in order. extra arguments are ignored
+     * @return formatted message
+     */
+    static String format(String pattern, Object... args) {
+        StringBuilder buf = new StringBuilder(pattern.length() + 16 * args.length);
+        int start = 0;
+        for (Object arg : args) {
+            int index = pattern.indexOf("{}", start);
+            if (index == -1) {
+                break;
+            }
+            buf.append(pattern, start, index).append(arg);
+            start = index + 2;
+        }
+        return buf.append(pattern, start, pattern.length()).toString();
+    }
 }
@@ -54,7 +54,24 @@ final class SLF4JLogger extends Logger {
 
     @Override
     public void debug(String message, String message2) {
-        LOGGER.debug(message + message2);
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug(message + message2);
+        }
+    }
+
+    @Override
+    public void debug(String pattern, Object arg) {
+        LOGGER.debug(pattern, arg);
+    }
+
+    @Override
+    public void debug(String pattern, Object arg1, Object arg2) {
+        LOGGER.debug(pattern, arg1, arg2);
+    }
+
+    @Override
+    public void debug(String pattern, Object... args) {
+        LOGGER.debug(pattern, args);
     }
 
     @Override
@@ -64,7 +81,24 @@ final class SLF4JLogger extends Logger {
 
     @Override
     public void info(String message, String message2) {
-        LOGGER.info(message + message2);
+        if (LOGGER.isInfoEnabled()) {
+            LOGGER.info(message + message2);
+        }
+    }
+
+    @Override
+    public void info(String pattern, Object arg) {
+        LOGGER.info(pattern, arg);
+    }
+
+    @Override
+    public void info(String pattern, Object arg1, Object arg2) {
+        LOGGER.info(pattern, arg1, arg2);
+    }
+
+    @Override
+    public void info(String pattern, Object... args) {
+        LOGGER.info(pattern, args);
     }
 
     @Override
@@ -74,7 +108,24 @@ final class SLF4JLogger extends Logger {
 
     @Override
     public void warn(String message, String message2) {
-        LOGGER.warn(message + message2);
+        if (LOGGER.isWarnEnabled()) {
+            LOGGER.warn(message + message2);
+        }
+    }
+
+    @Override
+    public void warn(String pattern, Object arg) {
+        LOGGER.warn(pattern, arg);
+    }
+
+    @Override
+    public void warn(String pattern, Object arg1, Object arg2) {
+        LOGGER.warn(pattern, arg1, arg2);
+    }
+
+    @Override
+    public void warn(String pattern, Object... args) {
+        LOGGER.warn(pattern, args);
     }
 
     @Override
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2007 Yusuke Yamamoto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package twitter4j.management;
+
+/**
+ * Collects the reconnection gaps of a stream.
+ *
+ * @author Yusuke Yamamoto - yusuke at mac.com
+ * @since Twitter4J 4.0.8
+ */
+public class ReconnectStatistics implements ReconnectStatisticsMBean {
+    private long reconnectCount;
+    private long stallCount;
+    private long lastGap;
+    private long maxGap;
+    private long totalGap;
+
+    /**
+     * @param gap milliseconds since the last message received on the previous connection
+     */
+    public synchronized void reconnected(long gap) {
+        reconnectCount++;
+        lastGap = gap;
+        maxGap = Math.max(maxGap, gap);
+        totalGap += gap;
+    }
+
+    public synchronized void stalled() {
+        stallCount++;
+    }
+
+    @Override
+    public synchronized long getReconnectCount() {
+        return reconnectCount;
+    }
+
+    @Override
+    public synchronized long getStallCount() {
+        return stallCount;
+    }
+
+    @Override
+    public synchronized long getLastGap() {
+        return lastGap;
+    }
+
+    @Override
+    public synchronized long getMaxGap() {
+        return maxGap;
+    }
+
+    @Override
+    public synchronized long getTotalGap() {
+        return totalGap;
+    }
+
+    @Override
+    public synchronized long getAverageGap() {
+        return reconnectCount == 0 ? 0 : totalGap / reconnectCount;
+    }
+
+    @Override
+    public synchronized void reset() {
+        reconnectCount = 0;
+        stallCount = 0;
+        lastGap = 0;
+        maxGap = 0;
+        totalGap = 0;
+    }
+
+    @Override
+    public String toString() {
+        return "reconnects=" + getReconnectCount() + "," +
+                "stalls=" + getStallCount() + "," +
+                "lastGap=" + getLastGap() + "," +
+                "maxGap=" + getMaxGap() + "," +
+                "avgGap=" + getAverageGap();
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2007 Yusuke Yamamoto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package twitter4j.management;
+
+/**
+ * Reconnection statistics of a stream. A gap is the time between the last message received on a connection and the establishment of the next one, in milliseconds.
+ *
+ * @author Yusuke Yamamoto - yusuke at mac.com
+ * @since Twitter4J 4.0.8
+ */
+public interface ReconnectStatisticsMBean {
+    long getReconnectCount();
+
+    /**
+     * @return number of connections given up because nothing was received within the stall timeout
+     */
+    long getStallCount();
+
+    long getLastGap();
+
+    long getMaxGap();
+
+    long getTotalGap();
+
+    long getAverageGap();
+
+    void reset();
+}
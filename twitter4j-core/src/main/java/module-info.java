@@ -8,4 +8,6 @@ module twitter4j {
     exports twitter4j.auth;
     exports twitter4j.conf;
     exports twitter4j.util;
+    uses twitter4j.LoggerFactory;
+    uses twitter4j.conf.ConfigurationFactory;
 }
\ No newline at end of file
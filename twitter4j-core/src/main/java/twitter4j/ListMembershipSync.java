@@ -0,0 +1,417 @@
+/*
+ * Copyright 2007 Yusuke Yamamoto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package twitter4j;
+
+import twitter4j.api.ListsResources;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Brings the members of a list in line with a set of users.<br>
+ * The current members are read page by page through cursors and compared with the target set. Users to be removed and users to be added are
+ * sent in batches of {@value #MAX_USERS_PER_REQUEST}, removals first so that the list doesn't overflow its capacity,
+ * with at most {@link #setConcurrency(int) concurrency} requests in flight.<br>
+ * Once the rate limit is exhausted, all the requests hold off until the rate limiting period ends. Rate limited batches and batches failed by
+ * network issues or server errors are retried up to {@link #setMaxAttempts(int) max attempts}. The others fail at once, without affecting
+ * the other batches: the {@link Report} tells the batches failed and why.<br>
+ * This class is thread safe. Synchronizations of the same instance share the rate limiting pause.
+ *
+ * @author Yusuke Yamamoto - yusuke at mac.com
+ * @since Twitter4J 4.0.8
+ */
+public final class ListMembershipSync {
+    /**
+     * maximum number of users per lists/members/create_all or lists/members/destroy_all request
+     */
+    public static final int MAX_USERS_PER_REQUEST = 100;
+    private static final int MEMBERS_PER_PAGE = 5000;
+    // wait when a rate limited response tells neither Retry-After nor the rate limit status
+    private static final long DEFAULT_RATE_LIMITED_WAIT = 60 * 1000;
+    private static final AtomicInteger threadCount = new AtomicInteger();
+
+    private final ListsResources lists;
+    private volatile int concurrency = 4;
+    private volatile int maxAttempts = 3;
+    private volatile long retryInterval = 1000;
+
+    private final Object pauseLock = new Object();
+    private long resumeAt = 0;
+
+    /**
+     * @param lists resources used to read and modify lists, typically a {@link Twitter} instance
+     */
+    public ListMembershipSync(ListsResources lists) {
+        this.lists = lists;
+    }
+
+    /**
+     * @param concurrency maximum number of requests in flight, 4 by default
+     * @return this instance
+     */
+    public ListMembershipSync setConcurrency(int concurrency) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("concurrency must be positive: " + concurrency);
+        }
+        this.concurrency = concurrency;
+        return this;
+    }
+
+    /**
+     * @param maxAttempts maximum number of attempts of a request, 3 by default
+     * @return this instance
+     */
+    public ListMembershipSync setMaxAttempts(int maxAttempts) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be positive: " + maxAttempts);
+        }
+        this.maxAttempts = maxAttempts;
+        return this;
+    }
+
+    /**
+     * @param retryInterval milliseconds to wait before retrying a request failed by a network issue or a server error,
+     *                      doubled on each subsequent attempt. 1 second by default
+     * @return this instance
+     */
+    public ListMembershipSync setRetryInterval(long retryInterval) {
+        if (retryInterval < 0) {
+            throw new IllegalArgumentException("retryInterval must not be negative: " + retryInterval);
+        }
+        this.retryInterval = retryInterval;
+        return this;
+    }
+
+    /**
+     * Adds the users not yet in the list, and removes the members not in the given users.
+     *
+     * @param listId  id of the list
+     * @param userIds ids of the users to be the members of the list. Duplicates are ignored
+     * @return outcome of each batch
+     * @throws TwitterException when the current members could not be read. Failures of batches are reported in the result instead
+     */
+    public Report sync(long listId, long... userIds) throws TwitterException {
+        long[] target = userIds.clone();
+        Arrays.sort(target);
+        target = distinct(target);
+        boolean[] member = new boolean[target.length];
+        LongList removes = new LongList();
+
+        long cursor = -1;
+        PagableResponseList<User> page;
+        do {
+            final long pageCursor = cursor;
+            page = invoke(() -> lists.getUserListMembers(listId, MEMBERS_PER_PAGE, pageCursor, true), new int[1]);
+            for (User user : page) {
+                int index = Arrays.binarySearch(target, user.getId());
+                if (index >= 0) {
+                    member[index] = true;
+                } else {
+                    removes.add(user.getId());
+                }
+            }
+            cursor = page.getNextCursor();
+        } while (page.hasNext());
+
+        LongList adds = new LongList();
+        for (int i = 0; i < target.length; i++) {
+            if (!member[i]) {
+                adds.add(target[i]);
+            }
+        }
+
+        List<Batch> batches = new ArrayList<>();
+        if (removes.size() + adds.size() > 0) {
+            ExecutorService executor = Executors.newFixedThreadPool(concurrency, r -> {
+                Thread thread = new Thread(r, "Twitter4J List Membership Sync[" + threadCount.getAndIncrement() + "]");
+                thread.setDaemon(true);
+                return thread;
+            });
+            try {
+                // removals first, to make room for additions
+                batches.addAll(run(executor, listId, Operation.REMOVE, removes.toArray()));
+                batches.addAll(run(executor, listId, Operation.ADD, adds.toArray()));
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+        return new Report(batches, removes.size(), adds.size());
+    }
+
+    private List<Batch> run(ExecutorService executor, final long listId, final Operation operation, long[] userIds) throws TwitterException {
+        List<Future<Batch>> futures = new ArrayList<>();
+        for (int from = 0; from < userIds.length; from += MAX_USERS_PER_REQUEST) {
+            final long[] chunk = Arrays.copyOfRange(userIds, from, Math.min(from + MAX_USERS_PER_REQUEST, userIds.length));
+            futures.add(executor.submit(() -> execute(listId, operation, chunk)));
+        }
+        List<Batch> batches = new ArrayList<>(futures.size());
+        try {
+            for (Future<Batch> future : futures) {
+                batches.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TwitterException("Interrupted while synchronizing list " + listId, e);
+        } catch (ExecutionException e) {
+            throw new TwitterException("Failed to synchronize list " + listId, e.getCause());
+        }
+        return batches;
+    }
+
+    private Batch execute(long listId, Operation operation, long[] userIds) {
+        int[] attempts = new int[1];
+        try {
+            if (operation == Operation.ADD) {
+                invoke(() -> lists.createUserListMembers(listId, userIds), attempts);
+            } else {
+                invoke(() -> lists.destroyUserListMembers(listId, userIds), attempts);
+            }
+            return new Batch(operation, userIds, attempts[0], null);
+        } catch (TwitterException te) {
+            return new Batch(operation, userIds, attempts[0], te);
+        }
+    }
+
+    private interface Request<T extends TwitterResponse> {
+        T call() throws TwitterException;
+    }
+
+    /**
+     * Calls the request once the rate limiting pause is over, retrying as long as attempts are left.
+     *
+     * @param attempts incremented on each attempt
+     */
+    private <T extends TwitterResponse> T invoke(Request<T> request, int[] attempts) throws TwitterException {
+        long interval = retryInterval;
+        while (true) {
+            try {
+                awaitResume();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new TwitterException("Interrupted while waiting for the rate limit to reset", e);
+            }
+            attempts[0]++;
+            try {
+                T response = request.call();
+                RateLimitStatus rateLimitStatus = response.getRateLimitStatus();
+                if (rateLimitStatus != null && rateLimitStatus.getRemaining() <= 0) {
+                    pause(rateLimitStatus.getSecondsUntilReset() * 1000L);
+                }
+                return response;
+            } catch (TwitterException te) {
+                if (attempts[0] >= maxAttempts) {
+                    throw te;
+                }
+                if (te.exceededRateLimitation()) {
+                    pause(getRateLimitedWait(te));
+                } else if (te.isCausedByNetworkIssue() || te.getStatusCode() >= HttpResponseCode.INTERNAL_SERVER_ERROR) {
+                    try {
+                        Thread.sleep(interval);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw te;
+                    }
+                    interval *= 2;
+                } else {
+                    throw te;
+                }
+            }
+        }
+    }
+
+    private static long getRateLimitedWait(TwitterException te) {
+        if (te.getRetryAfter() > 0) {
+            return te.getRetryAfter() * 1000L;
+        }
+        if (te.getRateLimitStatus() != null) {
+            return te.getRateLimitStatus().getSecondsUntilReset() * 1000L;
+        }
+        return DEFAULT_RATE_LIMITED_WAIT;
+    }
+
+    private void pause(long millis) {
+        synchronized (pauseLock) {
+            resumeAt = Math.max(resumeAt, System.currentTimeMillis() + millis);
+        }
+    }
+
+    private void awaitResume() throws InterruptedException {
+        synchronized (pauseLock) {
+            long wait;
+            while ((wait = resumeAt - System.currentTimeMillis()) > 0) {
+                pauseLock.wait(wait);
+            }
+        }
+    }
+
+    private static long[] distinct(long[] sorted) {
+        int size = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[size++] = sorted[i];
+            }
+        }
+        return size == sorted.length ? sorted : Arrays.copyOf(sorted, size);
+    }
+
+    private static final class LongList {
+        private long[] values = new long[16];
+        private int size = 0;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int size() {
+            return size;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    public enum Operation {
+        ADD, REMOVE
+    }
+
+    /**
+     * Outcome of a request adding or removing up to {@value #MAX_USERS_PER_REQUEST} users.
+     */
+    public static final class Batch {
+        private final Operation operation;
+        private final long[] userIds;
+        private final int attempts;
+        private final TwitterException exception;
+
+        Batch(Operation operation, long[] userIds, int attempts, TwitterException exception) {
+            this.operation = operation;
+            this.userIds = userIds;
+            this.attempts = attempts;
+            this.exception = exception;
+        }
+
+        public Operation getOperation() {
+            return operation;
+        }
+
+        public long[] getUserIds() {
+            return userIds.clone();
+        }
+
+        /**
+         * @return number of requests sent, including retries
+         */
+        public int getAttempts() {
+            return attempts;
+        }
+
+        public boolean isSuccess() {
+            return exception == null;
+        }
+
+        /**
+         * @return exception of the last attempt, or null if the batch succeeded
+         */
+        public TwitterException getException() {
+            return exception;
+        }
+
+        @Override
+        public String toString() {
+            return "Batch{" +
+                    "operation=" + operation +
+                    ", users=" + userIds.length +
+                    ", attempts=" + attempts +
+                    ", exception=" + exception +
+                    '}';
+        }
+    }
+
+    /**
+     * Outcome of a synchronization.
+     */
+    public static final class Report {
+        private final List<Batch> batches;
+        private final int removes;
+        private final int adds;
+
+        Report(List<Batch> batches, int removes, int adds) {
+            this.batches = Collections.unmodifiableList(batches);
+            this.removes = removes;
+            this.adds = adds;
+        }
+
+        /**
+         * @return batches in the order sent, removals first
+         */
+        public List<Batch> getBatches() {
+            return batches;
+        }
+
+        public List<Batch> getFailures() {
+            List<Batch> failures = new ArrayList<>();
+            for (Batch batch : batches) {
+                if (!batch.isSuccess()) {
+                    failures.add(batch);
+                }
+            }
+            return failures;
+        }
+
+        /**
+         * @return true if all the batches succeeded
+         */
+        public boolean isComplete() {
+            return getFailures().isEmpty();
+        }
+
+        /**
+         * @return number of members to be removed from the list, whether their batches succeeded or not
+         */
+        public int getRemoveCount() {
+            return removes;
+        }
+
+        /**
+         * @return number of users to be added to the list, whether their batches succeeded or not
+         */
+        public int getAddCount() {
+            return adds;
+        }
+
+        @Override
+        public String toString() {
+            return "Report{" +
+                    "removes=" + removes +
+                    ", adds=" + adds +
+                    ", batches=" + batches.size() +
+                    ", failures=" + getFailures().size() +
+                    '}';
+        }
+    }
+}
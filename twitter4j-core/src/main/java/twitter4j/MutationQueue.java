@@ -0,0 +1,739 @@
+/*
+ * Copyright 2007 Yusuke Yamamoto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package twitter4j;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Write-behind queue of mutations: favorites, retweets, follows, mutes and blocks are submitted without blocking and sent in the background,
+ * each submission returning a future completed with the response.<br>
+ * Each endpoint is served by a thread of its own, in submission order. Requests to an endpoint are paced: the remaining calls of the rate limiting
+ * period, as reported by the last response, are spread evenly over the rest of the period, never closer than the {@link #setInterval(Mutation, long) interval}
+ * of the endpoint. Once rate limited, the endpoint holds off until the period ends. Mutations failed by network issues or server errors are retried
+ * up to {@link #setMaxAttempts(int) max attempts}. Retries are idempotent: favoriting an already favorited status, or retweeting an already retweeted one,
+ * completes the mutation with a null response, as a previous attempt may have been applied even though its response was lost.<br>
+ * Mutations waiting to be sent are coalesced per target. Submitting the same mutation again returns the future of the waiting one.
+ * Submitting the inverse mutation cancels both out, completing both futures with null: mutations are assumed to be submitted against the current state,
+ * so that following and unfollowing a user not followed leaves nothing to do. Mutations of the same target never run concurrently.<br>
+ * With a journal, mutations are appended to a local file as they are submitted and marked done as they complete. Submissions are forced to the disk
+ * before submit returns, those made concurrently sharing one write. Mutations not done are resubmitted by {@link #start()}, or by the first submission,
+ * once the queue is constructed again with the same file, their responses being discarded. As completions are not forced to the disk, a mutation may
+ * be sent again after a crash, which idempotent retries absorb.<br>
+ * This class is thread safe.
+ *
+ * @author Yusuke Yamamoto - yusuke at mac.com
+ * @since Twitter4J 4.0.8
+ */
+public final class MutationQueue implements Closeable {
+    private static final Logger logger = Logger.getLogger(MutationQueue.class);
+    // wait when a rate limited response tells neither Retry-After nor the rate limit status
+    private static final long DEFAULT_RATE_LIMITED_WAIT = 60 * 1000;
+    private static final int ALREADY_FAVORITED = 139;
+    private static final int NO_STATUS_FOUND = 144;
+    private static final int ALREADY_RETWEETED = 327;
+
+    /**
+     * Mutations, each one sent to an endpoint of its own.
+     */
+    public enum Mutation {
+        FAVORITE("favorites/create"), UNFAVORITE("favorites/destroy"),
+        RETWEET("statuses/retweet"), UNRETWEET("statuses/unretweet"),
+        FOLLOW("friendships/create"), UNFOLLOW("friendships/destroy"),
+        MUTE("mutes/users/create"), UNMUTE("mutes/users/destroy"),
+        BLOCK("blocks/create"), UNBLOCK("blocks/destroy");
+
+        private final String endpoint;
+
+        Mutation(String endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        public String getEndpoint() {
+            return endpoint;
+        }
+
+        /**
+         * @return the mutation undoing this one
+         */
+        public Mutation inverse() {
+            // mutations and their inverses are declared in pairs
+            return values()[ordinal() ^ 1];
+        }
+    }
+
+    private final Twitter twitter;
+    private final Journal journal;
+    private volatile int maxAttempts = 3;
+    private volatile long retryInterval = 1000;
+    private final Map<Mutation, Long> intervals = new EnumMap<>(Mutation.class);
+
+    // guarded by this
+    private final Map<Mutation, Endpoint> endpoints = new EnumMap<>(Mutation.class);
+    private final Map<Target, Entry> waiting = new HashMap<>();
+    private final Set<Target> running = new HashSet<>();
+    private long sequence = 0;
+    private int size = 0;
+    private boolean closed = false;
+    // left in the journal, resubmitted on start()
+    private List<Entry> pending = new ArrayList<>(0);
+
+    /**
+     * @param twitter instance sending the mutations
+     */
+    public MutationQueue(Twitter twitter) {
+        this.twitter = twitter;
+        this.journal = null;
+    }
+
+    /**
+     * Reads the mutations left in the journal, to be resubmitted once started.
+     *
+     * @param twitter instance sending the mutations
+     * @param journal file the mutations are journaled to, created if missing
+     * @throws IOException when the journal could not be read or written
+     * @see #start()
+     */
+    public MutationQueue(Twitter twitter, File journal) throws IOException {
+        this.twitter = twitter;
+        Map<Long, Entry> pending = new LinkedHashMap<>();
+        this.journal = Journal.open(journal, pending);
+        synchronized (this) {
+            for (Entry entry : pending.values()) {
+                sequence = Math.max(sequence, entry.sequence);
+            }
+            this.pending = new ArrayList<>(pending.values());
+        }
+    }
+
+    /**
+     * Resubmits the mutations left in the journal, ahead of the ones submitted afterwards. Called by the first submission otherwise,
+     * so that intervals and other settings apply to the resubmitted mutations as well.
+     *
+     * @return this instance
+     * @throws IllegalStateException when the queue has been closed
+     */
+    public synchronized MutationQueue start() {
+        if (closed) {
+            throw new IllegalStateException("MutationQueue has been closed");
+        }
+        if (!pending.isEmpty()) {
+            for (Entry entry : pending) {
+                enqueue(entry);
+            }
+            pending = new ArrayList<>(0);
+        }
+        return this;
+    }
+
+    /**
+     * @param maxAttempts maximum number of attempts of a mutation, 3 by default
+     * @return this instance
+     */
+    public MutationQueue setMaxAttempts(int maxAttempts) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be positive: " + maxAttempts);
+        }
+        this.maxAttempts = maxAttempts;
+        return this;
+    }
+
+    /**
+     * @param retryInterval milliseconds to wait before retrying a mutation failed by a network issue or a server error,
+     *                      doubled on each subsequent attempt. 1 second by default
+     * @return this instance
+     */
+    public MutationQueue setRetryInterval(long retryInterval) {
+        if (retryInterval < 0) {
+            throw new IllegalArgumentException("retryInterval must not be negative: " + retryInterval);
+        }
+        this.retryInterval = retryInterval;
+        return this;
+    }
+
+    /**
+     * @param mutation mutation
+     * @param interval minimum milliseconds between two requests to the endpoint of the mutation, 0 by default
+     * @return this instance
+     */
+    public MutationQueue setInterval(Mutation mutation, long interval) {
+        if (interval < 0) {
+            throw new IllegalArgumentException("interval must not be negative: " + interval);
+        }
+        synchronized (intervals) {
+            intervals.put(mutation, interval);
+        }
+        return this;
+    }
+
+    private long getInterval(Mutation mutation) {
+        synchronized (intervals) {
+            return intervals.getOrDefault(mutation, 0L);
+        }
+    }
+
+    /**
+     * Submits a mutation.
+     *
+     * @param mutation mutation
+     * @param targetId id of the status to favorite or retweet, or of the user to follow, mute or block
+     * @return future completed with the {@link Status} or {@link User} returned, or null if the mutation was cancelled out or found already applied
+     * @throws IllegalStateException when the queue has been closed
+     * @throws IOException           when the mutation could not be journaled
+     */
+    public CompletableFuture<TwitterResponse> submit(Mutation mutation, long targetId) throws IOException {
+        Entry entry;
+        long journaled;
+        synchronized (this) {
+            start();
+            Target target = new Target(mutation, targetId);
+            Entry other = waiting.get(target);
+            if (other != null) {
+                if (other.mutation == mutation) {
+                    return other.future;
+                }
+                // cancelled out
+                waiting.remove(target);
+                other.cancelled = true;
+                size--;
+                done(other);
+                other.future.complete(null);
+                return CompletableFuture.completedFuture(null);
+            }
+            entry = new Entry(++sequence, mutation, targetId);
+            // appended in order with the completions, but forced to the disk outside the lock
+            journaled = journal != null ? journal.submitted(entry) : 0;
+            enqueue(entry);
+        }
+        if (journal != null) {
+            try {
+                journal.sync(journaled);
+            } catch (IOException ioe) {
+                if (withdraw(entry)) {
+                    throw ioe;
+                }
+                // already dispatched, or cancelled out: the future tells the outcome, though the mutation may be lost in a crash
+                logger.warn("Failed to journal " + entry + ", already dispatched", ioe);
+            }
+        }
+        return entry.future;
+    }
+
+    /**
+     * Takes back a mutation which could not be journaled, unless already taken by its endpoint. Holds the lock {@link #take(Endpoint)} takes mutations with.
+     *
+     * @return false if the mutation has already been dispatched or cancelled out
+     */
+    private synchronized boolean withdraw(Entry entry) {
+        Target target = new Target(entry.mutation, entry.targetId);
+        if (!waiting.remove(target, entry)) {
+            return false;
+        }
+        endpoints.get(entry.mutation).queue.remove(entry);
+        size--;
+        done(entry);
+        entry.future.cancel(false);
+        return true;
+    }
+
+    public CompletableFuture<TwitterResponse> favorite(long statusId) throws IOException {
+        return submit(Mutation.FAVORITE, statusId);
+    }
+
+    public CompletableFuture<TwitterResponse> retweet(long statusId) throws IOException {
+        return submit(Mutation.RETWEET, statusId);
+    }
+
+    public CompletableFuture<TwitterResponse> follow(long userId) throws IOException {
+        return submit(Mutation.FOLLOW, userId);
+    }
+
+    public CompletableFuture<TwitterResponse> mute(long userId) throws IOException {
+        return submit(Mutation.MUTE, userId);
+    }
+
+    public CompletableFuture<TwitterResponse> block(long userId) throws IOException {
+        return submit(Mutation.BLOCK, userId);
+    }
+
+    /**
+     * @return number of mutations waiting to be sent or being sent
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Waits until all the mutations submitted have completed.
+     *
+     * @param millis maximum milliseconds to wait
+     * @return false if mutations are still waiting or being sent
+     * @throws InterruptedException when interrupted
+     */
+    public synchronized boolean await(long millis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + millis;
+        long wait;
+        while (size > 0 && (wait = deadline - System.currentTimeMillis()) > 0) {
+            wait(wait);
+        }
+        return size == 0;
+    }
+
+    /**
+     * Stops the threads once the mutations being sent complete. The futures of the mutations waiting are cancelled,
+     * and the mutations remain in the journal to be resubmitted.
+     */
+    @Override
+    public void close() throws IOException {
+        List<Thread> threads = new ArrayList<>();
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            for (Endpoint endpoint : endpoints.values()) {
+                threads.add(endpoint.thread);
+                for (Entry entry : endpoint.queue) {
+                    if (!entry.cancelled) {
+                        // entries cancelled out are not counted anymore
+                        size--;
+                    }
+                    entry.future.cancel(false);
+                }
+                endpoint.queue.clear();
+            }
+            waiting.clear();
+            notifyAll();
+        }
+        for (Thread thread : threads) {
+            thread.interrupt();
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    // guarded by this
+    private void enqueue(Entry entry) {
+        Endpoint endpoint = endpoints.get(entry.mutation);
+        if (endpoint == null) {
+            endpoint = new Endpoint(entry.mutation);
+            endpoints.put(entry.mutation, endpoint);
+            endpoint.thread.start();
+        }
+        endpoint.queue.add(entry);
+        waiting.put(new Target(entry.mutation, entry.targetId), entry);
+        size++;
+        notifyAll();
+    }
+
+    // guarded by this
+    private void done(Entry entry) {
+        if (journal != null) {
+            try {
+                journal.done(entry);
+            } catch (IOException e) {
+                logger.warn("Failed to journal " + entry, e);
+            }
+        }
+        notifyAll();
+    }
+
+    /**
+     * Takes the next mutation of the endpoint once no other mutation of its target is running.
+     *
+     * @return null once closed
+     */
+    private synchronized Entry take(Endpoint endpoint) throws InterruptedException {
+        while (!closed) {
+            Entry entry = endpoint.queue.peek();
+            if (entry != null && (entry.cancelled || entry.future.isCancelled())) {
+                endpoint.queue.poll();
+                if (!entry.cancelled) {
+                    waiting.remove(new Target(entry.mutation, entry.targetId), entry);
+                    size--;
+                    done(entry);
+                }
+                continue;
+            }
+            Target target = entry == null ? null : new Target(entry.mutation, entry.targetId);
+            if (target != null && !running.contains(target)) {
+                endpoint.queue.poll();
+                waiting.remove(target, entry);
+                running.add(target);
+                return entry;
+            }
+            wait();
+        }
+        return null;
+    }
+
+    private synchronized void complete(Entry entry, boolean done) {
+        running.remove(new Target(entry.mutation, entry.targetId));
+        size--;
+        if (done) {
+            done(entry);
+        } else {
+            notifyAll();
+        }
+    }
+
+    private final class Endpoint implements Runnable {
+        private final Mutation mutation;
+        private final ArrayDeque<Entry> queue = new ArrayDeque<>();
+        private final Thread thread;
+        // earliest time of the next request
+        private long nextRequest = 0;
+
+        Endpoint(Mutation mutation) {
+            this.mutation = mutation;
+            thread = new Thread(this, "Twitter4J Mutation Queue[" + mutation.getEndpoint() + "]");
+            thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            try {
+                Entry entry;
+                while ((entry = take(this)) != null) {
+                    TwitterResponse response = null;
+                    TwitterException exception = null;
+                    try {
+                        response = send(entry);
+                    } catch (TwitterException te) {
+                        logger.warn("Failed to send " + entry, te);
+                        exception = te;
+                    } catch (InterruptedException e) {
+                        // closed while waiting to send. left in the journal
+                        complete(entry, false);
+                        entry.future.cancel(false);
+                        return;
+                    }
+                    // journaled before the future is completed
+                    complete(entry, true);
+                    if (exception == null) {
+                        entry.future.complete(response);
+                    } else {
+                        entry.future.completeExceptionally(exception);
+                    }
+                }
+            } catch (InterruptedException ignore) {
+                // closed
+            }
+        }
+
+        private TwitterResponse send(Entry entry) throws TwitterException, InterruptedException {
+            long interval = retryInterval;
+            int attempts = 0;
+            while (true) {
+                long wait = nextRequest - System.currentTimeMillis();
+                if (wait > 0) {
+                    Thread.sleep(wait);
+                }
+                attempts++;
+                nextRequest = System.currentTimeMillis() + getInterval(mutation);
+                try {
+                    TwitterResponse response = call(entry);
+                    pace(response.getRateLimitStatus());
+                    return response;
+                } catch (TwitterException te) {
+                    if (isApplied(te, attempts)) {
+                        return null;
+                    }
+                    if (attempts >= maxAttempts) {
+                        throw te;
+                    }
+                    if (te.exceededRateLimitation()) {
+                        nextRequest = System.currentTimeMillis() + getRateLimitedWait(te);
+                    } else if (te.isCausedByNetworkIssue() || te.getStatusCode() >= HttpResponseCode.INTERNAL_SERVER_ERROR) {
+                        nextRequest = Math.max(nextRequest, System.currentTimeMillis() + interval);
+                        interval *= 2;
+                    } else {
+                        throw te;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Spreads the remaining calls over the rest of the rate limiting period.
+         */
+        private void pace(RateLimitStatus rateLimitStatus) {
+            if (rateLimitStatus != null && rateLimitStatus.getSecondsUntilReset() > 0) {
+                long untilReset = rateLimitStatus.getSecondsUntilReset() * 1000L;
+                long wait = rateLimitStatus.getRemaining() <= 0 ? untilReset : untilReset / (rateLimitStatus.getRemaining() + 1);
+                nextRequest = Math.max(nextRequest, System.currentTimeMillis() + wait);
+            }
+        }
+
+        private boolean isApplied(TwitterException te, int attempts) {
+            switch (mutation) {
+                case FAVORITE:
+                    return te.getErrorCode() == ALREADY_FAVORITED;
+                case RETWEET:
+                    return te.getErrorCode() == ALREADY_RETWEETED;
+                case UNFAVORITE:
+                case UNRETWEET:
+                    // the status may be gone because of a previous attempt
+                    return attempts > 1 && te.getErrorCode() == NO_STATUS_FOUND;
+                default:
+                    return false;
+            }
+        }
+    }
+
+    private TwitterResponse call(Entry entry) throws TwitterException {
+        long id = entry.targetId;
+        switch (entry.mutation) {
+            case FAVORITE:
+                return twitter.createFavorite(id);
+            case UNFAVORITE:
+                return twitter.destroyFavorite(id);
+            case RETWEET:
+                return twitter.retweetStatus(id);
+            case UNRETWEET:
+                return twitter.unRetweetStatus(id);
+            case FOLLOW:
+                return twitter.createFriendship(id);
+            case UNFOLLOW:
+                return twitter.destroyFriendship(id);
+            case MUTE:
+                return twitter.createMute(id);
+            case UNMUTE:
+                return twitter.destroyMute(id);
+            case BLOCK:
+                return twitter.createBlock(id);
+            case UNBLOCK:
+                return twitter.destroyBlock(id);
+            default:
+                throw new AssertionError(entry.mutation);
+        }
+    }
+
+    private static long getRateLimitedWait(TwitterException te) {
+        if (te.getRetryAfter() > 0) {
+            return te.getRetryAfter() * 1000L;
+        }
+        if (te.getRateLimitStatus() != null) {
+            return te.getRateLimitStatus().getSecondsUntilReset() * 1000L;
+        }
+        return DEFAULT_RATE_LIMITED_WAIT;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "MutationQueue{" +
+                "size=" + size +
+                ", endpoints=" + endpoints.keySet() +
+                ", journal=" + journal +
+                ", closed=" + closed +
+                '}';
+    }
+
+    /**
+     * Mutation and its inverse share a target.
+     */
+    private static final class Target {
+        private final int pair;
+        private final long id;
+
+        Target(Mutation mutation, long id) {
+            this.pair = mutation.ordinal() >> 1;
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Target)) return false;
+            Target target = (Target) o;
+            return pair == target.pair && id == target.id;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * pair + Long.hashCode(id);
+        }
+    }
+
+    private static final class Entry {
+        private final long sequence;
+        private final Mutation mutation;
+        private final long targetId;
+        private final CompletableFuture<TwitterResponse> future = new CompletableFuture<>();
+        // cancelled out by the inverse mutation. guarded by the queue
+        private boolean cancelled = false;
+
+        Entry(long sequence, Mutation mutation, long targetId) {
+            this.sequence = sequence;
+            this.mutation = mutation;
+            this.targetId = targetId;
+        }
+
+        @Override
+        public String toString() {
+            return mutation + " " + targetId;
+        }
+    }
+
+    /**
+     * Append-only journal of lines "+ sequence MUTATION targetId" on submission and "- sequence" on completion.
+     * Compacted to the pending mutations when opened.<br>
+     * Lines are written in the order they are appended. Submissions are forced to the disk by group commit: a thread forcing the file
+     * covers the submissions of the threads waiting for it.
+     */
+    private static final class Journal {
+        private final File file;
+        // not a FileChannel, which is closed once a thread writing to it is interrupted
+        private final FileOutputStream out;
+        // guarded by this. number of lines appended, and the ones not written yet
+        private long appended = 0;
+        private final StringBuilder buffer = new StringBuilder();
+        private final Object forceLock = new Object();
+        // guarded by forceLock. number of lines forced to the disk
+        private long forced = 0;
+
+        private Journal(File file, FileOutputStream out) {
+            this.file = file;
+            this.out = out;
+        }
+
+        static Journal open(File file, Map<Long, Entry> pending) throws IOException {
+            if (file.exists()) {
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        String[] fields = line.split(" ");
+                        try {
+                            if (fields.length == 4 && "+".equals(fields[0])) {
+                                long sequence = Long.parseLong(fields[1]);
+                                pending.put(sequence, new Entry(sequence, Mutation.valueOf(fields[2]), Long.parseLong(fields[3])));
+                            } else if (fields.length == 2 && "-".equals(fields[0])) {
+                                pending.remove(Long.parseLong(fields[1]));
+                            } else if (!line.isEmpty()) {
+                                logger.warn("Ignoring malformed journal line: ", line);
+                            }
+                        } catch (IllegalArgumentException e) {
+                            // possibly torn by a crash
+                            logger.warn("Ignoring malformed journal line: ", line);
+                        }
+                    }
+                }
+            }
+            File compacted = new File(file.getPath() + ".tmp");
+            StringBuilder lines = new StringBuilder();
+            for (Entry entry : pending.values()) {
+                lines.append(submittedLine(entry));
+            }
+            try (FileOutputStream out = new FileOutputStream(compacted)) {
+                out.write(lines.toString().getBytes(StandardCharsets.US_ASCII));
+                out.getFD().sync();
+            }
+            Files.move(compacted.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return new Journal(file, new FileOutputStream(file, true));
+        }
+
+        private static String submittedLine(Entry entry) {
+            return "+ " + entry.sequence + " " + entry.mutation.name() + " " + entry.targetId + "\n";
+        }
+
+        /**
+         * Appends the submission, to be written and forced by {@link #sync(long)}.
+         *
+         * @return number of lines to be forced for the submission to be durable
+         */
+        synchronized long submitted(Entry entry) {
+            buffer.append(submittedLine(entry));
+            return ++appended;
+        }
+
+        /**
+         * Writes the completion along with the lines appended before, without forcing them.
+         */
+        synchronized void done(Entry entry) throws IOException {
+            buffer.append("- ").append(entry.sequence).append('\n');
+            appended++;
+            write();
+        }
+
+        /**
+         * Returns once the given number of lines has been forced to the disk, forcing them unless another thread is doing so.
+         *
+         * @param lines number of lines to be forced
+         */
+        void sync(long lines) throws IOException {
+            synchronized (forceLock) {
+                if (forced >= lines) {
+                    // forced by the thread which held the lock meanwhile
+                    return;
+                }
+                long target;
+                synchronized (this) {
+                    write();
+                    target = appended;
+                }
+                out.getFD().sync();
+                forced = target;
+            }
+        }
+
+        // guarded by this
+        private void write() throws IOException {
+            if (buffer.length() > 0) {
+                out.write(buffer.toString().getBytes(StandardCharsets.US_ASCII));
+                buffer.setLength(0);
+            }
+        }
+
+        synchronized void close() throws IOException {
+            try {
+                write();
+            } finally {
+                out.close();
+            }
+        }
+
+        @Override
+        public String toString() {
+            return file.getPath();
+        }
+    }
+}
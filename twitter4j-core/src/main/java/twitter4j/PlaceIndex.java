@@ -0,0 +1,638 @@
+/*
+ * Copyright 2007 Yusuke Yamamoto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package twitter4j;
+
+import twitter4j.api.PlacesGeoResources;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Local spatial index over the bounding boxes of places, answering point-in-place, nearest-place and bounding box queries without
+ * calling the API.<br>
+ * Places are indexed in a hierarchy of grids, like geohashes of increasing precision: each place is registered at the precision where its
+ * bounding box spans at most two cells per axis. The grids form a quadtree, each cell counting the places registered in it and in the cells it encloses,
+ * so that point queries descend only while there are places and nearest-place queries search the cells best first.
+ * Places are matched by their bounding boxes. Boxes crossing the antimeridian are not supported.<br>
+ * The index can be populated from {@link PlacesGeoResources} results and from statuses received on streams, and serve as a cache in front of
+ * {@link PlacesGeoResources} through {@link #cache(PlacesGeoResources)}.<br>
+ * This class is thread safe.
+ *
+ * @author Yusuke Yamamoto - yusuke at mac.com
+ * @since Twitter4J 4.0.8
+ */
+public final class PlaceIndex {
+    // cells at level 24 are 360 / 2^24 degrees, about 2.4 meters at the equator
+    private static final int MAX_LEVEL = 24;
+    private static final double KILOMETERS_PER_DEGREE = 111.195;
+    private static final Comparator<Entry> BY_AREA = Comparator.comparingDouble(Entry::area);
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final Level[] levels = new Level[MAX_LEVEL + 1];
+
+    public PlaceIndex() {
+        for (int level = 0; level <= MAX_LEVEL; level++) {
+            levels[level] = new Level(level);
+        }
+    }
+
+    /**
+     * Adds the place, replacing the one with the same id.
+     *
+     * @param place place
+     * @return false if the place has no bounding box and was not added
+     */
+    public boolean add(Place place) {
+        return add(place, false);
+    }
+
+    /**
+     * Adds the place of the status.
+     *
+     * @param status status received from a stream or an API
+     * @return false if the status has no place with a bounding box
+     */
+    public boolean add(Status status) {
+        return status.getPlace() != null && add(status.getPlace(), false);
+    }
+
+    /**
+     * @param places places
+     * @return number of places added
+     */
+    public int addAll(Iterable<? extends Place> places) {
+        int added = 0;
+        for (Place place : places) {
+            if (add(place, false)) {
+                added++;
+            }
+        }
+        return added;
+    }
+
+    private boolean add(Place place, boolean detailed) {
+        Entry entry = place.getId() == null ? null : Entry.of(place, detailed);
+        if (entry == null) {
+            return false;
+        }
+        lock.writeLock().lock();
+        try {
+            Entry previous = entries.get(place.getId());
+            if (previous != null) {
+                if (previous.detailed && !detailed) {
+                    // places embedded in statuses carry less than the geo details
+                    return true;
+                }
+                remove(previous);
+            }
+            entries.put(place.getId(), entry);
+            levels[entry.level].add(entry);
+            occupy(entry, 1);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param placeId place id
+     * @return the place removed, or null
+     */
+    public Place remove(String placeId) {
+        lock.writeLock().lock();
+        try {
+            Entry entry = entries.remove(placeId);
+            if (entry == null) {
+                return null;
+            }
+            remove(entry);
+            return entry.place;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void remove(Entry entry) {
+        levels[entry.level].remove(entry);
+        occupy(entry, -1);
+    }
+
+    /**
+     * counts the entry in the cells it is registered to and their enclosing cells at the coarser levels
+     */
+    private void occupy(Entry entry, int delta) {
+        Level level = levels[entry.level];
+        for (int x = level.x(entry.west); x <= level.x(entry.east); x++) {
+            for (int y = level.y(entry.south); y <= level.y(entry.north); y++) {
+                for (int coarser = entry.level; coarser >= 0; coarser--) {
+                    int shift = entry.level - coarser;
+                    levels[coarser].occupy(x >> shift, y >> shift, delta);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param placeId place id
+     * @return the place, or null
+     */
+    public Place get(String placeId) {
+        lock.readLock().lock();
+        try {
+            Entry entry = entries.get(placeId);
+            return entry == null ? null : entry.place;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            entries.clear();
+            for (Level level : levels) {
+                level.clear();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param location location
+     * @return places whose bounding box contains the location, the smallest first
+     */
+    public List<Place> getPlacesContaining(GeoLocation location) {
+        double lon = location.getLongitude(), lat = location.getLatitude();
+        List<Entry> found = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Level level : levels) {
+                int x = level.x(lon), y = level.y(lat);
+                if (level.occupancy(x, y) == 0) {
+                    // nothing at this level or finer
+                    break;
+                }
+                List<Entry> cell = level.cell(x, y);
+                if (cell != null) {
+                    for (Entry entry : cell) {
+                        if (entry.intersects(lon, lat, lon, lat)) {
+                            found.add(entry);
+                        }
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return toPlaces(found);
+    }
+
+    /**
+     * @param southWest south-west corner of the box
+     * @param northEast north-east corner of the box
+     * @return places whose bounding box intersects with the box, the smallest first
+     */
+    public List<Place> getPlacesIntersecting(GeoLocation southWest, GeoLocation northEast) {
+        double west = southWest.getLongitude(), south = southWest.getLatitude();
+        double east = northEast.getLongitude(), north = northEast.getLatitude();
+        List<Entry> found = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Level level : levels) {
+                if (level.size() == 0) {
+                    continue;
+                }
+                int minX = level.x(west), minY = level.y(south), maxX = level.x(east), maxY = level.y(north);
+                if ((long) (maxX - minX + 1) * (maxY - minY + 1) > level.size()) {
+                    for (Entry entry : level.entries) {
+                        if (entry.intersects(west, south, east, north)) {
+                            found.add(entry);
+                        }
+                    }
+                    continue;
+                }
+                for (int x = minX; x <= maxX; x++) {
+                    for (int y = minY; y <= maxY; y++) {
+                        List<Entry> cell = level.cell(x, y);
+                        if (cell == null) {
+                            continue;
+                        }
+                        for (Entry entry : cell) {
+                            // an entry spans up to four cells. report it at the first cell of the query it is registered to
+                            if (x == Math.max(minX, level.x(entry.west)) && y == Math.max(minY, level.y(entry.south))
+                                    && entry.intersects(west, south, east, north)) {
+                                found.add(entry);
+                            }
+                        }
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return toPlaces(found);
+    }
+
+    /**
+     * Returns the place nearest to the location, measured to the closest point of its bounding box.
+     * Distances are approximated by an equirectangular projection at the latitude of the location.
+     *
+     * @param location location
+     * @return the nearest place, the smallest one among those containing the location, or null if the index is empty
+     */
+    public Place getNearestPlace(GeoLocation location) {
+        double lon = location.getLongitude(), lat = location.getLatitude();
+        double cosLat = Math.cos(Math.toRadians(lat));
+        Entry nearest = null;
+        double nearestDistance = Double.MAX_VALUE;
+        // best first search over the cells, descending to the finer cells while they are nearer than the nearest place found
+        PriorityQueue<Cell> queue = new PriorityQueue<>();
+        lock.readLock().lock();
+        try {
+            if (levels[0].occupancy(0, 0) != 0) {
+                queue.add(new Cell(levels[0], 0, 0, lon, lat, cosLat));
+            }
+            Cell cell;
+            while ((cell = queue.poll()) != null && cell.distance <= nearestDistance) {
+                Level level = cell.level;
+                List<Entry> entries = level.cell(cell.x, cell.y);
+                if (entries != null) {
+                    for (Entry entry : entries) {
+                        double distance = entry.distance(lon, lat, cosLat);
+                        if (distance < nearestDistance || distance == nearestDistance && entry.area() < nearest.area()) {
+                            nearest = entry;
+                            nearestDistance = distance;
+                        }
+                    }
+                }
+                if (level.level < MAX_LEVEL) {
+                    Level finer = levels[level.level + 1];
+                    for (int x = cell.x * 2; x <= cell.x * 2 + 1; x++) {
+                        for (int y = cell.y * 2; y <= cell.y * 2 + 1 && y < finer.height; y++) {
+                            if (finer.occupancy(x, y) != 0) {
+                                queue.add(new Cell(finer, x, y, lon, lat, cosLat));
+                            }
+                        }
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return nearest == null ? null : nearest.place;
+    }
+
+    /**
+     * @param location location
+     * @param place    place
+     * @return approximate distance in kilometers from the location to the bounding box of the place, 0 if the box contains the location,
+     * or -1 if the place has no bounding box
+     */
+    public static double distanceKilometers(GeoLocation location, Place place) {
+        Entry entry = Entry.of(place, false);
+        if (entry == null) {
+            return -1;
+        }
+        return entry.distance(location.getLongitude(), location.getLatitude(), Math.cos(Math.toRadians(location.getLatitude())))
+                * KILOMETERS_PER_DEGREE;
+    }
+
+    private static List<Place> toPlaces(List<Entry> entries) {
+        entries.sort(BY_AREA);
+        List<Place> places = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            places.add(entry.place);
+        }
+        return places;
+    }
+
+    /**
+     * Returns PlacesGeoResources answering from this index where possible, and adding the places returned by the API to this index otherwise.<br>
+     * Queries with a location and neither a free-form query nor an IP address are answered from the places containing the location,
+     * filtered by granularity, once a place of the requested granularity (neighborhood by default) containing the location is known.
+     * Coarser places alone don't answer, as the API would have returned the finer ones. Geo details are answered once they have been retrieved.
+     *
+     * @param resources resources to be called on cache misses, typically a Twitter instance
+     * @return caching resources
+     */
+    public PlacesGeoResources cache(PlacesGeoResources resources) {
+        return new CachingPlacesGeoResources(resources);
+    }
+
+    private final class CachingPlacesGeoResources implements PlacesGeoResources {
+        private final PlacesGeoResources resources;
+
+        CachingPlacesGeoResources(PlacesGeoResources resources) {
+            this.resources = resources;
+        }
+
+        @Override
+        public Place getGeoDetails(String placeId) throws TwitterException {
+            lock.readLock().lock();
+            try {
+                Entry entry = entries.get(placeId);
+                if (entry != null && entry.detailed) {
+                    return entry.place;
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            Place place = resources.getGeoDetails(placeId);
+            add(place, true);
+            return place;
+        }
+
+        @Override
+        public ResponseList<Place> reverseGeoCode(GeoQuery query) throws TwitterException {
+            ResponseList<Place> cached = lookup(query);
+            if (cached != null) {
+                return cached;
+            }
+            ResponseList<Place> places = resources.reverseGeoCode(query);
+            addAll(places);
+            return places;
+        }
+
+        @Override
+        public ResponseList<Place> searchPlaces(GeoQuery query) throws TwitterException {
+            ResponseList<Place> cached = lookup(query);
+            if (cached != null) {
+                return cached;
+            }
+            ResponseList<Place> places = resources.searchPlaces(query);
+            addAll(places);
+            return places;
+        }
+
+        private ResponseList<Place> lookup(GeoQuery query) {
+            if (query.getLocation() == null || query.getQuery() != null || query.getIp() != null) {
+                return null;
+            }
+            int minimum = granularity(query.getGranularity() == null ? "neighborhood" : query.getGranularity());
+            ResponseList<Place> places = new ResponseListImpl<>(null, TwitterResponse.AccessLevel.NONE);
+            boolean requestedKnown = false;
+            for (Place place : getPlacesContaining(query.getLocation())) {
+                int granularity = granularity(place.getPlaceType());
+                if (granularity >= minimum) {
+                    requestedKnown |= granularity == minimum;
+                    if (query.getMaxResults() <= 0 || places.size() < query.getMaxResults()) {
+                        places.add(place);
+                    }
+                }
+            }
+            return requestedKnown ? places : null;
+        }
+    }
+
+    /**
+     * @return rank of the place type, the coarser the higher. unknown types rank with the finest
+     */
+    private static int granularity(String placeType) {
+        if (placeType == null) {
+            return 0;
+        }
+        switch (placeType) {
+            case "neighborhood":
+                return 1;
+            case "city":
+                return 2;
+            case "admin":
+                return 3;
+            case "country":
+                return 4;
+            default:
+                return 0;
+        }
+    }
+
+    private static final class Level {
+        final int level;
+        final double cellSize;
+        final int width;
+        final int height;
+        final Set<Entry> entries = new HashSet<>();
+        // slot of the cell keyed by x << 32 | y. slots are kept once allocated, as places rarely move
+        private final LongIntMap slots = new LongIntMap();
+        // entries registered in the cell of the slot
+        private final List<List<Entry>> cells = new ArrayList<>();
+        // number of registrations in the cell of the slot and the cells it encloses at the finer levels
+        private int[] occupancy = new int[16];
+
+        Level(int level) {
+            this.level = level;
+            this.width = 1 << level;
+            this.height = Math.max(1, width / 2);
+            this.cellSize = 360d / width;
+        }
+
+        int size() {
+            return entries.size();
+        }
+
+        int x(double longitude) {
+            return Math.min(width - 1, Math.max(0, (int) Math.floor((longitude + 180d) / cellSize)));
+        }
+
+        int y(double latitude) {
+            return Math.min(height - 1, Math.max(0, (int) Math.floor((latitude + 90d) / cellSize)));
+        }
+
+        double west(int x) {
+            return x * cellSize - 180d;
+        }
+
+        double south(int y) {
+            return y * cellSize - 90d;
+        }
+
+        private static long key(int x, int y) {
+            return ((long) x << 32) | (y & 0xffffffffL);
+        }
+
+        private int slot(int x, int y) {
+            long key = key(x, y);
+            int slot = slots.get(key);
+            if (slot == -1) {
+                slot = cells.size();
+                slots.put(key, slot);
+                cells.add(null);
+                if (slot == occupancy.length) {
+                    occupancy = Arrays.copyOf(occupancy, slot * 2);
+                }
+            }
+            return slot;
+        }
+
+        List<Entry> cell(int x, int y) {
+            int slot = slots.get(key(x, y));
+            return slot == -1 ? null : cells.get(slot);
+        }
+
+        int occupancy(int x, int y) {
+            int slot = slots.get(key(x, y));
+            return slot == -1 ? 0 : occupancy[slot];
+        }
+
+        void occupy(int x, int y, int delta) {
+            // the slot first, as allocating it may grow the array
+            int slot = slot(x, y);
+            occupancy[slot] += delta;
+        }
+
+        void add(Entry entry) {
+            entries.add(entry);
+            for (int x = x(entry.west); x <= x(entry.east); x++) {
+                for (int y = y(entry.south); y <= y(entry.north); y++) {
+                    int slot = slot(x, y);
+                    List<Entry> cell = cells.get(slot);
+                    if (cell == null) {
+                        cell = new ArrayList<>(2);
+                        cells.set(slot, cell);
+                    }
+                    cell.add(entry);
+                }
+            }
+        }
+
+        void remove(Entry entry) {
+            entries.remove(entry);
+            for (int x = x(entry.west); x <= x(entry.east); x++) {
+                for (int y = y(entry.south); y <= y(entry.north); y++) {
+                    List<Entry> cell = cell(x, y);
+                    if (cell != null) {
+                        cell.remove(entry);
+                    }
+                }
+            }
+        }
+
+        void clear() {
+            entries.clear();
+            slots.clear();
+            cells.clear();
+            occupancy = new int[16];
+        }
+    }
+
+    private static final class Cell implements Comparable<Cell> {
+        final Level level;
+        final int x;
+        final int y;
+        // distance to the closest point of the cell, in degrees of latitude
+        final double distance;
+
+        Cell(Level level, int x, int y, double lon, double lat, double cosLat) {
+            this.level = level;
+            this.x = x;
+            this.y = y;
+            double west = level.west(x), south = level.south(y);
+            double dx = Math.max(0, Math.max(west - lon, lon - (west + level.cellSize))) * cosLat;
+            double dy = Math.max(0, Math.max(south - lat, lat - (south + level.cellSize)));
+            this.distance = Math.sqrt(dx * dx + dy * dy);
+        }
+
+        @Override
+        public int compareTo(Cell that) {
+            return Double.compare(distance, that.distance);
+        }
+    }
+
+    private static final class Entry {
+        final Place place;
+        final double west;
+        final double south;
+        final double east;
+        final double north;
+        final int level;
+        final boolean detailed;
+
+        Entry(Place place, double west, double south, double east, double north, boolean detailed) {
+            this.place = place;
+            this.west = west;
+            this.south = south;
+            this.east = east;
+            this.north = north;
+            this.detailed = detailed;
+            // the finest level where the box spans at most two cells per axis
+            double span = Math.max(east - west, north - south);
+            this.level = span <= 0 ? MAX_LEVEL : Math.max(0, Math.min(MAX_LEVEL, (int) Math.floor(Math.log(360d / span) / Math.log(2))));
+        }
+
+        /**
+         * @return entry of the place, or null if the place has no bounding box
+         */
+        static Entry of(Place place, boolean detailed) {
+            GeoLocation[][] coordinates = place.getBoundingBoxCoordinates();
+            if (coordinates == null) {
+                return null;
+            }
+            double west = Double.MAX_VALUE, south = Double.MAX_VALUE, east = -Double.MAX_VALUE, north = -Double.MAX_VALUE;
+            for (GeoLocation[] polygon : coordinates) {
+                for (GeoLocation point : polygon) {
+                    west = Math.min(west, point.getLongitude());
+                    east = Math.max(east, point.getLongitude());
+                    south = Math.min(south, point.getLatitude());
+                    north = Math.max(north, point.getLatitude());
+                }
+            }
+            return west > east ? null : new Entry(place, west, south, east, north, detailed);
+        }
+
+        double area() {
+            return (east - west) * (north - south);
+        }
+
+        boolean intersects(double west, double south, double east, double north) {
+            return this.west <= east && west <= this.east && this.south <= north && south <= this.north;
+        }
+
+        /**
+         * @return distance in degrees of latitude to the closest point of the box
+         */
+        double distance(double lon, double lat, double cosLat) {
+            double dx = Math.max(0, Math.max(west - lon, lon - east)) * cosLat;
+            double dy = Math.max(0, Math.max(south - lat, lat - north));
+            return Math.sqrt(dx * dx + dy * dy);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "PlaceIndex{" +
+                "size=" + size() +
+                '}';
+    }
+}
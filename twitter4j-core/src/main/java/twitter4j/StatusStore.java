@@ -0,0 +1,1053 @@
+/*
+ * Copyright 2007 Yusuke Yamamoto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package twitter4j;
+
+import java.io.NotSerializableException;
+import java.io.ObjectStreamException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Holds the most recent statuses compactly in columns of primitive arrays, with texts encoded in UTF-8 off the heap.<br>
+ * Once the capacity is reached, the oldest status is evicted as a new one is added.
+ * Statuses are read through lightweight views implementing {@link Status}, which read the columns on access.<br>
+ * The store is a projection for analytics: id, creation time, text, display text range, source, reply-to fields, geo location,
+ * counts, flags, lang, user, and retweeted/quoted status ids are retained. Entities, place, scopes, contributors and withheld countries are not,
+ * and views return empty arrays or null for them.
+ * Retweeted and quoted statuses are stored as statuses of their own, and resolved by id while they remain in the store.<br>
+ * Users are retained once per user id, the latest one added, when constructed with retainUsers. Otherwise {@link Status#getUser()} of views returns null.
+ * Users, sources, langs and screen names are released along with the last status referring to them, so memory stays bounded by the capacity.<br>
+ * This class is thread safe.
+ *
+ * @author Yusuke Yamamoto - yusuke at mac.com
+ * @since Twitter4J 4.0.8
+ */
+public final class StatusStore {
+    private static final int TEXT_BLOCK_SIZE = 1024 * 1024;
+    // number of statuses matched by a scan per acquisition of the read lock
+    private static final int SCAN_CHUNK_SIZE = 256;
+
+    private static final byte TRUNCATED = 1;
+    private static final byte FAVORITED = 1 << 1;
+    private static final byte RETWEETED = 1 << 2;
+    private static final byte POSSIBLY_SENSITIVE = 1 << 3;
+    private static final byte RETWEETED_BY_ME = 1 << 4;
+
+    private final int capacity;
+    private final boolean retainUsers;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // columns. row = sequence % capacity
+    private final long[] ids;
+    private final long[] createdAt;
+    private final long[] userIds;
+    private final long[] inReplyToStatusIds;
+    private final long[] inReplyToUserIds;
+    private final long[] retweetedStatusIds;
+    private final long[] quotedStatusIds;
+    private final long[] currentUserRetweetIds;
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final int[] favoriteCounts;
+    private final int[] retweetCounts;
+    private final int[] displayTextRangeStarts;
+    private final int[] displayTextRangeEnds;
+    private final int[] sources;
+    private final int[] langs;
+    private final int[] inReplyToScreenNames;
+    private final byte[] flags;
+    // block number << 32 | offset of the text in the block
+    private final long[] textPositions;
+    private final int[] textLengths;
+
+    // sequence of the next status to be added
+    private long nextSequence = 0;
+    private final IdIndex idIndex;
+
+    // dictionary of sources, langs and screen names. codes are reused once no row refers to them
+    private final Map<String, Integer> dictionaryIndex = new HashMap<>();
+    private final List<String> dictionary = new ArrayList<>();
+    // number of rows referring to each code
+    private int[] dictionaryRefs = new int[16];
+    private int[] freeCodes = new int[16];
+    private int freeCodeCount = 0;
+
+    private final Map<Long, RetainedUser> users = new HashMap<>();
+
+    // indexed by block number - firstBlockNumber. blocks are released from the head only, once per TEXT_BLOCK_SIZE bytes or so
+    private final List<TextBlock> textBlocks = new ArrayList<>();
+    // number of the first block in textBlocks
+    private long firstBlockNumber = 0;
+    private TextBlock freeBlock = null;
+
+    /**
+     * @param capacity maximum number of statuses to be held
+     */
+    public StatusStore(int capacity) {
+        this(capacity, true);
+    }
+
+    /**
+     * @param capacity    maximum number of statuses to be held
+     * @param retainUsers whether to retain users of statuses, once per user id
+     */
+    public StatusStore(int capacity, boolean retainUsers) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.retainUsers = retainUsers;
+        ids = new long[capacity];
+        createdAt = new long[capacity];
+        userIds = new long[capacity];
+        inReplyToStatusIds = new long[capacity];
+        inReplyToUserIds = new long[capacity];
+        retweetedStatusIds = new long[capacity];
+        quotedStatusIds = new long[capacity];
+        currentUserRetweetIds = new long[capacity];
+        latitudes = new double[capacity];
+        longitudes = new double[capacity];
+        favoriteCounts = new int[capacity];
+        retweetCounts = new int[capacity];
+        displayTextRangeStarts = new int[capacity];
+        displayTextRangeEnds = new int[capacity];
+        sources = new int[capacity];
+        langs = new int[capacity];
+        inReplyToScreenNames = new int[capacity];
+        flags = new byte[capacity];
+        textPositions = new long[capacity];
+        textLengths = new int[capacity];
+        idIndex = new IdIndex(capacity);
+    }
+
+    /**
+     * Adds a status in raw JSON format, along with the retweeted and quoted status if any.
+     * The retained fields are parsed straight into the columns, without constructing a {@link Status}.
+     *
+     * @param rawJSON raw JSON of a status
+     * @throws TwitterException when the JSON is not a status
+     */
+    public void add(String rawJSON) throws TwitterException {
+        try {
+            add(new Projection(new JSONObject(rawJSON), retainUsers, true));
+        } catch (JSONException jsone) {
+            throw new TwitterException(jsone);
+        }
+    }
+
+    /**
+     * Adds the status, along with the retweeted and quoted status if any. If a status with the same id is already held, its counts and flags are updated.
+     *
+     * @param status status to be added
+     */
+    public void add(Status status) {
+        add(new Projection(status, true));
+    }
+
+    private void add(Projection status) {
+        lock.writeLock().lock();
+        try {
+            if (status.retweetedStatus != null) {
+                addInternal(status.retweetedStatus);
+            }
+            if (status.quotedStatus != null) {
+                addInternal(status.quotedStatus);
+            }
+            addInternal(status);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void addInternal(Projection status) {
+        int row = idIndex.get(status.id);
+        if (row != -1) {
+            favoriteCounts[row] = status.favoriteCount;
+            retweetCounts[row] = status.retweetCount;
+            flags[row] = status.flags;
+            updateUser(status.user);
+            return;
+        }
+        row = (int) (nextSequence % capacity);
+        if (nextSequence >= capacity) {
+            evict(row);
+        }
+        ids[row] = status.id;
+        createdAt[row] = status.createdAt;
+        userIds[row] = status.userId;
+        inReplyToStatusIds[row] = status.inReplyToStatusId;
+        inReplyToUserIds[row] = status.inReplyToUserId;
+        retweetedStatusIds[row] = status.retweetedStatusId;
+        quotedStatusIds[row] = status.quotedStatusId;
+        currentUserRetweetIds[row] = status.currentUserRetweetId;
+        latitudes[row] = status.latitude;
+        longitudes[row] = status.longitude;
+        favoriteCounts[row] = status.favoriteCount;
+        retweetCounts[row] = status.retweetCount;
+        displayTextRangeStarts[row] = status.displayTextRangeStart;
+        displayTextRangeEnds[row] = status.displayTextRangeEnd;
+        sources[row] = encode(status.source);
+        langs[row] = encode(status.lang);
+        inReplyToScreenNames[row] = encode(status.inReplyToScreenName);
+        flags[row] = status.flags;
+        writeText(row, status.text);
+        retainUser(status.user);
+        idIndex.put(status.id, row);
+        nextSequence++;
+    }
+
+    private static byte flags(boolean truncated, boolean favorited, boolean retweeted, boolean possiblySensitive, boolean retweetedByMe) {
+        byte flags = 0;
+        if (truncated) {
+            flags |= TRUNCATED;
+        }
+        if (favorited) {
+            flags |= FAVORITED;
+        }
+        if (retweeted) {
+            flags |= RETWEETED;
+        }
+        if (possiblySensitive) {
+            flags |= POSSIBLY_SENSITIVE;
+        }
+        if (retweetedByMe) {
+            flags |= RETWEETED_BY_ME;
+        }
+        return flags;
+    }
+
+    private void retainUser(User user) {
+        if (retainUsers && user != null) {
+            RetainedUser retained = users.get(user.getId());
+            if (retained == null) {
+                users.put(user.getId(), new RetainedUser(user));
+            } else {
+                retained.user = user;
+                retained.rows++;
+            }
+        }
+    }
+
+    /**
+     * replaces the user retained for a row already referring to it
+     */
+    private void updateUser(User user) {
+        if (user != null) {
+            RetainedUser retained = users.get(user.getId());
+            if (retained != null) {
+                retained.user = user;
+            }
+        }
+    }
+
+    private void releaseUser(long userId) {
+        RetainedUser retained = users.get(userId);
+        if (retained != null && --retained.rows == 0) {
+            users.remove(userId);
+        }
+    }
+
+    private void evict(int row) {
+        idIndex.remove(ids[row], row);
+        if (retainUsers && userIds[row] != -1) {
+            releaseUser(userIds[row]);
+        }
+        release(sources[row]);
+        release(langs[row]);
+        release(inReplyToScreenNames[row]);
+        long evictedSequence = nextSequence - capacity;
+        // release text blocks which hold texts of evicted statuses only
+        while (textBlocks.size() > 1 && textBlocks.get(0).lastSequence <= evictedSequence) {
+            freeBlock = textBlocks.remove(0);
+            firstBlockNumber++;
+        }
+    }
+
+    private int encode(String value) {
+        if (value == null) {
+            return -1;
+        }
+        Integer code = dictionaryIndex.get(value);
+        if (code == null) {
+            if (freeCodeCount > 0) {
+                code = freeCodes[--freeCodeCount];
+                dictionary.set(code, value);
+            } else {
+                code = dictionary.size();
+                dictionary.add(value);
+                if (code == dictionaryRefs.length) {
+                    dictionaryRefs = Arrays.copyOf(dictionaryRefs, code * 2);
+                }
+            }
+            dictionaryIndex.put(value, code);
+        }
+        dictionaryRefs[code]++;
+        return code;
+    }
+
+    private void release(int code) {
+        if (code != -1 && --dictionaryRefs[code] == 0) {
+            dictionaryIndex.remove(dictionary.get(code));
+            dictionary.set(code, null);
+            if (freeCodeCount == freeCodes.length) {
+                freeCodes = Arrays.copyOf(freeCodes, freeCodeCount * 2);
+            }
+            freeCodes[freeCodeCount++] = code;
+        }
+    }
+
+    private String decode(int code) {
+        return code == -1 ? null : dictionary.get(code);
+    }
+
+    private void writeText(int row, String text) {
+        if (text == null) {
+            textLengths[row] = -1;
+            return;
+        }
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        TextBlock block = textBlocks.isEmpty() ? null : textBlocks.get(textBlocks.size() - 1);
+        if (block == null || block.buffer.remaining() < bytes.length) {
+            if (freeBlock != null && freeBlock.buffer.capacity() >= bytes.length) {
+                block = freeBlock;
+                block.buffer.clear();
+            } else {
+                block = new TextBlock(Math.max(TEXT_BLOCK_SIZE, bytes.length));
+            }
+            freeBlock = null;
+            textBlocks.add(block);
+        }
+        long blockNumber = firstBlockNumber + textBlocks.size() - 1;
+        textPositions[row] = blockNumber << 32 | block.buffer.position();
+        textLengths[row] = bytes.length;
+        block.buffer.put(bytes);
+        block.lastSequence = nextSequence;
+    }
+
+    private String readText(int row) {
+        int length = textLengths[row];
+        if (length == -1) {
+            return null;
+        }
+        long position = textPositions[row];
+        TextBlock block = textBlocks.get((int) ((position >>> 32) - firstBlockNumber));
+        int offset = (int) position;
+        byte[] bytes = new byte[length];
+        block.buffer.duplicate().position(offset).get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param statusId status id
+     * @return view of the status, or null if not held
+     */
+    public Status get(long statusId) {
+        lock.readLock().lock();
+        try {
+            int row = idIndex.get(statusId);
+            return row == -1 ? null : new StatusView(this, row, sequenceOf(row));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long sequenceOf(int row) {
+        long base = nextSequence - 1 - ((nextSequence - 1) % capacity);
+        return base + row <= nextSequence - 1 ? base + row : base + row - capacity;
+    }
+
+    /**
+     * Passes statuses created in the time range to the action, from the oldest added.<br>
+     * The status passed is a view reused across calls and is valid only during the call. Use {@link #get(long)} to keep one.
+     * The action is called without holding the lock of the store, and may add statuses.
+     *
+     * @param since  start of the range, inclusive
+     * @param until  end of the range, exclusive
+     * @param action action for each status
+     */
+    public void forEachCreatedBetween(Date since, Date until, Consumer<Status> action) {
+        scan(since.getTime(), until.getTime(), createdAt, action);
+    }
+
+    /**
+     * Passes statuses with ids in the range to the action, from the oldest added.<br>
+     * The status passed is a view reused across calls and is valid only during the call. Use {@link #get(long)} to keep one.
+     * The action is called without holding the lock of the store, and may add statuses.
+     *
+     * @param sinceId start of the range, inclusive
+     * @param maxId   end of the range, inclusive
+     * @param action  action for each status
+     */
+    public void forEachIdBetween(long sinceId, long maxId, Consumer<Status> action) {
+        if (maxId == Long.MAX_VALUE) {
+            scan(sinceId, Long.MAX_VALUE, ids, action);
+            scanExactly(Long.MAX_VALUE, action);
+        } else {
+            scan(sinceId, maxId + 1, ids, action);
+        }
+    }
+
+    private void scanExactly(long id, Consumer<Status> action) {
+        Status status = get(id);
+        if (status != null) {
+            action.accept(status);
+        }
+    }
+
+    /**
+     * Copies the sequences of the matching statuses a chunk at a time under the read lock, and passes them to the action without holding it,
+     * so that the action may add statuses. Statuses evicted before the action gets to them are skipped.
+     */
+    private void scan(long from, long until, long[] column, Consumer<Status> action) {
+        long[] matched = new long[SCAN_CHUNK_SIZE];
+        StatusView cursor = new StatusView(this, 0, 0);
+        long sequence = 0;
+        while (true) {
+            int count = 0;
+            long end;
+            lock.readLock().lock();
+            try {
+                sequence = Math.max(sequence, nextSequence - capacity);
+                end = nextSequence;
+                for (; sequence < end && count < matched.length; sequence++) {
+                    long value = column[(int) (sequence % capacity)];
+                    if (value >= from && value < until) {
+                        matched[count++] = sequence;
+                    }
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            for (int i = 0; i < count; i++) {
+                if (isHeld(matched[i])) {
+                    cursor.row = (int) (matched[i] % capacity);
+                    cursor.sequence = matched[i];
+                    action.accept(cursor);
+                }
+            }
+            if (sequence >= end) {
+                return;
+            }
+        }
+    }
+
+    private boolean isHeld(long sequence) {
+        lock.readLock().lock();
+        try {
+            return sequence >= nextSequence - capacity;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return number of statuses held
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return (int) Math.min(nextSequence, capacity);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return maximum number of statuses to be held
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return number of users retained
+     */
+    public int getUserCount() {
+        lock.readLock().lock();
+        try {
+            return users.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return number of distinct sources, langs and screen names held
+     */
+    /*package*/ int getDictionarySize() {
+        lock.readLock().lock();
+        try {
+            return dictionaryIndex.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return bytes allocated off the heap for texts
+     */
+    public long getTextBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = 0;
+            for (TextBlock block : textBlocks) {
+                bytes += block.buffer.capacity();
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "StatusStore{" +
+                "capacity=" + capacity +
+                ", size=" + size() +
+                ", retainUsers=" + retainUsers +
+                '}';
+    }
+
+    /**
+     * The fields of a status retained by the store, taken from a Status or parsed from JSON as StatusJSONImpl does.
+     */
+    private static final class Projection {
+        long id;
+        long createdAt = 0;
+        // null unless users are retained
+        User user = null;
+        long userId = -1;
+        long inReplyToStatusId;
+        long inReplyToUserId;
+        long retweetedStatusId = -1;
+        long quotedStatusId = -1;
+        long currentUserRetweetId = -1;
+        double latitude = Double.NaN;
+        double longitude = Double.NaN;
+        int favoriteCount;
+        int retweetCount;
+        int displayTextRangeStart = -1;
+        int displayTextRangeEnd = -1;
+        String source;
+        String lang = null;
+        String inReplyToScreenName;
+        byte flags;
+        String text = null;
+        // of the status added only. statuses nested deeper are referred to by id
+        Projection retweetedStatus = null;
+        Projection quotedStatus = null;
+
+        Projection(Status status, boolean withNested) {
+            id = status.getId();
+            createdAt = status.getCreatedAt() != null ? status.getCreatedAt().getTime() : 0;
+            user = status.getUser();
+            userId = user != null ? user.getId() : -1;
+            inReplyToStatusId = status.getInReplyToStatusId();
+            inReplyToUserId = status.getInReplyToUserId();
+            if (status.getRetweetedStatus() != null) {
+                retweetedStatusId = status.getRetweetedStatus().getId();
+                if (withNested) {
+                    retweetedStatus = new Projection(status.getRetweetedStatus(), false);
+                }
+            }
+            if (withNested && status.getQuotedStatus() != null) {
+                quotedStatus = new Projection(status.getQuotedStatus(), false);
+            }
+            quotedStatusId = status.getQuotedStatusId();
+            currentUserRetweetId = status.getCurrentUserRetweetId();
+            GeoLocation geoLocation = status.getGeoLocation();
+            if (geoLocation != null) {
+                latitude = geoLocation.getLatitude();
+                longitude = geoLocation.getLongitude();
+            }
+            favoriteCount = status.getFavoriteCount();
+            retweetCount = status.getRetweetCount();
+            displayTextRangeStart = status.getDisplayTextRangeStart();
+            displayTextRangeEnd = status.getDisplayTextRangeEnd();
+            source = status.getSource();
+            lang = status.getLang();
+            inReplyToScreenName = status.getInReplyToScreenName();
+            flags = flags(status.isTruncated(), status.isFavorited(), status.isRetweeted(), status.isPossiblySensitive(), status.isRetweetedByMe());
+            text = status.getText();
+        }
+
+        Projection(JSONObject json, boolean retainUsers, boolean withNested) throws TwitterException, JSONException {
+            id = ParseUtil.getLong("id", json);
+            Date date = ParseUtil.getDate("created_at", json);
+            if (date != null) {
+                createdAt = date.getTime();
+            }
+            if (!json.isNull("user")) {
+                JSONObject userJSON = json.getJSONObject("user");
+                // entities, and other fields of the user, are parsed only when retained
+                user = retainUsers ? new UserJSONImpl(userJSON) : null;
+                userId = ParseUtil.getLong("id", userJSON);
+            }
+            inReplyToStatusId = ParseUtil.getLong("in_reply_to_status_id", json);
+            inReplyToUserId = ParseUtil.getLong("in_reply_to_user_id", json);
+            if (!json.isNull("retweeted_status")) {
+                JSONObject retweetedJSON = json.getJSONObject("retweeted_status");
+                retweetedStatusId = ParseUtil.getLong("id", retweetedJSON);
+                if (withNested) {
+                    retweetedStatus = new Projection(retweetedJSON, retainUsers, false);
+                }
+            }
+            if (withNested && !json.isNull("quoted_status")) {
+                quotedStatus = new Projection(json.getJSONObject("quoted_status"), retainUsers, false);
+            }
+            if (!json.isNull("quoted_status_id")) {
+                quotedStatusId = ParseUtil.getLong("quoted_status_id", json);
+            }
+            if (!json.isNull("current_user_retweet")) {
+                currentUserRetweetId = json.getJSONObject("current_user_retweet").getLong("id");
+            }
+            GeoLocation geoLocation = JSONImplFactory.createGeoLocation(json);
+            if (geoLocation != null) {
+                latitude = geoLocation.getLatitude();
+                longitude = geoLocation.getLongitude();
+            }
+            favoriteCount = ParseUtil.getInt("favorite_count", json);
+            retweetCount = (int) ParseUtil.getLong("retweet_count", json);
+            source = ParseUtil.getUnescapedString("source", json);
+            if (!json.isNull("lang")) {
+                lang = ParseUtil.getUnescapedString("lang", json);
+            }
+            inReplyToScreenName = ParseUtil.getUnescapedString("in_reply_to_screen_name", json);
+            flags = flags(ParseUtil.getBoolean("truncated", json), ParseUtil.getBoolean("favorited", json),
+                    ParseUtil.getBoolean("retweeted", json), ParseUtil.getBoolean("possibly_sensitive", json), currentUserRetweetId != -1);
+            if (!json.isNull("display_text_range")) {
+                displayTextRange(json.getJSONArray("display_text_range"));
+            }
+            if (!json.isNull("text")) {
+                text = HTMLEntity.unescape(json.getString("text"));
+            }
+            if (!json.isNull("full_text")) {
+                text = HTMLEntity.unescape(json.getString("full_text"));
+            }
+            if (!json.isNull("extended_tweet")) {
+                JSONObject extendedTweet = json.getJSONObject("extended_tweet");
+                displayTextRange(extendedTweet.getJSONArray("display_text_range"));
+                text = HTMLEntity.unescape(extendedTweet.getString("full_text"));
+            }
+        }
+
+        private void displayTextRange(JSONArray indices) throws JSONException {
+            displayTextRangeStart = indices.getInt(0);
+            displayTextRangeEnd = indices.getInt(1);
+        }
+    }
+
+    /**
+     * the latest user added for a user id, and the number of rows referring to it
+     */
+    private static final class RetainedUser {
+        User user;
+        int rows = 1;
+
+        RetainedUser(User user) {
+            this.user = user;
+        }
+    }
+
+    private static final class TextBlock {
+        final ByteBuffer buffer;
+        // sequence of the last status whose text is in this block
+        long lastSequence;
+
+        TextBlock(int size) {
+            buffer = ByteBuffer.allocateDirect(size);
+        }
+    }
+
+    /**
+     * open addressing map from status id to row
+     */
+    private static final class IdIndex {
+        private final long[] keys;
+        private final int[] rows;
+        private final int mask;
+
+        IdIndex(int capacity) {
+            int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 2;
+            keys = new long[size];
+            rows = new int[size];
+            Arrays.fill(rows, -1);
+            mask = size - 1;
+        }
+
+        private int slot(long id) {
+            long h = id * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & mask;
+        }
+
+        int get(long id) {
+            for (int slot = slot(id); rows[slot] != -1; slot = (slot + 1) & mask) {
+                if (keys[slot] == id) {
+                    return rows[slot];
+                }
+            }
+            return -1;
+        }
+
+        void put(long id, int row) {
+            int slot = slot(id);
+            while (rows[slot] != -1 && keys[slot] != id) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = id;
+            rows[slot] = row;
+        }
+
+        void remove(long id, int row) {
+            int slot = slot(id);
+            while (rows[slot] != -1) {
+                if (keys[slot] == id && rows[slot] == row) {
+                    break;
+                }
+                slot = (slot + 1) & mask;
+            }
+            if (rows[slot] == -1) {
+                return;
+            }
+            // shift back following entries so that lookups don't stop at the hole
+            int hole = slot;
+            for (int next = (hole + 1) & mask; rows[next] != -1; next = (next + 1) & mask) {
+                int home = slot(keys[next]);
+                if (((next - home) & mask) >= ((next - hole) & mask)) {
+                    keys[hole] = keys[next];
+                    rows[hole] = rows[next];
+                    hole = next;
+                }
+            }
+            rows[hole] = -1;
+        }
+    }
+
+    /**
+     * A view of a status in the store. Columns are read on access.<br>
+     * Views are not serializable although {@link Status} is, as they hold no data of their own.
+     */
+    private static final class StatusView implements Status {
+        private static final long serialVersionUID = -4458402584019924734L;
+        private final transient StatusStore store;
+        private int row;
+        private long sequence;
+
+        StatusView(StatusStore store, int row, long sequence) {
+            this.store = store;
+            this.row = row;
+            this.sequence = sequence;
+        }
+
+        /**
+         * acquires the read lock, making sure the status has not been evicted
+         */
+        private void lock() {
+            store.lock.readLock().lock();
+            if (sequence < store.nextSequence - store.capacity) {
+                store.lock.readLock().unlock();
+                throw new IllegalStateException("The status has been evicted from the store.");
+            }
+        }
+
+        private void unlock() {
+            store.lock.readLock().unlock();
+        }
+
+        private long longColumn(long[] column) {
+            lock();
+            try {
+                return column[row];
+            } finally {
+                unlock();
+            }
+        }
+
+        private int intColumn(int[] column) {
+            lock();
+            try {
+                return column[row];
+            } finally {
+                unlock();
+            }
+        }
+
+        private boolean flag(byte flag) {
+            lock();
+            try {
+                return (store.flags[row] & flag) != 0;
+            } finally {
+                unlock();
+            }
+        }
+
+        private String dictionaryColumn(int[] column) {
+            lock();
+            try {
+                return store.decode(column[row]);
+            } finally {
+                unlock();
+            }
+        }
+
+        @Override
+        public Date getCreatedAt() {
+            return new Date(longColumn(store.createdAt));
+        }
+
+        @Override
+        public long getId() {
+            return longColumn(store.ids);
+        }
+
+        @Override
+        public String getText() {
+            lock();
+            try {
+                return store.readText(row);
+            } finally {
+                unlock();
+            }
+        }
+
+        @Override
+        public int getDisplayTextRangeStart() {
+            return intColumn(store.displayTextRangeStarts);
+        }
+
+        @Override
+        public int getDisplayTextRangeEnd() {
+            return intColumn(store.displayTextRangeEnds);
+        }
+
+        @Override
+        public String getSource() {
+            return dictionaryColumn(store.sources);
+        }
+
+        @Override
+        public boolean isTruncated() {
+            return flag(TRUNCATED);
+        }
+
+        @Override
+        public long getInReplyToStatusId() {
+            return longColumn(store.inReplyToStatusIds);
+        }
+
+        @Override
+        public long getInReplyToUserId() {
+            return longColumn(store.inReplyToUserIds);
+        }
+
+        @Override
+        public String getInReplyToScreenName() {
+            return dictionaryColumn(store.inReplyToScreenNames);
+        }
+
+        @Override
+        public GeoLocation getGeoLocation() {
+            lock();
+            try {
+                return Double.isNaN(store.latitudes[row]) ? null : new GeoLocation(store.latitudes[row], store.longitudes[row]);
+            } finally {
+                unlock();
+            }
+        }
+
+        @Override
+        public Place getPlace() {
+            return null;
+        }
+
+        @Override
+        public boolean isFavorited() {
+            return flag(FAVORITED);
+        }
+
+        @Override
+        public boolean isRetweeted() {
+            return flag(RETWEETED);
+        }
+
+        @Override
+        public int getFavoriteCount() {
+            return intColumn(store.favoriteCounts);
+        }
+
+        @Override
+        public User getUser() {
+            lock();
+            try {
+                RetainedUser retained = store.users.get(store.userIds[row]);
+                return retained == null ? null : retained.user;
+            } finally {
+                unlock();
+            }
+        }
+
+        @Override
+        public boolean isRetweet() {
+            return longColumn(store.retweetedStatusIds) != -1;
+        }
+
+        @Override
+        public Status getRetweetedStatus() {
+            long retweetedStatusId = longColumn(store.retweetedStatusIds);
+            return retweetedStatusId == -1 ? null : store.get(retweetedStatusId);
+        }
+
+        @Override
+        public long[] getContributors() {
+            return new long[0];
+        }
+
+        @Override
+        public int getRetweetCount() {
+            return intColumn(store.retweetCounts);
+        }
+
+        @Override
+        public boolean isRetweetedByMe() {
+            return flag(RETWEETED_BY_ME);
+        }
+
+        @Override
+        public long getCurrentUserRetweetId() {
+            return longColumn(store.currentUserRetweetIds);
+        }
+
+        @Override
+        public boolean isPossiblySensitive() {
+            return flag(POSSIBLY_SENSITIVE);
+        }
+
+        @Override
+        public String getLang() {
+            return dictionaryColumn(store.langs);
+        }
+
+        @Override
+        public Scopes getScopes() {
+            return null;
+        }
+
+        @Override
+        public String[] getWithheldInCountries() {
+            return null;
+        }
+
+        @Override
+        public long getQuotedStatusId() {
+            return longColumn(store.quotedStatusIds);
+        }
+
+        @Override
+        public Status getQuotedStatus() {
+            long quotedStatusId = longColumn(store.quotedStatusIds);
+            return quotedStatusId == -1 ? null : store.get(quotedStatusId);
+        }
+
+        @Override
+        public URLEntity getQuotedStatusPermalink() {
+            return null;
+        }
+
+        @Override
+        public UserMentionEntity[] getUserMentionEntities() {
+            return new UserMentionEntity[0];
+        }
+
+        @Override
+        public URLEntity[] getURLEntities() {
+            return new URLEntity[0];
+        }
+
+        @Override
+        public HashtagEntity[] getHashtagEntities() {
+            return new HashtagEntity[0];
+        }
+
+        @Override
+        public MediaEntity[] getMediaEntities() {
+            return new MediaEntity[0];
+        }
+
+        @Override
+        public SymbolEntity[] getSymbolEntities() {
+            return new SymbolEntity[0];
+        }
+
+        @Override
+        public RateLimitStatus getRateLimitStatus() {
+            return null;
+        }
+
+        @Override
+        public AccessLevel getAccessLevel() {
+            return AccessLevel.NONE;
+        }
+
+        @Override
+        public int compareTo(Status that) {
+            long delta = getId() - that.getId();
+            if (delta < Integer.MIN_VALUE) {
+                return Integer.MIN_VALUE;
+            } else if (delta > Integer.MAX_VALUE) {
+                return Integer.MAX_VALUE;
+            }
+            return (int) delta;
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) getId();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (null == obj) {
+                return false;
+            }
+            if (this == obj) {
+                return true;
+            }
+            return obj instanceof Status && ((Status) obj).getId() == getId();
+        }
+
+        private Object writeReplace() throws ObjectStreamException {
+            throw new NotSerializableException("StatusView reads the store on access. Copy the fields needed to serialize a status.");
+        }
+
+        @Override
+        public String toString() {
+            return "StatusView{" +
+                    "id=" + getId() +
+                    ", createdAt=" + getCreatedAt() +
+                    ", text='" + getText() + '\'' +
+                    '}';
+        }
+    }
+}
@@ -44,25 +44,36 @@ public class TwitterAPIMonitor {
     private static final APIStatistics STATISTICS = new APIStatistics(100);
 
 
-    static {
-        try {
+    private static volatile boolean registered = false;
 
-            MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
-            ObjectName oName = new ObjectName("twitter4j.mbean:type=APIStatisticsOpenMBean");
-            APIStatisticsOpenMBean openMBean = new APIStatisticsOpenMBean(STATISTICS);
-            mbs.registerMBean(openMBean, oName);
-        } catch (InstanceAlreadyExistsException e) {
-            e.printStackTrace();
-            logger.error(e.getMessage());
-        } catch (MBeanRegistrationException e) {
-            e.printStackTrace();
-            logger.error(e.getMessage());
-        } catch (NotCompliantMBeanException e) {
-            e.printStackTrace();
-            logger.error(e.getMessage());
-        } catch (MalformedObjectNameException e) {
-            e.printStackTrace();
-            logger.error(e.getMessage());
+    // registering the MBean starts the platform MBean server. deferred until the first monitored call
+    private static void registerMBean() {
+        if (registered) {
+            return;
+        }
+        synchronized (TwitterAPIMonitor.class) {
+            if (registered) {
+                return;
+            }
+            registered = true;
+            try {
+                MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+                ObjectName oName = new ObjectName("twitter4j.mbean:type=APIStatisticsOpenMBean");
+                APIStatisticsOpenMBean openMBean = new APIStatisticsOpenMBean(STATISTICS);
+                mbs.registerMBean(openMBean, oName);
+            } catch (InstanceAlreadyExistsException e) {
+                e.printStackTrace();
+                logger.error(e.getMessage());
+            } catch (MBeanRegistrationException e) {
+                e.printStackTrace();
+                logger.error(e.getMessage());
+            } catch (NotCompliantMBeanException e) {
+                e.printStackTrace();
+                logger.error(e.getMessage());
+            } catch (MalformedObjectNameException e) {
+                e.printStackTrace();
+                logger.error(e.getMessage());
+            }
         }
     }
 
@@ -77,10 +88,12 @@ public class TwitterAPIMonitor {
     }
 
     public APIStatisticsMBean getStatistics() {
+        registerMBean();
         return STATISTICS;
     }
 
     void methodCalled(String twitterUrl, long elapsedTime, boolean success) {
+        registerMBean();
         Matcher matcher = pattern.matcher(twitterUrl);
         if (matcher.matches() && matcher.groupCount() > 0) {
             String method = matcher.group(1);
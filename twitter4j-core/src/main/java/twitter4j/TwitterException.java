@@ -109,7 +109,7 @@ public class TwitterException extends Exception implements TwitterResponse, Http
         String value = null;
         if (response != null) {
             List<String> header = response.getResponseHeaderFields().get(name);
-            if (header.size() > 0) {
+            if (header != null && header.size() > 0) {
                 value = header.get(0);
             }
         }
@@ -26,6 +26,7 @@ import twitter4j.conf.ConfigurationContext;
 import java.io.Serial;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.util.function.BiFunction;
 
 /**
  * A factory class for Twitter.
@@ -35,10 +36,9 @@ import java.lang.reflect.InvocationTargetException;
  * @since Twitter4J 2.1.0
  */
 public class TwitterFactory implements java.io.Serializable {
-    private static final Constructor<Twitter> TWITTER_CONSTRUCTOR;
+    private static final BiFunction<Configuration, Authorization, Twitter> TWITTER_CREATOR;
     /*AsyncTwitterFactory and TWitterStream will access this field*/
     static final Authorization DEFAULT_AUTHORIZATION = AuthorizationFactory.getInstance(ConfigurationContext.getInstance());
-    private static final Twitter SINGLETON;
     @Serial
     private static final long serialVersionUID = -563983536986910054L;
     private final Configuration conf;
@@ -48,45 +48,44 @@ public class TwitterFactory implements java.io.Serializable {
         // detecting Google App Engine
         boolean gaeDetected;
         try {
-            Class.forName("com.google.appengine.api.urlfetch.URLFetchService");
+            Class.forName("com.google.appengine.api.urlfetch.URLFetchService", false, TwitterFactory.class.getClassLoader());
             gaeDetected = true;
         } catch (ClassNotFoundException cnfe) {
             gaeDetected = false;
         }
 
-        String className = null;
+        Constructor<?> constructor = null;
         if (gaeDetected) {
-            final String APP_ENGINE_TWITTER_IMPL = "twitter4j.AppEngineTwitterImpl";
             try {
-                Class.forName(APP_ENGINE_TWITTER_IMPL);
-                className = APP_ENGINE_TWITTER_IMPL;
+                constructor = Class.forName("twitter4j.AppEngineTwitterImpl")
+                        .getDeclaredConstructor(Configuration.class, Authorization.class);
             } catch (ClassNotFoundException ignore) {
+            } catch (NoSuchMethodException e) {
+                throw new AssertionError(e);
             }
         }
-        if (className == null) {
-            className = "twitter4j.TwitterImpl";
+        if (constructor == null) {
+            // TwitterImpl is constructed directly, no reflection involved
+            TWITTER_CREATOR = TwitterImpl::new;
+        } else {
+            Constructor<?> appEngineConstructor = constructor;
+            TWITTER_CREATOR = (conf, auth) -> {
+                try {
+                    return (Twitter) appEngineConstructor.newInstance(conf, auth);
+                } catch (InstantiationException e) {
+                    throw new AssertionError(e);
+                } catch (IllegalAccessException e) {
+                    throw new AssertionError(e);
+                } catch (InvocationTargetException e) {
+                    throw new AssertionError(e);
+                }
+            };
         }
-        Constructor<Twitter> constructor;
-        Class clazz;
-        try {
-            clazz = Class.forName(className);
-            constructor = clazz.getDeclaredConstructor(Configuration.class, Authorization.class);
-        } catch (NoSuchMethodException e) {
-            throw new AssertionError(e);
-        } catch (ClassNotFoundException e) {
-            throw new AssertionError(e);
-        }
-        TWITTER_CONSTRUCTOR = constructor;
+    }
 
-        try {
-            SINGLETON = TWITTER_CONSTRUCTOR.newInstance(ConfigurationContext.getInstance(), DEFAULT_AUTHORIZATION);
-        } catch (InstantiationException e) {
-            throw new AssertionError(e);
-        } catch (IllegalAccessException e) {
-            throw new AssertionError(e);
-        } catch (InvocationTargetException e) {
-            throw new AssertionError(e);
-        }
+    // the singleton is created on first use of getSingleton()
+    private static final class SingletonHolder {
+        private static final Twitter SINGLETON = TWITTER_CREATOR.apply(ConfigurationContext.getInstance(), DEFAULT_AUTHORIZATION);
     }
 
     /**
@@ -148,15 +147,7 @@ public class TwitterFactory implements java.io.Serializable {
     }
 
     public Twitter getInstance(Authorization auth) {
-        try {
-            return TWITTER_CONSTRUCTOR.newInstance(conf, auth);
-        } catch (InstantiationException e) {
-            throw new AssertionError(e);
-        } catch (IllegalAccessException e) {
-            throw new AssertionError(e);
-        } catch (InvocationTargetException e) {
-            throw new AssertionError(e);
-        }
+        return TWITTER_CREATOR.apply(conf, auth);
     }
 
     /**
@@ -166,6 +157,6 @@ public class TwitterFactory implements java.io.Serializable {
      * @since Twitter4J 2.2.4
      */
     public static Twitter getSingleton() {
-        return SINGLETON;
+        return SingletonHolder.SINGLETON;
     }
 }
@@ -59,8 +59,9 @@ class TwitterImpl extends TwitterBaseImpl implements Twitter {
     TwitterImpl(Configuration conf, Authorization auth) {
         super(conf, auth);
         INCLUDE_MY_RETWEET = new HttpParameter("include_my_retweet", conf.isIncludeMyRetweetEnabled());
-        if (implicitParamsMap.containsKey(conf)) {
-            this.IMPLICIT_PARAMS = implicitParamsMap.get(conf);
+        HttpParameter[] cachedParams = implicitParamsMap.get(conf);
+        if (cachedParams != null) {
+            this.IMPLICIT_PARAMS = cachedParams;
             this.IMPLICIT_PARAMS_STR = implicitParamsStrMap.get(conf);
         } else {
             String implicitParamsStr = conf.isIncludeEntitiesEnabled() ? "include_entities=" + true : "";
@@ -97,7 +98,7 @@ class TwitterImpl extends TwitterBaseImpl implements Twitter {
             }
             HttpParameter[] implicitParams = params.toArray(new HttpParameter[params.size()]);
 
-            // implicitParamsMap.containsKey() is evaluated in the above if clause.
+            // implicitParamsMap.get() is evaluated in the above if clause.
             // thus implicitParamsStrMap needs to be initialized first
             implicitParamsStrMap.putIfAbsent(conf, implicitParamsStr);
             implicitParamsMap.putIfAbsent(conf, implicitParams);
@@ -304,7 +305,7 @@ class TwitterImpl extends TwitterBaseImpl implements Twitter {
 			
 			while ((bytesRead = dataInputStream.read(segmentData)) > 0) {
 				totalRead = totalRead + bytesRead;
-				logger.debug("Chunked appened, segment index:" + segmentIndex + " bytes:" + totalRead + "/" + dataBytes.length );
+				logger.debug("Chunked appened, segment index:{} bytes:{}/{}", segmentIndex, totalRead, dataBytes.length);
 				//no need to close ByteArrayInputStream
 				ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(segmentData, 0 ,bytesRead);
 				uploadMediaChunkedAppend(fileName, byteArrayInputStream, segmentIndex, uploadedMedia.getMediaId());
@@ -360,7 +361,7 @@ class TwitterImpl extends TwitterBaseImpl implements Twitter {
 			if (state.equals("pending") || state.equals("in_progress")) {
 				currentProgressPercent = uploadedMedia.getProgressPercent();
 				int waitSec = Math.max(uploadedMedia.getProcessingCheckAfterSecs(), 1);
-				logger.debug("Chunked finalize, wait for:" + waitSec + " sec");
+				logger.debug("Chunked finalize, wait for:{} sec", waitSec);
 				try {
 					Thread.sleep(waitSec * 1000L);
 				} catch (InterruptedException e) {
@@ -381,7 +382,7 @@ class TwitterImpl extends TwitterBaseImpl implements Twitter {
                 new HttpParameter("command", CHUNKED_FINALIZE),
                 new HttpParameter("media_id", mediaId))
 				.asJSONObject();
-		logger.debug("Finalize response:" + json);
+		logger.debug("Finalize response:{}", json);
 		return new UploadedMedia(json);
 	}
 	
@@ -391,7 +392,7 @@ class TwitterImpl extends TwitterBaseImpl implements Twitter {
                 new HttpParameter("command", CHUNKED_STATUS),
                 new HttpParameter("media_id", mediaId))
 				.asJSONObject();
-		logger.debug("Status response:" + json);
+		logger.debug("Status response:{}", json);
 		return new UploadedMedia(json);
 	}
     
@@ -1,5 +1,7 @@
 package twitter4j;
 
+import twitter4j.conf.Configuration;
+
 import java.util.HashMap;
 import java.util.Map;
 
@@ -21,7 +23,11 @@ public final class TwitterObjectFactory {
 
     /**
      * Returns a raw JSON form of the provided object.<br>
-     * Note that raw JSON forms can be retrieved only from the same thread invoked the last method call and will become inaccessible once another method call
+     * Note that raw JSON forms can be retrieved only from the same thread invoked the last method call and will become inaccessible once another method call,
+     * unless jsonStorePerObject is enabled. With jsonStorePerObject, raw JSON forms of statuses, users, direct messages, lists of them, and other responses
+     * are retained by the objects themselves and can be retrieved from any thread as long as the objects are alive.
+     * Objects parsed from one response share its body, and each object keeps the whole body reachable until its own raw JSON form is asked for,
+     * when its slice is copied out. Retaining a few objects of a large list response without asking for their raw JSON forms keeps the whole body in memory
      *
      * @param obj target object to retrieve JSON
      * @return raw JSON
@@ -31,6 +37,12 @@ public final class TwitterObjectFactory {
         if (!registeredAtleastOnce) {
             throw new IllegalStateException("Apparently jsonStoreEnabled is not set to true.");
         }
+        if (obj instanceof RawJSON.Holder) {
+            RawJSON rawJSON = ((RawJSON.Holder) obj).getRawJSON();
+            if (rawJSON != null) {
+                return rawJSON.toString();
+            }
+        }
         Object json = rawJsonMap.get().get(obj);
         if (json instanceof String) {
             return (String) json;
@@ -326,4 +338,22 @@ public final class TwitterObjectFactory {
         rawJsonMap.get().put(key, json);
         return key;
     }
+
+    /**
+     * associate a raw JSON form to the object when jsonStorePerObject is enabled and the object can retain it, or to the current thread otherwise
+     *
+     * @since Twitter4J 4.0.8
+     */
+    static <T> T registerJSONObject(Configuration conf, T key, Object json) {
+        if (conf.isJSONStorePerObject() && key instanceof RawJSON.Holder) {
+            RawJSON rawJSON = json instanceof JSONObject ? ((JSONObject) json).getRawJSON()
+                    : json instanceof JSONArray ? ((JSONArray) json).getRawJSON() : null;
+            if (rawJSON != null) {
+                registeredAtleastOnce = true;
+                ((RawJSON.Holder) key).setRawJSON(rawJSON);
+                return key;
+            }
+        }
+        return registerJSONObject(key, json);
+    }
 }
\ No newline at end of file
@@ -19,14 +19,11 @@ package twitter4j.auth;
 import twitter4j.*;
 import twitter4j.conf.Configuration;
 
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
 import java.io.Serial;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
-import java.security.InvalidKeyException;
-import java.security.NoSuchAlgorithmException;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * @author Yusuke Yamamoto - yusuke at mac.com
@@ -38,7 +35,6 @@ public class OAuthAuthorization implements Authorization, java.io.Serializable,
     private final Configuration conf;
     private static HttpClient http;
 
-    private static final String HMAC_SHA1 = "HmacSHA1";
     private static final HttpParameter OAUTH_SIGNATURE_METHOD = new HttpParameter("oauth_signature_method", "HMAC-SHA1");
     private static final Logger logger = Logger.getLogger(OAuthAuthorization.class);
     private String consumerKey = "";
@@ -48,6 +44,9 @@ public class OAuthAuthorization implements Authorization, java.io.Serializable,
 
     private OAuthToken oauthToken = null;
 
+    // signer for the current consumer secret and token secret
+    private transient volatile OAuthSigner signer = null;
+
     // constructors
 
     /**
@@ -188,36 +187,86 @@ public class OAuthAuthorization implements Authorization, java.io.Serializable,
         if (null == params) {
             params = new HttpParameter[0];
         }
-        List<HttpParameter> oauthHeaderParams = new ArrayList<>(5);
-        oauthHeaderParams.add(new HttpParameter("oauth_consumer_key", consumerKey));
-        oauthHeaderParams.add(OAUTH_SIGNATURE_METHOD);
-        oauthHeaderParams.add(new HttpParameter("oauth_timestamp", timestamp));
-        oauthHeaderParams.add(new HttpParameter("oauth_nonce", nonce));
-        oauthHeaderParams.add(new HttpParameter("oauth_version", "1.0"));
+        HttpParameter[] oauthHeaderParams = new HttpParameter[otoken != null ? 6 : 5];
+        oauthHeaderParams[0] = new HttpParameter("oauth_consumer_key", consumerKey);
+        oauthHeaderParams[1] = OAUTH_SIGNATURE_METHOD;
+        oauthHeaderParams[2] = new HttpParameter("oauth_timestamp", timestamp);
+        oauthHeaderParams[3] = new HttpParameter("oauth_nonce", nonce);
+        oauthHeaderParams[4] = new HttpParameter("oauth_version", "1.0");
         if (otoken != null) {
-            oauthHeaderParams.add(new HttpParameter("oauth_token", otoken.getToken()));
+            oauthHeaderParams[5] = new HttpParameter("oauth_token", otoken.getToken());
         }
-        List<HttpParameter> signatureBaseParams = new ArrayList<>(oauthHeaderParams.size() + params.length);
-        signatureBaseParams.addAll(oauthHeaderParams);
-        if (!HttpParameter.containsFile(params)) {
-            signatureBaseParams.addAll(toParamList(params));
+        String signature = sign(method, url, oauthHeaderParams, HttpParameter.containsFile(params) ? null : params, otoken);
+
+        PercentEncoder header = PercentEncoder.buffer().appendAscii("OAuth ");
+        for (HttpParameter param : oauthHeaderParams) {
+            if (header.length() != "OAuth ".length()) {
+                header.append(',');
+            }
+            header.appendEncodedName(param, false).append('=').append('"').appendEncodedValue(param, false).append('"');
+        }
+        appendHeaderParameter(header, "oauth_signature", signature);
+        // http://oauth.net/core/1.0/#rfc.section.9.1.1
+        if (realm != null) {
+            appendHeaderParameter(header, "realm", realm);
+        }
+        return header.toString();
+    }
+
+    private static void appendHeaderParameter(PercentEncoder header, String name, String value) {
+        if (header.length() != "OAuth ".length()) {
+            header.append(',');
+        }
+        header.appendEncoded(name, false).append('=').append('"').appendEncoded(value, false).append('"');
+    }
+
+    /**
+     * Builds the signature base string and signs it.
+     *
+     * @param oauthParams oauth_* parameters
+     * @param params      request parameters to be signed, or null
+     * @return signature
+     * @see <a href="http://oauth.net/core/1.0a/#rfc.section.9.1">OAuth Core - 9.1.  Signature Base String</a>
+     */
+    private String sign(String method, String url, HttpParameter[] oauthParams, HttpParameter[] params, OAuthToken token) {
+        List<HttpParameter> signatureBaseParams = new ArrayList<>(oauthParams.length + (params != null ? params.length : 0) + 4);
+        Collections.addAll(signatureBaseParams, oauthParams);
+        if (params != null) {
+            Collections.addAll(signatureBaseParams, params);
         }
         parseGetParameters(url, signatureBaseParams);
-        StringBuilder base = new StringBuilder(method).append("&")
-                .append(HttpParameter.encode(constructRequestURL(url))).append("&");
-        base.append(HttpParameter.encode(normalizeRequestParameters(signatureBaseParams)));
-        String oauthBaseString = base.toString();
-        logger.debug("OAuth base string: ", oauthBaseString);
-        String signature = generateSignature(oauthBaseString, otoken);
+        Collections.sort(signatureBaseParams);
+
+        PercentEncoder base = PercentEncoder.buffer().appendAscii(method).append('&')
+                .appendEncoded(constructRequestURL(url), false).append('&');
+        boolean first = true;
+        for (HttpParameter param : signatureBaseParams) {
+            if (param.isFile() || param.isJson()) {
+                continue;
+            }
+            if (!first) {
+                base.appendAscii("%26");
+            }
+            first = false;
+            // encoded forms are cached by the parameters and shared with the request body
+            base.appendEncodedName(param, true).appendAscii("%3D").appendEncodedValue(param, true);
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("OAuth base string: ", base.toString());
+        }
+        String signature = getSigner(token).sign(base);
         logger.debug("OAuth signature: ", signature);
+        return signature;
+    }
 
-        oauthHeaderParams.add(new HttpParameter("oauth_signature", signature));
-
-        // http://oauth.net/core/1.0/#rfc.section.9.1.1
-        if (realm != null) {
-            oauthHeaderParams.add(new HttpParameter("realm", realm));
+    private OAuthSigner getSigner(OAuthToken token) {
+        String tokenSecret = token != null ? token.getTokenSecret() : "";
+        OAuthSigner signer = this.signer;
+        if (signer == null || !signer.isFor(consumerSecret, tokenSecret)) {
+            signer = new OAuthSigner(consumerSecret, tokenSecret);
+            this.signer = signer;
         }
-        return "OAuth " + encodeParameters(oauthHeaderParams, ",", true);
+        return signer;
     }
 
     private void parseGetParameters(String url, List<HttpParameter> signatureBaseParams) {
@@ -244,46 +293,35 @@ public class OAuthAuthorization implements Authorization, java.io.Serializable,
 
     }
 
-    private static final Random RAND = new Random();
-
     /**
      * @return generated authorization header
      * @see <a href="http://oauth.net/core/1.0a/#rfc.section.5.4.1">OAuth Core - 5.4.1.  Authorization Header</a>
      */
     /*package*/ String generateAuthorizationHeader(String method, String url, HttpParameter[] params, OAuthToken token) {
         long timestamp = System.currentTimeMillis() / 1000;
-        long nonce = timestamp + RAND.nextInt();
+        long nonce = timestamp + ThreadLocalRandom.current().nextInt();
         return generateAuthorizationHeader(method, url, params, String.valueOf(nonce), String.valueOf(timestamp), token);
     }
 
     public List<HttpParameter> generateOAuthSignatureHttpParams(String method, String url) {
         long timestamp = System.currentTimeMillis() / 1000;
-        long nonce = timestamp + RAND.nextInt();
-
-        List<HttpParameter> oauthHeaderParams = new ArrayList<>(5);
-        oauthHeaderParams.add(new HttpParameter("oauth_consumer_key", consumerKey));
-        oauthHeaderParams.add(OAUTH_SIGNATURE_METHOD);
-        oauthHeaderParams.add(new HttpParameter("oauth_timestamp", timestamp));
-        oauthHeaderParams.add(new HttpParameter("oauth_nonce", nonce));
-        oauthHeaderParams.add(new HttpParameter("oauth_version", "1.0"));
+        long nonce = timestamp + ThreadLocalRandom.current().nextInt();
+
+        HttpParameter[] oauthHeaderParams = new HttpParameter[oauthToken != null ? 6 : 5];
+        oauthHeaderParams[0] = new HttpParameter("oauth_consumer_key", consumerKey);
+        oauthHeaderParams[1] = OAUTH_SIGNATURE_METHOD;
+        oauthHeaderParams[2] = new HttpParameter("oauth_timestamp", timestamp);
+        oauthHeaderParams[3] = new HttpParameter("oauth_nonce", nonce);
+        oauthHeaderParams[4] = new HttpParameter("oauth_version", "1.0");
         if (oauthToken != null) {
-            oauthHeaderParams.add(new HttpParameter("oauth_token", oauthToken.getToken()));
+            oauthHeaderParams[5] = new HttpParameter("oauth_token", oauthToken.getToken());
         }
+        String signature = sign(method, url, oauthHeaderParams, null, oauthToken);
 
-        List<HttpParameter> signatureBaseParams = new ArrayList<>(oauthHeaderParams.size());
-        signatureBaseParams.addAll(oauthHeaderParams);
-        parseGetParameters(url, signatureBaseParams);
-
-        StringBuilder base = new StringBuilder(method).append("&")
-                .append(HttpParameter.encode(constructRequestURL(url))).append("&");
-        base.append(HttpParameter.encode(normalizeRequestParameters(signatureBaseParams)));
-
-        String oauthBaseString = base.toString();
-        String signature = generateSignature(oauthBaseString, oauthToken);
-
-        oauthHeaderParams.add(new HttpParameter("oauth_signature", signature));
-
-        return oauthHeaderParams;
+        List<HttpParameter> params = new ArrayList<>(oauthHeaderParams.length + 1);
+        Collections.addAll(params, oauthHeaderParams);
+        params.add(new HttpParameter("oauth_signature", signature));
+        return params;
     }
 
     /**
@@ -295,31 +333,8 @@ public class OAuthAuthorization implements Authorization, java.io.Serializable,
      * @see <a href="http://oauth.net/core/1.0a/#rfc.section.9.2.1">OAuth Core - 9.2.1.  Generating Signature</a>
      */
     /*package*/ String generateSignature(String data, OAuthToken token) {
-        byte[] byteHMAC = null;
-        try {
-            Mac mac = Mac.getInstance(HMAC_SHA1);
-            SecretKeySpec spec;
-            if (null == token) {
-                String oauthSignature = HttpParameter.encode(consumerSecret) + "&";
-                spec = new SecretKeySpec(oauthSignature.getBytes(), HMAC_SHA1);
-            } else {
-                spec = token.getSecretKeySpec();
-                if (null == spec) {
-                    String oauthSignature = HttpParameter.encode(consumerSecret) + "&" + HttpParameter.encode(token.getTokenSecret());
-                    spec = new SecretKeySpec(oauthSignature.getBytes(), HMAC_SHA1);
-                    token.setSecretKeySpec(spec);
-                }
-            }
-            mac.init(spec);
-            byteHMAC = mac.doFinal(data.getBytes());
-        } catch (InvalidKeyException ike) {
-            logger.error("Failed initialize \"Message Authentication Code\" (MAC)", ike);
-            throw new AssertionError(ike);
-        } catch (NoSuchAlgorithmException nsae) {
-            logger.error("Failed to get HmacSHA1 \"Message Authentication Code\" (MAC)", nsae);
-            throw new AssertionError(nsae);
-        }
-        return BASE64Encoder.encode(byteHMAC);
+        byte[] bytes = data.getBytes(StandardCharsets.UTF_8);
+        return getSigner(token).sign(bytes, 0, bytes.length);
     }
 
     /*package*/
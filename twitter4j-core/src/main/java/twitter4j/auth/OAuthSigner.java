@@ -0,0 +1,97 @@
+/*
+ * Copyright 2007 Yusuke Yamamoto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package twitter4j.auth;
+
+import twitter4j.BASE64Encoder;
+import twitter4j.HttpParameter;
+import twitter4j.PercentEncoder;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * HMAC-SHA1 signer bound to a pair of consumer secret and token secret.<br>
+ * The Mac is initialized once and cloned for each thread, so signing a request doesn't look up the algorithm nor derive the key.
+ *
+ * @author Yusuke Yamamoto - yusuke at mac.com
+ * @since Twitter4J 4.0.8
+ */
+final class OAuthSigner {
+    private static final String HMAC_SHA1 = "HmacSHA1";
+
+    private final String consumerSecret;
+    private final String tokenSecret;
+    private final Mac prototype;
+    private final ThreadLocal<Mac> mac;
+
+    /**
+     * @param consumerSecret consumer secret
+     * @param tokenSecret    token secret, or empty string when no token is available
+     */
+    OAuthSigner(String consumerSecret, String tokenSecret) {
+        this.consumerSecret = consumerSecret;
+        this.tokenSecret = tokenSecret;
+        this.prototype = newMac();
+        this.mac = ThreadLocal.withInitial(() -> {
+            try {
+                return (Mac) prototype.clone();
+            } catch (CloneNotSupportedException e) {
+                // the provider doesn't support cloning. initialize one for this thread
+                return newMac();
+            }
+        });
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(HMAC_SHA1);
+            String key = HttpParameter.encode(consumerSecret) + "&" + HttpParameter.encode(tokenSecret);
+            mac.init(new SecretKeySpec(key.getBytes(StandardCharsets.UTF_8), HMAC_SHA1));
+            return mac;
+        } catch (InvalidKeyException ike) {
+            throw new AssertionError(ike);
+        } catch (NoSuchAlgorithmException nsae) {
+            throw new AssertionError(nsae);
+        }
+    }
+
+    /**
+     * @return true if this signer signs with the given secrets
+     */
+    boolean isFor(String consumerSecret, String tokenSecret) {
+        return this.consumerSecret.equals(consumerSecret) && this.tokenSecret.equals(tokenSecret);
+    }
+
+    /**
+     * @param data data to be signed
+     * @return base64 encoded signature
+     */
+    String sign(byte[] data, int offset, int length) {
+        Mac mac = this.mac.get();
+        mac.update(data, offset, length);
+        return BASE64Encoder.encode(mac.doFinal());
+    }
+
+    String sign(PercentEncoder data) {
+        Mac mac = this.mac.get();
+        mac.update(data.asByteBuffer());
+        return BASE64Encoder.encode(mac.doFinal());
+    }
+}
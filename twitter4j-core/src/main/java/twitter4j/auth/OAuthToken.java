@@ -19,7 +19,6 @@ package twitter4j.auth;
 import twitter4j.HttpResponse;
 import twitter4j.TwitterException;
 
-import javax.crypto.spec.SecretKeySpec;
 import java.io.Serial;
 
 abstract class OAuthToken implements java.io.Serializable {
@@ -29,7 +28,6 @@ abstract class OAuthToken implements java.io.Serializable {
     private final String token;
     private final String tokenSecret;
 
-    private transient SecretKeySpec secretKeySpec;
     private String[] responseStr = null;
 
     public OAuthToken(String token, String tokenSecret) {
@@ -59,14 +57,6 @@ abstract class OAuthToken implements java.io.Serializable {
         return tokenSecret;
     }
 
-    /*package*/ void setSecretKeySpec(SecretKeySpec secretKeySpec) {
-        this.secretKeySpec = secretKeySpec;
-    }
-
-    /*package*/ SecretKeySpec getSecretKeySpec() {
-        return secretKeySpec;
-    }
-
     public String getParameter(String parameter) {
         String value = null;
         for (String str : responseStr) {
@@ -99,7 +89,6 @@ abstract class OAuthToken implements java.io.Serializable {
         return "OAuthToken{" +
                 "token='" + token + '\'' +
                 ", tokenSecret='" + tokenSecret + '\'' +
-                ", secretKeySpec=" + secretKeySpec +
                 '}';
     }
 }
@@ -89,6 +89,16 @@ public interface Configuration extends AuthorizationConfiguration, java.io.Seria
 
     boolean isJSONStoreEnabled();
 
+    boolean isJSONStorePerObject();
+
+    /**
+     * Size of the StringPool shared by all instances. Only the value of the global configuration, loaded from twitter4j.properties
+     * or the twitter4j.stringPoolSize system property, is honored: the pool is created once, when first used.
+     *
+     * @return size of the StringPool, 0 to disable pooling
+     */
+    int getStringPoolSize();
+
     boolean isMBeanEnabled();
 
     boolean isUserStreamRepliesAllEnabled();
@@ -97,6 +107,8 @@ public interface Configuration extends AuthorizationConfiguration, java.io.Seria
 
     boolean isStallWarningsEnabled();
 
+    int getStreamBatchSize();
+
     String getMediaProvider();
 
     String getMediaProviderAPIKey();
@@ -23,11 +23,11 @@ import java.io.ObjectStreamException;
 import java.io.Serial;
 import java.io.Serializable;
 import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
 import java.net.Proxy;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Objects;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Configuration base class with default settings.
@@ -81,12 +81,15 @@ class ConfigurationBase implements Configuration, java.io.Serializable {
     private boolean includeEmailEnabled = false;
 
     private boolean jsonStoreEnabled = false;
+    private boolean jsonStorePerObject = false;
+    private int stringPoolSize = 0;
 
     private boolean mbeanEnabled = false;
 
     private boolean userStreamRepliesAllEnabled = false;
     private boolean userStreamWithFollowingsEnabled = true;
     private boolean stallWarningsEnabled = true;
+    private int streamBatchSize = 0;
 
     private boolean applicationOnlyAuthEnabled = false;
 
@@ -107,6 +110,7 @@ class ConfigurationBase implements Configuration, java.io.Serializable {
                 , 120000 // read timeout
                 , false // pretty debug
                 , true // gzip enabled
+                , false // JSON source recorded
         );
     }
 
@@ -122,8 +126,9 @@ class ConfigurationBase implements Configuration, java.io.Serializable {
         private int httpReadTimeout = 120000;
         private boolean prettyDebug = false;
         private boolean gzipEnabled = true;
+        private boolean jsonSourceRecorded = false;
 
-        MyHttpClientConfiguration(String httpProxyHost, String httpProxyUser, String httpProxyPassword, int httpProxyPort, boolean httpProxySocks, int httpConnectionTimeout, int httpReadTimeout, boolean prettyDebug, boolean gzipEnabled) {
+        MyHttpClientConfiguration(String httpProxyHost, String httpProxyUser, String httpProxyPassword, int httpProxyPort, boolean httpProxySocks, int httpConnectionTimeout, int httpReadTimeout, boolean prettyDebug, boolean gzipEnabled, boolean jsonSourceRecorded) {
             this.httpProxyHost = httpProxyHost;
             this.httpProxyUser = httpProxyUser;
             this.httpProxyPassword = httpProxyPassword;
@@ -133,6 +138,7 @@ class ConfigurationBase implements Configuration, java.io.Serializable {
             this.httpReadTimeout = httpReadTimeout;
             this.prettyDebug = prettyDebug;
             this.gzipEnabled = gzipEnabled;
+            this.jsonSourceRecorded = jsonSourceRecorded;
         }
 
         @Override
@@ -190,6 +196,11 @@ class ConfigurationBase implements Configuration, java.io.Serializable {
             return gzipEnabled;
         }
 
+        @Override
+        public boolean isJSONSourceRecorded() {
+            return jsonSourceRecorded;
+        }
+
         @Override
         public boolean equals(Object o) {
             if (this == o) return true;
@@ -198,6 +209,7 @@ class ConfigurationBase implements Configuration, java.io.Serializable {
             MyHttpClientConfiguration that = (MyHttpClientConfiguration) o;
 
             if (gzipEnabled != that.gzipEnabled) return false;
+            if (jsonSourceRecorded != that.jsonSourceRecorded) return false;
             if (httpProxySocks != that.httpProxySocks) return false;
             if (httpConnectionTimeout != that.httpConnectionTimeout) return false;
             if (httpProxyPort != that.httpProxyPort) return false;
@@ -222,6 +234,7 @@ class ConfigurationBase implements Configuration, java.io.Serializable {
             result = 31 * result + httpReadTimeout;
             result = 31 * result + (prettyDebug ? 1 : 0);
             result = 31 * result + (gzipEnabled ? 1 : 0);
+            result = 31 * result + (jsonSourceRecorded ? 1 : 0);
             return result;
         }
 
@@ -237,6 +250,7 @@ class ConfigurationBase implements Configuration, java.io.Serializable {
                     ", httpReadTimeout=" + httpReadTimeout +
                     ", prettyDebug=" + prettyDebug +
                     ", gzipEnabled=" + gzipEnabled +
+                    ", jsonSourceRecorded=" + jsonSourceRecorded +
                     '}';
         }
     }
@@ -247,6 +261,9 @@ class ConfigurationBase implements Configuration, java.io.Serializable {
         if (debug) {
             Field[] fields = ConfigurationBase.class.getDeclaredFields();
             for (Field field : fields) {
+                if (Modifier.isStatic(field.getModifiers()) || Modifier.isTransient(field.getModifiers())) {
+                    continue;
+                }
                 try {
                     Object value = field.get(this);
                     String strValue = String.valueOf(value);
@@ -300,7 +317,7 @@ class ConfigurationBase implements Configuration, java.io.Serializable {
                 , httpConf.isHttpProxySocks()
                 , httpConf.getHttpConnectionTimeout()
                 , httpConf.getHttpReadTimeout()
-                , prettyDebug, httpConf.isGZIPEnabled()
+                , prettyDebug, httpConf.isGZIPEnabled(), httpConf.isJSONSourceRecorded()
         );
     }
 
@@ -312,7 +329,7 @@ class ConfigurationBase implements Configuration, java.io.Serializable {
                 , httpConf.isHttpProxySocks()
                 , httpConf.getHttpConnectionTimeout()
                 , httpConf.getHttpReadTimeout()
-                , httpConf.isPrettyDebugEnabled(), gzipEnabled
+                , httpConf.isPrettyDebugEnabled(), gzipEnabled, httpConf.isJSONSourceRecorded()
         );
     }
 
@@ -326,7 +343,7 @@ class ConfigurationBase implements Configuration, java.io.Serializable {
                 , httpConf.isHttpProxySocks()
                 , httpConf.getHttpConnectionTimeout()
                 , httpConf.getHttpReadTimeout()
-                , httpConf.isPrettyDebugEnabled(), httpConf.isGZIPEnabled()
+                , httpConf.isPrettyDebugEnabled(), httpConf.isGZIPEnabled(), httpConf.isJSONSourceRecorded()
         );
     }
 
@@ -338,7 +355,7 @@ class ConfigurationBase implements Configuration, java.io.Serializable {
                 , httpConf.isHttpProxySocks()
                 , httpConf.getHttpConnectionTimeout()
                 , httpConf.getHttpReadTimeout()
-                , httpConf.isPrettyDebugEnabled(), httpConf.isGZIPEnabled()
+                , httpConf.isPrettyDebugEnabled(), httpConf.isGZIPEnabled(), httpConf.isJSONSourceRecorded()
         );
     }
 
@@ -350,7 +367,7 @@ class ConfigurationBase implements Configuration, java.io.Serializable {
                 , httpConf.isHttpProxySocks()
                 , httpConf.getHttpConnectionTimeout()
                 , httpConf.getHttpReadTimeout()
-                , httpConf.isPrettyDebugEnabled(), httpConf.isGZIPEnabled()
+                , httpConf.isPrettyDebugEnabled(), httpConf.isGZIPEnabled(), httpConf.isJSONSourceRecorded()
         );
     }
 
@@ -362,7 +379,7 @@ class ConfigurationBase implements Configuration, java.io.Serializable {
                 , httpConf.isHttpProxySocks()
                 , httpConf.getHttpConnectionTimeout()
                 , httpConf.getHttpReadTimeout()
-                , httpConf.isPrettyDebugEnabled(), httpConf.isGZIPEnabled()
+                , httpConf.isPrettyDebugEnabled(), httpConf.isGZIPEnabled(), httpConf.isJSONSourceRecorded()
         );
     }
 
@@ -374,7 +391,7 @@ class ConfigurationBase implements Configuration, java.io.Serializable {
                 , isSocksProxy
                 , httpConf.getHttpConnectionTimeout()
                 , httpConf.getHttpReadTimeout()
-                , httpConf.isPrettyDebugEnabled(), httpConf.isGZIPEnabled()
+                , httpConf.isPrettyDebugEnabled(), httpConf.isGZIPEnabled(), httpConf.isJSONSourceRecorded()
         );
     }
 
@@ -386,7 +403,7 @@ class ConfigurationBase implements Configuration, java.io.Serializable {
                 , httpConf.isHttpProxySocks()
                 , connectionTimeout
                 , httpConf.getHttpReadTimeout()
-                , httpConf.isPrettyDebugEnabled(), httpConf.isGZIPEnabled()
+                , httpConf.isPrettyDebugEnabled(), httpConf.isGZIPEnabled(), httpConf.isJSONSourceRecorded()
         );
     }
 
@@ -398,7 +415,7 @@ class ConfigurationBase implements Configuration, java.io.Serializable {
                 , httpConf.isHttpProxySocks()
                 , httpConf.getHttpConnectionTimeout()
                 , readTimeout
-                , httpConf.isPrettyDebugEnabled(), httpConf.isGZIPEnabled()
+                , httpConf.isPrettyDebugEnabled(), httpConf.isGZIPEnabled(), httpConf.isJSONSourceRecorded()
         );
     }
 
@@ -689,6 +706,7 @@ class ConfigurationBase implements Configuration, java.io.Serializable {
 
     protected final void setJSONStoreEnabled(boolean enabled) {
         this.jsonStoreEnabled = enabled;
+        updateJSONSourceRecorded();
     }
 
     @Override
@@ -772,6 +790,47 @@ class ConfigurationBase implements Configuration, java.io.Serializable {
         this.streamThreadName = streamThreadName;
     }
 
+    @Override
+    public int getStreamBatchSize() {
+        return streamBatchSize;
+    }
+
+    protected final void setStreamBatchSize(int streamBatchSize) {
+        this.streamBatchSize = streamBatchSize;
+    }
+
+    @Override
+    public int getStringPoolSize() {
+        return stringPoolSize;
+    }
+
+    protected final void setStringPoolSize(int stringPoolSize) {
+        this.stringPoolSize = stringPoolSize;
+    }
+
+    @Override
+    public boolean isJSONStorePerObject() {
+        return jsonStorePerObject;
+    }
+
+    protected final void setJSONStorePerObject(boolean jsonStorePerObject) {
+        this.jsonStorePerObject = jsonStorePerObject;
+        updateJSONSourceRecorded();
+    }
+
+    // responses record the slices raw JSON forms are retained as
+    private void updateJSONSourceRecorded() {
+        httpConf = new MyHttpClientConfiguration(httpConf.getHttpProxyHost()
+                , httpConf.getHttpProxyUser()
+                , httpConf.getHttpProxyPassword()
+                , httpConf.getHttpProxyPort()
+                , httpConf.isHttpProxySocks()
+                , httpConf.getHttpConnectionTimeout()
+                , httpConf.getHttpReadTimeout()
+                , httpConf.isPrettyDebugEnabled(), httpConf.isGZIPEnabled(), jsonStoreEnabled && jsonStorePerObject
+        );
+    }
+
     static String fixURL(boolean useSSL, String url) {
         if (null == url) {
             return null;
@@ -794,6 +853,9 @@ class ConfigurationBase implements Configuration, java.io.Serializable {
         if (o == null || getClass() != o.getClass()) return false;
 
         ConfigurationBase that = (ConfigurationBase) o;
+        // canonical instances are unique per set of values
+        if (canonical && that.canonical) return false;
+        if (frozenHashCode != 0 && that.frozenHashCode != 0 && frozenHashCode != that.frozenHashCode) return false;
 
         if (debug != that.debug) return false;
         if (httpStreamingReadTimeout != that.httpStreamingReadTimeout) return false;
@@ -814,6 +876,9 @@ class ConfigurationBase implements Configuration, java.io.Serializable {
         if (stallWarningsEnabled != that.stallWarningsEnabled) return false;
         if (applicationOnlyAuthEnabled != that.applicationOnlyAuthEnabled) return false;
         if (daemonEnabled != that.daemonEnabled) return false;
+        if (streamBatchSize != that.streamBatchSize) return false;
+        if (stringPoolSize != that.stringPoolSize) return false;
+        if (jsonStorePerObject != that.jsonStorePerObject) return false;
         if (!Objects.equals(user, that.user)) return false;
         if (!Objects.equals(password, that.password)) return false;
         if (!Objects.equals(httpConf, that.httpConf)) return false;
@@ -867,6 +932,11 @@ class ConfigurationBase implements Configuration, java.io.Serializable {
 
     @Override
     public int hashCode() {
+        int hash = frozenHashCode;
+        return hash != 0 ? hash : computeHashCode();
+    }
+
+    private int computeHashCode() {
         int result = (debug ? 1 : 0);
         result = 31 * result + (user != null ? user.hashCode() : 0);
         result = 31 * result + (password != null ? password.hashCode() : 0);
@@ -913,6 +983,9 @@ class ConfigurationBase implements Configuration, java.io.Serializable {
         result = 31 * result + (mediaProviderParameters != null ? mediaProviderParameters.hashCode() : 0);
         result = 31 * result + (daemonEnabled ? 1 : 0);
         result = 31 * result + (streamThreadName != null ? streamThreadName.hashCode() : 0);
+        result = 31 * result + streamBatchSize;
+        result = 31 * result + stringPoolSize;
+        result = 31 * result + (jsonStorePerObject ? 1 : 0);
         return result;
     }
 
@@ -965,34 +1038,45 @@ class ConfigurationBase implements Configuration, java.io.Serializable {
                 ", mediaProviderParameters=" + mediaProviderParameters +
                 ", daemonEnabled=" + daemonEnabled +
                 ", streamThreadName='" + streamThreadName + '\'' +
+                ", streamBatchSize=" + streamBatchSize +
+                ", stringPoolSize=" + stringPoolSize +
+                ", jsonStorePerObject=" + jsonStorePerObject +
                 '}';
     }
 
-    private static final List<ConfigurationBase> instances = new ArrayList<>();
+    private static final ConcurrentHashMap<ConfigurationBase, ConfigurationBase> instances = new ConcurrentHashMap<>();
 
-    private static void cacheInstance(ConfigurationBase conf) {
-        if (!instances.contains(conf)) {
-            instances.add(conf);
+    // set once the instance is registered and no longer mutated
+    private transient volatile boolean canonical = false;
+    private transient int frozenHashCode = 0;
+
+    /**
+     * Returns the canonical instance equal to this configuration, registering this one if there is none yet.
+     * Canonical instances are compared by identity and hash in constant time, which keeps per-request lookups
+     * keyed by configuration cheap. The configuration must not be modified after this call.
+     *
+     * @return canonical instance
+     */
+    ConfigurationBase canonicalInstance() {
+        if (canonical) {
+            return this;
+        }
+        frozenHashCode = computeHashCode();
+        ConfigurationBase existing = instances.putIfAbsent(this, this);
+        if (existing != null) {
+            return existing;
         }
+        canonical = true;
+        return this;
     }
 
     protected void cacheInstance() {
-        cacheInstance(this);
-    }
-
-    private static ConfigurationBase getInstance(ConfigurationBase configurationBase) {
-        int index;
-        if ((index = instances.indexOf(configurationBase)) == -1) {
-            instances.add(configurationBase);
-            return configurationBase;
-        } else {
-            return instances.get(index);
-        }
+        canonicalInstance();
     }
 
     // assures equality after deserializedation
     @Serial
     protected Object readResolve() throws ObjectStreamException {
-        return getInstance(this);
+        return canonicalInstance();
     }
 }
@@ -300,6 +300,12 @@ public final class ConfigurationBuilder {
         return this;
     }
 
+    public ConfigurationBuilder setJSONStorePerObject(boolean jsonStorePerObject) {
+        checkNotBuilt();
+        configurationBean.setJSONStorePerObject(jsonStorePerObject);
+        return this;
+    }
+
     public ConfigurationBuilder setMBeanEnabled(boolean enabled) {
         checkNotBuilt();
         configurationBean.setMBeanEnabled(enabled);
@@ -318,6 +324,12 @@ public final class ConfigurationBuilder {
         return this;
     }
 
+    public ConfigurationBuilder setStreamBatchSize(int streamBatchSize) {
+        checkNotBuilt();
+        configurationBean.setStreamBatchSize(streamBatchSize);
+        return this;
+    }
+
     public ConfigurationBuilder setMediaProvider(String mediaProvider) {
         checkNotBuilt();
         configurationBean.setMediaProvider(mediaProvider);
@@ -338,9 +350,8 @@ public final class ConfigurationBuilder {
 
     public Configuration build() {
         checkNotBuilt();
-        configurationBean.cacheInstance();
         try {
-            return configurationBean;
+            return configurationBean.canonicalInstance();
         } finally {
             configurationBean = null;
         }
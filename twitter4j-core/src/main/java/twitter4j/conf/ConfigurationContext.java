@@ -16,35 +16,43 @@
 
 package twitter4j.conf;
 
+import java.lang.reflect.InvocationTargetException;
+import java.util.ServiceLoader;
 
 /**
  * Static factory of Configuration. This class wraps ConfigurationFactory implementations.<br>
- * By default, twitter4j.conf.PropertyConfigurationFactory will be used and can be changed with -Dtwitter4j.configurationFactory system property.
+ * By default, twitter4j.conf.PropertyConfigurationFactory will be used and can be changed with -Dtwitter4j.configurationFactory system property,<br>
+ * or by registering a ConfigurationFactory in META-INF/services.
  *
  * @author Yusuke Yamamoto - yusuke at mac.com
  */
 public final class ConfigurationContext {
-    private static final String DEFAULT_CONFIGURATION_FACTORY = "twitter4j.conf.PropertyConfigurationFactory";
     private static final String CONFIGURATION_IMPL = "twitter4j.configurationFactory";
     private static final ConfigurationFactory factory;
 
     static {
         String CONFIG_IMPL;
         try {
-            CONFIG_IMPL = System.getProperty(CONFIGURATION_IMPL, DEFAULT_CONFIGURATION_FACTORY);
+            CONFIG_IMPL = System.getProperty(CONFIGURATION_IMPL);
         } catch (SecurityException ignore) {
             // Unsigned applets are not allowed to access System properties
-            CONFIG_IMPL = DEFAULT_CONFIGURATION_FACTORY;
+            CONFIG_IMPL = null;
         }
 
-        try {
-            factory = (ConfigurationFactory) Class.forName(CONFIG_IMPL).newInstance();
-        } catch (ClassNotFoundException cnfe) {
-            throw new AssertionError(cnfe);
-        } catch (InstantiationException ie) {
-            throw new AssertionError(ie);
-        } catch (IllegalAccessException iae) {
-            throw new AssertionError(iae);
+        if (CONFIG_IMPL == null) {
+            // ConfigurationFactory registered in META-INF/services, otherwise the default without reflection
+            factory = ServiceLoader.load(ConfigurationFactory.class, ConfigurationContext.class.getClassLoader())
+                    .findFirst().orElseGet(PropertyConfigurationFactory::new);
+        } else {
+            try {
+                factory = (ConfigurationFactory) Class.forName(CONFIG_IMPL).getDeclaredConstructor().newInstance();
+            } catch (ClassNotFoundException cnfe) {
+                throw new AssertionError(cnfe);
+            } catch (InstantiationException | NoSuchMethodException | InvocationTargetException ie) {
+                throw new AssertionError(ie);
+            } catch (IllegalAccessException iae) {
+                throw new AssertionError(iae);
+            }
         }
     }
 
@@ -79,10 +79,13 @@ public final class PropertyConfiguration extends ConfigurationBase implements ja
     private static final String TWEET_MODE_EXTENDED = "tweetModeExtended";
     private static final String LOGGER_FACTORY = "loggerFactory";
     private static final String JSON_STORE_ENABLED = "jsonStoreEnabled";
+    private static final String JSON_STORE_PER_OBJECT = "jsonStorePerObject";
+    private static final String STRING_POOL_SIZE = "stringPoolSize";
     private static final String MBEAN_ENABLED = "mbeanEnabled";
     private static final String STREAM_USER_REPLIES_ALL = "stream.user.repliesAll";
     private static final String STREAM_USER_WITH_FOLLOWINGS = "stream.user.withFollowings";
     private static final String STREAM_STALL_WARNINGS_ENABLED = "stream.enableStallWarnings";
+    private static final String STREAM_BATCH_SIZE = "stream.batchSize";
     private static final String APPLICATION_ONLY_AUTH_ENABLED = "enableApplicationOnlyAuth";
 
     private static final String MEDIA_PROVIDER = "media.provider";
@@ -372,6 +375,12 @@ public final class PropertyConfiguration extends ConfigurationBase implements ja
         if (notNull(props, prefix, JSON_STORE_ENABLED)) {
             setJSONStoreEnabled(getBoolean(props, prefix, JSON_STORE_ENABLED));
         }
+        if (notNull(props, prefix, JSON_STORE_PER_OBJECT)) {
+            setJSONStorePerObject(getBoolean(props, prefix, JSON_STORE_PER_OBJECT));
+        }
+        if (notNull(props, prefix, STRING_POOL_SIZE)) {
+            setStringPoolSize(getIntProperty(props, prefix, STRING_POOL_SIZE));
+        }
         if (notNull(props, prefix, MBEAN_ENABLED)) {
             setMBeanEnabled(getBoolean(props, prefix, MBEAN_ENABLED));
         }
@@ -384,6 +393,9 @@ public final class PropertyConfiguration extends ConfigurationBase implements ja
         if (notNull(props, prefix, STREAM_STALL_WARNINGS_ENABLED)) {
             setStallWarningsEnabled(getBoolean(props, prefix, STREAM_STALL_WARNINGS_ENABLED));
         }
+        if (notNull(props, prefix, STREAM_BATCH_SIZE)) {
+            setStreamBatchSize(getIntProperty(props, prefix, STREAM_BATCH_SIZE));
+        }
         if (notNull(props, prefix, APPLICATION_ONLY_AUTH_ENABLED)) {
             setApplicationOnlyAuthEnabled(getBoolean(props, prefix, APPLICATION_ONLY_AUTH_ENABLED));
         }
@@ -402,7 +414,6 @@ public final class PropertyConfiguration extends ConfigurationBase implements ja
             }
             setMediaProviderParameters(p);
         }
-        cacheInstance();
     }
 
     private boolean getBoolean(Properties props, String prefix, String name) {
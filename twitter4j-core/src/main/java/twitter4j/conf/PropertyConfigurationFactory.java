@@ -16,17 +16,20 @@
 
 package twitter4j.conf;
 
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * ConfigurationFactory implementation for PropertyConfiguration.
- * Currently getInstance calls concrete constructor each time. No caching at all.
+ * Configurations are cached per tree path until {@link #dispose()} is called.
  *
  * @author Yusuke Yamamoto - yusuke at mac.com
  */
 class PropertyConfigurationFactory implements ConfigurationFactory {
-    private static final PropertyConfiguration ROOT_CONFIGURATION;
+    private static final ConfigurationBase ROOT_CONFIGURATION;
+    private static final ConcurrentHashMap<String, Configuration> treeConfigurations = new ConcurrentHashMap<>();
 
     static {
-        ROOT_CONFIGURATION = new PropertyConfiguration();
+        ROOT_CONFIGURATION = new PropertyConfiguration().canonicalInstance();
         // calling ROOT_CONFIGURATION.dumpConfiguration() will cause ExceptionInInitializerError as Logger has not been initialized.
         // as a quick and dirty solution, static initializer of twitter4j.Logger will call dumpConfiguration() on behalf.
     }
@@ -36,17 +39,18 @@ class PropertyConfigurationFactory implements ConfigurationFactory {
         return ROOT_CONFIGURATION;
     }
 
-    // It may be preferable to cache the config instance
-
     @Override
     public Configuration getInstance(String configTreePath) {
-        PropertyConfiguration conf = new PropertyConfiguration(configTreePath);
-        conf.dumpConfiguration();
-        return conf;
+        return treeConfigurations.computeIfAbsent(configTreePath, path -> {
+            ConfigurationBase conf = new PropertyConfiguration(path).canonicalInstance();
+            conf.dumpConfiguration();
+            return conf;
+        });
     }
 
     @Override
     public void dispose() {
-        // nothing to do for property based configuration
+        // configurations will be re-read from properties on the next request
+        treeConfigurations.clear();
     }
 }
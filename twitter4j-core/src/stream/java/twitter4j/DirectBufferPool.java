@@ -0,0 +1,56 @@
+/*
+ * Copyright 2007 Yusuke Yamamoto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package twitter4j;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Keeps direct buffers of a fixed size for reuse. Allocating and freeing direct memory is expensive, and connections come and go on reconnects.
+ *
+ * @author Yusuke Yamamoto - yusuke at mac.com
+ * @since Twitter4J 4.0.8
+ */
+final class DirectBufferPool {
+    static final int BUFFER_SIZE = 64 * 1024;
+    // buffers kept while not in use. more buffers are allocated on demand and left to the garbage collector once returned
+    private static final int MAX_POOLED = 64;
+    private static final BlockingQueue<ByteBuffer> pool = new ArrayBlockingQueue<>(MAX_POOLED);
+
+    private DirectBufferPool() {
+        throw new AssertionError();
+    }
+
+    /**
+     * @return a cleared buffer of {@link #BUFFER_SIZE} bytes
+     */
+    static ByteBuffer acquire() {
+        ByteBuffer buffer = pool.poll();
+        return buffer != null ? buffer : ByteBuffer.allocateDirect(BUFFER_SIZE);
+    }
+
+    /**
+     * @param buffer buffer not to be used by the caller anymore. kept only if acquired from this pool
+     */
+    static void release(ByteBuffer buffer) {
+        if (buffer != null && buffer.isDirect() && buffer.capacity() == BUFFER_SIZE) {
+            buffer.clear();
+            pool.offer(buffer);
+        }
+    }
+}
@@ -195,6 +195,29 @@ public final class FilterQuery implements java.io.Serializable {
         return this;
     }
 
+    /*package*/ int getCount() {
+        return count;
+    }
+
+    /*package*/ long[] getFollow() {
+        return follow;
+    }
+
+    /*package*/ String[] getTrack() {
+        return track;
+    }
+
+    /*package*/ double[][] getLocations() {
+        return locations;
+    }
+
+    /*package*/ String[] getLanguage() {
+        return language;
+    }
+
+    /*package*/ String getFilterLevel() {
+        return filterLevel;
+    }
 
     /*package*/ HttpParameter[] asHttpParameterArray(HttpParameter stallWarningsParam) {
         ArrayList<HttpParameter> params = new ArrayList<>();
@@ -243,6 +266,7 @@ public final class FilterQuery implements java.io.Serializable {
         if (count != that.count) return false;
         if (!Arrays.equals(follow, that.follow)) return false;
         if (!Arrays.equals(track, that.track)) return false;
+        if (!Arrays.deepEquals(locations, that.locations)) return false;
         if (!Arrays.equals(language, that.language)) return false;
         return Objects.equals(filterLevel, that.filterLevel);
     }
@@ -252,6 +276,7 @@ public final class FilterQuery implements java.io.Serializable {
         int result = count;
         result = 31 * result + (follow != null ? Arrays.hashCode(follow) : 0);
         result = 31 * result + (track != null ? Arrays.hashCode(track) : 0);
+        result = 31 * result + (locations != null ? Arrays.deepHashCode(locations) : 0);
         result = 31 * result + (language != null ? Arrays.hashCode(language) : 0);
         result = 31 * result + (filterLevel != null ? filterLevel.hashCode() : 0);
         return result;
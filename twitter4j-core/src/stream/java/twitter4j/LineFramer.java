@@ -0,0 +1,294 @@
+/*
+ * Copyright 2007 Yusuke Yamamoto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package twitter4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Splits a stream body into lines at the byte level, inflating it first if it is compressed.<br>
+ * Compressed input is inflated into a pooled direct buffer. Complete lines are copied out of it with one bulk copy per inflated block,
+ * and handed over as slices of that copy, terminated by LF or CRLF. Nothing is decoded into Strings here.<br>
+ * Input is fed as it arrives, in blocks of any size. This class is not thread safe.
+ *
+ * @author Yusuke Yamamoto - yusuke at mac.com
+ * @since Twitter4J 4.0.8
+ */
+final class LineFramer {
+    /**
+     * Receives framed lines.
+     */
+    interface Sink {
+        /**
+         * @param line line without the line terminator
+         * @param more true if another line is about to follow without waiting for more input
+         */
+        void onLine(StreamLine line, boolean more) throws IOException;
+    }
+
+    enum Encoding {
+        /**
+         * plain bytes
+         */
+        IDENTITY,
+        /**
+         * gzip member, header included
+         */
+        GZIP,
+        /**
+         * deflate data of a gzip member whose header has already been consumed
+         */
+        GZIP_BODY
+    }
+
+    private final Sink sink;
+    private Inflater inflater;
+    private ByteBuffer inflated;
+    // gzip header being received
+    private byte[] header;
+    private int headerLength = 0;
+    // beginning of a line spanning blocks
+    private byte[] partial = new byte[256];
+    private int partialLength = 0;
+    private boolean closed = false;
+
+    LineFramer(Encoding encoding, Sink sink) {
+        this.sink = sink;
+        if (encoding != Encoding.IDENTITY) {
+            inflater = new Inflater(true);
+            inflated = DirectBufferPool.acquire();
+            if (encoding == Encoding.GZIP) {
+                header = new byte[16];
+            }
+        }
+    }
+
+    /**
+     * Frames the bytes. The buffer is consumed entirely and can be reused once this method returns.
+     *
+     * @param input bytes received, between position and limit
+     * @throws IOException when the input is not in gzip format, or thrown by the sink
+     */
+    void feed(ByteBuffer input) throws IOException {
+        if (closed) {
+            input.position(input.limit());
+            return;
+        }
+        if (inflater == null) {
+            frame(input, false);
+            return;
+        }
+        if (header != null && !readHeader(input)) {
+            return;
+        }
+        if (inflater.finished()) {
+            // gzip trailer
+            input.position(input.limit());
+            return;
+        }
+        inflater.setInput(input);
+        try {
+            while (!inflater.finished() && !closed) {
+                if (inflater.inflate(inflated) > 0) {
+                    inflated.flip();
+                    frame(inflated, !inflater.needsInput());
+                    inflated.clear();
+                } else if (inflater.needsInput()) {
+                    break;
+                } else if (inflater.needsDictionary()) {
+                    throw new ZipException("dictionary required");
+                }
+            }
+        } catch (DataFormatException e) {
+            throw new ZipException(e.getMessage());
+        }
+        // the rest is the gzip trailer
+        input.position(input.limit());
+    }
+
+    /**
+     * Hands over the last line if it was not terminated.
+     */
+    void finish() throws IOException {
+        if (partialLength > 0 && !closed) {
+            StreamLine line = new StreamLine(Arrays.copyOf(partial, partialLength), 0, trim(partial, 0, partialLength));
+            partialLength = 0;
+            sink.onLine(line, false);
+        }
+    }
+
+    /**
+     * Releases the inflater and the pooled buffer.
+     */
+    void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (inflater != null) {
+            inflater.end();
+            DirectBufferPool.release(inflated);
+            inflated = null;
+        }
+    }
+
+    /**
+     * Accumulates the gzip header.
+     *
+     * @return true once the header has been read entirely
+     */
+    private boolean readHeader(ByteBuffer input) throws IOException {
+        while (input.hasRemaining()) {
+            if (headerLength == header.length) {
+                header = Arrays.copyOf(header, header.length * 2);
+            }
+            header[headerLength++] = input.get();
+            int length = gzipHeaderLength(header, headerLength);
+            if (length != -1) {
+                header = null;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return length of the gzip member header, or -1 if not received entirely yet
+     */
+    static int gzipHeaderLength(byte[] header, int received) throws ZipException {
+        if (received < 10) {
+            return -1;
+        }
+        if ((header[0] & 0xff) != 0x1f || (header[1] & 0xff) != 0x8b || header[2] != 8) {
+            throw new ZipException("Not in GZIP format");
+        }
+        int flags = header[3] & 0xff;
+        int i = 10;
+        if ((flags & 4) != 0) {
+            // FEXTRA
+            if (received < i + 2) {
+                return -1;
+            }
+            i += 2 + ((header[i] & 0xff) | (header[i + 1] & 0xff) << 8);
+        }
+        for (int flag : new int[]{8, 16}) {
+            // FNAME and FCOMMENT, zero-terminated
+            if ((flags & flag) != 0) {
+                while (i < received && header[i] != 0) {
+                    i++;
+                }
+                if (i >= received) {
+                    return -1;
+                }
+                i++;
+            }
+        }
+        if ((flags & 2) != 0) {
+            // FHCRC
+            i += 2;
+        }
+        return i <= received ? i : -1;
+    }
+
+    /**
+     * Hands over the lines completed by the block. The incomplete tail is kept for the next block.
+     */
+    private void frame(ByteBuffer block, boolean moreInput) throws IOException {
+        int start = block.position();
+        int end = block.limit();
+        int last = lastIndexOfNewline(block, start, end);
+        if (last == -1) {
+            appendPartial(block, start, end - start);
+            block.position(end);
+            return;
+        }
+        // one bulk copy of all the complete lines in the block
+        int from = start;
+        byte[] bytes;
+        if (partialLength > 0) {
+            int first = indexOfNewline(block, start, last + 1);
+            appendPartial(block, start, first - start);
+            bytes = Arrays.copyOf(partial, partialLength);
+            partialLength = 0;
+            sink.onLine(new StreamLine(bytes, 0, trim(bytes, 0, bytes.length)), first < last || moreInput);
+            from = first + 1;
+        }
+        int length = last + 1 - from;
+        if (length == 0) {
+            appendPartial(block, last + 1, end - last - 1);
+            block.position(end);
+            return;
+        }
+        bytes = new byte[length];
+        block.get(from, bytes, 0, length);
+        int offset = 0;
+        while (offset < length && !closed) {
+            int newline = offset;
+            while (bytes[newline] != '\n') {
+                newline++;
+            }
+            int lineLength = trim(bytes, offset, newline - offset);
+            StreamLine line = lineLength == 0 ? StreamLine.EMPTY : new StreamLine(bytes, offset, lineLength);
+            offset = newline + 1;
+            sink.onLine(line, offset < length || moreInput);
+        }
+        if (!closed) {
+            appendPartial(block, last + 1, end - last - 1);
+        }
+        block.position(end);
+    }
+
+    private static int indexOfNewline(ByteBuffer block, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (block.get(i) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int lastIndexOfNewline(ByteBuffer block, int from, int to) {
+        for (int i = to - 1; i >= from; i--) {
+            if (block.get(i) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return length of the line without the trailing CR
+     */
+    private static int trim(byte[] bytes, int offset, int length) {
+        return length > 0 && bytes[offset + length - 1] == '\r' ? length - 1 : length;
+    }
+
+    private void appendPartial(ByteBuffer block, int from, int length) {
+        if (length == 0) {
+            return;
+        }
+        if (partialLength + length > partial.length) {
+            partial = Arrays.copyOf(partial, Math.max(partial.length * 2, partialLength + length));
+        }
+        block.get(from, partial, partialLength, length);
+        partialLength += length;
+    }
+}
@@ -0,0 +1,648 @@
+/*
+ * Copyright 2007 Yusuke Yamamoto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package twitter4j;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLParameters;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A streaming connection driven by a selector thread of {@link StreamEventLoop}.<br>
+ * Sends the request, then decodes the response as bytes arrive: status line and headers, chunked transfer coding, gzip content coding and lines.
+ * All methods except {@link #open()} and {@link #close()} are called on the selector thread.
+ *
+ * @author Yusuke Yamamoto - yusuke at mac.com
+ * @since Twitter4J 4.0.8
+ */
+final class NioStreamConnection {
+    private static final Logger logger = Logger.getLogger(NioStreamConnection.class);
+    // status line and headers, or an error response body, larger than this are not accepted
+    private static final int MAX_HEAD_SIZE = 64 * 1024;
+
+    /**
+     * Receives the events of a connection, on the selector thread.
+     */
+    interface Handler {
+        /**
+         * Called once the response headers with status 200 have been received.
+         */
+        void onConnect() throws IOException;
+
+        /**
+         * @param line line without the line terminator
+         * @param more true if another line has already been received
+         */
+        void onLine(StreamLine line, boolean more) throws IOException;
+
+        /**
+         * Called once the connection failed or has been closed by the peer. Not called after {@link #close()}.
+         *
+         * @param cause cause, with the status code of the response if any
+         */
+        void onClose(TwitterException cause);
+    }
+
+    private enum State {
+        HEAD, CHUNK_SIZE, CHUNK_DATA, CHUNK_END, TRAILER, IDENTITY, DONE
+    }
+
+    private final StreamEventLoop loop;
+    private final StreamEventLoop.Worker worker;
+    private final HttpRequest request;
+    private final int connectTimeout;
+    private final int readTimeout;
+    private final Handler handler;
+    // the default context if null. replaced by tests
+    SSLContext sslContext = null;
+    // the size of the session if 0. shrunk by tests, so that a record overflows it
+    int applicationBufferSize = 0;
+
+    private SocketChannel channel;
+    private SelectionKey key;
+    private SSLEngine engine;
+    private boolean closed = false;
+    private long lastActivity;
+
+    // request bytes. wrapped into netOut with TLS
+    private ByteBuffer requestBytes;
+    private ByteBuffer netIn;
+    private ByteBuffer netOut;
+    // decrypted, or received bytes without TLS
+    private ByteBuffer appIn;
+
+    private State state = State.HEAD;
+    private final ByteArrayOutputStream head = new ByteArrayOutputStream(512);
+    private int statusCode = -1;
+    private final Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    private long remaining = -1;
+    private LineFramer framer = null;
+    // response body of an unsuccessful request
+    private StringBuilder errorBody = null;
+
+    /**
+     * @param readTimeout milliseconds the connection may stay silent
+     */
+    NioStreamConnection(StreamEventLoop loop, HttpRequest request, int connectTimeout, int readTimeout, Handler handler) {
+        this.loop = loop;
+        this.worker = loop.nextWorker();
+        this.request = request;
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+        this.handler = handler;
+    }
+
+    /**
+     * Starts connecting. Host names are resolved off the selector thread.
+     */
+    void open() {
+        final URI uri;
+        try {
+            uri = new URI(request.getURL());
+        } catch (URISyntaxException e) {
+            worker.execute(() -> fail(new TwitterException(e.getMessage(), e)));
+            return;
+        }
+        final boolean https = "https".equalsIgnoreCase(uri.getScheme());
+        final int port = uri.getPort() != -1 ? uri.getPort() : https ? 443 : 80;
+        boolean accepted = loop.executeBlocking(() -> {
+            final InetSocketAddress address = new InetSocketAddress(uri.getHost(), port);
+            worker.execute(() -> connect(uri, https, address));
+        });
+        if (!accepted) {
+            // fails on the selector thread as the event loop has been shut down
+            worker.execute(() -> connect(uri, https, InetSocketAddress.createUnresolved(uri.getHost(), port)));
+        }
+    }
+
+    /**
+     * Closes the connection without notifying the handler.
+     */
+    void close() {
+        if (worker.inEventLoop()) {
+            closeChannel();
+        } else {
+            worker.execute(this::closeChannel);
+        }
+    }
+
+    private void connect(URI uri, boolean https, InetSocketAddress address) {
+        if (closed) {
+            return;
+        }
+        if (worker.isShutdown()) {
+            fail(new TwitterException("StreamEventLoop has been shut down."));
+            return;
+        }
+        worker.register(this);
+        lastActivity = System.currentTimeMillis();
+        try {
+            if (address.isUnresolved()) {
+                throw new IOException("Unknown host: " + uri.getHost());
+            }
+            requestBytes = ByteBuffer.wrap(encodeRequest(uri));
+            if (https) {
+                engine = (sslContext != null ? sslContext : SSLContext.getDefault()).createSSLEngine(uri.getHost(), address.getPort());
+                engine.setUseClientMode(true);
+                SSLParameters parameters = engine.getSSLParameters();
+                parameters.setEndpointIdentificationAlgorithm("HTTPS");
+                engine.setSSLParameters(parameters);
+                netIn = acquire(engine.getSession().getPacketBufferSize());
+                netOut = acquire(engine.getSession().getPacketBufferSize());
+                appIn = applicationBufferSize > 0 ? ByteBuffer.allocateDirect(applicationBufferSize)
+                        : acquire(engine.getSession().getApplicationBufferSize());
+            } else {
+                appIn = DirectBufferPool.acquire();
+            }
+            channel = SocketChannel.open();
+            channel.configureBlocking(false);
+            key = channel.register(worker.selector, 0, this);
+            if (channel.connect(address)) {
+                connected();
+            } else {
+                key.interestOps(SelectionKey.OP_CONNECT);
+            }
+        } catch (IOException | NoSuchAlgorithmException e) {
+            fail(new TwitterException(e.getMessage(), e));
+        }
+    }
+
+    private void connected() throws IOException {
+        lastActivity = System.currentTimeMillis();
+        if (engine != null) {
+            engine.beginHandshake();
+        }
+        drive();
+    }
+
+    void onSelected(SelectionKey key) {
+        if (closed) {
+            return;
+        }
+        try {
+            if (key.isConnectable()) {
+                if (channel.finishConnect()) {
+                    connected();
+                }
+                return;
+            }
+            drive();
+        } catch (IOException | RuntimeException e) {
+            fail(new TwitterException(statusCode == -1 ? e.getMessage() : "Stream closed.", e));
+        }
+    }
+
+    /**
+     * Fails the connection when nothing has been received in time.
+     *
+     * @param now current time in milliseconds
+     */
+    void checkTimeout(long now) {
+        int timeout = channel == null || channel.isConnectionPending() ? connectTimeout : readTimeout;
+        if (!closed && timeout > 0 && now - lastActivity > timeout) {
+            fail(new TwitterException((channel == null || channel.isConnectionPending() ? "connect" : "Read") + " timed out",
+                    new SocketTimeoutException(), -1));
+        }
+    }
+
+    void fail(TwitterException cause) {
+        if (closed) {
+            return;
+        }
+        closeChannel();
+        handler.onClose(cause);
+    }
+
+    private void closeChannel() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        worker.deregister(this);
+        if (key != null) {
+            key.cancel();
+        }
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignore) {
+            }
+        }
+        if (framer != null) {
+            framer.close();
+        }
+        DirectBufferPool.release(appIn);
+        DirectBufferPool.release(netIn);
+        DirectBufferPool.release(netOut);
+        appIn = netIn = netOut = null;
+    }
+
+    /**
+     * Writes what can be written and reads what can be read, until neither makes progress.
+     */
+    private void drive() throws IOException {
+        boolean progress = true;
+        while (progress && !closed) {
+            progress = false;
+            boolean writable = flush();
+            if (engine == null) {
+                int read = channel.read(appIn);
+                if (read < 0) {
+                    endOfStream();
+                } else if (read > 0) {
+                    received();
+                    progress = true;
+                }
+                continue;
+            }
+            SSLEngineResult.HandshakeStatus handshake = engine.getHandshakeStatus();
+            if (handshake == SSLEngineResult.HandshakeStatus.NEED_TASK) {
+                Runnable task;
+                while ((task = engine.getDelegatedTask()) != null) {
+                    task.run();
+                }
+                progress = true;
+                continue;
+            }
+            if (handshake == SSLEngineResult.HandshakeStatus.NEED_WRAP
+                    || (handshake == SSLEngineResult.HandshakeStatus.NOT_HANDSHAKING && requestBytes.hasRemaining())) {
+                if (!writable) {
+                    // to be resumed once the socket becomes writable
+                    if (handshake == SSLEngineResult.HandshakeStatus.NEED_WRAP) {
+                        break;
+                    }
+                } else {
+                    SSLEngineResult result = engine.wrap(requestBytes, netOut);
+                    if (result.getStatus() == SSLEngineResult.Status.CLOSED) {
+                        throw new EOFException("the connection has been closed");
+                    }
+                    progress = result.bytesProduced() > 0 || result.getHandshakeStatus() != handshake;
+                    continue;
+                }
+            }
+            netIn.flip();
+            SSLEngineResult result = engine.unwrap(netIn, appIn);
+            netIn.compact();
+            if (appIn.position() > 0) {
+                received();
+                if (closed) {
+                    break;
+                }
+            }
+            switch (result.getStatus()) {
+                case OK:
+                    progress = result.bytesConsumed() > 0 || result.bytesProduced() > 0 || result.getHandshakeStatus() != handshake;
+                    break;
+                case BUFFER_UNDERFLOW:
+                    if (!netIn.hasRemaining()) {
+                        netIn = grow(netIn, engine.getSession().getPacketBufferSize());
+                    }
+                    int read = channel.read(netIn);
+                    if (read < 0) {
+                        endOfStream();
+                    }
+                    progress = read > 0;
+                    if (read > 0) {
+                        lastActivity = System.currentTimeMillis();
+                    }
+                    break;
+                case BUFFER_OVERFLOW:
+                    appIn = grow(appIn, engine.getSession().getApplicationBufferSize());
+                    progress = true;
+                    break;
+                case CLOSED:
+                    endOfStream();
+                    break;
+            }
+        }
+        if (!closed) {
+            boolean pending = engine == null ? requestBytes.hasRemaining() : netOut.position() > 0;
+            key.interestOps(pending ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+        }
+    }
+
+    private static ByteBuffer acquire(int size) {
+        return size <= DirectBufferPool.BUFFER_SIZE ? DirectBufferPool.acquire() : ByteBuffer.allocateDirect(size);
+    }
+
+    private static ByteBuffer grow(ByteBuffer buffer, int size) {
+        ByteBuffer grown = ByteBuffer.allocateDirect(Math.max(size, buffer.capacity() * 2));
+        buffer.flip();
+        grown.put(buffer);
+        DirectBufferPool.release(buffer);
+        return grown;
+    }
+
+    /**
+     * @return true if all pending bytes have been written
+     */
+    private boolean flush() throws IOException {
+        if (engine == null) {
+            if (requestBytes.hasRemaining()) {
+                channel.write(requestBytes);
+            }
+            return !requestBytes.hasRemaining();
+        }
+        if (netOut.position() > 0) {
+            netOut.flip();
+            channel.write(netOut);
+            netOut.compact();
+        }
+        return netOut.position() == 0;
+    }
+
+    private void received() throws IOException {
+        lastActivity = System.currentTimeMillis();
+        appIn.flip();
+        decode(appIn);
+        if (!closed) {
+            appIn.clear();
+        }
+    }
+
+    private void endOfStream() throws IOException {
+        if (statusCode != -1 && statusCode != HttpResponseCode.OK) {
+            // the error response was delimited by the end of the stream
+            endOfBody();
+        }
+        throw new EOFException("the end of the stream has been reached");
+    }
+
+    private byte[] encodeRequest(URI uri) {
+        StringBuilder buf = new StringBuilder(512);
+        String path = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+        buf.append(request.getMethod().name()).append(' ').append(path);
+        if (uri.getRawQuery() != null) {
+            buf.append('?').append(uri.getRawQuery());
+        }
+        buf.append(" HTTP/1.1\r\n");
+        buf.append("Host: ").append(uri.getHost());
+        if (uri.getPort() != -1) {
+            buf.append(':').append(uri.getPort());
+        }
+        buf.append("\r\n");
+        String authorizationHeader;
+        if (request.getAuthorization() != null && (authorizationHeader = request.getAuthorization().getAuthorizationHeader(request)) != null) {
+            buf.append("Authorization: ").append(authorizationHeader).append("\r\n");
+        }
+        if (request.getRequestHeaders() != null) {
+            for (Map.Entry<String, String> header : request.getRequestHeaders().entrySet()) {
+                buf.append(header.getKey()).append(": ").append(header.getValue()).append("\r\n");
+            }
+        }
+        byte[] body = null;
+        if (request.getMethod() == RequestMethod.POST) {
+            body = HttpParameter.encodeParametersToBytes(request.getParameters());
+            buf.append("Content-Type: application/x-www-form-urlencoded\r\n");
+            buf.append("Content-Length: ").append(body.length).append("\r\n");
+        }
+        buf.append("\r\n");
+        byte[] head = buf.toString().getBytes(StandardCharsets.UTF_8);
+        if (body == null) {
+            return head;
+        }
+        byte[] bytes = Arrays.copyOf(head, head.length + body.length);
+        System.arraycopy(body, 0, bytes, head.length, body.length);
+        return bytes;
+    }
+
+    /**
+     * Decodes the response bytes: status line and headers, then the body according to the transfer coding.
+     */
+    private void decode(ByteBuffer bytes) throws IOException {
+        int end = bytes.limit();
+        int i = bytes.position();
+        while (i < end && !closed) {
+            switch (state) {
+                case HEAD:
+                case CHUNK_SIZE:
+                case CHUNK_END:
+                case TRAILER:
+                    int newline = indexOf(bytes, i, end, (byte) '\n');
+                    int stop = newline == -1 ? end : newline + 1;
+                    while (i < stop) {
+                        head.write(bytes.get(i++));
+                    }
+                    if (head.size() > MAX_HEAD_SIZE) {
+                        throw new IOException("Response header too large.");
+                    }
+                    if (newline != -1) {
+                        onHeadLine();
+                    }
+                    break;
+                case CHUNK_DATA:
+                case IDENTITY:
+                    int n = remaining >= 0 ? (int) Math.min(remaining, end - i) : end - i;
+                    framer.feed(bytes.slice(i, n));
+                    i += n;
+                    if (remaining >= 0) {
+                        remaining -= n;
+                        if (remaining == 0) {
+                            if (state == State.CHUNK_DATA) {
+                                state = State.CHUNK_END;
+                            } else {
+                                endOfBody();
+                            }
+                        }
+                    }
+                    break;
+                case DONE:
+                    i = end;
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Handles a line received while reading the head, a chunk size or a trailer.
+     */
+    private void onHeadLine() throws IOException {
+        byte[] bytes = head.toByteArray();
+        int n = bytes.length;
+        if (state == State.HEAD) {
+            // status line and headers are parsed at once, on the empty line
+            if (n == 1 || n == 2 && bytes[0] == '\r') {
+                // empty lines before the status line
+                head.reset();
+            } else if (n >= 2 && bytes[n - 2] == '\n' || n >= 3 && bytes[n - 3] == '\n' && bytes[n - 2] == '\r') {
+                head.reset();
+                onHead(new String(bytes, StandardCharsets.ISO_8859_1));
+            }
+            return;
+        }
+        String text = new String(bytes, StandardCharsets.ISO_8859_1).trim();
+        head.reset();
+        switch (state) {
+            case CHUNK_SIZE:
+                int extension = text.indexOf(';');
+                String size = extension == -1 ? text : text.substring(0, extension).trim();
+                try {
+                    remaining = Long.parseLong(size, 16);
+                } catch (NumberFormatException e) {
+                    throw new IOException("Illegal chunk size: " + text);
+                }
+                state = remaining == 0 ? State.TRAILER : State.CHUNK_DATA;
+                break;
+            case CHUNK_END:
+                state = State.CHUNK_SIZE;
+                break;
+            case TRAILER:
+                if (text.isEmpty()) {
+                    endOfBody();
+                }
+                break;
+            default:
+        }
+    }
+
+    private void onHead(String text) throws IOException {
+        String[] lines = text.split("\n");
+        String[] statusLine = lines[0].trim().split(" ", 3);
+        if (statusLine.length < 2 || !statusLine[0].startsWith("HTTP/")) {
+            throw new IOException("Illegal status line: " + lines[0].trim());
+        }
+        try {
+            statusCode = Integer.parseInt(statusLine[1]);
+        } catch (NumberFormatException e) {
+            throw new IOException("Illegal status line: " + lines[0].trim());
+        }
+        if (statusCode / 100 == 1) {
+            // informational response. the final one follows
+            statusCode = -1;
+            return;
+        }
+        boolean chunked = false;
+        boolean gzip = false;
+        long contentLength = -1;
+        for (int i = 1; i < lines.length; i++) {
+            int colon = lines[i].indexOf(':');
+            if (colon == -1) {
+                continue;
+            }
+            String name = lines[i].substring(0, colon).trim().toLowerCase(Locale.ROOT);
+            String value = lines[i].substring(colon + 1).trim();
+            headers.computeIfAbsent(name, key -> new ArrayList<>(1)).add(value);
+            if ("transfer-encoding".equals(name)) {
+                chunked = value.toLowerCase(Locale.ROOT).contains("chunked");
+            } else if ("content-encoding".equals(name)) {
+                gzip = "gzip".equalsIgnoreCase(value);
+            } else if ("content-length".equals(name)) {
+                try {
+                    contentLength = Long.parseLong(value);
+                } catch (NumberFormatException ignore) {
+                }
+            }
+        }
+        logger.debug(() -> "Response: " + text.trim());
+        LineFramer.Encoding encoding = gzip ? LineFramer.Encoding.GZIP : LineFramer.Encoding.IDENTITY;
+        if (statusCode == HttpResponseCode.OK) {
+            framer = new LineFramer(encoding, handler::onLine);
+        } else {
+            errorBody = new StringBuilder();
+            framer = new LineFramer(encoding, this::onErrorLine);
+        }
+        state = chunked ? State.CHUNK_SIZE : State.IDENTITY;
+        remaining = chunked ? -1 : contentLength;
+        if (statusCode == HttpResponseCode.OK) {
+            handler.onConnect();
+        }
+        if (!chunked && contentLength == 0) {
+            endOfBody();
+        }
+    }
+
+    private static int indexOf(ByteBuffer bytes, int from, int to, byte b) {
+        for (int i = from; i < to; i++) {
+            if (bytes.get(i) == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void onErrorLine(StreamLine line, boolean more) throws IOException {
+        if (errorBody.length() > 0) {
+            errorBody.append('\n');
+        }
+        errorBody.append(line);
+        if (errorBody.length() > MAX_HEAD_SIZE) {
+            endOfBody();
+        }
+    }
+
+    private void endOfBody() throws IOException {
+        if (state == State.DONE) {
+            return;
+        }
+        state = State.DONE;
+        framer.finish();
+        if (errorBody != null) {
+            String body = errorBody.toString();
+            errorBody = null;
+            fail(new TwitterException(body, new Response(statusCode, body, headers)));
+        } else {
+            fail(new TwitterException("Stream closed.", new EOFException("the end of the stream has been reached")));
+        }
+    }
+
+    /**
+     * An unsuccessful response, for the status code and the headers such as Retry-After.
+     */
+    private static final class Response extends HttpResponse {
+        private final Map<String, List<String>> headers;
+
+        Response(int statusCode, String body, Map<String, List<String>> headers) {
+            super();
+            this.statusCode = statusCode;
+            this.responseAsString = body;
+            this.headers = headers;
+        }
+
+        @Override
+        public String getResponseHeader(String name) {
+            List<String> values = headers.get(name);
+            return values != null ? values.get(0) : null;
+        }
+
+        @Override
+        public Map<String, List<String>> getResponseHeaderFields() {
+            return headers;
+        }
+
+        @Override
+        public void disconnect() {
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2007 Yusuke Yamamoto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package twitter4j;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded set of recently seen status ids used to suppress duplicates delivered by overlapping connections.<br>
+ * The oldest id is evicted once the capacity is reached. This class is thread safe.
+ *
+ * @author Yusuke Yamamoto - yusuke at mac.com
+ * @since Twitter4J 4.0.8
+ */
+final class RecentStatusIds {
+    private final Map<Long, Boolean> ids;
+
+    RecentStatusIds(final int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be greater than 0: " + capacity);
+        }
+        this.ids = new LinkedHashMap<Long, Boolean>(Math.min(capacity, 1024), 0.75f) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Boolean> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * @param id status id
+     * @return true if the id was not seen recently
+     */
+    synchronized boolean add(long id) {
+        return ids.put(id, Boolean.TRUE) == null;
+    }
+
+    synchronized int size() {
+        return ids.size();
+    }
+}
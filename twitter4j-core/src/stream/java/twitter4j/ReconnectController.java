@@ -0,0 +1,199 @@
+/*
+ * Copyright 2007 Yusuke Yamamoto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package twitter4j;
+
+import twitter4j.management.ReconnectStatistics;
+
+import java.net.SocketTimeoutException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides how long a stream consumer waits before reconnecting, and how long a connection may stay silent.<br>
+ * Waits follow decorrelated jitter: each one is drawn between the initial wait and three times the previous wait, up to the cap of the error,
+ * so that consumers dropped at the same time don't come back in lockstep. Retry-After is honored.<br>
+ * The stall timeout follows the keep-alive contract. The server sends a blank line at least every 30 seconds when it has nothing else to send,
+ * so a connection silent for one and a half keep-alive intervals is stalled, long before the configured read timeout elapses.
+ * The interval is not learned from the stream, as keep-alives are sparse under steady traffic.
+ *
+ * @author Yusuke Yamamoto - yusuke at mac.com
+ * @since Twitter4J 4.0.8
+ */
+final class ReconnectController {
+    /*
+     https://dev.twitter.com/docs/streaming-api/concepts#connecting
+     When a network error (TCP/IP level) is encountered, back off linearly. Perhaps start at 250 milliseconds, double, and cap at 16 seconds
+     When a HTTP error (> 200) is returned, back off exponentially.
+     Perhaps start with a 10 second wait, double on each subsequent failure, and finally cap the wait at 240 seconds. Consider sending an alert to a human operator after multiple HTTP errors, as there is probably a client configuration issue that is unlikely to be resolved without human intervention. There's not much point in polling any faster in the face of HTTP error codes and your client is may run afoul of a rate limit.
+     Back off exponentially for HTTP 420 errors. Start with a 1 minute wait and double each attempt.
+     */
+    static final int TCP_ERROR_INITIAL_WAIT = 250;
+    private static final int TCP_ERROR_WAIT_CAP = 16 * 1000;
+
+    static final int HTTP_ERROR_INITIAL_WAIT = 10 * 1000;
+    private static final int HTTP_ERROR_WAIT_CAP = 240 * 1000;
+
+    static final int RATE_LIMITED_INITIAL_WAIT = 60 * 1000;
+    private static final int RATE_LIMITED_WAIT_CAP = 16 * 60 * 1000;
+
+    // blank lines are sent at least every 30 seconds
+    static final int DEFAULT_KEEP_ALIVE_INTERVAL = 30 * 1000;
+
+    private final int stallTimeout;
+    private final ReconnectStatistics statistics;
+    private volatile long lastReceived = 0;
+    private boolean connected = false;
+
+    // wait before the last attempt, and the initial wait of its error. 0 while connected
+    private long previousWait = 0;
+    private int initialWait = 0;
+    private boolean cancelled = false;
+
+    /**
+     * @param readTimeout upper bound of the stall timeout, or 0 for no bound
+     * @param statistics  statistics to be updated
+     */
+    ReconnectController(int readTimeout, ReconnectStatistics statistics) {
+        this(readTimeout, DEFAULT_KEEP_ALIVE_INTERVAL, statistics);
+    }
+
+    /**
+     * @param readTimeout       upper bound of the stall timeout, or 0 for no bound
+     * @param keepAliveInterval milliseconds between keep-alives the server guarantees at most
+     * @param statistics        statistics to be updated
+     */
+    ReconnectController(int readTimeout, int keepAliveInterval, ReconnectStatistics statistics) {
+        this.stallTimeout = stallTimeout(readTimeout, keepAliveInterval);
+        this.statistics = statistics;
+    }
+
+    /**
+     * @param readTimeout       upper bound of the stall timeout, or 0 for no bound
+     * @param keepAliveInterval milliseconds between keep-alives the server guarantees at most
+     * @return milliseconds a connection may stay silent before it is considered stalled
+     */
+    static int stallTimeout(int readTimeout, int keepAliveInterval) {
+        long timeout = keepAliveInterval * 3L / 2;
+        return (int) Math.min(timeout, readTimeout > 0 ? readTimeout : Integer.MAX_VALUE);
+    }
+
+    /**
+     * Called once a connection has been established.
+     */
+    synchronized void connected() {
+        long now = System.currentTimeMillis();
+        if (lastReceived != 0) {
+            statistics.reconnected(now - lastReceived);
+        }
+        lastReceived = now;
+        connected = true;
+        previousWait = 0;
+        initialWait = 0;
+    }
+
+    /**
+     * Called for each line received, blank or not, on the thread reading the stream.
+     */
+    void received() {
+        lastReceived = System.currentTimeMillis();
+    }
+
+    /**
+     * @return milliseconds a connection may stay silent before it is considered stalled
+     */
+    int getStallTimeout() {
+        return stallTimeout;
+    }
+
+    /**
+     * Called once the connection failed, or could not be established.
+     *
+     * @param cause cause of the failure
+     * @return milliseconds to wait before the next attempt
+     */
+    synchronized long nextWait(TwitterException cause) {
+        if (connected && cause.getCause() instanceof SocketTimeoutException) {
+            statistics.stalled();
+        }
+        connected = false;
+        int statusCode = cause.getStatusCode();
+        int initial;
+        int cap;
+        if (statusCode == HttpResponseCode.ENHANCE_YOUR_CLAIM || statusCode == HttpResponseCode.TOO_MANY_REQUESTS) {
+            initial = RATE_LIMITED_INITIAL_WAIT;
+            cap = RATE_LIMITED_WAIT_CAP;
+        } else if (statusCode > 200) {
+            initial = HTTP_ERROR_INITIAL_WAIT;
+            cap = HTTP_ERROR_WAIT_CAP;
+        } else {
+            initial = TCP_ERROR_INITIAL_WAIT;
+            cap = TCP_ERROR_WAIT_CAP;
+        }
+        long wait;
+        if (previousWait == 0 || initialWait != initial) {
+            wait = initial;
+        } else {
+            wait = Math.min(cap, initial + ThreadLocalRandom.current().nextLong(previousWait * 3 - initial + 1));
+        }
+        previousWait = wait;
+        initialWait = initial;
+        int retryAfter = getRetryAfter(cause);
+        return retryAfter > 0 ? Math.max(wait, retryAfter * 1000L) : wait;
+    }
+
+    private static int getRetryAfter(TwitterException cause) {
+        String retryAfter = cause.getResponseHeader("Retry-After");
+        if (retryAfter != null) {
+            try {
+                return Integer.parseInt(retryAfter.trim());
+            } catch (NumberFormatException ignore) {
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Waits before the next attempt, until {@link #cancel()} is called.
+     *
+     * @param millis milliseconds to wait
+     * @return false if cancelled, or the thread has been interrupted
+     */
+    synchronized boolean await(long millis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        while (!cancelled) {
+            long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remaining <= 0) {
+                return true;
+            }
+            try {
+                wait(remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Wakes up the waiting consumer. Waits return immediately afterwards.
+     */
+    synchronized void cancel() {
+        cancelled = true;
+        notifyAll();
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2007 Yusuke Yamamoto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package twitter4j;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads newline delimited stream messages recorded by {@link StreamRecorder} from files, optionally gzipped, pacing lines by their "timestamp_ms" attribute.
+ *
+ * @author Yusuke Yamamoto - yusuke at mac.com
+ * @since Twitter4J 4.0.8
+ */
+final class ReplayInputStream extends InputStream {
+    private static final byte[] TIMESTAMP_KEY = "\"timestamp_ms\":\"".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NEWLINE = {'\n'};
+
+    private final File[] files;
+    private final double speed;
+    private int fileIndex = 0;
+    private InputStream in = null;
+    // lines are scanned in bulk out of this buffer, rather than byte by byte out of the file
+    private final byte[] buffer = new byte[64 * 1024];
+    private int bufferPosition = 0;
+    private int bufferLimit = 0;
+    private byte[] line = new byte[8192];
+    private int lineLength = 0;
+    private int linePosition = 0;
+    // timestamp of the first paced line, and the wall clock time it was replayed at
+    private long firstTimestamp = -1;
+    private long startedAt;
+    private volatile boolean closed = false;
+
+    /**
+     * @param files files to be replayed in order
+     * @param speed multiple of the original pace. 0 replays as fast as possible
+     */
+    ReplayInputStream(File[] files, double speed) {
+        if (speed < 0) {
+            throw new IllegalArgumentException("speed must not be negative: " + speed);
+        }
+        this.files = files.clone();
+        this.speed = speed;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (linePosition == lineLength && !nextLine()) {
+            return -1;
+        }
+        return line[linePosition++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (linePosition == lineLength && !nextLine()) {
+            return -1;
+        }
+        int count = Math.min(len, lineLength - linePosition);
+        System.arraycopy(line, linePosition, b, off, count);
+        linePosition += count;
+        return count;
+    }
+
+    /**
+     * loads the next line including the trailing newline and waits until it is due
+     *
+     * @return false if all files have been read
+     */
+    private boolean nextLine() throws IOException {
+        lineLength = 0;
+        linePosition = 0;
+        while (!closed) {
+            if (in == null) {
+                if (fileIndex == files.length) {
+                    return false;
+                }
+                in = open(files[fileIndex++]);
+                bufferPosition = bufferLimit = 0;
+            }
+            boolean terminated = false;
+            while (!terminated) {
+                if (bufferPosition == bufferLimit) {
+                    int read = in.read(buffer);
+                    if (read == -1) {
+                        break;
+                    }
+                    bufferPosition = 0;
+                    bufferLimit = read;
+                }
+                int end = bufferPosition;
+                while (end < bufferLimit && buffer[end] != '\n') {
+                    end++;
+                }
+                terminated = end < bufferLimit;
+                if (terminated) {
+                    end++;
+                }
+                append(buffer, bufferPosition, end - bufferPosition);
+                bufferPosition = end;
+            }
+            if (!terminated) {
+                in.close();
+                in = null;
+                if (lineLength == 0) {
+                    continue;
+                }
+                // the last line of a file without trailing newline
+                append(NEWLINE, 0, 1);
+            }
+            pace();
+            return !closed;
+        }
+        return false;
+    }
+
+    private void append(byte[] bytes, int offset, int length) {
+        if (lineLength + length > line.length) {
+            byte[] newLine = new byte[Math.max(line.length * 2, lineLength + length)];
+            System.arraycopy(line, 0, newLine, 0, lineLength);
+            line = newLine;
+        }
+        System.arraycopy(bytes, offset, line, lineLength, length);
+        lineLength += length;
+    }
+
+    private void pace() throws IOException {
+        if (speed == 0) {
+            return;
+        }
+        long timestamp = timestamp();
+        if (timestamp == -1) {
+            return;
+        }
+        if (firstTimestamp == -1) {
+            firstTimestamp = timestamp;
+            startedAt = System.currentTimeMillis();
+            return;
+        }
+        long due = startedAt + (long) ((timestamp - firstTimestamp) / speed);
+        synchronized (this) {
+            long wait;
+            while (!closed && (wait = due - System.currentTimeMillis()) > 0) {
+                try {
+                    wait(wait);
+                } catch (InterruptedException e) {
+                    throw new IOException("Interrupted while replaying.", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return value of the "timestamp_ms" attribute in the current line, or -1 if not found
+     */
+    private long timestamp() {
+        outer:
+        for (int i = 0; i + TIMESTAMP_KEY.length <= lineLength; i++) {
+            for (int j = 0; j < TIMESTAMP_KEY.length; j++) {
+                if (line[i + j] != TIMESTAMP_KEY[j]) {
+                    continue outer;
+                }
+            }
+            long value = 0;
+            int digits = 0;
+            for (int k = i + TIMESTAMP_KEY.length; k < lineLength && line[k] >= '0' && line[k] <= '9'; k++) {
+                value = value * 10 + (line[k] - '0');
+                digits++;
+            }
+            return digits == 0 ? -1 : value;
+        }
+        return -1;
+    }
+
+    private static InputStream open(File file) throws IOException {
+        BufferedInputStream in = new BufferedInputStream(new FileInputStream(file), 64 * 1024);
+        in.mark(2);
+        int magic = in.read() | (in.read() << 8);
+        in.reset();
+        if (magic == GZIPInputStream.GZIP_MAGIC) {
+            return new GZIPInputStream(in, 64 * 1024);
+        }
+        return in;
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        synchronized (this) {
+            notifyAll();
+        }
+        if (in != null) {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2007 Yusuke Yamamoto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package twitter4j;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A StatusListener which receives statuses in batches.<br>
+ * When stream.batchSize is configured, statuses parsed from one batch of lines are delivered with a single {@link #onStatuses(List)} call. Otherwise each status is delivered as a list of one element.
+ * Other events are delivered one by one as with StatusListener.
+ *
+ * @author Yusuke Yamamoto - yusuke at mac.com
+ * @see twitter4j.conf.ConfigurationBuilder#setStreamBatchSize(int)
+ * @since Twitter4J 4.0.8
+ */
+public interface StatusBatchListener extends StatusListener {
+    /**
+     * @param statuses statuses in the order received
+     */
+    void onStatuses(List<Status> statuses);
+
+    @Override
+    default void onStatus(Status status) {
+        onStatuses(Collections.singletonList(status));
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2007 Yusuke Yamamoto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package twitter4j;
+
+import java.util.Arrays;
+import java.util.function.LongSupplier;
+
+/**
+ * Suppresses statuses already seen within a sliding time window, such as the ones delivered again on reconnects or by overlapping connections.<br>
+ * Optionally, retweets are collapsed onto their originals: only the first of a status and its retweets is delivered within the window.<br>
+ * Ids are remembered in a ring of Bloom filters, each covering a slice of the window. The oldest filter is cleared and reused as the window slides,
+ * so memory stays fixed however many ids pass through. Being probabilistic, a status not seen before is suppressed with the configured
+ * false positive probability, while a duplicate is never delivered as long as its id is still held by one of the filters.<br>
+ * A slice taking more ids than expected is closed early, which keeps the false positive probability bounded at the cost of shortening the window:
+ * while more ids than expected arrive, only the last expectedIds ids (up to a quarter more) are remembered,
+ * and a duplicate arriving after that many other statuses is delivered again even though it falls within the window.<br>
+ * This class is thread safe.
+ *
+ * @author Yusuke Yamamoto - yusuke at mac.com
+ * @see TwitterStream#deduplicate(StatusDeduplicator)
+ * @since Twitter4J 4.0.8
+ */
+public final class StatusDeduplicator {
+    private static final int SLICES = 4;
+
+    private final long windowMillis;
+    private final long sliceMillis;
+    private final boolean collapseRetweets;
+    private final LongSupplier clock;
+    private final int idsPerSlice;
+    private final int bitsPerSlice;
+    private final int hashes;
+    // SLICES + 1 filters. the current one and the ones covering the window before it
+    private final long[][] filters = new long[SLICES + 1][];
+    private final int[] counts = new int[SLICES + 1];
+    private int current = 0;
+    private long sliceStart;
+    private long delivered = 0;
+    private long suppressed = 0;
+
+    /**
+     * @param windowMillis      length of the window in milliseconds
+     * @param expectedIds       number of ids expected within the window
+     * @param falsePositiveRate probability of a status not seen before being suppressed
+     * @param collapseRetweets  true to deliver only the first of a status and its retweets
+     */
+    public StatusDeduplicator(long windowMillis, int expectedIds, double falsePositiveRate, boolean collapseRetweets) {
+        this(windowMillis, expectedIds, falsePositiveRate, collapseRetweets, System::currentTimeMillis);
+    }
+
+    /*package*/ StatusDeduplicator(long windowMillis, int expectedIds, double falsePositiveRate, boolean collapseRetweets, LongSupplier clock) {
+        if (windowMillis <= 0) {
+            throw new IllegalArgumentException("windowMillis must be greater than 0: " + windowMillis);
+        }
+        if (expectedIds <= 0) {
+            throw new IllegalArgumentException("expectedIds must be greater than 0: " + expectedIds);
+        }
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("falsePositiveRate must be between 0 and 1: " + falsePositiveRate);
+        }
+        this.windowMillis = windowMillis;
+        this.sliceMillis = Math.max(1, windowMillis / SLICES);
+        this.collapseRetweets = collapseRetweets;
+        this.clock = clock;
+        this.idsPerSlice = Math.max(1, (expectedIds + SLICES - 1) / SLICES);
+        // an id is looked up in every filter, so that each of them gets a share of the false positive rate
+        double rate = falsePositiveRate / (SLICES + 1);
+        long bits = (long) Math.ceil(-idsPerSlice * Math.log(rate) / (Math.log(2) * Math.log(2)));
+        this.bitsPerSlice = (int) Math.min(Integer.MAX_VALUE - 63, Math.max(64, bits));
+        this.hashes = Math.max(1, (int) Math.round((double) bitsPerSlice / idsPerSlice * Math.log(2)));
+        for (int i = 0; i < filters.length; i++) {
+            filters[i] = new long[(bitsPerSlice + 63) / 64];
+        }
+        sliceStart = clock.getAsLong();
+    }
+
+    /**
+     * Records the status and tells whether it should be delivered.
+     *
+     * @param status status
+     * @return false if the status, or its original when collapsing retweets, was seen within the window and is still remembered
+     */
+    public boolean accept(Status status) {
+        Status retweeted = collapseRetweets ? status.getRetweetedStatus() : null;
+        return accept(retweeted != null ? retweeted.getId() : status.getId());
+    }
+
+    /**
+     * Records the id and tells whether it was new.
+     *
+     * @param id status id
+     * @return false if the id was seen within the window and is still remembered
+     */
+    public synchronized boolean accept(long id) {
+        slide();
+        long h1 = mix(id);
+        long h2 = mix(h1) | 1;
+        boolean seen = false;
+        for (int i = 0; i < filters.length && !seen; i++) {
+            seen = contains(filters[i], h1, h2);
+        }
+        if (seen) {
+            suppressed++;
+            return false;
+        }
+        long[] filter = filters[current];
+        long h = h1;
+        for (int i = 0; i < hashes; i++, h += h2) {
+            int bit = index(h);
+            filter[bit >>> 6] |= 1L << bit;
+        }
+        counts[current]++;
+        delivered++;
+        return true;
+    }
+
+    private boolean contains(long[] filter, long h1, long h2) {
+        long h = h1;
+        for (int i = 0; i < hashes; i++, h += h2) {
+            int bit = index(h);
+            if ((filter[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return bit index in [0, bitsPerSlice), mapped from the upper 32 bits
+     */
+    private int index(long h) {
+        return (int) (((h >>> 32) * bitsPerSlice) >>> 32);
+    }
+
+    /**
+     * moves on to the next filter, clearing the oldest one, once the current slice has elapsed or is full
+     */
+    private void slide() {
+        long now = clock.getAsLong();
+        long elapsedSlices = (now - sliceStart) / sliceMillis;
+        if (elapsedSlices <= 0 && counts[current] < idsPerSlice) {
+            return;
+        }
+        int rotations = (int) Math.min(filters.length, Math.max(1, elapsedSlices));
+        for (int i = 0; i < rotations; i++) {
+            current = (current + 1) % filters.length;
+            Arrays.fill(filters[current], 0L);
+            counts[current] = 0;
+        }
+        sliceStart = elapsedSlices <= 0 ? now : sliceStart + elapsedSlices * sliceMillis;
+    }
+
+    private static long mix(long x) {
+        // finalizer of SplitMix64
+        x = (x ^ (x >>> 30)) * 0xbf58476d1ce4e5b9L;
+        x = (x ^ (x >>> 27)) * 0x94d049bb133111ebL;
+        return x ^ (x >>> 31);
+    }
+
+    /**
+     * @return number of statuses accepted
+     */
+    public synchronized long getDeliveredCount() {
+        return delivered;
+    }
+
+    /**
+     * @return number of statuses suppressed
+     */
+    public synchronized long getSuppressedCount() {
+        return suppressed;
+    }
+
+    /**
+     * @return bytes held by the filters
+     */
+    public long getMemoryFootprint() {
+        return (long) filters.length * filters[0].length * 8;
+    }
+
+    @Override
+    public String toString() {
+        return "StatusDeduplicator{" +
+                "windowMillis=" + windowMillis +
+                ", collapseRetweets=" + collapseRetweets +
+                ", bitsPerSlice=" + bitsPerSlice +
+                ", hashes=" + hashes +
+                ", delivered=" + getDeliveredCount() +
+                ", suppressed=" + getSuppressedCount() +
+                '}';
+    }
+}
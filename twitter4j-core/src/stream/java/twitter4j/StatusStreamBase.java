@@ -18,11 +18,17 @@ package twitter4j;
 
 import twitter4j.conf.Configuration;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Predicate;
 
 /**
  * @author Yusuke Yamamoto - yusuke at mac.com
@@ -32,21 +38,60 @@ abstract class StatusStreamBase implements StatusStream {
     static final Logger logger = Logger.getLogger(StatusStreamImpl.class);
 
     private boolean streamAlive = true;
-    private final BufferedReader br;
     private final InputStream is;
+    // null when lines are pushed to this stream
+    private final ReadableByteChannel channel;
+    private final LineFramer framer;
+    private ByteBuffer readBuffer = null;
+    // lines framed but not handed over yet
+    private final ArrayDeque<StreamLine> framed = new ArrayDeque<>();
     private HttpResponse response;
     private final Dispatcher dispatcher;
     final Configuration CONF;
     private final ObjectFactory factory;
+    private StreamSpool spool = null;
+    private ReconnectController reconnect = null;
+    // decides which statuses reach the listeners, consulted as each status is parsed. null to deliver all
+    private volatile Predicate<Status> statusFilter = null;
+    private final int batchSize;
+    // batch being filled by the reader thread
+    private LineBatch batch = null;
+    // batches returned by the parser threads, to be reused by the reader thread
+    private final BlockingQueue<LineBatch> freeBatches;
 
     /*package*/
 
     StatusStreamBase(Dispatcher dispatcher, InputStream stream, Configuration conf) throws IOException {
         this.is = stream;
-        this.br = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8));
+        LineFramer.Encoding encoding = LineFramer.Encoding.IDENTITY;
+        InputStream source = stream;
+        if (stream instanceof StreamingGZIPInputStream) {
+            // the header has been consumed already. the rest is inflated by the framer
+            source = ((StreamingGZIPInputStream) stream).getWrappedStream();
+            encoding = LineFramer.Encoding.GZIP_BODY;
+        }
+        this.channel = Channels.newChannel(source);
+        this.framer = new LineFramer(encoding, (line, more) -> framed.add(line));
+        this.dispatcher = dispatcher;
+        this.CONF = conf;
+        this.factory = new JSONImplFactory(conf);
+        this.batchSize = conf.getStreamBatchSize();
+        this.freeBatches = batchSize > 1 ? new ArrayBlockingQueue<LineBatch>(conf.getAsyncNumThreads() * 2 + 1) : null;
+    }
+    /*package*/
+
+    /**
+     * Creates a stream which doesn't read by itself. Lines are pushed through {@link #dispatch(StreamLine, StreamListener[], RawStreamListener[], boolean)}.
+     */
+    StatusStreamBase(Dispatcher dispatcher, Configuration conf) {
+        this.is = null;
+        this.channel = null;
+        this.framer = null;
         this.dispatcher = dispatcher;
         this.CONF = conf;
         this.factory = new JSONImplFactory(conf);
+        this.batchSize = conf.getStreamBatchSize();
+        this.freeBatches = batchSize > 1 ? new ArrayBlockingQueue<LineBatch>(conf.getAsyncNumThreads() * 2 + 1) : null;
     }
     /*package*/
 
@@ -55,14 +100,46 @@ abstract class StatusStreamBase implements StatusStream {
         this.response = response;
     }
 
+    /**
+     * Lets received lines be appended to the spool instead of being dispatched to the listeners.
+     *
+     * @param spool spool
+     */
+    void setSpool(StreamSpool spool) {
+        this.spool = spool;
+    }
+
+    /**
+     * Lets the controller record the time of the lines read by {@link #next(StreamListener[], RawStreamListener[])}.
+     *
+     * @param reconnect reconnect controller
+     */
+    void setReconnectController(ReconnectController reconnect) {
+        this.reconnect = reconnect;
+    }
+
+    /**
+     * Lets statuses be delivered only if accepted by the filter. The filter is applied once per status, before batching,
+     * so that StatusBatchListeners receive the accepted statuses of a batch with one call.
+     *
+     * @param statusFilter filter, or null to deliver all statuses
+     */
+    void setStatusFilter(Predicate<Status> statusFilter) {
+        this.statusFilter = statusFilter;
+    }
+
+    Predicate<Status> getStatusFilter() {
+        return statusFilter;
+    }
+
     String parseLine(String line) {
         return line;
     }
 
     abstract class StreamEvent implements Runnable {
-        String line;
+        StreamLine line;
 
-        StreamEvent(String line) {
+        StreamEvent(StreamLine line) {
             this.line = line;
         }
     }
@@ -73,135 +150,19 @@ abstract class StatusStreamBase implements StatusStream {
             throw new IllegalStateException("Stream already closed.");
         }
         try {
-            String line = br.readLine();
+            StreamLine line = nextLine();
             if (null == line) {
                 //invalidate this status stream
                 throw new IOException("the end of the stream has been reached");
             }
-            dispatcher.invokeLater(new StreamEvent(line) {
-                @Override
-                public void run() {
-                    try {
-                        if (rawStreamListeners.length > 0) {
-                            onMessage(line, rawStreamListeners);
-                        }
-                        // SiteStreamsImpl will parse "forUser" attribute
-                        line = parseLine(line);
-                        if (line != null && line.length() > 0) {
-                            // parsing JSON is an expensive process and can be avoided when all listeners are instanceof RawStreamListener
-                            if (listeners.length > 0) {
-                                if (CONF.isJSONStoreEnabled()) {
-                                    TwitterObjectFactory.clearThreadLocalMap();
-                                }
-                                JSONObject json = new JSONObject(line);
-                                JSONObjectType.Type event = JSONObjectType.determine(json);
-                                if (logger.isDebugEnabled()) {
-                                    logger.debug("Received:", CONF.getHttpClientConfiguration().isPrettyDebugEnabled() ? json.toString(1) : json.toString());
-                                }
-                                switch (event) {
-                                    case SENDER:
-                                        onSender(json, listeners);
-                                        break;
-                                    case STATUS:
-                                        onStatus(json, listeners);
-                                        break;
-                                    case DIRECT_MESSAGE:
-                                        onDirectMessage(json, listeners);
-                                        break;
-                                    case DELETE:
-                                        onDelete(json, listeners);
-                                        break;
-                                    case LIMIT:
-                                        onLimit(json, listeners);
-                                        break;
-                                    case STALL_WARNING:
-                                        onStallWarning(json, listeners);
-                                        break;
-                                    case SCRUB_GEO:
-                                        onScrubGeo(json, listeners);
-                                        break;
-                                    case FRIENDS:
-                                        onFriends(json, listeners);
-                                        break;
-                                    case FAVORITE:
-                                        onFavorite(json.getJSONObject("source"), json.getJSONObject("target"), json.getJSONObject("target_object"), listeners);
-                                        break;
-                                    case UNFAVORITE:
-                                        onUnfavorite(json.getJSONObject("source"), json.getJSONObject("target"), json.getJSONObject("target_object"), listeners);
-                                        break;
-                                    case FOLLOW:
-                                        onFollow(json.getJSONObject("source"), json.getJSONObject("target"), listeners);
-                                        break;
-                                    case UNFOLLOW:
-                                        onUnfollow(json.getJSONObject("source"), json.getJSONObject("target"), listeners);
-                                        break;
-                                    case USER_LIST_MEMBER_ADDED:
-                                        onUserListMemberAddition(json.getJSONObject("target"), json.getJSONObject("source"), json.getJSONObject("target_object"), listeners);
-                                        break;
-                                    case USER_LIST_MEMBER_DELETED:
-                                        onUserListMemberDeletion(json.getJSONObject("target"), json.getJSONObject("source"), json.getJSONObject("target_object"), listeners);
-                                        break;
-                                    case USER_LIST_SUBSCRIBED:
-                                        onUserListSubscription(json.getJSONObject("source"), json.getJSONObject("target"), json.getJSONObject("target_object"), listeners);
-                                        break;
-                                    case USER_LIST_UNSUBSCRIBED:
-                                        onUserListUnsubscription(json.getJSONObject("source"), json.getJSONObject("target"), json.getJSONObject("target_object"), listeners);
-                                        break;
-                                    case USER_LIST_CREATED:
-                                        onUserListCreation(json.getJSONObject("source"), json.getJSONObject("target_object"), listeners);
-                                        break;
-                                    case USER_LIST_UPDATED:
-                                        onUserListUpdated(json.getJSONObject("source"), json.getJSONObject("target_object"), listeners);
-                                        break;
-                                    case USER_LIST_DESTROYED:
-                                        onUserListDestroyed(json.getJSONObject("source"), json.getJSONObject("target_object"), listeners);
-                                        break;
-                                    case USER_UPDATE:
-                                        onUserUpdate(json.getJSONObject("source"), json.getJSONObject("target"), listeners);
-                                        break;
-                                    case USER_DELETE:
-                                        onUserDeletion(json.getLong("target"), listeners);
-                                        break;
-                                    case USER_SUSPEND:
-                                        onUserSuspension(json.getLong("target"), listeners);
-                                        break;
-                                    case BLOCK:
-                                        onBlock(json.getJSONObject("source"), json.getJSONObject("target"), listeners);
-                                        break;
-                                    case UNBLOCK:
-                                        onUnblock(json.getJSONObject("source"), json.getJSONObject("target"), listeners);
-                                        break;
-                                    case RETWEETED_RETWEET:
-                                        onRetweetedRetweet(json.getJSONObject("source"), json.getJSONObject("target"), json.getJSONObject("target_object"), listeners);
-                                        break;
-                                    case FAVORITED_RETWEET:
-                                        onFavoritedRetweet(json.getJSONObject("source"), json.getJSONObject("target"), json.getJSONObject("target_object"), listeners);
-                                        break;
-                                    case QUOTED_TWEET:
-                                        onQuotedTweet(json.getJSONObject("source"), json.getJSONObject("target"), json.getJSONObject("target_object"), listeners);
-                                        break;
-                                    case DISCONNECTION:
-                                        onDisconnectionNotice(line, listeners);
-                                        break;
-                                    case MUTE:
-                                        onMute(json.getJSONObject("source"), json.getJSONObject("target"), listeners);
-                                        break;
-                                    case UNMUTE:
-                                        onUnmute(json.getJSONObject("source"), json.getJSONObject("target"), listeners);
-                                        break;
-                                    case UNKNOWN:
-                                    default:
-                                        logger.warn("Received unknown event:", CONF.getHttpClientConfiguration().isPrettyDebugEnabled() ? json.toString(1) : json.toString());
-                                }
-                            }
-                        }
-                    } catch (Exception ex) {
-                        onException(ex, listeners);
-                    }
-                }
-            });
-
+            if (reconnect != null) {
+                reconnect.received();
+            }
+            dispatch(line, listeners, rawStreamListeners, !framed.isEmpty());
         } catch (IOException ioe) {
+            framer.close();
+            DirectBufferPool.release(readBuffer);
+            readBuffer = null;
             try {
                 is.close();
             } catch (IOException ignore) {
@@ -215,6 +176,327 @@ abstract class StatusStreamBase implements StatusStream {
         }
     }
 
+    /**
+     * Reads until a line has been framed.
+     *
+     * @return next line, or null at the end of the stream
+     */
+    private StreamLine nextLine() throws IOException {
+        StreamLine line;
+        while ((line = framed.poll()) == null) {
+            if (readBuffer == null) {
+                readBuffer = DirectBufferPool.acquire();
+            }
+            readBuffer.clear();
+            if (channel.read(readBuffer) < 0) {
+                framer.finish();
+                return framed.poll();
+            }
+            readBuffer.flip();
+            framer.feed(readBuffer);
+        }
+        return line;
+    }
+
+    /**
+     * Records the line, then hands it over to the spool, or to the dispatcher. The line is decoded on the dispatcher thread, if at all.
+     *
+     * @param more true if another line is readable without blocking, which lets the line wait in the current batch
+     */
+    void dispatch(final StreamLine line, final StreamListener[] listeners,
+                  final RawStreamListener[] rawStreamListeners, boolean more) throws IOException {
+        for (RawStreamListener listener : rawStreamListeners) {
+            if (listener instanceof StreamRecorder) {
+                // in the order received, whichever thread the line is dispatched to
+                ((StreamRecorder) listener).record(line.array(), line.offset(), line.length());
+            }
+        }
+        if (spool != null) {
+            // listeners are fed by the spool reader at their own pace
+            spool.append(line.array(), line.offset(), line.length());
+            return;
+        }
+        if (batchSize > 1) {
+            addToBatch(line, listeners, rawStreamListeners, more);
+            return;
+        }
+        dispatcher.invokeLater(new StreamEvent(line) {
+            @Override
+            public void run() {
+                process(line.toString(), listeners, rawStreamListeners);
+            }
+        });
+    }
+
+    /**
+     * Adds the line to the current batch, and hands the batch over to the dispatcher once it is full or the reader would block.
+     */
+    private void addToBatch(StreamLine line, final StreamListener[] listeners,
+                            final RawStreamListener[] rawStreamListeners, boolean more) {
+        if (batch == null) {
+            batch = freeBatches.poll();
+            if (batch == null) {
+                batch = new LineBatch(batchSize);
+            }
+        }
+        batch.lines[batch.size++] = line;
+        if (batch.size == batchSize || !more) {
+            final LineBatch full = batch;
+            batch = null;
+            dispatcher.invokeLater(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        processBatch(full, listeners, rawStreamListeners);
+                    } finally {
+                        full.clear();
+                        freeBatches.offer(full);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Notifies lines in the batch to the listeners. StatusBatchListeners receive all statuses in the batch with one call.
+     */
+    void processBatch(LineBatch batch, StreamListener[] listeners, RawStreamListener[] rawStreamListeners) {
+        List<StatusBatchListener> batchListeners = null;
+        List<StreamListener> others = null;
+        for (StreamListener listener : listeners) {
+            if (listener instanceof StatusBatchListener) {
+                if (batchListeners == null) {
+                    batchListeners = new ArrayList<>(listeners.length);
+                    others = new ArrayList<>(listeners.length);
+                    for (StreamListener l : listeners) {
+                        if (!(l instanceof StatusBatchListener)) {
+                            others.add(l);
+                        }
+                    }
+                }
+                batchListeners.add((StatusBatchListener) listener);
+            }
+        }
+        if (batchListeners == null) {
+            for (int i = 0; i < batch.size; i++) {
+                process(batch.lines[i].toString(), listeners, rawStreamListeners);
+            }
+            return;
+        }
+        StatusCollector collector = new StatusCollector(batchListeners, batch.size);
+        others.add(collector);
+        StreamListener[] effective = others.toArray(new StreamListener[others.size()]);
+        for (int i = 0; i < batch.size; i++) {
+            process(batch.lines[i].toString(), effective, rawStreamListeners);
+        }
+        if (!collector.statuses.isEmpty()) {
+            for (StatusBatchListener listener : batchListeners) {
+                try {
+                    listener.onStatuses(collector.statuses);
+                } catch (Exception e) {
+                    listener.onException(e);
+                }
+            }
+        }
+    }
+
+    static final class LineBatch {
+        final StreamLine[] lines;
+        int size = 0;
+
+        LineBatch(int capacity) {
+            lines = new StreamLine[capacity];
+        }
+
+        void clear() {
+            for (int i = 0; i < size; i++) {
+                lines[i] = null;
+            }
+            size = 0;
+        }
+    }
+
+    /**
+     * Collects statuses on behalf of StatusBatchListeners while a batch is being parsed. Other events are passed through.
+     */
+    private static final class StatusCollector implements StatusListener {
+        private final List<StatusBatchListener> listeners;
+        final List<Status> statuses;
+
+        StatusCollector(List<StatusBatchListener> listeners, int expectedSize) {
+            this.listeners = listeners;
+            this.statuses = new ArrayList<>(expectedSize);
+        }
+
+        @Override
+        public void onStatus(Status status) {
+            statuses.add(status);
+        }
+
+        @Override
+        public void onDeletionNotice(StatusDeletionNotice statusDeletionNotice) {
+            for (StatusBatchListener listener : listeners) {
+                listener.onDeletionNotice(statusDeletionNotice);
+            }
+        }
+
+        @Override
+        public void onTrackLimitationNotice(int numberOfLimitedStatuses) {
+            for (StatusBatchListener listener : listeners) {
+                listener.onTrackLimitationNotice(numberOfLimitedStatuses);
+            }
+        }
+
+        @Override
+        public void onScrubGeo(long userId, long upToStatusId) {
+            for (StatusBatchListener listener : listeners) {
+                listener.onScrubGeo(userId, upToStatusId);
+            }
+        }
+
+        @Override
+        public void onStallWarning(StallWarning warning) {
+            for (StatusBatchListener listener : listeners) {
+                listener.onStallWarning(warning);
+            }
+        }
+
+        @Override
+        public void onException(Exception ex) {
+            for (StatusBatchListener listener : listeners) {
+                listener.onException(ex);
+            }
+        }
+    }
+
+    /**
+     * Notifies a line received from the stream to the listeners.
+     *
+     * @param line               raw line
+     * @param listeners          listeners
+     * @param rawStreamListeners raw stream listeners
+     */
+    void process(String line, final StreamListener[] listeners,
+                 final RawStreamListener[] rawStreamListeners) {
+        try {
+            if (rawStreamListeners.length > 0) {
+                onMessage(line, rawStreamListeners);
+            }
+            // SiteStreamsImpl will parse "forUser" attribute
+            line = parseLine(line);
+            if (line != null && line.length() > 0) {
+                // parsing JSON is an expensive process and can be avoided when all listeners are instanceof RawStreamListener
+                if (listeners.length > 0) {
+                    if (CONF.isJSONStoreEnabled()) {
+                        TwitterObjectFactory.clearThreadLocalMap();
+                    }
+                    JSONObject json = new JSONObject(line, CONF.isJSONStoreEnabled() && CONF.isJSONStorePerObject());
+                    JSONObjectType.Type event = JSONObjectType.determine(json);
+                    if (logger.isDebugEnabled()) {
+                        logger.debug("Received:", CONF.getHttpClientConfiguration().isPrettyDebugEnabled() ? json.toString(1) : json.toString());
+                    }
+                    switch (event) {
+                        case SENDER:
+                            onSender(json, listeners);
+                            break;
+                        case STATUS:
+                            onStatus(json, listeners);
+                            break;
+                        case DIRECT_MESSAGE:
+                            onDirectMessage(json, listeners);
+                            break;
+                        case DELETE:
+                            onDelete(json, listeners);
+                            break;
+                        case LIMIT:
+                            onLimit(json, listeners);
+                            break;
+                        case STALL_WARNING:
+                            onStallWarning(json, listeners);
+                            break;
+                        case SCRUB_GEO:
+                            onScrubGeo(json, listeners);
+                            break;
+                        case FRIENDS:
+                            onFriends(json, listeners);
+                            break;
+                        case FAVORITE:
+                            onFavorite(json.getJSONObject("source"), json.getJSONObject("target"), json.getJSONObject("target_object"), listeners);
+                            break;
+                        case UNFAVORITE:
+                            onUnfavorite(json.getJSONObject("source"), json.getJSONObject("target"), json.getJSONObject("target_object"), listeners);
+                            break;
+                        case FOLLOW:
+                            onFollow(json.getJSONObject("source"), json.getJSONObject("target"), listeners);
+                            break;
+                        case UNFOLLOW:
+                            onUnfollow(json.getJSONObject("source"), json.getJSONObject("target"), listeners);
+                            break;
+                        case USER_LIST_MEMBER_ADDED:
+                            onUserListMemberAddition(json.getJSONObject("target"), json.getJSONObject("source"), json.getJSONObject("target_object"), listeners);
+                            break;
+                        case USER_LIST_MEMBER_DELETED:
+                            onUserListMemberDeletion(json.getJSONObject("target"), json.getJSONObject("source"), json.getJSONObject("target_object"), listeners);
+                            break;
+                        case USER_LIST_SUBSCRIBED:
+                            onUserListSubscription(json.getJSONObject("source"), json.getJSONObject("target"), json.getJSONObject("target_object"), listeners);
+                            break;
+                        case USER_LIST_UNSUBSCRIBED:
+                            onUserListUnsubscription(json.getJSONObject("source"), json.getJSONObject("target"), json.getJSONObject("target_object"), listeners);
+                            break;
+                        case USER_LIST_CREATED:
+                            onUserListCreation(json.getJSONObject("source"), json.getJSONObject("target_object"), listeners);
+                            break;
+                        case USER_LIST_UPDATED:
+                            onUserListUpdated(json.getJSONObject("source"), json.getJSONObject("target_object"), listeners);
+                            break;
+                        case USER_LIST_DESTROYED:
+                            onUserListDestroyed(json.getJSONObject("source"), json.getJSONObject("target_object"), listeners);
+                            break;
+                        case USER_UPDATE:
+                            onUserUpdate(json.getJSONObject("source"), json.getJSONObject("target"), listeners);
+                            break;
+                        case USER_DELETE:
+                            onUserDeletion(json.getLong("target"), listeners);
+                            break;
+                        case USER_SUSPEND:
+                            onUserSuspension(json.getLong("target"), listeners);
+                            break;
+                        case BLOCK:
+                            onBlock(json.getJSONObject("source"), json.getJSONObject("target"), listeners);
+                            break;
+                        case UNBLOCK:
+                            onUnblock(json.getJSONObject("source"), json.getJSONObject("target"), listeners);
+                            break;
+                        case RETWEETED_RETWEET:
+                            onRetweetedRetweet(json.getJSONObject("source"), json.getJSONObject("target"), json.getJSONObject("target_object"), listeners);
+                            break;
+                        case FAVORITED_RETWEET:
+                            onFavoritedRetweet(json.getJSONObject("source"), json.getJSONObject("target"), json.getJSONObject("target_object"), listeners);
+                            break;
+                        case QUOTED_TWEET:
+                            onQuotedTweet(json.getJSONObject("source"), json.getJSONObject("target"), json.getJSONObject("target_object"), listeners);
+                            break;
+                        case DISCONNECTION:
+                            onDisconnectionNotice(line, listeners);
+                            break;
+                        case MUTE:
+                            onMute(json.getJSONObject("source"), json.getJSONObject("target"), listeners);
+                            break;
+                        case UNMUTE:
+                            onUnmute(json.getJSONObject("source"), json.getJSONObject("target"), listeners);
+                            break;
+                        case UNKNOWN:
+                        default:
+                            logger.warn("Received unknown event:", CONF.getHttpClientConfiguration().isPrettyDebugEnabled() ? json.toString(1) : json.toString());
+                    }
+                }
+            }
+        } catch (Exception ex) {
+            onException(ex, listeners);
+        }
+    }
+
     void onMessage(String rawString, RawStreamListener[] listeners) throws TwitterException {
         logger.warn("Unhandled event: onMessage");
     }
@@ -347,8 +629,9 @@ abstract class StatusStreamBase implements StatusStream {
     @Override
     public void close() throws IOException {
         streamAlive = false;
-        is.close();
-        br.close();
+        if (is != null) {
+            is.close();
+        }
         if (response != null) {
             response.disconnect();
         }
@@ -359,7 +642,7 @@ abstract class StatusStreamBase implements StatusStream {
         Status status = new StatusJSONImpl(json);
 
         if (CONF.isJSONStoreEnabled()) {
-            TwitterObjectFactory.registerJSONObject(status, json);
+            TwitterObjectFactory.registerJSONObject(CONF, status, json);
         }
         return status;
     }
@@ -369,7 +652,7 @@ abstract class StatusStreamBase implements StatusStream {
             JSONObject dmJSON = json.getJSONObject("direct_message");
             DirectMessage directMessage = new DirectMessageJSONImpl(dmJSON);
             if (CONF.isJSONStoreEnabled()) {
-                TwitterObjectFactory.registerJSONObject(directMessage, dmJSON);
+                TwitterObjectFactory.registerJSONObject(CONF, directMessage, dmJSON);
             }
             return directMessage;
         } catch (JSONException jsone) {
@@ -394,7 +677,7 @@ abstract class StatusStreamBase implements StatusStream {
     User asUser(JSONObject json) throws TwitterException {
         User user = new UserJSONImpl(json);
         if (CONF.isJSONStoreEnabled()) {
-            TwitterObjectFactory.registerJSONObject(user, json);
+            TwitterObjectFactory.registerJSONObject(CONF, user, json);
         }
         return user;
     }
@@ -402,7 +685,7 @@ abstract class StatusStreamBase implements StatusStream {
     UserList asUserList(JSONObject json) throws TwitterException {
         UserList userList = new UserListJSONImpl(json);
         if (CONF.isJSONStoreEnabled()) {
-            TwitterObjectFactory.registerJSONObject(userList, json);
+            TwitterObjectFactory.registerJSONObject(CONF, userList, json);
         }
         return userList;
     }
@@ -20,6 +20,7 @@ import twitter4j.conf.Configuration;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.function.Predicate;
 
 /**
  * StatusStream implementation. This class is NOT intended to be extended but left non-final for the ease of mock testing.
@@ -35,6 +36,11 @@ class StatusStreamImpl extends StatusStreamBase {
     }
     /*package*/
 
+    StatusStreamImpl(Dispatcher dispatcher, Configuration conf) {
+        super(dispatcher, conf);
+    }
+    /*package*/
+
     StatusStreamImpl(Dispatcher dispatcher, HttpResponse response, Configuration conf) throws IOException {
         super(dispatcher, response, conf);
     }
@@ -65,14 +71,25 @@ class StatusStreamImpl extends StatusStreamBase {
     @Override
     protected void onMessage(String rawString, RawStreamListener[] listeners) throws TwitterException {
         for (RawStreamListener listener : listeners) {
-            listener.onMessage(rawString);
+            // recorded by the reader thread already
+            if (!(listener instanceof StreamRecorder)) {
+                listener.onMessage(rawString);
+            }
         }
     }
 
     @Override
     protected void onStatus(JSONObject json, StreamListener[] listeners) throws TwitterException {
+        Predicate<Status> filter = getStatusFilter();
+        Status accepted = null;
+        if (filter != null) {
+            accepted = asStatus(json);
+            if (!filter.test(accepted)) {
+                return;
+            }
+        }
         for (StreamListener listener : listeners) {
-            ((StatusListener) listener).onStatus(asStatus(json));
+            ((StatusListener) listener).onStatus(accepted != null ? accepted : asStatus(json));
         }
     }
 
@@ -0,0 +1,323 @@
+/*
+ * Copyright 2007 Yusuke Yamamoto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package twitter4j;
+
+import java.io.IOException;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs streaming connections of any number of TwitterStream instances on a few selector threads, instead of one blocking thread per connection.<br>
+ * Chunked transfer coding, gzip and line framing are decoded incrementally as bytes arrive, and the lines are handed over to the dispatcher
+ * of each TwitterStream, so listeners and connection life cycle listeners are notified just as with the default transport.<br>
+ * Connections are assigned to the selector threads in round robin. A selector thread should never block,
+ * so the event loop is meant to be used with the asynchronous dispatcher, which is the default.<br>
+ * Proxies are not supported by the event loop. Streams configured with an HTTP proxy keep running on threads of their own.<br>
+ * Host names are resolved on a few resolver threads of the event loop, which exit when idle.
+ *
+ * @author Yusuke Yamamoto - yusuke at mac.com
+ * @see TwitterStream#eventLoop(StreamEventLoop)
+ * @since Twitter4J 4.0.8
+ */
+public final class StreamEventLoop {
+    private static final Logger logger = Logger.getLogger(StreamEventLoop.class);
+    private static final AtomicInteger count = new AtomicInteger();
+    // how often read timeouts are checked
+    private static final long TICK = 1000;
+
+    private final Worker[] workers;
+    // resolves host names, which blocks and thus can't be done on the selector threads
+    private final ThreadPoolExecutor resolver;
+    private final AtomicInteger next = new AtomicInteger();
+    private volatile boolean shutdown = false;
+
+    /**
+     * Creates an event loop with one selector thread.
+     */
+    public StreamEventLoop() {
+        this(1);
+    }
+
+    /**
+     * @param threads number of selector threads
+     */
+    public StreamEventLoop(int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("threads must be greater than 0: " + threads);
+        }
+        int id = count.incrementAndGet();
+        workers = new Worker[threads];
+        try {
+            for (int i = 0; i < threads; i++) {
+                workers[i] = new Worker(Selector.open(), "Twitter Stream event loop [" + id + "-" + i + "]");
+            }
+        } catch (IOException ioe) {
+            for (Worker worker : workers) {
+                if (worker != null) {
+                    worker.close();
+                }
+            }
+            throw new IllegalStateException("Failed to open a selector.", ioe);
+        }
+        final String resolverName = "Twitter Stream event loop [" + id + "] resolver";
+        resolver = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), task -> {
+            Thread thread = new Thread(task, resolverName);
+            thread.setDaemon(true);
+            return thread;
+        });
+        resolver.allowCoreThreadTimeOut(true);
+        for (Worker worker : workers) {
+            worker.start();
+        }
+    }
+
+    /**
+     * Stops the selector threads, closing the connections still open.
+     */
+    public void shutdown() {
+        shutdown = true;
+        resolver.shutdownNow();
+        for (Worker worker : workers) {
+            worker.selector.wakeup();
+        }
+    }
+
+    /**
+     * @return true if shutdown() has been called
+     */
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    /**
+     * @return number of connections open on this event loop
+     */
+    public int getConnectionCount() {
+        int connections = 0;
+        for (Worker worker : workers) {
+            connections += worker.connections.size();
+        }
+        return connections;
+    }
+
+    /**
+     * Picks the selector thread for a new connection.
+     */
+    /*package*/ Worker nextWorker() {
+        if (shutdown) {
+            throw new IllegalStateException("StreamEventLoop already shut down.");
+        }
+        return workers[Math.floorMod(next.getAndIncrement(), workers.length)];
+    }
+
+    /**
+     * Runs the blocking task, such as resolving a host name, off the selector threads.
+     *
+     * @param task task
+     * @return false if the event loop has been shut down
+     */
+    /*package*/ boolean executeBlocking(Runnable task) {
+        try {
+            resolver.execute(task);
+            return true;
+        } catch (RejectedExecutionException ree) {
+            return false;
+        }
+    }
+
+    /**
+     * Runs the task on one of the selector threads after the delay.
+     *
+     * @param task        task
+     * @param delayMillis delay in milliseconds
+     */
+    /*package*/ void schedule(Runnable task, long delayMillis) {
+        nextWorker().schedule(task, delayMillis);
+    }
+
+    /**
+     * A selector thread. Connections assigned to a worker are only ever touched by its thread.
+     */
+    final class Worker extends Thread {
+        final Selector selector;
+        private final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final PriorityQueue<Timer> timers = new PriorityQueue<>();
+        private final AtomicLong sequence = new AtomicLong();
+        // accessed from other threads only to count
+        final List<NioStreamConnection> connections = new CopyOnWriteArrayList<>();
+        private long lastTick = 0;
+
+        private Worker(Selector selector, String name) {
+            super(name);
+            this.selector = selector;
+            setDaemon(true);
+        }
+
+        /**
+         * Runs the task on this selector thread.
+         *
+         * @param task task
+         */
+        void execute(Runnable task) {
+            tasks.add(task);
+            if (Thread.currentThread() != this) {
+                selector.wakeup();
+            }
+        }
+
+        /**
+         * Runs the task on this selector thread after the delay.
+         *
+         * @param task        task
+         * @param delayMillis delay in milliseconds
+         */
+        void schedule(final Runnable task, final long delayMillis) {
+            final long due = System.currentTimeMillis() + delayMillis;
+            execute(() -> timers.add(new Timer(due, sequence.getAndIncrement(), task)));
+        }
+
+        boolean isShutdown() {
+            return shutdown;
+        }
+
+        boolean inEventLoop() {
+            return Thread.currentThread() == this;
+        }
+
+        void register(NioStreamConnection connection) {
+            connections.add(connection);
+        }
+
+        void deregister(NioStreamConnection connection) {
+            connections.remove(connection);
+        }
+
+        @Override
+        public void run() {
+            while (!shutdown) {
+                try {
+                    long timeout = TICK;
+                    Timer timer = timers.peek();
+                    if (timer != null) {
+                        timeout = Math.max(1, Math.min(timeout, timer.due - System.currentTimeMillis()));
+                    }
+                    if (tasks.isEmpty()) {
+                        selector.select(timeout);
+                    } else {
+                        selector.selectNow();
+                    }
+                    if (shutdown) {
+                        break;
+                    }
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        NioStreamConnection connection = (NioStreamConnection) key.attachment();
+                        try {
+                            connection.onSelected(key);
+                        } catch (CancelledKeyException ignore) {
+                        }
+                    }
+                    runTasks();
+                    long now = System.currentTimeMillis();
+                    while ((timer = timers.peek()) != null && timer.due <= now) {
+                        timers.poll();
+                        runSafely(timer.task);
+                    }
+                    if (now - lastTick >= TICK) {
+                        lastTick = now;
+                        for (NioStreamConnection connection : connections) {
+                            connection.checkTimeout(now);
+                        }
+                    }
+                } catch (IOException ioe) {
+                    logger.warn("Selector failed.", ioe);
+                    break;
+                } catch (RuntimeException e) {
+                    logger.warn("Unexpected exception on the event loop.", e);
+                }
+            }
+            for (NioStreamConnection connection : connections) {
+                connection.fail(new TwitterException("StreamEventLoop has been shut down."));
+            }
+            runTasks();
+            close();
+        }
+
+        private void runTasks() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                runSafely(task);
+            }
+        }
+
+        private void runSafely(Runnable task) {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                logger.warn("Unexpected exception on the event loop.", e);
+            }
+        }
+
+        private void close() {
+            try {
+                selector.close();
+            } catch (IOException ignore) {
+            }
+        }
+    }
+
+    private static final class Timer implements Comparable<Timer> {
+        final long due;
+        final long sequence;
+        final Runnable task;
+
+        Timer(long due, long sequence, Runnable task) {
+            this.due = due;
+            this.sequence = sequence;
+            this.task = task;
+        }
+
+        @Override
+        public int compareTo(Timer that) {
+            int compared = Long.compare(this.due, that.due);
+            return compared != 0 ? compared : Long.compare(this.sequence, that.sequence);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "StreamEventLoop{" +
+                "threads=" + workers.length +
+                ", connections=" + getConnectionCount() +
+                ", shutdown=" + shutdown +
+                '}';
+    }
+}
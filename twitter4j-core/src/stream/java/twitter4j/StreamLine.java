@@ -0,0 +1,70 @@
+/*
+ * Copyright 2007 Yusuke Yamamoto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package twitter4j;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A line of the stream as UTF-8 bytes, without the line terminator.<br>
+ * Lines framed from the same read share one array. The line is decoded only when {@link #toString()} is called, at most once.
+ *
+ * @author Yusuke Yamamoto - yusuke at mac.com
+ * @since Twitter4J 4.0.8
+ */
+final class StreamLine {
+    static final StreamLine EMPTY = new StreamLine(new byte[0], 0, 0);
+
+    private final byte[] bytes;
+    private final int offset;
+    private final int length;
+    private String decoded;
+
+    StreamLine(byte[] bytes, int offset, int length) {
+        this.bytes = bytes;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    byte[] array() {
+        return bytes;
+    }
+
+    int offset() {
+        return offset;
+    }
+
+    int length() {
+        return length;
+    }
+
+    boolean isEmpty() {
+        return length == 0;
+    }
+
+    /**
+     * @return the line decoded from UTF-8
+     */
+    @Override
+    public String toString() {
+        String decoded = this.decoded;
+        if (decoded == null) {
+            decoded = length == 0 ? "" : new String(bytes, offset, length, StandardCharsets.UTF_8);
+            this.decoded = decoded;
+        }
+        return decoded;
+    }
+}
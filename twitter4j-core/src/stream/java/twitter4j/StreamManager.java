@@ -0,0 +1,375 @@
+/*
+ * Copyright 2007 Yusuke Yamamoto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package twitter4j;
+
+import twitter4j.auth.AccessToken;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Shards a filter rule set which doesn't fit into one connection across multiple TwitterStream instances.<br>
+ * Track keywords, follow ids and location boxes are distributed by hash so that a change to the rule set only reconnects the connections whose partition actually changed.
+ * Statuses received from all connections are merged into one listener pipeline, suppressing duplicates by status id.<br>
+ * count, language and filter level of the rule set are applied to every connection.
+ *
+ * @author Yusuke Yamamoto - yusuke at mac.com
+ * @since Twitter4J 4.0.8
+ */
+public final class StreamManager {
+    private static final Logger logger = Logger.getLogger(StreamManager.class);
+
+    /**
+     * number of track keywords allowed per connection with the default access level
+     */
+    public static final int DEFAULT_TRACK_LIMIT = 400;
+    /**
+     * number of follow user ids allowed per connection with the default access level
+     */
+    public static final int DEFAULT_FOLLOW_LIMIT = 5000;
+    /**
+     * number of location boxes allowed per connection with the default access level
+     */
+    public static final int DEFAULT_LOCATIONS_LIMIT = 25;
+
+    private static final int DEFAULT_DUPLICATE_WINDOW = 100000;
+
+    private final TwitterStream[] streams;
+    private final List<StatusListener> listeners = new CopyOnWriteArrayList<>();
+    private final MergingListener mergingListener;
+    private int trackLimit = DEFAULT_TRACK_LIMIT;
+    private int followLimit = DEFAULT_FOLLOW_LIMIT;
+    private int locationsLimit = DEFAULT_LOCATIONS_LIMIT;
+    private FilterQuery[] partitions;
+
+    /**
+     * Creates a StreamManager which shards the rule set across the given streams.<br>
+     * Each stream is expected to be authorized with its own credentials.
+     *
+     * @param streams streams to be managed
+     */
+    public StreamManager(TwitterStream... streams) {
+        this(DEFAULT_DUPLICATE_WINDOW, streams);
+    }
+
+    /**
+     * Creates a StreamManager which shards the rule set across the given streams.
+     *
+     * @param duplicateWindow number of recent status ids remembered for duplicate suppression
+     * @param streams         streams to be managed
+     */
+    public StreamManager(int duplicateWindow, TwitterStream... streams) {
+        if (streams == null || streams.length == 0) {
+            throw new IllegalArgumentException("at least one TwitterStream is required");
+        }
+        this.streams = streams.clone();
+        this.partitions = new FilterQuery[streams.length];
+        this.mergingListener = new MergingListener(duplicateWindow);
+        for (TwitterStream stream : this.streams) {
+            stream.addListener(mergingListener);
+        }
+    }
+
+    /**
+     * Creates a StreamManager with one connection per access token.
+     *
+     * @param factory      factory providing the consumer key/secret and configuration
+     * @param accessTokens access tokens, one per connection
+     * @return StreamManager
+     */
+    public static StreamManager getInstance(TwitterStreamFactory factory, AccessToken... accessTokens) {
+        TwitterStream[] streams = new TwitterStream[accessTokens.length];
+        for (int i = 0; i < accessTokens.length; i++) {
+            streams[i] = factory.getInstance(accessTokens[i]);
+        }
+        return new StreamManager(streams);
+    }
+
+    /**
+     * Overrides the number of predicates accepted by one connection.
+     *
+     * @param trackLimit     track keywords per connection
+     * @param followLimit    follow user ids per connection
+     * @param locationsLimit location boxes per connection
+     * @return this instance
+     */
+    public synchronized StreamManager setLimits(int trackLimit, int followLimit, int locationsLimit) {
+        if (trackLimit <= 0 || followLimit <= 0 || locationsLimit <= 0) {
+            throw new IllegalArgumentException("limits must be greater than 0");
+        }
+        this.trackLimit = trackLimit;
+        this.followLimit = followLimit;
+        this.locationsLimit = locationsLimit;
+        return this;
+    }
+
+    /**
+     * @param listener listener to receive merged statuses
+     * @return this instance
+     */
+    public StreamManager addListener(StatusListener listener) {
+        listeners.add(listener);
+        return this;
+    }
+
+    /**
+     * @param listener listener to remove
+     * @return this instance
+     */
+    public StreamManager removeListener(StatusListener listener) {
+        listeners.remove(listener);
+        return this;
+    }
+
+    /**
+     * Adds a ConnectionLifeCycleListener to every managed connection.
+     *
+     * @param listener listener to be added
+     * @return this instance
+     */
+    public StreamManager addConnectionLifeCycleListener(ConnectionLifeCycleListener listener) {
+        for (TwitterStream stream : streams) {
+            stream.addConnectionLifeCycleListener(listener);
+        }
+        return this;
+    }
+
+    /**
+     * Starts consuming the given rule set, or rebalances the running connections to it.<br>
+     * Only the connections whose partition changed are reconnected, using {@link TwitterStream#updateFilter(FilterQuery)} so that no message is lost. Connections left without any predicate are cleaned up.
+     *
+     * @param rules whole rule set
+     * @return this instance
+     * @throws IllegalArgumentException when the rule set exceeds the capacity of the managed connections
+     */
+    public synchronized StreamManager filter(FilterQuery rules) {
+        FilterQuery[] next = partition(rules, streams.length, trackLimit, followLimit, locationsLimit);
+        for (int i = 0; i < streams.length; i++) {
+            if (Objects.equals(partitions[i], next[i])) {
+                continue;
+            }
+            if (next[i] == null) {
+                logger.info("Closing connection ", String.valueOf(i));
+                streams[i].cleanUp();
+            } else {
+                logger.info("Rebalancing connection ", String.valueOf(i));
+                streams[i].updateFilter(next[i]);
+            }
+        }
+        partitions = next;
+        return this;
+    }
+
+    /**
+     * @return current partition per connection. null element denotes an idle connection.
+     */
+    public synchronized FilterQuery[] getPartitions() {
+        return partitions.clone();
+    }
+
+    /**
+     * shutdown all managed connections
+     */
+    public synchronized void cleanUp() {
+        for (TwitterStream stream : streams) {
+            stream.cleanUp();
+        }
+        partitions = new FilterQuery[streams.length];
+    }
+
+    /**
+     * shutdown all managed connections and the dispatcher shared by them
+     */
+    public synchronized void shutdown() {
+        cleanUp();
+        for (TwitterStream stream : streams) {
+            stream.shutdown();
+        }
+    }
+
+    /*package*/
+    static FilterQuery[] partition(FilterQuery rules, int shards, int trackLimit, int followLimit, int locationsLimit) {
+        List<List<String>> track = new ArrayList<>(shards);
+        List<List<Long>> follow = new ArrayList<>(shards);
+        List<List<double[][]>> boxes = new ArrayList<>(shards);
+        for (int i = 0; i < shards; i++) {
+            track.add(new ArrayList<String>());
+            follow.add(new ArrayList<Long>());
+            boxes.add(new ArrayList<double[][]>());
+        }
+        if (rules.getTrack() != null) {
+            for (String keyword : new TreeSet<>(Arrays.asList(rules.getTrack()))) {
+                assign(track, keyword, keyword.hashCode(), trackLimit, "track keywords");
+            }
+        }
+        if (rules.getFollow() != null) {
+            long[] ids = rules.getFollow().clone();
+            Arrays.sort(ids);
+            for (int i = 0; i < ids.length; i++) {
+                if (i == 0 || ids[i] != ids[i - 1]) {
+                    assign(follow, ids[i], Long.hashCode(ids[i]), followLimit, "follow ids");
+                }
+            }
+        }
+        if (rules.getLocations() != null) {
+            for (double[][] box : toBoxes(rules.getLocations())) {
+                assign(boxes, box, Arrays.deepHashCode(box), locationsLimit, "location boxes");
+            }
+        }
+
+        FilterQuery[] partitions = new FilterQuery[shards];
+        for (int i = 0; i < shards; i++) {
+            if (track.get(i).isEmpty() && follow.get(i).isEmpty() && boxes.get(i).isEmpty()) {
+                continue;
+            }
+            FilterQuery query = new FilterQuery().count(rules.getCount())
+                    .language(rules.getLanguage()).filterLevel(rules.getFilterLevel());
+            if (!track.get(i).isEmpty()) {
+                query.track(track.get(i).toArray(new String[0]));
+            }
+            if (!follow.get(i).isEmpty()) {
+                long[] ids = new long[follow.get(i).size()];
+                for (int j = 0; j < ids.length; j++) {
+                    ids[j] = follow.get(i).get(j);
+                }
+                query.follow(ids);
+            }
+            if (!boxes.get(i).isEmpty()) {
+                double[][] locations = new double[boxes.get(i).size() * 2][];
+                for (int j = 0; j < boxes.get(i).size(); j++) {
+                    locations[j * 2] = boxes.get(i).get(j)[0];
+                    locations[j * 2 + 1] = boxes.get(i).get(j)[1];
+                }
+                query.locations(locations);
+            }
+            partitions[i] = query;
+        }
+        return partitions;
+    }
+
+    /**
+     * places the rule into the shard chosen by its hash, probing the next shards when the shard is full
+     */
+    private static <T> void assign(List<List<T>> shards, T rule, int hash, int limit, String kind) {
+        int h = hash * 0x9E3779B9;
+        int start = Math.floorMod(h ^ (h >>> 16), shards.size());
+        for (int i = 0; i < shards.size(); i++) {
+            List<T> shard = shards.get((start + i) % shards.size());
+            if (shard.size() < limit) {
+                shard.add(rule);
+                return;
+            }
+        }
+        throw new IllegalArgumentException("Too many " + kind + " for " + shards.size() + " connection(s). limit per connection: " + limit);
+    }
+
+    private static List<double[][]> toBoxes(double[][] locations) {
+        if (locations.length % 2 != 0) {
+            throw new IllegalArgumentException("locations should consist of south-west and north-east corner pairs");
+        }
+        TreeSet<double[][]> boxes = new TreeSet<>(new Comparator<double[][]>() {
+            @Override
+            public int compare(double[][] o1, double[][] o2) {
+                for (int i = 0; i < 2; i++) {
+                    for (int j = 0; j < 2; j++) {
+                        int result = Double.compare(o1[i][j], o2[i][j]);
+                        if (result != 0) {
+                            return result;
+                        }
+                    }
+                }
+                return 0;
+            }
+        });
+        for (int i = 0; i < locations.length; i += 2) {
+            boxes.add(new double[][]{locations[i], locations[i + 1]});
+        }
+        return new ArrayList<>(boxes);
+    }
+
+    private final class MergingListener implements StatusListener {
+        private final RecentStatusIds statusIds;
+        private final RecentStatusIds deletedIds;
+
+        MergingListener(int duplicateWindow) {
+            statusIds = new RecentStatusIds(duplicateWindow);
+            deletedIds = new RecentStatusIds(duplicateWindow);
+        }
+
+        @Override
+        public void onStatus(Status status) {
+            if (statusIds.add(status.getId())) {
+                for (StatusListener listener : listeners) {
+                    listener.onStatus(status);
+                }
+            }
+        }
+
+        @Override
+        public void onDeletionNotice(StatusDeletionNotice statusDeletionNotice) {
+            if (deletedIds.add(statusDeletionNotice.getStatusId())) {
+                for (StatusListener listener : listeners) {
+                    listener.onDeletionNotice(statusDeletionNotice);
+                }
+            }
+        }
+
+        @Override
+        public void onTrackLimitationNotice(int numberOfLimitedStatuses) {
+            for (StatusListener listener : listeners) {
+                listener.onTrackLimitationNotice(numberOfLimitedStatuses);
+            }
+        }
+
+        @Override
+        public void onScrubGeo(long userId, long upToStatusId) {
+            for (StatusListener listener : listeners) {
+                listener.onScrubGeo(userId, upToStatusId);
+            }
+        }
+
+        @Override
+        public void onStallWarning(StallWarning warning) {
+            for (StatusListener listener : listeners) {
+                listener.onStallWarning(warning);
+            }
+        }
+
+        @Override
+        public void onException(Exception ex) {
+            for (StatusListener listener : listeners) {
+                listener.onException(ex);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "StreamManager{" +
+                "streams=" + streams.length +
+                ", trackLimit=" + trackLimit +
+                ", followLimit=" + followLimit +
+                ", locationsLimit=" + locationsLimit +
+                ", partitions=" + Arrays.toString(partitions) +
+                '}';
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2007 Yusuke Yamamoto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package twitter4j;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A RawStreamListener which records received messages as newline delimited JSON, to be replayed later with {@link TwitterStream#replay(double, File...)}.<br>
+ * The file is gzipped when its name ends with ".gz". Keep-alive newlines are not recorded.<br>
+ * Added to a stream, messages are recorded as raw bytes by the thread reading the stream, in the order received, before they are dispatched to the listeners.<br>
+ * Usage: <code>twitterStream.addListener(new StreamRecorder(new File("sample.json.gz"))).sample();</code>
+ *
+ * @author Yusuke Yamamoto - yusuke at mac.com
+ * @since Twitter4J 4.0.8
+ */
+public final class StreamRecorder implements RawStreamListener, Closeable {
+    private static final Logger logger = Logger.getLogger(StreamRecorder.class);
+    private static final byte[] NEWLINE = {'\n'};
+    private final OutputStream out;
+    private long count = 0;
+    private boolean closed = false;
+
+    /**
+     * @param file file to record to. existing content will be overwritten
+     * @throws IOException when failed to open the file
+     */
+    public StreamRecorder(File file) throws IOException {
+        OutputStream out = new FileOutputStream(file);
+        if (file.getName().endsWith(".gz")) {
+            out = new GZIPOutputStream(out, 64 * 1024);
+        }
+        this.out = new BufferedOutputStream(out, 64 * 1024);
+    }
+
+    /**
+     * Records a message. Not called by streams, which record through {@link #record(byte[], int, int)}.
+     */
+    @Override
+    public void onMessage(String rawString) {
+        byte[] bytes = rawString.getBytes(StandardCharsets.UTF_8);
+        record(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Records a line read from a stream, on the thread reading it.
+     *
+     * @param bytes  UTF-8 bytes of the line, without the line terminator
+     * @param offset offset of the line
+     * @param length length of the line
+     */
+    synchronized void record(byte[] bytes, int offset, int length) {
+        if (closed || length == 0) {
+            return;
+        }
+        try {
+            out.write(bytes, offset, length);
+            out.write(NEWLINE);
+            count++;
+        } catch (IOException ioe) {
+            logger.warn("Failed to record a message.", ioe);
+        }
+    }
+
+    @Override
+    public void onException(Exception ex) {
+    }
+
+    /**
+     * @return number of messages recorded so far
+     */
+    public synchronized long getCount() {
+        return count;
+    }
+
+    /**
+     * Writes buffered messages to the file.
+     *
+     * @throws IOException when failed to write
+     */
+    public synchronized void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            out.close();
+        }
+    }
+}
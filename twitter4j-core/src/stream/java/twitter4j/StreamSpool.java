@@ -0,0 +1,556 @@
+/*
+ * Copyright 2007 Yusuke Yamamoto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package twitter4j;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A durable write-ahead spool for raw stream messages.<br>
+ * Lines are appended to a segmented, memory-mapped log in a local directory so that messages received but not yet consumed survive slow or crashed consumers.
+ * Each named {@link Reader} consumes at its own pace and persists its checkpoint on {@link Reader#acknowledge()}. After a restart, a reader with the same name resumes from the last acknowledged message.<br>
+ * A segment is deleted once every reader has acknowledged all of its messages and it hasn't been written for the retention period.<br>
+ * Regardless of the readers, the oldest segments are dropped once the spool exceeds its maximum size, or they haven't been written for the maximum age.
+ * Readers lagging behind skip the dropped messages, which are counted by {@link #getDroppedBytes()}.
+ * The checkpoint of a reader not opened for the maximum age expires, so that readers gone for good don't hold segments back.<br>
+ * Each record consists of a 4 byte header holding the length plus one, followed by the UTF-8 encoded line. A zero header marks the end of the written data as segment files are zero filled. Positions are global byte offsets, a segment file is named after the position of its first byte.<br>
+ * This class is thread safe.
+ *
+ * @author Yusuke Yamamoto - yusuke at mac.com
+ * @since Twitter4J 4.0.8
+ */
+public final class StreamSpool implements Closeable {
+    private static final Logger logger = Logger.getLogger(StreamSpool.class);
+
+    /**
+     * default segment size: 64MB
+     */
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+    /**
+     * default maximum age of segments and checkpoints of absent readers: 24 hours
+     */
+    public static final long DEFAULT_MAX_AGE_MILLIS = 24 * 60 * 60 * 1000L;
+    private static final String SEGMENT_SUFFIX = ".spool";
+    private static final String CHECKPOINT_SUFFIX = ".checkpoint";
+    private static final int HEADER_SIZE = 4;
+    // marks the rest of the segment as unused
+    private static final int END_OF_SEGMENT = -1;
+
+    private final File directory;
+    private final int segmentSize;
+    private final long retentionMillis;
+    private final long maxBytes;
+    private final long maxAgeMillis;
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+    // checkpoints of all readers including the ones not opened since the restart
+    private final Map<String, Long> checkpoints = new HashMap<>();
+    private final Map<String, Reader> readers = new HashMap<>();
+    // time since when each checkpoint has had no open reader
+    private final Map<String, Long> absentSince = new HashMap<>();
+    private long droppedBytes = 0;
+    private Segment head;
+    private long writePosition;
+    private boolean closed = false;
+
+    /**
+     * Opens a spool in the directory with the default segment size and maximum age, deleting acknowledged segments immediately.
+     *
+     * @param directory spool directory
+     * @throws IOException when the directory is not accessible
+     */
+    public StreamSpool(File directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_SIZE, 0);
+    }
+
+    /**
+     * Opens a spool in the directory with the default maximum age and no maximum size, recovering messages and checkpoints left by the previous run.
+     *
+     * @param directory       spool directory
+     * @param segmentSize     size of a segment file in bytes
+     * @param retentionMillis how long acknowledged segments are kept after their last write
+     * @throws IOException when the directory is not accessible
+     */
+    public StreamSpool(File directory, int segmentSize, long retentionMillis) throws IOException {
+        this(directory, segmentSize, retentionMillis, 0, DEFAULT_MAX_AGE_MILLIS);
+    }
+
+    /**
+     * Opens a spool in the directory, recovering messages and checkpoints left by the previous run.
+     *
+     * @param directory       spool directory
+     * @param segmentSize     size of a segment file in bytes
+     * @param retentionMillis how long acknowledged segments are kept after their last write
+     * @param maxBytes        size of the segments beyond which the oldest ones are dropped even if not acknowledged, or 0 for no limit
+     * @param maxAgeMillis    how long segments are kept after their last write even if not acknowledged, and checkpoints of readers not opened, or 0 for no limit
+     * @throws IOException when the directory is not accessible
+     */
+    public StreamSpool(File directory, int segmentSize, long retentionMillis, long maxBytes, long maxAgeMillis) throws IOException {
+        if (segmentSize <= HEADER_SIZE) {
+            throw new IllegalArgumentException("segmentSize too small: " + segmentSize);
+        }
+        if (maxBytes < 0 || maxAgeMillis < 0) {
+            throw new IllegalArgumentException("maxBytes and maxAgeMillis must not be negative");
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Failed to create spool directory: " + directory);
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.retentionMillis = retentionMillis;
+        this.maxBytes = maxBytes;
+        this.maxAgeMillis = maxAgeMillis;
+        long now = System.currentTimeMillis();
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                String name = file.getName();
+                if (name.endsWith(SEGMENT_SUFFIX)) {
+                    long base = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+                    segments.put(base, new Segment(base));
+                } else if (name.endsWith(CHECKPOINT_SUFFIX)) {
+                    try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+                        String readerName = name.substring(0, name.length() - CHECKPOINT_SUFFIX.length());
+                        checkpoints.put(readerName, raf.readLong());
+                        absentSince.put(readerName, now);
+                    } catch (IOException ioe) {
+                        logger.warn("Ignoring broken checkpoint: " + file, ioe);
+                    }
+                }
+            }
+        }
+        if (segments.isEmpty()) {
+            head = new Segment(0);
+            segments.put(0L, head);
+            writePosition = 0;
+        } else {
+            head = segments.lastEntry().getValue();
+            writePosition = head.base + head.recover();
+        }
+    }
+
+    /**
+     * Appends a line to the spool.
+     *
+     * @param line line to be appended
+     * @return position of the appended record
+     * @throws IOException when failed to allocate a new segment
+     */
+    public long append(String line) throws IOException {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        return append(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Appends a line encoded in UTF-8 to the spool.
+     *
+     * @param bytes  line to be appended
+     * @param from   offset of the line in the array
+     * @param length length of the line in bytes
+     * @return position of the appended record
+     * @throws IOException when failed to allocate a new segment
+     */
+    synchronized long append(byte[] bytes, int from, int length) throws IOException {
+        ensureOpen();
+        if (length + HEADER_SIZE > segmentSize) {
+            throw new IllegalArgumentException("line exceeds the segment size: " + length + " bytes");
+        }
+        int offset = (int) (writePosition - head.base);
+        if (offset + HEADER_SIZE + length > segmentSize) {
+            if (offset + HEADER_SIZE <= segmentSize) {
+                head.buffer.putInt(offset, END_OF_SEGMENT);
+            }
+            head = new Segment(head.base + segmentSize);
+            segments.put(head.base, head);
+            writePosition = head.base;
+            offset = 0;
+            purge();
+        }
+        long position = writePosition;
+        // payload first, then the length so that a torn write is never seen as a record
+        head.buffer.position(offset + HEADER_SIZE);
+        head.buffer.put(bytes, from, length);
+        head.buffer.putInt(offset, length + 1);
+        head.lastModified = System.currentTimeMillis();
+        writePosition = position + HEADER_SIZE + length;
+        notifyAll();
+        return position;
+    }
+
+    /**
+     * Opens a reader. A reader with a name used before resumes from its last checkpoint, otherwise it starts from the oldest message available.
+     *
+     * @param name reader name, used as the file name of the checkpoint
+     * @return reader
+     * @throws IOException when failed to open the checkpoint file
+     */
+    public synchronized Reader getReader(String name) throws IOException {
+        ensureOpen();
+        Reader reader = readers.get(name);
+        if (reader == null) {
+            Long checkpoint = checkpoints.get(name);
+            long first = segments.firstKey();
+            reader = new Reader(name, checkpoint == null || checkpoint < first ? first : checkpoint);
+            readers.put(name, reader);
+            checkpoints.put(name, reader.checkpoint);
+            absentSince.remove(name);
+        }
+        return reader;
+    }
+
+    /**
+     * @return position where the next line will be appended
+     */
+    public synchronized long getWritePosition() {
+        return writePosition;
+    }
+
+    /**
+     * @return number of bytes of messages dropped by the maximum size or age before a reader acknowledged them, summed over the readers
+     */
+    public synchronized long getDroppedBytes() {
+        return droppedBytes;
+    }
+
+    /**
+     * @return number of segment files currently on disk
+     */
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Flushes the written data to the storage device.
+     */
+    public synchronized void sync() {
+        for (Segment segment : segments.values()) {
+            segment.buffer.force();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (Reader reader : new ArrayList<>(readers.values())) {
+            reader.close();
+        }
+        for (Segment segment : segments.values()) {
+            segment.close();
+        }
+        notifyAll();
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Spool already closed.");
+        }
+    }
+
+    /**
+     * expires the checkpoints of absent readers, and deletes the segments every reader is done with or exceeding the bounds
+     */
+    private void purge() {
+        long now = System.currentTimeMillis();
+        if (maxAgeMillis > 0) {
+            for (Iterator<Map.Entry<String, Long>> iterator = absentSince.entrySet().iterator(); iterator.hasNext(); ) {
+                Map.Entry<String, Long> absent = iterator.next();
+                if (now - absent.getValue() >= maxAgeMillis) {
+                    iterator.remove();
+                    checkpoints.remove(absent.getKey());
+                    File file = checkpointFile(absent.getKey());
+                    logger.info("Expiring the checkpoint of an absent reader: ", absent.getKey());
+                    if (file.exists() && !file.delete()) {
+                        logger.warn("Failed to delete spool checkpoint: ", file.getAbsolutePath());
+                    }
+                }
+            }
+        }
+        long min = Long.MAX_VALUE;
+        for (Long checkpoint : checkpoints.values()) {
+            min = Math.min(min, checkpoint);
+        }
+        while (segments.size() > 1) {
+            Segment oldest = segments.firstEntry().getValue();
+            boolean consumed = oldest.base + segmentSize <= min && now - oldest.lastModified >= retentionMillis;
+            boolean exceeding = (maxBytes > 0 && (long) segments.size() * segmentSize > maxBytes)
+                    || (maxAgeMillis > 0 && now - oldest.lastModified >= maxAgeMillis);
+            if (!consumed && !exceeding) {
+                break;
+            }
+            segments.remove(oldest.base);
+            oldest.delete();
+            if (!consumed) {
+                skipTo(segments.firstKey());
+                min = segments.firstKey();
+            }
+        }
+    }
+
+    /**
+     * moves the checkpoints lagging behind the oldest segment to its beginning
+     */
+    private void skipTo(long first) {
+        for (Map.Entry<String, Long> checkpoint : checkpoints.entrySet()) {
+            if (checkpoint.getValue() < first) {
+                logger.warn("Dropping " + (first - checkpoint.getValue()) + " bytes not acknowledged by spool reader: ", checkpoint.getKey());
+                droppedBytes += first - checkpoint.getValue();
+                checkpoint.setValue(first);
+            }
+        }
+        for (Reader reader : readers.values()) {
+            reader.skipTo(first);
+        }
+    }
+
+    private File checkpointFile(String name) {
+        return new File(directory, name + CHECKPOINT_SUFFIX);
+    }
+
+    private File segmentFile(long base) {
+        return new File(directory, String.format("%020d", base) + SEGMENT_SUFFIX);
+    }
+
+    // sun.misc.Unsafe#invokeCleaner(ByteBuffer), or null if not available
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            unsafe = theUnsafe.get(null);
+            invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            logger.debug("Mapped spool segments will be released on garbage collection: {}", e);
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    /**
+     * Releases the mapping immediately instead of on garbage collection. The buffer must not be accessed afterwards.
+     */
+    private static void unmap(MappedByteBuffer buffer) {
+        if (INVOKE_CLEANER != null) {
+            try {
+                INVOKE_CLEANER.invoke(UNSAFE, buffer);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                logger.debug("Failed to unmap spool segment: {}", e);
+            }
+        }
+    }
+
+    private final class Segment {
+        final long base;
+        final File file;
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+        long lastModified;
+
+        Segment(long base) throws IOException {
+            this.base = base;
+            this.file = segmentFile(base);
+            RandomAccessFile raf = new RandomAccessFile(file, "rw");
+            this.channel = raf.getChannel();
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            this.lastModified = file.lastModified();
+        }
+
+        /**
+         * @return offset next to the last complete record
+         */
+        int recover() {
+            int offset = 0;
+            while (offset + HEADER_SIZE <= segmentSize) {
+                int header = buffer.getInt(offset);
+                if (header <= 0 || offset + HEADER_SIZE + header - 1 > segmentSize) {
+                    break;
+                }
+                offset += HEADER_SIZE + header - 1;
+            }
+            return offset;
+        }
+
+        void close() throws IOException {
+            buffer.force();
+            channel.close();
+        }
+
+        void delete() {
+            try {
+                channel.close();
+            } catch (IOException ignore) {
+            }
+            // a mapped file can't be deleted on Windows. the segment is not reachable from readers anymore
+            unmap(buffer);
+            if (!file.delete()) {
+                logger.warn("Failed to delete spool segment: ", file.getAbsolutePath());
+            }
+        }
+    }
+
+    /**
+     * Consumes the spool from a persisted checkpoint. A reader is meant to be used by a single thread.
+     */
+    public final class Reader implements Closeable {
+        private final String name;
+        private final FileChannel checkpointChannel;
+        private final MappedByteBuffer checkpointBuffer;
+        // position of the first unacknowledged record
+        private long checkpoint;
+        // position of the next record to be read
+        private long position;
+
+        private Reader(String name, long checkpoint) throws IOException {
+            this.name = name;
+            this.checkpoint = checkpoint;
+            this.position = checkpoint;
+            RandomAccessFile raf = new RandomAccessFile(checkpointFile(name), "rw");
+            this.checkpointChannel = raf.getChannel();
+            this.checkpointBuffer = checkpointChannel.map(FileChannel.MapMode.READ_WRITE, 0, 8);
+            checkpointBuffer.putLong(0, checkpoint);
+        }
+
+        /**
+         * Returns the next line, waiting for one to be appended if necessary.
+         *
+         * @param timeoutMillis maximum time to wait
+         * @return the next line, or null if no line was appended within the timeout
+         * @throws InterruptedException  when interrupted while waiting
+         * @throws IllegalStateException when the spool has been closed
+         */
+        public String poll(long timeoutMillis) throws InterruptedException {
+            synchronized (StreamSpool.this) {
+                long deadline = System.currentTimeMillis() + timeoutMillis;
+                while (!closed && position >= writePosition) {
+                    long wait = deadline - System.currentTimeMillis();
+                    if (wait <= 0) {
+                        return null;
+                    }
+                    StreamSpool.this.wait(wait);
+                }
+                ensureOpen();
+                Map.Entry<Long, Segment> entry = segments.floorEntry(position);
+                Segment segment = entry.getValue();
+                int offset = (int) (position - segment.base);
+                int header = offset + HEADER_SIZE <= segmentSize ? segment.buffer.getInt(offset) : END_OF_SEGMENT;
+                if (header <= 0) {
+                    // rest of the segment is unused
+                    position = segment.base + segmentSize;
+                    segment = segments.get(position);
+                    offset = 0;
+                    header = segment.buffer.getInt(0);
+                }
+                int length = header - 1;
+                byte[] bytes = new byte[length];
+                segment.buffer.get(offset + HEADER_SIZE, bytes);
+                position += HEADER_SIZE + length;
+                return new String(bytes, StandardCharsets.UTF_8);
+            }
+        }
+
+        /**
+         * Marks all lines returned so far as consumed. They won't be returned again after a restart.
+         */
+        public void acknowledge() {
+            synchronized (StreamSpool.this) {
+                if (checkpoint == position) {
+                    return;
+                }
+                long previousSegment = checkpoint / segmentSize;
+                checkpoint = position;
+                checkpointBuffer.putLong(0, checkpoint);
+                checkpoints.put(name, checkpoint);
+                if (checkpoint / segmentSize != previousSegment) {
+                    purge();
+                }
+            }
+        }
+
+        private void skipTo(long first) {
+            if (position < first) {
+                position = first;
+            }
+            if (checkpoint < first) {
+                checkpoint = first;
+                checkpointBuffer.putLong(0, checkpoint);
+            }
+        }
+
+        /**
+         * @return position of the first unacknowledged line
+         */
+        public long getCheckpoint() {
+            synchronized (StreamSpool.this) {
+                return checkpoint;
+            }
+        }
+
+        /**
+         * @return number of bytes appended but not yet acknowledged by this reader
+         */
+        public long getLag() {
+            synchronized (StreamSpool.this) {
+                return writePosition - checkpoint;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            synchronized (StreamSpool.this) {
+                checkpointBuffer.force();
+                checkpointChannel.close();
+                if (readers.remove(name) == this) {
+                    absentSince.put(name, System.currentTimeMillis());
+                }
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "StreamSpool{" +
+                "directory=" + directory +
+                ", segmentSize=" + segmentSize +
+                ", retentionMillis=" + retentionMillis +
+                ", maxBytes=" + maxBytes +
+                ", maxAgeMillis=" + maxAgeMillis +
+                ", droppedBytes=" + droppedBytes +
+                ", segments=" + segments.size() +
+                ", writePosition=" + writePosition +
+                ", checkpoints=" + checkpoints +
+                '}';
+    }
+}
@@ -0,0 +1,644 @@
+/*
+ * Copyright 2007 Yusuke Yamamoto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package twitter4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Fans statuses received by one stream out to many subscribers, each with its own FilterQuery.<br>
+ * The queries of all subscribers are compiled into shared indexes: an Aho-Corasick automaton over the track terms,
+ * a long hash table over the follow ids and a grid over the location boxes. Each status is matched once, in time proportional
+ * to its text, and delivered only to the subscribers whose query matches.<br>
+ * The predicates follow the filter endpoint: track, follow and locations are OR'ed, terms of a track phrase separated by spaces
+ * are AND'ed and matched case-insensitively on word boundaries, and language restricts the result. A query without track,
+ * follow and locations receives every status in its languages. count and filter level are ignored.<br>
+ * Indexes are rebuilt lazily on the first status after the subscriptions change. Notices other than statuses are delivered to every subscriber.
+ *
+ * @author Yusuke Yamamoto - yusuke at mac.com
+ * @since Twitter4J 4.0.8
+ */
+public final class SubscriptionRouter implements StatusListener {
+    private static final Logger logger = Logger.getLogger(SubscriptionRouter.class);
+    /**
+     * boxes covering more grid cells than this are checked for every status rather than indexed by cell
+     */
+    private static final int MAX_CELLS_PER_BOX = 64;
+
+    private final double cellSize;
+    private final Map<StatusListener, FilterQuery> subscriptions = new LinkedHashMap<>();
+    private volatile Index index;
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+    /**
+     * Creates a router indexing location boxes by one degree cells.
+     */
+    public SubscriptionRouter() {
+        this(1d);
+    }
+
+    /**
+     * @param cellSize size of the grid cells indexing location boxes, in degrees
+     */
+    public SubscriptionRouter(double cellSize) {
+        if (!(cellSize > 0d)) {
+            throw new IllegalArgumentException("cellSize must be greater than 0: " + cellSize);
+        }
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * Subscribes the listener to statuses matching the query. The query of a listener already subscribed is replaced.
+     *
+     * @param query    query
+     * @param listener listener
+     * @return this instance
+     */
+    public synchronized SubscriptionRouter subscribe(FilterQuery query, StatusListener listener) {
+        if (query == null || listener == null) {
+            throw new NullPointerException("query and listener must not be null");
+        }
+        if (query.getLocations() != null && query.getLocations().length % 2 != 0) {
+            throw new IllegalArgumentException("locations should consist of south-west and north-east corner pairs");
+        }
+        subscriptions.put(listener, query);
+        index = null;
+        return this;
+    }
+
+    /**
+     * @param listener listener to be unsubscribed
+     * @return this instance
+     */
+    public synchronized SubscriptionRouter unsubscribe(StatusListener listener) {
+        if (subscriptions.remove(listener) != null) {
+            index = null;
+        }
+        return this;
+    }
+
+    /**
+     * @return number of subscribers
+     */
+    public synchronized int size() {
+        return subscriptions.size();
+    }
+
+    private Index index() {
+        Index current = index;
+        if (current == null) {
+            synchronized (this) {
+                current = index;
+                if (current == null) {
+                    current = new Index(subscriptions, cellSize);
+                    index = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    @Override
+    public void onStatus(Status status) {
+        Index index = index();
+        Scratch scratch = this.scratch.get().reset(index);
+        index.match(status, scratch);
+        String lang = status.getLang();
+        for (int i = 0; i < scratch.matchedCount; i++) {
+            int subscriber = scratch.matched[i];
+            if (index.acceptsLanguage(subscriber, lang)) {
+                try {
+                    index.listeners[subscriber].onStatus(status);
+                } catch (Exception e) {
+                    logger.warn("Subscriber threw an exception", e);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void onDeletionNotice(StatusDeletionNotice statusDeletionNotice) {
+        deliverToAll(listener -> listener.onDeletionNotice(statusDeletionNotice));
+    }
+
+    @Override
+    public void onTrackLimitationNotice(int numberOfLimitedStatuses) {
+        deliverToAll(listener -> listener.onTrackLimitationNotice(numberOfLimitedStatuses));
+    }
+
+    @Override
+    public void onScrubGeo(long userId, long upToStatusId) {
+        deliverToAll(listener -> listener.onScrubGeo(userId, upToStatusId));
+    }
+
+    @Override
+    public void onStallWarning(StallWarning warning) {
+        deliverToAll(listener -> listener.onStallWarning(warning));
+    }
+
+    @Override
+    public void onException(Exception ex) {
+        deliverToAll(listener -> listener.onException(ex));
+    }
+
+    /**
+     * Delivers a notice to every subscriber. A subscriber throwing an exception doesn't keep the others from receiving it.
+     */
+    private void deliverToAll(Consumer<StatusListener> notice) {
+        for (StatusListener listener : index().listeners) {
+            try {
+                notice.accept(listener);
+            } catch (Exception e) {
+                logger.warn("Subscriber threw an exception", e);
+            }
+        }
+    }
+
+    /**
+     * Immutable snapshot of the compiled subscriptions.
+     */
+    private static final class Index {
+        final StatusListener[] listeners;
+        final String[][] languages;
+        final int[] unconditional;
+
+        // Aho-Corasick automaton. transitions are keyed by node << 16 | char
+        final LongIntMap transitions = new LongIntMap();
+        final int[] fail;
+        final int[] dictionaryLink;
+        final int[] termOfNode;
+        final int[] termLength;
+        final int[][] termPhrases;
+        final int[] phraseTermCount;
+        final int[] phraseSubscriber;
+
+        final LongIntMap follow = new LongIntMap();
+        final int[][] followSubscribers;
+
+        final double cellSize;
+        final LongIntMap cells = new LongIntMap();
+        final int[][] cellBoxes;
+        final int[] largeBoxes;
+        // west, south, east, north of each box
+        final double[] boxes;
+        final int[] boxSubscriber;
+
+        Index(Map<StatusListener, FilterQuery> subscriptions, double cellSize) {
+            this.cellSize = cellSize;
+            int size = subscriptions.size();
+            listeners = new StatusListener[size];
+            languages = new String[size][];
+            IntList unconditional = new IntList();
+
+            List<String> terms = new ArrayList<>();
+            Map<String, Integer> termIds = new LinkedHashMap<>();
+            List<IntList> termPhrases = new ArrayList<>();
+            IntList phraseTermCount = new IntList();
+            IntList phraseSubscriber = new IntList();
+            List<IntList> followSubscribers = new ArrayList<>();
+            IntList boxSubscriber = new IntList();
+            List<double[]> boxes = new ArrayList<>();
+
+            int subscriber = 0;
+            for (Map.Entry<StatusListener, FilterQuery> entry : subscriptions.entrySet()) {
+                FilterQuery query = entry.getValue();
+                listeners[subscriber] = entry.getKey();
+                String[] language = query.getLanguage();
+                languages[subscriber] = language == null || language.length == 0 ? null : language.clone();
+                boolean conditional = false;
+                if (query.getTrack() != null) {
+                    for (String phrase : query.getTrack()) {
+                        Set<String> phraseTerms = new LinkedHashSet<>();
+                        for (String term : phrase.split("\\s+")) {
+                            if (term.length() > 0) {
+                                phraseTerms.add(toLowerCase(term));
+                            }
+                        }
+                        if (phraseTerms.isEmpty()) {
+                            continue;
+                        }
+                        int phraseId = phraseSubscriber.size();
+                        phraseSubscriber.add(subscriber);
+                        phraseTermCount.add(phraseTerms.size());
+                        for (String term : phraseTerms) {
+                            Integer termId = termIds.get(term);
+                            if (termId == null) {
+                                termId = terms.size();
+                                termIds.put(term, termId);
+                                terms.add(term);
+                                termPhrases.add(new IntList());
+                            }
+                            termPhrases.get(termId).add(phraseId);
+                        }
+                        conditional = true;
+                    }
+                }
+                if (query.getFollow() != null) {
+                    for (long userId : query.getFollow()) {
+                        int slot = follow.get(userId);
+                        if (slot == -1) {
+                            slot = followSubscribers.size();
+                            follow.put(userId, slot);
+                            followSubscribers.add(new IntList());
+                        }
+                        followSubscribers.get(slot).add(subscriber);
+                        conditional = true;
+                    }
+                }
+                double[][] locations = query.getLocations();
+                if (locations != null) {
+                    for (int i = 0; i + 1 < locations.length; i += 2) {
+                        boxes.add(new double[]{locations[i][0], locations[i][1], locations[i + 1][0], locations[i + 1][1]});
+                        boxSubscriber.add(subscriber);
+                        conditional = true;
+                    }
+                }
+                if (!conditional) {
+                    unconditional.add(subscriber);
+                }
+                subscriber++;
+            }
+            this.unconditional = unconditional.toArray();
+            this.termPhrases = toArrays(termPhrases);
+            this.phraseTermCount = phraseTermCount.toArray();
+            this.phraseSubscriber = phraseSubscriber.toArray();
+            this.followSubscribers = toArrays(followSubscribers);
+
+            // trie
+            IntList parent = new IntList();
+            IntList edge = new IntList();
+            IntList termOfNode = new IntList();
+            List<IntList> nodesByDepth = new ArrayList<>();
+            parent.add(-1);
+            edge.add(0);
+            termOfNode.add(-1);
+            termLength = new int[terms.size()];
+            for (int termId = 0; termId < terms.size(); termId++) {
+                String term = terms.get(termId);
+                termLength[termId] = term.length();
+                int node = 0;
+                for (int i = 0; i < term.length(); i++) {
+                    char c = term.charAt(i);
+                    int next = transitions.get(key(node, c));
+                    if (next == -1) {
+                        next = parent.size();
+                        transitions.put(key(node, c), next);
+                        parent.add(node);
+                        edge.add(c);
+                        termOfNode.add(-1);
+                        while (nodesByDepth.size() <= i) {
+                            nodesByDepth.add(new IntList());
+                        }
+                        nodesByDepth.get(i).add(next);
+                    }
+                    node = next;
+                }
+                termOfNode.set(node, termId);
+            }
+            this.termOfNode = termOfNode.toArray();
+            int nodes = parent.size();
+            fail = new int[nodes];
+            dictionaryLink = new int[nodes];
+            dictionaryLink[0] = -1;
+            // breadth first, so that the links of shallower nodes are resolved first
+            for (IntList depth : nodesByDepth) {
+                for (int i = 0; i < depth.size(); i++) {
+                    int node = depth.get(i);
+                    int p = parent.get(node);
+                    char c = (char) edge.get(node);
+                    int f = 0;
+                    if (p != 0) {
+                        f = fail[p];
+                        while (f != 0 && transitions.get(key(f, c)) == -1) {
+                            f = fail[f];
+                        }
+                        int next = transitions.get(key(f, c));
+                        f = next == -1 ? 0 : next;
+                    }
+                    fail[node] = f;
+                    dictionaryLink[node] = this.termOfNode[f] != -1 ? f : dictionaryLink[f];
+                }
+            }
+
+            // grid
+            this.boxes = new double[boxes.size() * 4];
+            this.boxSubscriber = boxSubscriber.toArray();
+            List<IntList> cellBoxes = new ArrayList<>();
+            IntList largeBoxes = new IntList();
+            for (int box = 0; box < boxes.size(); box++) {
+                double[] b = boxes.get(box);
+                System.arraycopy(b, 0, this.boxes, box * 4, 4);
+                int west = cell(b[0]), south = cell(b[1]), east = cell(b[2]), north = cell(b[3]);
+                if ((long) (east - west + 1) * (north - south + 1) > MAX_CELLS_PER_BOX) {
+                    largeBoxes.add(box);
+                    continue;
+                }
+                for (int x = west; x <= east; x++) {
+                    for (int y = south; y <= north; y++) {
+                        int slot = cells.get(cellKey(x, y));
+                        if (slot == -1) {
+                            slot = cellBoxes.size();
+                            cells.put(cellKey(x, y), slot);
+                            cellBoxes.add(new IntList());
+                        }
+                        cellBoxes.get(slot).add(box);
+                    }
+                }
+            }
+            this.cellBoxes = toArrays(cellBoxes);
+            this.largeBoxes = largeBoxes.toArray();
+        }
+
+        /**
+         * lower cases char by char, as the text is lower cased while scanning
+         */
+        private static String toLowerCase(String term) {
+            char[] chars = term.toCharArray();
+            for (int i = 0; i < chars.length; i++) {
+                chars[i] = Character.toLowerCase(chars[i]);
+            }
+            return new String(chars);
+        }
+
+        private static long key(int node, char c) {
+            return ((long) node << 16) | c;
+        }
+
+        private int cell(double degree) {
+            return (int) Math.floor(degree / cellSize);
+        }
+
+        private static long cellKey(int x, int y) {
+            return ((long) x << 32) | (y & 0xffffffffL);
+        }
+
+        private static int[][] toArrays(List<IntList> lists) {
+            int[][] arrays = new int[lists.size()][];
+            for (int i = 0; i < arrays.length; i++) {
+                arrays[i] = lists.get(i).toArray();
+            }
+            return arrays;
+        }
+
+        boolean acceptsLanguage(int subscriber, String lang) {
+            String[] language = languages[subscriber];
+            if (language == null) {
+                return true;
+            }
+            for (String l : language) {
+                if (l.equals(lang)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void match(Status status, Scratch scratch) {
+            for (int subscriber : unconditional) {
+                scratch.matched(subscriber);
+            }
+            if (termLength.length != 0) {
+                matchTrack(status, scratch);
+                Status retweeted = status.getRetweetedStatus();
+                if (retweeted != null) {
+                    matchTrack(retweeted, scratch);
+                }
+                Status quoted = status.getQuotedStatus();
+                if (quoted != null) {
+                    matchTrack(quoted, scratch);
+                }
+            }
+            if (followSubscribers.length != 0) {
+                User user = status.getUser();
+                if (user != null) {
+                    matchFollow(user.getId(), scratch);
+                }
+                if (status.getInReplyToUserId() != -1) {
+                    matchFollow(status.getInReplyToUserId(), scratch);
+                }
+                Status retweeted = status.getRetweetedStatus();
+                if (retweeted != null && retweeted.getUser() != null) {
+                    matchFollow(retweeted.getUser().getId(), scratch);
+                }
+            }
+            if (boxSubscriber.length != 0) {
+                matchLocations(status, scratch);
+            }
+        }
+
+        private void matchTrack(Status status, Scratch scratch) {
+            scan(status.getText(), scratch);
+            for (URLEntity url : status.getURLEntities()) {
+                scan(url.getExpandedURL(), scratch);
+                scan(url.getDisplayURL(), scratch);
+            }
+            if (status.getUser() != null) {
+                scan(status.getUser().getScreenName(), scratch);
+            }
+        }
+
+        private void scan(String text, Scratch scratch) {
+            if (text == null) {
+                return;
+            }
+            int state = 0;
+            int length = text.length();
+            for (int i = 0; i < length; i++) {
+                char c = Character.toLowerCase(text.charAt(i));
+                int next = transitions.get(key(state, c));
+                while (next == -1 && state != 0) {
+                    state = fail[state];
+                    next = transitions.get(key(state, c));
+                }
+                state = next == -1 ? 0 : next;
+                for (int node = termOfNode[state] != -1 ? state : dictionaryLink[state]; node != -1; node = dictionaryLink[node]) {
+                    int term = termOfNode[node];
+                    int start = i - termLength[term] + 1;
+                    if ((start == 0 || !isWordChar(text.charAt(start - 1)))
+                            && (i + 1 == length || !isWordChar(text.charAt(i + 1)))) {
+                        matchedTerm(term, scratch);
+                    }
+                }
+            }
+        }
+
+        private static boolean isWordChar(char c) {
+            return Character.isLetterOrDigit(c) || c == '_';
+        }
+
+        private void matchedTerm(int term, Scratch scratch) {
+            if (scratch.termStamp[term] == scratch.epoch) {
+                return;
+            }
+            scratch.termStamp[term] = scratch.epoch;
+            for (int phrase : termPhrases[term]) {
+                if (scratch.phraseStamp[phrase] != scratch.epoch) {
+                    scratch.phraseStamp[phrase] = scratch.epoch;
+                    scratch.phraseCount[phrase] = 0;
+                }
+                if (++scratch.phraseCount[phrase] == phraseTermCount[phrase]) {
+                    scratch.matched(phraseSubscriber[phrase]);
+                }
+            }
+        }
+
+        private void matchFollow(long userId, Scratch scratch) {
+            int slot = follow.get(userId);
+            if (slot != -1) {
+                for (int subscriber : followSubscribers[slot]) {
+                    scratch.matched(subscriber);
+                }
+            }
+        }
+
+        private void matchLocations(Status status, Scratch scratch) {
+            GeoLocation location = status.getGeoLocation();
+            if (location != null) {
+                double lon = location.getLongitude(), lat = location.getLatitude();
+                matchBoxes(lon, lat, lon, lat, scratch);
+                return;
+            }
+            Place place = status.getPlace();
+            GeoLocation[][] coordinates = place == null ? null : place.getBoundingBoxCoordinates();
+            if (coordinates == null) {
+                return;
+            }
+            double west = Double.MAX_VALUE, south = Double.MAX_VALUE, east = -Double.MAX_VALUE, north = -Double.MAX_VALUE;
+            for (GeoLocation[] polygon : coordinates) {
+                for (GeoLocation point : polygon) {
+                    west = Math.min(west, point.getLongitude());
+                    east = Math.max(east, point.getLongitude());
+                    south = Math.min(south, point.getLatitude());
+                    north = Math.max(north, point.getLatitude());
+                }
+            }
+            if (west <= east) {
+                matchBoxes(west, south, east, north, scratch);
+            }
+        }
+
+        /**
+         * matches the boxes intersecting with the given area
+         */
+        private void matchBoxes(double west, double south, double east, double north, Scratch scratch) {
+            for (int box : largeBoxes) {
+                matchBox(box, west, south, east, north, scratch);
+            }
+            int minX = cell(west), minY = cell(south), maxX = cell(east), maxY = cell(north);
+            if ((long) (maxX - minX + 1) * (maxY - minY + 1) > MAX_CELLS_PER_BOX) {
+                for (int box = 0; box < boxSubscriber.length; box++) {
+                    matchBox(box, west, south, east, north, scratch);
+                }
+                return;
+            }
+            for (int x = minX; x <= maxX; x++) {
+                for (int y = minY; y <= maxY; y++) {
+                    int slot = cells.get(cellKey(x, y));
+                    if (slot != -1) {
+                        for (int box : cellBoxes[slot]) {
+                            matchBox(box, west, south, east, north, scratch);
+                        }
+                    }
+                }
+            }
+        }
+
+        private void matchBox(int box, double west, double south, double east, double north, Scratch scratch) {
+            int i = box * 4;
+            if (west <= boxes[i + 2] && boxes[i] <= east && south <= boxes[i + 3] && boxes[i + 1] <= north) {
+                scratch.matched(boxSubscriber[box]);
+            }
+        }
+    }
+
+    /**
+     * Per thread working memory for matching. Entries are valid only when stamped with the current epoch, so that nothing is cleared per status.
+     */
+    private static final class Scratch {
+        Index index;
+        int epoch;
+        int[] termStamp;
+        int[] phraseStamp;
+        int[] phraseCount;
+        int[] subscriberStamp;
+        int[] matched;
+        int matchedCount;
+
+        Scratch reset(Index index) {
+            if (this.index != index || ++epoch == 0) {
+                this.index = index;
+                termStamp = new int[index.termLength.length];
+                phraseStamp = new int[index.phraseSubscriber.length];
+                phraseCount = new int[index.phraseSubscriber.length];
+                subscriberStamp = new int[index.listeners.length];
+                matched = new int[index.listeners.length];
+                epoch = 1;
+            }
+            matchedCount = 0;
+            return this;
+        }
+
+        void matched(int subscriber) {
+            if (subscriberStamp[subscriber] != epoch) {
+                subscriberStamp[subscriber] = epoch;
+                matched[matchedCount++] = subscriber;
+            }
+        }
+    }
+
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+
+        void set(int index, int value) {
+            values[index] = value;
+        }
+
+        int size() {
+            return size;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "SubscriptionRouter{" +
+                "subscribers=" + size() +
+                ", cellSize=" + cellSize +
+                '}';
+    }
+}
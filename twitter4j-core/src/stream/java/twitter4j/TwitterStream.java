@@ -16,6 +16,9 @@
 package twitter4j;
 
 import twitter4j.auth.OAuthSupport;
+import twitter4j.management.ReconnectStatisticsMBean;
+
+import java.io.File;
 import java.util.function.Consumer;
 
 /**
@@ -73,6 +76,46 @@ public interface TwitterStream extends OAuthSupport, TwitterBase {
      */
     TwitterStream replaceListener(StreamListener toBeRemoved, StreamListener toBeAdded);
 
+    /**
+     * Lets the stream append received messages to the spool before they are delivered to the listeners.<br>
+     * Listeners are then notified from a dedicated thread which consumes the spool at its own pace, so that messages not yet processed survive slow or crashed consumers. On restart, messages received but not acknowledged by the previous run are delivered first.<br>
+     * Takes effect on the next connection.
+     *
+     * @param spool spool to be used, or null to deliver messages directly
+     * @return this instance
+     * @since Twitter4J 4.0.8
+     */
+    TwitterStream spool(StreamSpool spool);
+
+    /**
+     * Lets the stream suppress statuses already delivered to the status listeners within the window of the deduplicator, such as the ones delivered again on reconnects.<br>
+     * Deletion notices and other messages are delivered as is. Takes effect immediately.
+     *
+     * @param deduplicator deduplicator to be used, or null to deliver every status
+     * @return this instance
+     * @since Twitter4J 4.0.8
+     */
+    TwitterStream deduplicate(StatusDeduplicator deduplicator);
+
+    /**
+     * Lets the streams started afterwards run on the selector threads of the event loop instead of a thread of their own.<br>
+     * Replay is not affected. The event loop doesn't support proxies: when an HTTP proxy is configured, streams keep running on threads of their own.
+     *
+     * @param eventLoop event loop to be used, or null to run each stream on its own thread
+     * @return this instance
+     * @since Twitter4J 4.0.8
+     */
+    TwitterStream eventLoop(StreamEventLoop eventLoop);
+
+    /**
+     * Returns the reconnection statistics of this stream: how many times it reconnected or stalled, and the gaps in the stream.<br>
+     * A connection is considered stalled when nothing, not even a keep-alive blank line, has been received for 45 seconds, one and a half times the 30 seconds keep-alive interval, or the streaming read timeout if shorter.
+     *
+     * @return reconnection statistics
+     * @since Twitter4J 4.0.8
+     */
+    ReconnectStatisticsMBean getReconnectStatistics();
+
     /**
      * Starts listening on all public statuses. Available only to approved parties and requires a signed agreement to access. Please do not contact us about access to the firehose. If your service warrants access to it, we'll contact you.
      *
@@ -143,6 +186,29 @@ public interface TwitterStream extends OAuthSupport, TwitterBase {
      */
     TwitterStream filter(final String... track);
 
+    /**
+     * Replaces the filter predicates of the running stream without dropping messages.<br>
+     * A new connection is established with the given query first, and the current connection is closed after both connections have been running side by side for a few seconds. Statuses received by both connections during the overlap are delivered only once.<br>
+     * The current connection is kept when the new query is rejected. Starts consuming the filter stream if the stream is not running.
+     *
+     * @param query Filter query
+     * @see #filter(FilterQuery)
+     * @since Twitter4J 4.0.8
+     */
+    TwitterStream updateFilter(final FilterQuery query);
+
+    /**
+     * Replays messages recorded with {@link StreamRecorder} through the listeners, as if they were received from the Streaming API.<br>
+     * Files are read in the given order, gzipped files are decompressed transparently. Messages are paced by their "timestamp_ms" attribute, messages without it are delivered immediately. The consumer stops at the end of the last file.<br>
+     * Authorization is not required.
+     *
+     * @param speed multiple of the original pace, i.e. 1 replays at the original timing and 10 replays 10 times faster. 0 replays as fast as possible
+     * @param files files to be replayed
+     * @return this instance
+     * @since Twitter4J 4.0.8
+     */
+    TwitterStream replay(double speed, File... files);
+
     /**
      * shutdown internal stream consuming thread
      *
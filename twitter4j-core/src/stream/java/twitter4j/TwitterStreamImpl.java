@@ -17,10 +17,14 @@ package twitter4j;
 
 import twitter4j.auth.Authorization;
 import twitter4j.conf.Configuration;
+import twitter4j.management.ReconnectStatistics;
+import twitter4j.management.ReconnectStatisticsMBean;
 
+import java.io.File;
 import java.io.Serial;
 import java.util.Objects;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -44,7 +48,18 @@ class TwitterStreamImpl extends TwitterBaseImpl implements TwitterStream {
     private static final Logger logger = Logger.getLogger(TwitterStreamImpl.class);
 
     private final List<ConnectionLifeCycleListener> lifeCycleListeners = new ArrayList<>(0);
-    private TwitterStreamConsumer handler = null;
+    // volatile as read by the spool pump
+    private volatile TwitterStreamConsumer handler = null;
+    // the consumer being replaced by updateFilter(), kept running until the new one has taken over
+    private TwitterStreamConsumer retiring = null;
+
+    private StreamSpool spool = null;
+    private static final String SPOOL_READER_NAME = "dispatcher";
+    // the only reader of the spool, shared by the consumers overlapping on updateFilter()
+    private SpoolPump pump = null;
+    private StatusDeduplicator deduplicator = null;
+    private StreamEventLoop eventLoop = null;
+    private final ReconnectStatistics reconnectStatistics = new ReconnectStatistics();
 
     private final String stallWarningsGetParam;
     private final HttpParameter stallWarningsParam;
@@ -52,7 +67,8 @@ class TwitterStreamImpl extends TwitterBaseImpl implements TwitterStream {
     /*package*/
     TwitterStreamImpl(Configuration conf, Authorization auth) {
         super(conf, auth);
-        http = HttpClientFactory.getInstance(new StreamingReadTimeoutConfiguration(conf));
+        http = HttpClientFactory.getInstance(new StreamingReadTimeoutConfiguration(conf
+                , ReconnectController.stallTimeout(conf.getHttpStreamingReadTimeout(), ReconnectController.DEFAULT_KEEP_ALIVE_INTERVAL)));
         // turning off keepalive connection explicitly because Streaming API doesn't need keepalive connection.
         // and this will reduce the shutdown latency of streaming api connection
         // see also - http://jira.twitter4j.org/browse/TFJ-556
@@ -68,12 +84,7 @@ class TwitterStreamImpl extends TwitterBaseImpl implements TwitterStream {
     public TwitterStream firehose(final int count) {
         ensureAuthorizationEnabled();
         ensureStatusStreamListenerIsSet();
-        startHandler(new TwitterStreamConsumer(Mode.status) {
-            @Override
-            public StatusStream getStream() throws TwitterException {
-                return getFirehoseStream(count);
-            }
-        });
+        startHandler(new TwitterStreamConsumer(Mode.status, countRequest("statuses/firehose.json", count)));
         return this;
     }
 
@@ -89,19 +100,14 @@ class TwitterStreamImpl extends TwitterBaseImpl implements TwitterStream {
      */
     StatusStream getFirehoseStream(int count) throws TwitterException {
         ensureAuthorizationEnabled();
-        return getCountStream("statuses/firehose.json", count);
+        return openStream(countRequest("statuses/firehose.json", count));
     }
 
     @Override
     public TwitterStream links(final int count) {
         ensureAuthorizationEnabled();
         ensureStatusStreamListenerIsSet();
-        startHandler(new TwitterStreamConsumer(Mode.status) {
-            @Override
-            public StatusStream getStream() throws TwitterException {
-                return getLinksStream(count);
-            }
-        });
+        startHandler(new TwitterStreamConsumer(Mode.status, countRequest("statuses/links.json", count)));
         return this;
     }
 
@@ -117,15 +123,18 @@ class TwitterStreamImpl extends TwitterBaseImpl implements TwitterStream {
      */
     StatusStream getLinksStream(int count) throws TwitterException {
         ensureAuthorizationEnabled();
-        return getCountStream("statuses/links.json", count);
+        return openStream(countRequest("statuses/links.json", count));
     }
 
-    private StatusStream getCountStream(String relativeUrl, int count) throws TwitterException {
-        ensureAuthorizationEnabled();
+    private HttpRequest countRequest(String relativeUrl, int count) {
+        return new HttpRequest(RequestMethod.POST, conf.getStreamBaseURL() + relativeUrl
+                , new HttpParameter[]{new HttpParameter("count", String.valueOf(count))
+                , stallWarningsParam}, auth, http.getRequestHeaders());
+    }
+
+    private StatusStream openStream(HttpRequest request) throws TwitterException {
         try {
-            return new StatusStreamImpl(getDispatcher(), http.post(conf.getStreamBaseURL() + relativeUrl
-                    , new HttpParameter[]{new HttpParameter("count", String.valueOf(count))
-                    , stallWarningsParam}, auth, null), conf);
+            return new StatusStreamImpl(getDispatcher(), http.request(request), conf);
         } catch (IOException e) {
             throw new TwitterException(e);
         }
@@ -135,12 +144,7 @@ class TwitterStreamImpl extends TwitterBaseImpl implements TwitterStream {
     public TwitterStream retweet() {
         ensureAuthorizationEnabled();
         ensureStatusStreamListenerIsSet();
-        startHandler(new TwitterStreamConsumer(Mode.status) {
-            @Override
-            public StatusStream getStream() throws TwitterException {
-                return getRetweetStream();
-            }
-        });
+        startHandler(new TwitterStreamConsumer(Mode.status, retweetRequest()));
         return this;
     }
 
@@ -155,24 +159,19 @@ class TwitterStreamImpl extends TwitterBaseImpl implements TwitterStream {
      */
     StatusStream getRetweetStream() throws TwitterException {
         ensureAuthorizationEnabled();
-        try {
-            return new StatusStreamImpl(getDispatcher(), http.post(conf.getStreamBaseURL() + "statuses/retweet.json"
-                    , new HttpParameter[]{stallWarningsParam}, auth, null), conf);
-        } catch (IOException e) {
-            throw new TwitterException(e);
-        }
+        return openStream(retweetRequest());
+    }
+
+    private HttpRequest retweetRequest() {
+        return new HttpRequest(RequestMethod.POST, conf.getStreamBaseURL() + "statuses/retweet.json"
+                , new HttpParameter[]{stallWarningsParam}, auth, http.getRequestHeaders());
     }
 
     @Override
     public TwitterStream sample() {
         ensureAuthorizationEnabled();
         ensureStatusStreamListenerIsSet();
-        startHandler(new TwitterStreamConsumer(Mode.status) {
-            @Override
-            public StatusStream getStream() throws TwitterException {
-                return getSampleStream();
-            }
-        });
+        startHandler(new TwitterStreamConsumer(Mode.status, sampleRequest(null)));
         return this;
     }
 
@@ -180,12 +179,7 @@ class TwitterStreamImpl extends TwitterBaseImpl implements TwitterStream {
     public TwitterStream sample(final String language) {
         ensureAuthorizationEnabled();
         ensureStatusStreamListenerIsSet();
-        startHandler(new TwitterStreamConsumer(Mode.status) {
-            @Override
-            public StatusStream getStream() throws TwitterException {
-                return getSampleStream(language);
-            }
-        });
+        startHandler(new TwitterStreamConsumer(Mode.status, sampleRequest(language)));
         return this;
     }
 
@@ -200,12 +194,7 @@ class TwitterStreamImpl extends TwitterBaseImpl implements TwitterStream {
      */
     StatusStream getSampleStream() throws TwitterException {
         ensureAuthorizationEnabled();
-        try {
-            return new StatusStreamImpl(getDispatcher(), http.get(conf.getStreamBaseURL() + "statuses/sample.json?"
-                    + stallWarningsGetParam, null, auth, null), conf);
-        } catch (IOException e) {
-            throw new TwitterException(e);
-        }
+        return openStream(sampleRequest(null));
     }
 
     /**
@@ -221,15 +210,40 @@ class TwitterStreamImpl extends TwitterBaseImpl implements TwitterStream {
      */
     StatusStream getSampleStream(String language) throws TwitterException {
         ensureAuthorizationEnabled();
-        try {
-            return new StatusStreamImpl(getDispatcher(), http.get(conf.getStreamBaseURL() + "statuses/sample.json?"
-                    + stallWarningsGetParam + "&language=" + language, null, auth, null), conf);
-        } catch (IOException e) {
-            throw new TwitterException(e);
-        }
+        return openStream(sampleRequest(language));
+    }
+
+    private HttpRequest sampleRequest(String language) {
+        return new HttpRequest(RequestMethod.GET, conf.getStreamBaseURL() + "statuses/sample.json?"
+                + stallWarningsGetParam + (language != null ? "&language=" + language : ""), null, auth, http.getRequestHeaders());
     }
 
 
+    @Override
+    public TwitterStream replay(final double speed, final File... files) {
+        ensureStatusStreamListenerIsSet();
+        if (files.length == 0) {
+            throw new IllegalArgumentException("no file to replay");
+        }
+        final ReplayInputStream replay = new ReplayInputStream(files, speed);
+        startHandler(new TwitterStreamConsumer(Mode.status, null) {
+            @Override
+            public StatusStream getStream() throws TwitterException {
+                try {
+                    return new StatusStreamImpl(getDispatcher(), replay, conf);
+                } catch (IOException e) {
+                    throw new TwitterException(e);
+                }
+            }
+
+            @Override
+            boolean isReconnectable() {
+                return false;
+            }
+        });
+        return this;
+    }
+
     private Dispatcher getDispatcher() {
         if (null == TwitterStreamImpl.dispatcher) {
             synchronized (TwitterStreamImpl.class) {
@@ -251,12 +265,7 @@ class TwitterStreamImpl extends TwitterBaseImpl implements TwitterStream {
     public TwitterStream filter(final FilterQuery query) {
         ensureAuthorizationEnabled();
         ensureStatusStreamListenerIsSet();
-        startHandler(new TwitterStreamConsumer(Mode.status) {
-            @Override
-            public StatusStream getStream() throws TwitterException {
-                return getFilterStream(query);
-            }
-        });
+        startHandler(new TwitterStreamConsumer(Mode.status, filterRequest(query)));
         return this;
     }
 
@@ -266,6 +275,32 @@ class TwitterStreamImpl extends TwitterBaseImpl implements TwitterStream {
         return this;
     }
 
+    @Override
+    public TwitterStream updateFilter(final FilterQuery query) {
+        ensureAuthorizationEnabled();
+        ensureStatusStreamListenerIsSet();
+        TwitterStreamConsumer next = new TwitterStreamConsumer(Mode.status, filterRequest(query));
+        synchronized (this) {
+            if (handler == null || handler.isClosed()) {
+                startHandler(next);
+                return this;
+            }
+            if (retiring != null) {
+                // previous hand over is still in progress. the oldest connection is not needed anymore
+                retire(retiring);
+            }
+            RecentStatusIds statusIds = new RecentStatusIds(HANDOVER_DUPLICATE_WINDOW);
+            handler.setStatusIds(statusIds);
+            next.setStatusIds(statusIds);
+            next.predecessor = handler;
+            retiring = handler;
+            handler = next;
+            handler.launch();
+            numberOfHandlers++;
+        }
+        return this;
+    }
+
     /**
      * Returns public statuses that match one or more filter predicates. At least one predicate parameter, follow, locations, or track must be specified. Multiple parameters may be specified which allows most clients to use a single connection to the Streaming API. Placing long parameters in the URL may cause the request to be rejected for excessive URL length.<br>
      * The default access level allows up to 200 track keywords, 400 follow userids and 10 1-degree location boxes. Increased access levels allow 80,000 follow userids ("shadow" role), 400,000 follow userids ("birddog" role), 10,000 track keywords ("restricted track" role),  200,000 track keywords ("partner track" role), and 200 10-degree location boxes ("locRestricted" role). Increased track access levels also pass a higher proportion of statuses before limiting the stream.
@@ -279,13 +314,12 @@ class TwitterStreamImpl extends TwitterBaseImpl implements TwitterStream {
      */
     StatusStream getFilterStream(FilterQuery query) throws TwitterException {
         ensureAuthorizationEnabled();
-        try {
-            return new StatusStreamImpl(getDispatcher(), http.post(conf.getStreamBaseURL()
-                    + "statuses/filter.json"
-                    , query.asHttpParameterArray(stallWarningsParam), auth, null), conf);
-        } catch (IOException e) {
-            throw new TwitterException(e);
-        }
+        return openStream(filterRequest(query));
+    }
+
+    private HttpRequest filterRequest(FilterQuery query) {
+        return new HttpRequest(RequestMethod.POST, conf.getStreamBaseURL() + "statuses/filter.json"
+                , query.asHttpParameterArray(stallWarningsParam), auth, http.getRequestHeaders());
     }
 
 
@@ -306,19 +340,119 @@ class TwitterStreamImpl extends TwitterBaseImpl implements TwitterStream {
     private synchronized void startHandler(TwitterStreamConsumer handler) {
         cleanUp();
         this.handler = handler;
-        this.handler.start();
+        this.handler.launch();
         numberOfHandlers++;
     }
 
     @Override
     public synchronized TwitterStream cleanUp() {
+        if (retiring != null) {
+            retire(retiring);
+        }
         if (handler != null) {
             handler.close();
             numberOfHandlers--;
+            // counted once, even if cleaned up again by shutdown()
+            handler = null;
+        }
+        if (pump != null) {
+            pump.interrupt();
+            pump = null;
         }
         return this;
     }
 
+    /**
+     * starts feeding the listeners from the spool, unless already doing so. consumers only append to the spool
+     *
+     * @param spool spool the consumer appends to
+     * @throws TwitterException when failed to open the spool
+     */
+    private synchronized void startPump(StreamSpool spool) throws TwitterException {
+        if (pump != null && pump.spool == spool) {
+            return;
+        }
+        if (pump != null) {
+            // spool replaced
+            pump.interrupt();
+        }
+        try {
+            pump = new SpoolPump(spool);
+        } catch (IOException ioe) {
+            throw new TwitterException("Failed to open the spool.", ioe);
+        }
+        pump.start();
+    }
+
+    /**
+     * feeds the listeners of the current consumer with the lines appended to the spool, resuming from the last acknowledged line
+     */
+    private final class SpoolPump extends Thread {
+        private final StreamSpool spool;
+        private final StreamSpool.Reader reader;
+        // parses and notifies lines on behalf of the consumer which received them
+        private final StatusStreamBase parser;
+
+        SpoolPump(StreamSpool spool) throws IOException {
+            super("Twitter Stream spool reader / " + conf.getStreamThreadName());
+            this.spool = spool;
+            this.reader = spool.getReader(SPOOL_READER_NAME);
+            this.parser = new StatusStreamImpl(getDispatcher(), conf);
+            parser.setStatusFilter(status -> {
+                TwitterStreamConsumer consumer = handler;
+                return consumer == null || consumer.acceptStatus(status);
+            });
+            setDaemon(conf.isDaemonEnabled());
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!isInterrupted()) {
+                    String line = reader.poll(1000);
+                    TwitterStreamConsumer consumer = handler;
+                    if (line != null && consumer != null) {
+                        parser.process(line, consumer.streamListeners, consumer.rawStreamListeners);
+                        reader.acknowledge();
+                    }
+                }
+            } catch (InterruptedException ignore) {
+            } catch (IllegalStateException ise) {
+                // spool closed
+                logger.warn(ise.getMessage());
+            }
+        }
+    }
+
+    /**
+     * closes the consumer replaced by updateFilter()
+     *
+     * @param consumer consumer to be closed
+     */
+    private synchronized void retire(TwitterStreamConsumer consumer) {
+        if (retiring == consumer) {
+            retiring = null;
+            consumer.close();
+            numberOfHandlers--;
+        }
+    }
+
+    /**
+     * brings the replaced consumer back when the new consumer gave up before taking over
+     *
+     * @param failed   consumer which failed to take over
+     * @param previous consumer which was about to be replaced
+     */
+    private synchronized void rollBack(TwitterStreamConsumer failed, TwitterStreamConsumer previous) {
+        if (handler == failed && retiring == previous) {
+            logger.warn("Failed to update the filter. Keeping the previous connection.");
+            handler = previous;
+            retiring = null;
+            numberOfHandlers--;
+            previous.setStatusIds(null);
+        }
+    }
+
     @Override
     public synchronized TwitterStream shutdown() {
         cleanUp();
@@ -333,6 +467,38 @@ class TwitterStreamImpl extends TwitterBaseImpl implements TwitterStream {
         return this;
     }
 
+    @Override
+    public synchronized TwitterStream spool(StreamSpool spool) {
+        this.spool = spool;
+        return this;
+    }
+
+    @Override
+    public synchronized TwitterStream deduplicate(StatusDeduplicator deduplicator) {
+        this.deduplicator = deduplicator;
+        updateListeners();
+        return this;
+    }
+
+    @Override
+    public synchronized TwitterStream eventLoop(StreamEventLoop eventLoop) {
+        if (eventLoop != null && isProxyConfigured()) {
+            logger.warn("The event loop doesn't support proxies. Streams keep running on threads of their own.");
+        }
+        this.eventLoop = eventLoop;
+        return this;
+    }
+
+    private boolean isProxyConfigured() {
+        String proxyHost = conf.getHttpClientConfiguration().getHttpProxyHost();
+        return proxyHost != null && !proxyHost.isEmpty();
+    }
+
+    @Override
+    public ReconnectStatisticsMBean getReconnectStatistics() {
+        return reconnectStatistics;
+    }
+
     @Override
     public TwitterStream addConnectionLifeCycleListener(ConnectionLifeCycleListener listener) {
         this.lifeCycleListeners.add(listener);
@@ -420,19 +586,11 @@ class TwitterStreamImpl extends TwitterBaseImpl implements TwitterStream {
         return statusListeners.toArray(new StatusListener[statusListeners.size()]);
     }
 
-    /*
-     https://dev.twitter.com/docs/streaming-api/concepts#connecting
-     When a network error (TCP/IP level) is encountered, back off linearly. Perhaps start at 250 milliseconds, double, and cap at 16 seconds
-     When a HTTP error (> 200) is returned, back off exponentially.
-     Perhaps start with a 10 second wait, double on each subsequent failure, and finally cap the wait at 240 seconds. Consider sending an alert to a human operator after multiple HTTP errors, as there is probably a client configuration issue that is unlikely to be resolved without human intervention. There's not much point in polling any faster in the face of HTTP error codes and your client is may run afoul of a rate limit.
-     */
-    private static final int TCP_ERROR_INITIAL_WAIT = 250;
-    private static final int TCP_ERROR_WAIT_CAP = 16 * 1000;
-
-    private static final int HTTP_ERROR_INITIAL_WAIT = 10 * 1000;
-    private static final int HTTP_ERROR_WAIT_CAP = 240 * 1000;
-
-    private static final int NO_WAIT = 0;
+    // how long the old and the new connection run side by side on updateFilter(). shortened by tests
+    long handoverOverlap = 3 * 1000;
+    // the keep-alive contract stalls are detected against, on the event loop. shortened by tests
+    int keepAliveInterval = ReconnectController.DEFAULT_KEEP_ALIVE_INTERVAL;
+    private static final int HANDOVER_DUPLICATE_WINDOW = 100000;
 
     private static int count = 0;
 
@@ -440,30 +598,128 @@ class TwitterStreamImpl extends TwitterBaseImpl implements TwitterStream {
         user, status
     }
 
-    abstract class TwitterStreamConsumer extends Thread {
+    class TwitterStreamConsumer extends Thread {
         private StatusStreamBase stream = null;
         private final String NAME;
         private volatile boolean closed = false;
-        private StreamListener[] streamListeners;
-        private RawStreamListener[] rawStreamListeners;
+        private volatile StreamListener[] streamListeners;
+        private volatile RawStreamListener[] rawStreamListeners;
+        // applied by the streams as statuses are parsed. null while neither overlapping nor deduplicating
+        private volatile Predicate<Status> statusFilter = null;
         private final Mode mode;
-
-        TwitterStreamConsumer(Mode mode) {
+        // non-null while overlapping with another consumer
+        private RecentStatusIds statusIds = null;
+        // consumer to be replaced once this consumer got connected
+        private TwitterStreamConsumer predecessor = null;
+        private final StreamSpool spool = TwitterStreamImpl.this.spool;
+        // null if the stream is not read from the network
+        private final HttpRequest request;
+        // proxied streams run on a thread of their own, as the event loop connects directly
+        private final StreamEventLoop eventLoop = isProxyConfigured() ? null : TwitterStreamImpl.this.eventLoop;
+        private volatile NioSession session = null;
+        final ReconnectController reconnect = new ReconnectController(conf.getHttpStreamingReadTimeout(), keepAliveInterval, reconnectStatistics);
+
+        TwitterStreamConsumer(Mode mode, HttpRequest request) {
             super();
             this.mode = mode;
+            this.request = request;
             NAME = format("Twitter Stream consumer / %s [%s]", conf.getStreamThreadName(), ++count);
             updateListeners();
             setName(NAME + "[initializing]");
         }
 
         void updateListeners() {
-            this.streamListeners = getStatusListeners();
-            this.rawStreamListeners = getRawStreamListeners();
+            synchronized (TwitterStreamImpl.this) {
+                Predicate<Status> filter = null;
+                if (statusIds != null) {
+                    final RecentStatusIds ids = statusIds;
+                    filter = status -> ids.add(status.getId());
+                }
+                if (deduplicator != null) {
+                    filter = filter == null ? deduplicator::accept : filter.and(deduplicator::accept);
+                }
+                this.statusFilter = filter;
+                this.streamListeners = getStatusListeners();
+                this.rawStreamListeners = getRawStreamListeners();
+            }
+        }
+
+        /**
+         * Delivers each status only once while two consumers are overlapping, or within the window of the deduplicator.
+         * Consulted as statuses are parsed, so that lines read before the filter changed are filtered as well.
+         */
+        private boolean acceptStatus(Status status) {
+            Predicate<Status> filter = statusFilter;
+            return filter == null || filter.test(status);
+        }
+
+        void setStatusIds(RecentStatusIds statusIds) {
+            synchronized (TwitterStreamImpl.this) {
+                this.statusIds = statusIds;
+                updateListeners();
+            }
+        }
+
+        /**
+         * stops suppressing duplicates, unless another updateFilter() has installed ids for the next overlap meanwhile
+         *
+         * @param expected ids installed for the hand over being completed
+         */
+        void clearStatusIds(RecentStatusIds expected) {
+            synchronized (TwitterStreamImpl.this) {
+                if (statusIds == expected) {
+                    setStatusIds(null);
+                }
+            }
+        }
+
+        boolean isClosed() {
+            return closed;
+        }
+
+        /**
+         * starts consuming the stream, on the event loop if any
+         */
+        void launch() {
+            if (eventLoop != null && request != null) {
+                session = new NioSession();
+                session.connect();
+            } else {
+                start();
+            }
+        }
+
+        /**
+         * closes the predecessor after a short overlap, and stops suppressing duplicates once messages in flight are drained
+         */
+        private void handOver() {
+            final TwitterStreamConsumer previous = predecessor;
+            predecessor = null;
+            final RecentStatusIds ids;
+            synchronized (TwitterStreamImpl.this) {
+                ids = statusIds;
+            }
+            final long overlap = handoverOverlap;
+            Thread handOver = new Thread(NAME + "[Handing over]") {
+                @Override
+                public void run() {
+                    try {
+                        Thread.sleep(overlap);
+                        retire(previous);
+                        Thread.sleep(overlap);
+                    } catch (InterruptedException ignore) {
+                    }
+                    clearStatusIds(ids);
+                }
+            };
+            handOver.setDaemon(true);
+            handOver.start();
         }
 
         @Override
         public void run() {
-            int timeToSleep = NO_WAIT;
+            // true while failing to reconnect
+            boolean retrying = false;
             boolean connected = false;
             while (!closed) {
                 try {
@@ -472,7 +728,14 @@ class TwitterStreamImpl extends TwitterBaseImpl implements TwitterStream {
                         logger.info("Establishing connection.");
                         setStatus("[Establishing connection]");
                         stream = (StatusStreamBase) getStream();
+                        stream.setReconnectController(reconnect);
+                        stream.setStatusFilter(this::acceptStatus);
+                        if (spool != null) {
+                            stream.setSpool(spool);
+                            startPump(spool);
+                        }
                         connected = true;
+                        reconnect.connected();
                         logger.info("Connection established.");
                         for (ConnectionLifeCycleListener listener : lifeCycleListeners) {
                             try {
@@ -482,7 +745,10 @@ class TwitterStreamImpl extends TwitterBaseImpl implements TwitterStream {
                             }
                         }
                         // connection established successfully
-                        timeToSleep = NO_WAIT;
+                        retrying = false;
+                        if (predecessor != null) {
+                            handOver();
+                        }
                         logger.info("Receiving status stream.");
                         setStatus("[Receiving stream]");
                         while (!closed) {
@@ -507,8 +773,13 @@ class TwitterStreamImpl extends TwitterBaseImpl implements TwitterStream {
                     }
                 } catch (TwitterException te) {
                     logger.info(te.getMessage());
+                    if (!closed && !isReconnectable()) {
+                        logger.info("Reached the end of the stream.");
+                        closed = true;
+                        break;
+                    }
                     if (!closed) {
-                        if (NO_WAIT == timeToSleep) {
+                        if (!retrying) {
                             if (te.getStatusCode() == FORBIDDEN) {
                                 logger.warn("This account is not in required role. ", te.getMessage());
                                 closed = true;
@@ -533,28 +804,19 @@ class TwitterStreamImpl extends TwitterBaseImpl implements TwitterStream {
                                     logger.warn(e.getMessage());
                                 }
                             }
-                            if (te.getStatusCode() > 200) {
-                                timeToSleep = HTTP_ERROR_INITIAL_WAIT;
-                            } else {
-                                timeToSleep = TCP_ERROR_INITIAL_WAIT;
-                            }
-                        }
-                        if (te.getStatusCode() > 200 && timeToSleep < HTTP_ERROR_INITIAL_WAIT) {
-                            timeToSleep = HTTP_ERROR_INITIAL_WAIT;
+                            retrying = true;
                         }
+                        long timeToSleep = reconnect.nextWait(te);
                         for (StreamListener statusListener : streamListeners) {
                             statusListener.onException(te);
                         }
                         // there was a problem establishing the connection, or the connection closed by peer
                         if (!closed) {
                             // wait for a moment not to overload Twitter API
-                            logger.info("Waiting for " + (timeToSleep) + " milliseconds");
+                            logger.info("Waiting for {} milliseconds", timeToSleep);
                             setStatus("[Waiting for " + (timeToSleep) + " milliseconds]");
-                            try {
-                                Thread.sleep(timeToSleep);
-                            } catch (InterruptedException ignore) {
-                            }
-                            timeToSleep = Math.min(timeToSleep * 2, (te.getStatusCode() > 200) ? HTTP_ERROR_WAIT_CAP : TCP_ERROR_WAIT_CAP);
+                            // returns as soon as the consumer is closed
+                            reconnect.await(timeToSleep);
                         }
                         stream = null;
                         logger.debug(te.getMessage());
@@ -586,11 +848,18 @@ class TwitterStreamImpl extends TwitterBaseImpl implements TwitterStream {
                     logger.warn(e.getMessage());
                 }
             }
+            if (predecessor != null) {
+                rollBack(this, predecessor);
+            }
         }
 
         public synchronized void close() {
             setStatus("[Disposing thread]");
             closed = true;
+            reconnect.cancel();
+            if (session != null) {
+                session.close();
+            }
             if (stream != null) {
                 try {
                     stream.close();
@@ -608,8 +877,155 @@ class TwitterStreamImpl extends TwitterBaseImpl implements TwitterStream {
             logger.debug(actualMessage);
         }
 
-        abstract StatusStream getStream() throws TwitterException;
+        StatusStream getStream() throws TwitterException {
+            return openStream(request);
+        }
+
+        /**
+         * @return false if the consumer should stop at the end of the stream instead of reconnecting
+         */
+        boolean isReconnectable() {
+            return true;
+        }
 
+        /**
+         * consumes the stream on the event loop, reconnecting the same way as run()
+         */
+        private final class NioSession implements NioStreamConnection.Handler {
+            private volatile NioStreamConnection connection = null;
+            // accessed on the selector threads
+            private StatusStreamBase stream;
+            private boolean retrying = false;
+            private volatile boolean connected = false;
+            private boolean finished = false;
+
+            void connect() {
+                if (closed) {
+                    return;
+                }
+                logger.info("Establishing connection.");
+                stream = new StatusStreamImpl(getDispatcher(), conf);
+                stream.setStatusFilter(TwitterStreamConsumer.this::acceptStatus);
+                try {
+                    connection = new NioStreamConnection(eventLoop, request
+                            , conf.getHttpClientConfiguration().getHttpConnectionTimeout(), reconnect.getStallTimeout(), this);
+                } catch (IllegalStateException ise) {
+                    logger.warn(ise.getMessage());
+                    closed = true;
+                    finish();
+                    return;
+                }
+                if (closed) {
+                    // closed meanwhile
+                    connection.close();
+                    return;
+                }
+                connection.open();
+            }
+
+            void close() {
+                NioStreamConnection connection = this.connection;
+                if (connection != null) {
+                    connection.close();
+                }
+                finish();
+            }
+
+            @Override
+            public void onConnect() throws IOException {
+                if (spool != null) {
+                    stream.setSpool(spool);
+                    try {
+                        startPump(spool);
+                    } catch (TwitterException te) {
+                        throw new IOException(te.getMessage(), te);
+                    }
+                }
+                connected = true;
+                reconnect.connected();
+                logger.info("Connection established.");
+                notifyLifeCycleListeners(ConnectionLifeCycleListener::onConnect);
+                // connection established successfully
+                retrying = false;
+                if (predecessor != null) {
+                    handOver();
+                }
+                logger.info("Receiving status stream.");
+            }
+
+            @Override
+            public void onLine(StreamLine line, boolean more) throws IOException {
+                if (!closed) {
+                    reconnect.received();
+                    stream.dispatch(line, streamListeners, rawStreamListeners, more);
+                }
+            }
+
+            @Override
+            public void onClose(TwitterException te) {
+                logger.info(te.getMessage());
+                if (closed) {
+                    return;
+                }
+                if (!retrying) {
+                    if (te.getStatusCode() == FORBIDDEN || te.getStatusCode() == NOT_ACCEPTABLE) {
+                        logger.warn(te.getStatusCode() == FORBIDDEN ? "This account is not in required role. "
+                                : "Parameter not accepted with the role. ", te.getMessage());
+                        closed = true;
+                        for (StreamListener statusListener : streamListeners) {
+                            statusListener.onException(te);
+                        }
+                        finish();
+                        return;
+                    }
+                    connected = false;
+                    notifyLifeCycleListeners(ConnectionLifeCycleListener::onDisconnect);
+                    retrying = true;
+                }
+                long timeToSleep = reconnect.nextWait(te);
+                for (StreamListener statusListener : streamListeners) {
+                    statusListener.onException(te);
+                }
+                connected = false;
+                // wait for a moment not to overload Twitter API
+                logger.info("Waiting for {} milliseconds", timeToSleep);
+                try {
+                    eventLoop.schedule(this::connect, timeToSleep);
+                } catch (IllegalStateException ise) {
+                    logger.warn(ise.getMessage());
+                    closed = true;
+                    finish();
+                }
+            }
+
+            /**
+             * notifies the end of the consumer, once
+             */
+            private synchronized void finish() {
+                if (finished) {
+                    return;
+                }
+                finished = true;
+                if (connected) {
+                    connected = false;
+                    notifyLifeCycleListeners(ConnectionLifeCycleListener::onDisconnect);
+                }
+                notifyLifeCycleListeners(ConnectionLifeCycleListener::onCleanUp);
+                if (predecessor != null) {
+                    rollBack(TwitterStreamConsumer.this, predecessor);
+                }
+            }
+
+            private void notifyLifeCycleListeners(Consumer<ConnectionLifeCycleListener> event) {
+                for (ConnectionLifeCycleListener listener : lifeCycleListeners) {
+                    try {
+                        event.accept(listener);
+                    } catch (Exception e) {
+                        logger.warn(e.getMessage());
+                    }
+                }
+            }
+        }
     }
 
     @Override
@@ -658,9 +1074,15 @@ class TwitterStreamImpl extends TwitterBaseImpl implements TwitterStream {
 
 class StreamingReadTimeoutConfiguration implements HttpClientConfiguration {
     final Configuration nestedConf;
+    private final int readTimeout;
 
-    StreamingReadTimeoutConfiguration(Configuration httpConf) {
+    /**
+     * @param httpConf    configuration
+     * @param readTimeout read timeout of streams, shortened to the stall timeout
+     */
+    StreamingReadTimeoutConfiguration(Configuration httpConf, int readTimeout) {
         this.nestedConf = httpConf;
+        this.readTimeout = readTimeout;
     }
 
     @Override
@@ -696,7 +1118,7 @@ class StreamingReadTimeoutConfiguration implements HttpClientConfiguration {
     @Override
     public int getHttpReadTimeout() {
         // this is the trick that overrides connection timeout
-        return nestedConf.getHttpStreamingReadTimeout();
+        return readTimeout;
     }
 
     @Override
@@ -718,4 +1140,23 @@ class StreamingReadTimeoutConfiguration implements HttpClientConfiguration {
     public boolean isGZIPEnabled() {
         return nestedConf.getHttpClientConfiguration().isGZIPEnabled();
     }
+
+    @Override
+    public boolean isJSONSourceRecorded() {
+        return nestedConf.getHttpClientConfiguration().isJSONSourceRecorded();
+    }
+
+    // HttpClientFactory caches clients per configuration
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        StreamingReadTimeoutConfiguration that = (StreamingReadTimeoutConfiguration) o;
+        return readTimeout == that.readTimeout && nestedConf.equals(that.nestedConf);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * nestedConf.hashCode() + readTimeout;
+    }
 }
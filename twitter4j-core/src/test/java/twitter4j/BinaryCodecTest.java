@@ -0,0 +1,199 @@
+/*
+ * Copyright 2007 Yusuke Yamamoto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package twitter4j;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.ObjectOutputStream;
+import java.io.StreamCorruptedException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryCodecTest {
+
+    private static final String STATUS_WITH_MEDIA = "{\"id\":715085258010406912,\"created_at\":\"Wed Mar 30 07:34:45 +0000 2016\","
+            + "\"text\":\"alt text test &amp; more https:\\/\\/t.co\\/abc\",\"source\":\"web\",\"lang\":\"en\",\"retweet_count\":3,"
+            + "\"display_text_range\":[0,22],\"contributors\":null,"
+            + "\"coordinates\":{\"type\":\"Point\",\"coordinates\":[139.7,35.5]},"
+            + "\"place\":{\"id\":\"df51dec6f4ee2b2c\",\"url\":\"https:\\/\\/api.twitter.com\\/1.1\\/geo\\/id\\/df51dec6f4ee2b2c.json\","
+            + "\"place_type\":\"city\",\"name\":\"Shibuya\",\"full_name\":\"Shibuya-ku, Tokyo\",\"country_code\":\"JP\",\"country\":\"Japan\","
+            + "\"bounding_box\":{\"type\":\"Polygon\",\"coordinates\":[[[139.66,35.64],[139.72,35.64],[139.72,35.69],[139.66,35.69]]]}},"
+            + "\"scopes\":{\"place_ids\":[\"place one\"]},\"withheld_in_countries\":[\"DE\"],"
+            + "\"user\":{\"id\":6253282,\"screen_name\":\"twitterapi\",\"name\":\"Twitter API\",\"url\":\"http:\\/\\/dev.twitter.com\","
+            + "\"created_at\":\"Wed May 23 06:01:13 +0000 2007\",\"verified\":true,\"followers_count\":1533137},"
+            + "\"entities\":{\"hashtags\":[{\"text\":\"t4j\",\"indices\":[4,8]}],\"symbols\":[],"
+            + "\"user_mentions\":[{\"screen_name\":\"anywhere\",\"name\":\"Anywhere\",\"id\":9576402,\"indices\":[14,23]}],"
+            + "\"urls\":[]},"
+            + "\"extended_entities\":{\"media\":[{\"id\":715085253874839552,\"indices\":[23,46],"
+            + "\"media_url\":\"http:\\/\\/pbs.twimg.com\\/media\\/a.jpg\",\"media_url_https\":\"https:\\/\\/pbs.twimg.com\\/media\\/a.jpg\","
+            + "\"url\":\"https:\\/\\/t.co\\/abc\",\"display_url\":\"pic.twitter.com\\/abc\",\"expanded_url\":\"http:\\/\\/twitter.com\\/a\\/status\\/1\\/photo\\/1\","
+            + "\"type\":\"video\",\"ext_alt_text\":\"alt\","
+            + "\"sizes\":{\"large\":{\"w\":1024,\"h\":768,\"resize\":\"fit\"},\"thumb\":{\"w\":150,\"h\":150,\"resize\":\"crop\"}},"
+            + "\"video_info\":{\"aspect_ratio\":[16,9],\"duration_millis\":10000,"
+            + "\"variants\":[{\"bitrate\":832000,\"content_type\":\"video\\/mp4\",\"url\":\"https:\\/\\/video.twimg.com\\/a.mp4\"}]}}]}}";
+
+    private static List<Status> statusesFromStream() throws Exception {
+        List<Status> statuses = new ArrayList<>();
+        try (InputStream is = BinaryCodecTest.class.getResourceAsStream("/streamingapi-testcase.json");
+             BufferedReader reader = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("{\"text\"")) {
+                    statuses.add(TwitterObjectFactory.createStatus(line));
+                }
+            }
+        }
+        return statuses;
+    }
+
+    private static void assertSameStatus(Status expected, Status actual) {
+        assertEquals(expected, actual);
+        // PlaceJSONImpl.toString() prints the identity of the bounding box array
+        assertEquals(expected.toString().replaceAll("GeoLocation;@\\p{XDigit}+", ""),
+                actual.toString().replaceAll("GeoLocation;@\\p{XDigit}+", ""));
+        assertEquals(String.valueOf(expected.getUser()), String.valueOf(actual.getUser()));
+        assertEquals(expected.getPlace(), actual.getPlace());
+        if (expected.getPlace() != null) {
+            assertTrue(Arrays.deepEquals(expected.getPlace().getBoundingBoxCoordinates(), actual.getPlace().getBoundingBoxCoordinates()));
+        }
+        assertArrayEquals(expected.getURLEntities(), actual.getURLEntities());
+        assertArrayEquals(expected.getMediaEntities(), actual.getMediaEntities());
+    }
+
+    @Test
+    void testStatusRoundTrip() throws Exception {
+        Status status = TwitterObjectFactory.createStatus(STATUS_WITH_MEDIA);
+        Status decoded = BinaryCodec.decodeStatus(BinaryCodec.encode(status));
+        assertSameStatus(status, decoded);
+        assertEquals("Shibuya-ku, Tokyo", decoded.getPlace().getFullName());
+        assertEquals(4, decoded.getPlace().getBoundingBoxCoordinates()[0].length);
+        assertEquals(new GeoLocation(35.5, 139.7), decoded.getGeoLocation());
+        assertEquals("place one", decoded.getScopes().getPlaceIds()[0]);
+        assertEquals(832000, decoded.getMediaEntities()[0].getVideoVariants()[0].getBitrate());
+        assertEquals("alt", decoded.getMediaEntities()[0].getExtAltText());
+        assertEquals(status.getMediaEntities()[0].getSizes(), decoded.getMediaEntities()[0].getSizes());
+        assertEquals("anywhere", decoded.getUserMentionEntities()[0].getScreenName());
+        assertEquals("t4j", decoded.getHashtagEntities()[0].getText());
+        assertEquals(22, decoded.getDisplayTextRangeEnd());
+    }
+
+    @Test
+    void testStream() throws Exception {
+        List<Status> statuses = statusesFromStream();
+        statuses.add(TwitterObjectFactory.createStatus(STATUS_WITH_MEDIA));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (BinaryCodec.Encoder encoder = new BinaryCodec.Encoder(bytes, true)) {
+            for (Status status : statuses) {
+                encoder.writeStatus(status);
+            }
+            encoder.writeStatus(null);
+        }
+        try (BinaryCodec.Decoder decoder = new BinaryCodec.Decoder(new ByteArrayInputStream(bytes.toByteArray()))) {
+            assertEquals(BinaryCodec.VERSION, decoder.getVersion());
+            for (Status status : statuses) {
+                assertSameStatus(status, decoder.readStatus());
+            }
+            assertNull(decoder.readStatus());
+            assertFalse(decoder.hasNext());
+        }
+
+        ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(serialized)) {
+            for (Status status : statuses) {
+                oos.writeObject(status);
+            }
+        }
+        assertTrue(bytes.size() * 3 < serialized.size(), bytes.size() + " bytes, serialized: " + serialized.size());
+    }
+
+    @Test
+    void testWithoutEntities() throws Exception {
+        Status status = TwitterObjectFactory.createStatus(STATUS_WITH_MEDIA);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (BinaryCodec.Encoder encoder = new BinaryCodec.Encoder(bytes, false)) {
+            encoder.writeStatus(status);
+        }
+        BinaryCodec.Decoder decoder = new BinaryCodec.Decoder(new ByteArrayInputStream(bytes.toByteArray()));
+        assertFalse(decoder.isWithEntities());
+        Status decoded = decoder.readStatus();
+        assertEquals(status.getText(), decoded.getText());
+        assertEquals(0, decoded.getMediaEntities().length);
+        assertEquals(0, decoded.getUserMentionEntities().length);
+        assertEquals("Twitter API", decoded.getUser().getName());
+    }
+
+    @Test
+    void testUser() throws Exception {
+        String json;
+        try (InputStream is = BinaryCodecTest.class.getResourceAsStream("/dao/24696018620.json")) {
+            json = new String(is.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        User user = TwitterObjectFactory.createUser(json);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (BinaryCodec.Encoder encoder = new BinaryCodec.Encoder(bytes, true)) {
+            encoder.writeUser(user);
+        }
+        User decoded = new BinaryCodec.Decoder(new ByteArrayInputStream(bytes.toByteArray())).readUser();
+        assertEquals(user, decoded);
+        assertEquals(user.toString(), decoded.toString());
+        assertEquals(user.getStatus().getText(), decoded.getStatus().getText());
+    }
+
+    @Test
+    void testDirectMessage() throws Exception {
+        DirectMessage directMessage = TwitterObjectFactory.createDirectMessage("{\"type\":\"message_create\",\"id\":\"1234858592\","
+                + "\"created_timestamp\":\"1392078023603\",\"message_create\":{\"target\":{\"recipient_id\":\"1234858592\"},"
+                + "\"sender_id\":\"3805104374\",\"message_data\":{\"text\":\"Blue Bird #t4j\","
+                + "\"entities\":{\"hashtags\":[{\"text\":\"t4j\",\"indices\":[10,14]}],\"symbols\":[],\"urls\":[],\"user_mentions\":[]},"
+                + "\"quick_reply\":{\"type\":\"options\",\"options\":[{\"label\":\"Red\",\"metadata\":\"external_id_1\"}]}}}}");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (BinaryCodec.Encoder encoder = new BinaryCodec.Encoder(bytes, true)) {
+            encoder.writeDirectMessage(directMessage);
+        }
+        DirectMessage decoded = new BinaryCodec.Decoder(new ByteArrayInputStream(bytes.toByteArray())).readDirectMessage();
+        assertEquals(directMessage, decoded);
+        assertEquals(directMessage.toString(), decoded.toString());
+    }
+
+    @Test
+    void testInvalidStream() throws Exception {
+        assertThrows(StreamCorruptedException.class, () -> new BinaryCodec.Decoder(new ByteArrayInputStream("{\"id\":1}".getBytes(StandardCharsets.UTF_8))));
+        byte[] future = BinaryCodec.encode(TwitterObjectFactory.createStatus(STATUS_WITH_MEDIA));
+        future[4] = (byte) (BinaryCodec.VERSION + 1);
+        assertThrows(StreamCorruptedException.class, () -> BinaryCodec.decodeStatus(future));
+        byte[] truncated = BinaryCodec.encode(TwitterObjectFactory.createStatus(STATUS_WITH_MEDIA));
+        assertThrows(IOException.class, () -> BinaryCodec.decodeStatus(Arrays.copyOf(truncated, truncated.length / 2)));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new BinaryCodec.Encoder(out, false).close();
+        // a string of Integer.MAX_VALUE bytes, followed by 3 bytes only
+        out.write(new byte[]{1, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07, 'a', 'b', 'c'});
+        BinaryCodec.Decoder decoder = new BinaryCodec.Decoder(new ByteArrayInputStream(out.toByteArray()));
+        assertThrows(EOFException.class, decoder::readString);
+    }
+}
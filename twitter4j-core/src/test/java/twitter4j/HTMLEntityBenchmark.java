@@ -0,0 +1,189 @@
+/*
+ * Copyright 2007 Yusuke Yamamoto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package twitter4j;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compares HTMLEntity.unescape with the previous implementation, which replaced entities in place and looked each of them up
+ * with a substring.<br>
+ * Usage: java twitter4j.HTMLEntityBenchmark
+ *
+ * @author Yusuke Yamamoto - yusuke at mac.com
+ */
+public class HTMLEntityBenchmark {
+    private static final Map<String, String> LEGACY_MAP = new HashMap<>();
+
+    static {
+        for (String[] entity : HTMLEntity.ENTITIES) {
+            LEGACY_MAP.put(entity[0], entity[2]);
+            LEGACY_MAP.put(entity[1], entity[2]);
+        }
+    }
+
+    static void legacyUnescape(StringBuilder original) {
+        int index = 0;
+        int semicolonIndex;
+        String escaped;
+        String entity;
+        while (index < original.length()) {
+            index = original.indexOf("&", index);
+            if (-1 == index) {
+                break;
+            }
+            semicolonIndex = original.indexOf(";", index);
+            if (-1 != semicolonIndex) {
+                escaped = original.substring(index, semicolonIndex + 1);
+                entity = LEGACY_MAP.get(escaped);
+                if (entity != null) {
+                    original.replace(index, semicolonIndex + 1, entity);
+                }
+                index++;
+            } else {
+                break;
+            }
+        }
+    }
+
+    // the previous unescapeAndSlideEntityIncdices, counting code points from the start of the text for each entity
+    static String legacySlide(String text, EntityIndex[] entityIndexes) {
+        boolean handlingStart = true;
+        int entityIndex = 0;
+        int delta = 0;
+        int semicolonIndex;
+        String escaped;
+        String entity;
+        StringBuilder unescaped = new StringBuilder(text.length());
+        int textCodePointLength = text.codePointCount(0, text.length());
+        int codePoint;
+        for (int index = 0, twitterIndex = 0; index < text.length(); index += Character.charCount(codePoint), twitterIndex++) {
+            codePoint = text.codePointAt(index);
+            if (codePoint == '&') {
+                semicolonIndex = text.indexOf(";", index);
+                if (-1 != semicolonIndex) {
+                    escaped = text.substring(index, semicolonIndex + 1);
+                    entity = LEGACY_MAP.get(escaped);
+                    if (entity != null) {
+                        unescaped.append(entity);
+                        index = semicolonIndex;
+                        twitterIndex = text.codePointCount(0, semicolonIndex);
+                        delta = 1 - escaped.length();
+                    } else {
+                        unescaped.appendCodePoint(codePoint);
+                    }
+                } else {
+                    unescaped.appendCodePoint(codePoint);
+                }
+            } else {
+                unescaped.appendCodePoint(codePoint);
+            }
+            if (entityIndex < entityIndexes.length) {
+                if (handlingStart) {
+                    if (entityIndexes[entityIndex].getStart() == (delta + twitterIndex)) {
+                        entityIndexes[entityIndex].setStart(unescaped.length() - Character.charCount(text.codePointAt(index)));
+                        handlingStart = false;
+                    }
+                } else if (entityIndexes[entityIndex].getEnd() == (delta + twitterIndex)) {
+                    entityIndexes[entityIndex].setEnd(unescaped.length() - Character.charCount(text.codePointAt(index)));
+                    entityIndex++;
+                    handlingStart = true;
+                }
+            }
+            delta = 0;
+        }
+        if (entityIndex < entityIndexes.length) {
+            if (entityIndexes[entityIndex].getEnd() == textCodePointLength) {
+                entityIndexes[entityIndex].setEnd(unescaped.length());
+            }
+        }
+        return unescaped.toString();
+    }
+
+    public static void main(String[] args) {
+        String tweet = "@null &lt; #test &gt; &amp;ほげ @t4j_news %&amp; http://t.co/HwbSpYFr 😀 &quot;quoted&quot;";
+        StringBuilder longText = new StringBuilder();
+        while (longText.length() < 100000) {
+            longText.append("ほげ &amp; b &lt; c &gt; d&e; ");
+        }
+        run("tweet", tweet, 200000);
+        run("100k chars", longText.toString(), 20);
+        runSlide("tweet", tweet, 200000);
+        runSlide("100k chars", longText.toString(), 20);
+    }
+
+    private static void runSlide(String label, String text, int iterations) {
+        HashtagEntity legacyHashtag = new HashtagEntityJSONImpl(11, 16, "test");
+        HashtagEntity hashtag = new HashtagEntityJSONImpl(11, 16, "test");
+        String legacy = legacySlide(text, new EntityIndex[]{(EntityIndex) legacyHashtag});
+        String current = HTMLEntity.unescapeAndSlideEntityIncdices(text, null, null, new HashtagEntity[]{hashtag}, null);
+        if (!legacy.equals(current) || legacyHashtag.getStart() != hashtag.getStart() || legacyHashtag.getEnd() != hashtag.getEnd()) {
+            throw new AssertionError("results differ for " + label);
+        }
+        for (int warmup = 0; warmup < 10; warmup++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                legacySlide(text, new EntityIndex[]{new HashtagEntityJSONImpl(11, 16, "test")});
+            }
+            long legacyNanos = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                HTMLEntity.unescapeAndSlideEntityIncdices(text, null, null, new HashtagEntity[]{new HashtagEntityJSONImpl(11, 16, "test")}, null);
+            }
+            long currentNanos = System.nanoTime() - start;
+            if (warmup == 9) {
+                System.out.printf("%-12s legacy: %,12d ns/op  current: %,12d ns/op  (%.1fx) with index sliding%n", label,
+                        legacyNanos / iterations, currentNanos / iterations, (double) legacyNanos / currentNanos);
+            }
+        }
+    }
+
+    private static void run(String label, String text, int iterations) {
+        StringBuilder legacy = new StringBuilder(text);
+        legacyUnescape(legacy);
+        if (!legacy.toString().equals(HTMLEntity.unescape(text))) {
+            throw new AssertionError("results differ for " + label);
+        }
+        for (int warmup = 0; warmup < 10; warmup++) {
+            long legacyNanos = measure(text, iterations, true);
+            long currentNanos = measure(text, iterations, false);
+            if (warmup == 9) {
+                System.out.printf("%-12s legacy: %,12d ns/op  current: %,12d ns/op  (%.1fx)%n", label,
+                        legacyNanos / iterations, currentNanos / iterations, (double) legacyNanos / currentNanos);
+            }
+        }
+    }
+
+    private static long measure(String text, int iterations, boolean legacy) {
+        int sink = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            if (legacy) {
+                StringBuilder buf = new StringBuilder(text);
+                legacyUnescape(buf);
+                sink += buf.length();
+            } else {
+                sink += HTMLEntity.unescape(text).length();
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        if (sink == 42) {
+            System.out.println();
+        }
+        return elapsed;
+    }
+}
@@ -20,6 +20,7 @@ import org.junit.jupiter.api.Test;
 import twitter4j.*;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 
 class HTMLEntityTest {
 
@@ -125,6 +126,23 @@ class HTMLEntityTest {
                 new URLEntity[]{}, new HashtagEntity[]{}, new MediaEntity[]{}));
     }
 
+    @Test
+    void testUnescapeMatchesPreviousImplementation() {
+        String[] texts = {"", "&", ";", "&;", "&&amp;", "&amp;lt;", "&amp", "&foo&amp;", "&#160;&#8364;", "&#39;", "&AMP;",
+                "&thetasym;&thetasym", "&lt&gt;", "a&b;c&lt;d", "\uD83D\uDE00&amp;\uD83D\uDE00", "&euro;;;"};
+        for (String text : texts) {
+            StringBuilder expected = new StringBuilder(text);
+            HTMLEntityBenchmark.legacyUnescape(expected);
+            assertEquals(expected.toString(), HTMLEntity.unescape(text), text);
+            StringBuilder buf = new StringBuilder(text);
+            HTMLEntity.unescape(buf);
+            assertEquals(expected.toString(), buf.toString(), text);
+            assertEquals(HTMLEntityBenchmark.legacySlide(text, new EntityIndex[0]),
+                    HTMLEntity.unescapeAndSlideEntityIncdices(text, null, null, null, null), text);
+        }
+        assertNull(HTMLEntity.unescape((String) null));
+    }
+
     @Test
     void testUnescapeAndSlideEntityIncdicesWithCorrectedIndices() throws Exception {
         // #test&amp;test &amp;#test #test&amp; #test&gt;
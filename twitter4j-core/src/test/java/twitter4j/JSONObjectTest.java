@@ -0,0 +1,114 @@
+/*
+ * Copyright 2007 Yusuke Yamamoto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package twitter4j;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JSONObjectTest {
+
+    @Test
+    void testNumbers() throws Exception {
+        JSONObject json = new JSONObject("{\"id\":1050118621198921728,\"count\": 42,\"neg\":-7,\"ratio\":1.5,"
+                + "\"octal\":010,\"hex\":0x1F,\"big\":12345678901234567890,\"exp\":1e3,\"str\":\"12\"}");
+        assertEquals(1050118621198921728L, json.getLong("id"));
+        assertEquals(Long.valueOf(1050118621198921728L), json.get("id"));
+        assertEquals(Integer.valueOf(42), json.get("count"));
+        assertEquals(-7, json.getInt("neg"));
+        assertEquals(1.5, json.getDouble("ratio"));
+        assertEquals(1, json.getInt("ratio"));
+        assertEquals(8, json.getInt("octal"));
+        assertEquals(31, json.getInt("hex"));
+        assertEquals(1.2345678901234567E19, json.getDouble("big"));
+        assertEquals(1000L, json.getLong("exp"));
+        assertEquals(12, json.getInt("str"));
+        assertEquals(42L, ParseUtil.getLong("count", json));
+        assertEquals(-1, ParseUtil.getInt("id", json));
+        assertEquals(1.5, ParseUtil.getDouble("ratio", json));
+        assertEquals(0L, json.optLong("missing"));
+        assertThrows(JSONException.class, () -> json.getLong("missing"));
+
+        json.put("count", "replaced");
+        assertEquals("replaced", json.get("count"));
+        json.put("str", 3L);
+        assertEquals(Long.valueOf(3), json.get("str"));
+    }
+
+    @Test
+    void testNineteenDigitIds() throws Exception {
+        JSONObject json = new JSONObject("{\"id\":1450118621198921728,\"max\":9223372036854775807,"
+                + "\"min\":-9223372036854775808,\"over\":9223372036854775808,\"user\":{\"id\":1050118621198921728}}");
+        JSONMembers members = json.members();
+        assertEquals(JSONMembers.LONG, members.kind(members.indexOf("id")));
+        assertEquals(1450118621198921728L, json.getLong("id"));
+        assertEquals(JSONMembers.LONG, members.kind(members.indexOf("max")));
+        assertEquals(Long.MAX_VALUE, json.getLong("max"));
+        assertEquals(JSONMembers.LONG, members.kind(members.indexOf("min")));
+        assertEquals(Long.MIN_VALUE, json.getLong("min"));
+        // overflows long, and falls back to readLiteral()
+        assertEquals(9.223372036854775808E18, json.getDouble("over"));
+        JSONMembers user = json.getJSONObject("user").members();
+        assertEquals(JSONMembers.LONG, user.kind(user.indexOf("id")));
+    }
+
+    @Test
+    void testOrderAndRemoval() throws Exception {
+        JSONObject json = new JSONObject();
+        for (int i = 0; i < 40; i++) {
+            json.put("k" + i, i);
+        }
+        assertEquals(40, json.length());
+        assertEquals(39, json.getInt("k39"));
+        assertEquals(Integer.valueOf(10), json.remove("k10"));
+        assertFalse(json.has("k10"));
+        assertEquals(11, json.getInt("k11"));
+        for (Iterator<String> iterator = json.keys(); iterator.hasNext(); ) {
+            if (iterator.next().endsWith("5")) {
+                iterator.remove();
+            }
+        }
+        List<String> names = new ArrayList<>(json.keySet());
+        assertEquals(35, names.size());
+        assertEquals("k0", names.get(0));
+        assertEquals("k39", names.get(34));
+        assertFalse(json.has("k25"));
+        assertEquals(26, json.getInt("k26"));
+    }
+
+    @Test
+    void testToString() throws Exception {
+        String source = "{\"id\":1,\"text\":\"a\\\"b\",\"n\":null,\"f\":false,\"d\":0.25,\"user\":{\"id\":12345678901},\"a\":[1,\"x\"]}";
+        JSONObject json = new JSONObject(source);
+        assertEquals(source, json.toString());
+        assertTrue(json.isNull("n"));
+        assertFalse(json.getBoolean("f"));
+        assertEquals(12345678901L, json.getJSONObject("user").getLong("id"));
+    }
+
+    @Test
+    void testKnownNamesAreShared() throws Exception {
+        String id = new JSONObject("{\"id_str\":\"1\"}").keys().next();
+        assertSame(id, new JSONObject("{ \"id_str\" : \"2\"}").keys().next());
+        assertEquals("unknown_name", new JSONObject("{\"unknown_name\":1}").keys().next());
+        assertEquals("id\"str", new JSONObject("{\"id\\\"str\":1}").keys().next());
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2007 Yusuke Yamamoto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package twitter4j;
+
+import org.junit.jupiter.api.Test;
+import twitter4j.conf.ConfigurationBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LineFramerTest {
+
+    private static final String LINES = "{\"id\":1}\r\n\r\n{\"text\":\"二番目\"}\n{\"id\":3}\r\n";
+
+    private static byte[] gzip(String body) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(body.getBytes(StandardCharsets.UTF_8));
+        }
+        return compressed.toByteArray();
+    }
+
+    /**
+     * Feeds the bytes in blocks of the given size.
+     */
+    private static List<String> frame(LineFramer.Encoding encoding, byte[] bytes, int blockSize) throws IOException {
+        final List<String> lines = new ArrayList<>();
+        LineFramer framer = new LineFramer(encoding, (line, more) -> lines.add(line.toString()));
+        try {
+            for (int i = 0; i < bytes.length; i += blockSize) {
+                ByteBuffer block = ByteBuffer.wrap(bytes, i, Math.min(blockSize, bytes.length - i));
+                framer.feed(block);
+                assertFalse(block.hasRemaining());
+            }
+            framer.finish();
+        } finally {
+            framer.close();
+        }
+        return lines;
+    }
+
+    @Test
+    void testIdentity() throws Exception {
+        byte[] bytes = LINES.getBytes(StandardCharsets.UTF_8);
+        List<String> expected = List.of("{\"id\":1}", "", "{\"text\":\"二番目\"}", "{\"id\":3}");
+        for (int blockSize : new int[]{1, 2, 3, 7, bytes.length}) {
+            // lines and multibyte characters span blocks
+            assertEquals(expected, frame(LineFramer.Encoding.IDENTITY, bytes, blockSize), String.valueOf(blockSize));
+        }
+    }
+
+    @Test
+    void testGzip() throws Exception {
+        byte[] bytes = gzip(LINES);
+        List<String> expected = List.of("{\"id\":1}", "", "{\"text\":\"二番目\"}", "{\"id\":3}");
+        assertEquals(expected, frame(LineFramer.Encoding.GZIP, bytes, 1));
+        assertEquals(expected, frame(LineFramer.Encoding.GZIP, bytes, bytes.length));
+
+        // header consumed by GZIPInputStream
+        byte[] body = new byte[bytes.length - 10];
+        System.arraycopy(bytes, 10, body, 0, body.length);
+        assertEquals(expected, frame(LineFramer.Encoding.GZIP_BODY, body, 5));
+
+        assertThrows(ZipException.class, () -> frame(LineFramer.Encoding.GZIP, LINES.getBytes(StandardCharsets.UTF_8), 16));
+    }
+
+    @Test
+    void testLargeBody() throws Exception {
+        // inflated in more than one block of the pooled buffer
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            body.append("{\"id\":").append(i).append("}\r\n");
+        }
+        List<String> lines = frame(LineFramer.Encoding.GZIP, gzip(body.toString()), 1000);
+        assertEquals(10000, lines.size());
+        for (int i = 0; i < 10000; i++) {
+            assertEquals("{\"id\":" + i + "}", lines.get(i));
+        }
+    }
+
+    @Test
+    void testMore() throws Exception {
+        final List<Boolean> more = new ArrayList<>();
+        LineFramer framer = new LineFramer(LineFramer.Encoding.IDENTITY, (line, hasMore) -> more.add(hasMore));
+        framer.feed(ByteBuffer.wrap("a\nb\nc".getBytes(StandardCharsets.UTF_8)));
+        assertEquals(List.of(true, false), more);
+        framer.finish();
+        assertEquals(List.of(true, false, false), more);
+        framer.finish();
+        assertEquals(3, more.size());
+    }
+
+    @Test
+    void testSlices() throws Exception {
+        final List<StreamLine> lines = new ArrayList<>();
+        LineFramer framer = new LineFramer(LineFramer.Encoding.IDENTITY, (line, more) -> lines.add(line));
+        framer.feed(ByteBuffer.wrap("abc\r\n\r\nde\n".getBytes(StandardCharsets.UTF_8)));
+        assertEquals(3, lines.size());
+        // lines of a block share one copy
+        assertSame(lines.get(0).array(), lines.get(2).array());
+        assertEquals(3, lines.get(0).length());
+        assertSame(StreamLine.EMPTY, lines.get(1));
+        assertEquals(7, lines.get(2).offset());
+        assertEquals("de", lines.get(2).toString());
+        assertSame(lines.get(2).toString(), lines.get(2).toString());
+    }
+
+    @Test
+    void testBufferPool() {
+        ByteBuffer buffer = DirectBufferPool.acquire();
+        assertTrue(buffer.isDirect());
+        assertEquals(DirectBufferPool.BUFFER_SIZE, buffer.capacity());
+        buffer.put((byte) 1);
+        DirectBufferPool.release(buffer);
+        ByteBuffer reused = DirectBufferPool.acquire();
+        assertEquals(0, reused.position());
+        assertEquals(DirectBufferPool.BUFFER_SIZE, reused.remaining());
+        DirectBufferPool.release(reused);
+        // not pooled
+        DirectBufferPool.release(ByteBuffer.allocate(DirectBufferPool.BUFFER_SIZE));
+        DirectBufferPool.release(null);
+        assertTrue(DirectBufferPool.acquire().isDirect());
+    }
+
+    @Test
+    void testGzipHeader() throws Exception {
+        byte[] header = {0x1f, (byte) 0x8b, 8, 8 | 4, 0, 0, 0, 0, 0, 3, 2, 0, 'x', 'y', 'a', '.', 'g', 'z', 0, 1};
+        assertEquals(-1, LineFramer.gzipHeaderLength(header, 9));
+        assertEquals(-1, LineFramer.gzipHeaderLength(header, 17));
+        assertEquals(19, LineFramer.gzipHeaderLength(header, 19));
+        assertEquals(19, LineFramer.gzipHeaderLength(header, header.length));
+    }
+
+    @Test
+    void testGzippedStatusStream() throws Exception {
+        String body = "{\"id\":1,\"text\":\"first\"}\r\n\r\n{\"id\":2,\"text\":\"二番目\"}\r\n";
+        final List<Status> statuses = new CopyOnWriteArrayList<>();
+        final CountDownLatch latch = new CountDownLatch(2);
+        Dispatcher dispatcher = new DispatcherFactory().getInstance();
+        StatusStreamImpl stream = new StatusStreamImpl(dispatcher,
+                new StreamingGZIPInputStream(new ByteArrayInputStream(gzip(body))), new ConfigurationBuilder().build());
+        StreamListener listener = new StatusAdapter() {
+            @Override
+            public void onStatus(Status status) {
+                statuses.add(status);
+                latch.countDown();
+            }
+        };
+        try {
+            try {
+                while (true) {
+                    stream.next(new StreamListener[]{listener}, new RawStreamListener[0]);
+                }
+            } catch (TwitterException expected) {
+                // end of the stream
+            }
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+            assertEquals("二番目", statuses.stream().filter(status -> status.getId() == 2).findFirst().get().getText());
+        } finally {
+            dispatcher.shutdown();
+        }
+    }
+}
@@ -0,0 +1,306 @@
+/*
+ * Copyright 2007 Yusuke Yamamoto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package twitter4j;
+
+import org.junit.jupiter.api.Test;
+import twitter4j.api.ListsResources;
+
+import java.io.IOException;
+import java.io.Serial;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ListMembershipSyncTest {
+
+    /**
+     * In-memory list serving pages of the given size, failing requests as the failure function tells.
+     */
+    private static class FakeList implements InvocationHandler {
+        final TreeSet<Long> members = new TreeSet<>();
+        final List<String> requests = new CopyOnWriteArrayList<>();
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+        final int pageSize;
+        volatile Function<long[], TwitterException> failure = ids -> null;
+
+        FakeList(int pageSize) {
+            this.pageSize = pageSize;
+        }
+
+        ListsResources resources() {
+            return (ListsResources) Proxy.newProxyInstance(ListsResources.class.getClassLoader(), new Class<?>[]{ListsResources.class}, this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, java.lang.reflect.Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "getUserListMembers": {
+                    long cursor = (Long) args[2];
+                    requests.add("members " + cursor);
+                    List<Long> all;
+                    synchronized (members) {
+                        all = new ArrayList<>(members);
+                    }
+                    int from = cursor == -1 ? 0 : (int) cursor;
+                    int to = Math.min(from + pageSize, all.size());
+                    Page page = new Page(to < all.size() ? to : 0);
+                    for (Long id : all.subList(from, to)) {
+                        page.add(user(id));
+                    }
+                    return page;
+                }
+                case "createUserListMembers":
+                case "destroyUserListMembers": {
+                    long[] ids = (long[]) args[1];
+                    boolean add = method.getName().startsWith("create");
+                    requests.add((add ? "add " : "remove ") + ids.length);
+                    int current = inFlight.incrementAndGet();
+                    maxInFlight.accumulateAndGet(current, Math::max);
+                    try {
+                        Thread.sleep(20);
+                        TwitterException te = failure.apply(ids);
+                        if (te != null) {
+                            throw te;
+                        }
+                        synchronized (members) {
+                            for (long id : ids) {
+                                if (add) {
+                                    members.add(id);
+                                } else {
+                                    members.remove(id);
+                                }
+                            }
+                        }
+                    } finally {
+                        inFlight.decrementAndGet();
+                    }
+                    return Proxy.newProxyInstance(UserList.class.getClassLoader(), new Class<?>[]{UserList.class},
+                            (p, m, a) -> null);
+                }
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        }
+    }
+
+    private static final class Page extends ArrayList<User> implements PagableResponseList<User> {
+        @Serial
+        private static final long serialVersionUID = 1L;
+        private final long nextCursor;
+
+        Page(long nextCursor) {
+            this.nextCursor = nextCursor;
+        }
+
+        @Override
+        public boolean hasPrevious() {
+            return false;
+        }
+
+        @Override
+        public long getPreviousCursor() {
+            return 0;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextCursor != 0;
+        }
+
+        @Override
+        public long getNextCursor() {
+            return nextCursor;
+        }
+
+        @Override
+        public RateLimitStatus getRateLimitStatus() {
+            return null;
+        }
+
+        @Override
+        public AccessLevel getAccessLevel() {
+            return AccessLevel.READ;
+        }
+    }
+
+    private static User user(long id) {
+        return (User) Proxy.newProxyInstance(User.class.getClassLoader(), new Class<?>[]{User.class},
+                (proxy, method, args) -> "getId".equals(method.getName()) ? id : null);
+    }
+
+    private static TwitterException httpError(final int code, final Map<String, String> headers) {
+        HttpResponse response = new HttpResponse() {
+            {
+                statusCode = code;
+            }
+
+            @Override
+            public String getResponseHeader(String name) {
+                return headers.get(name);
+            }
+
+            @Override
+            public Map<String, List<String>> getResponseHeaderFields() {
+                return Collections.emptyMap();
+            }
+
+            @Override
+            public void disconnect() {
+            }
+        };
+        return new TwitterException("error " + code, response);
+    }
+
+    private static long[] range(long from, long to) {
+        long[] ids = new long[(int) (to - from)];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = from + i;
+        }
+        return ids;
+    }
+
+    @Test
+    void testSync() throws Exception {
+        FakeList list = new FakeList(100);
+        for (long id = 1; id <= 250; id++) {
+            list.members.add(id);
+        }
+        // keeps 151-250, adds 251-480 with duplicates
+        long[] target = range(151, 481);
+        long[] withDuplicates = new long[target.length + 2];
+        System.arraycopy(target, 0, withDuplicates, 0, target.length);
+        withDuplicates[target.length] = 300;
+        withDuplicates[target.length + 1] = 151;
+        ListMembershipSync.Report report = new ListMembershipSync(list.resources()).sync(1, withDuplicates);
+
+        assertTrue(report.isComplete());
+        assertEquals(150, report.getRemoveCount());
+        assertEquals(230, report.getAddCount());
+        // members read through cursors, then removals before additions in batches of 100
+        assertEquals(List.of("members -1", "members 100", "members 200"), list.requests.subList(0, 3));
+        List<ListMembershipSync.Batch> batches = report.getBatches();
+        assertEquals(5, batches.size());
+        int[] sizes = {100, 50, 100, 100, 30};
+        for (int i = 0; i < batches.size(); i++) {
+            assertEquals(i < 2 ? ListMembershipSync.Operation.REMOVE : ListMembershipSync.Operation.ADD, batches.get(i).getOperation());
+            assertEquals(sizes[i], batches.get(i).getUserIds().length);
+            assertEquals(1, batches.get(i).getAttempts());
+        }
+        assertEquals(330, list.members.size());
+        assertEquals(Long.valueOf(151), list.members.first());
+        assertEquals(Long.valueOf(480), list.members.last());
+
+        // nothing to do once in sync
+        list.requests.clear();
+        report = new ListMembershipSync(list.resources()).sync(1, target);
+        assertTrue(report.getBatches().isEmpty());
+        assertEquals(List.of("members -1", "members 100", "members 200", "members 300"), list.requests);
+    }
+
+    @Test
+    void testConcurrency() throws Exception {
+        FakeList list = new FakeList(5000);
+        ListMembershipSync.Report report = new ListMembershipSync(list.resources()).setConcurrency(3).sync(1, range(0, 2000));
+        assertEquals(20, report.getBatches().size());
+        assertTrue(report.isComplete());
+        assertEquals(3, list.maxInFlight.get());
+        assertEquals(2000, list.members.size());
+
+        list = new FakeList(5000);
+        new ListMembershipSync(list.resources()).setConcurrency(1).sync(1, range(0, 500));
+        assertEquals(1, list.maxInFlight.get());
+    }
+
+    @Test
+    void testRateLimited() throws Exception {
+        FakeList list = new FakeList(5000);
+        final AtomicInteger rateLimited = new AtomicInteger();
+        // the first request exhausts the rate limit for a second
+        list.failure = ids -> rateLimited.getAndIncrement() == 0
+                ? httpError(429, Map.of("X-Rate-Limit-Limit", "300", "X-Rate-Limit-Remaining", "0",
+                "X-Rate-Limit-Reset", String.valueOf(System.currentTimeMillis() / 1000 + 2))) : null;
+        long start = System.currentTimeMillis();
+        ListMembershipSync.Report report = new ListMembershipSync(list.resources()).setConcurrency(1).sync(1, range(0, 300));
+        assertTrue(System.currentTimeMillis() - start >= 500, String.valueOf(System.currentTimeMillis() - start));
+        assertTrue(report.isComplete());
+        assertEquals(2, report.getBatches().get(0).getAttempts());
+        assertEquals(1, report.getBatches().get(1).getAttempts());
+        assertEquals(300, list.members.size());
+    }
+
+    @Test
+    void testPartialFailure() throws Exception {
+        FakeList list = new FakeList(5000);
+        final AtomicInteger networkErrors = new AtomicInteger();
+        list.failure = ids -> {
+            if (ids[0] == 100) {
+                return httpError(403, Map.of());
+            }
+            if (ids[0] == 200 && networkErrors.getAndIncrement() < 1) {
+                return new TwitterException("Connection reset", new IOException(), -1);
+            }
+            if (ids[0] == 300) {
+                return httpError(503, Map.of());
+            }
+            return null;
+        };
+        ListMembershipSync.Report report = new ListMembershipSync(list.resources()).setRetryInterval(10).sync(1, range(0, 400));
+        assertFalse(report.isComplete());
+        assertEquals(4, report.getBatches().size());
+
+        List<ListMembershipSync.Batch> failures = report.getFailures();
+        assertEquals(2, failures.size());
+        // not retried
+        assertEquals(100, failures.get(0).getUserIds()[0]);
+        assertEquals(403, failures.get(0).getException().getStatusCode());
+        assertEquals(1, failures.get(0).getAttempts());
+        // retried until attempts run out
+        assertEquals(300, failures.get(1).getUserIds()[0]);
+        assertEquals(503, failures.get(1).getException().getStatusCode());
+        assertEquals(3, failures.get(1).getAttempts());
+        // recovered
+        assertTrue(report.getBatches().get(2).isSuccess());
+        assertEquals(2, report.getBatches().get(2).getAttempts());
+        assertEquals(200, list.members.size());
+    }
+
+    @Test
+    void testMembersUnavailable() {
+        FakeList list = new FakeList(5000) {
+            @Override
+            public Object invoke(Object proxy, java.lang.reflect.Method method, Object[] args) throws Throwable {
+                if ("getUserListMembers".equals(method.getName())) {
+                    throw httpError(404, Map.of());
+                }
+                return super.invoke(proxy, method, args);
+            }
+        };
+        TwitterException te = assertThrows(TwitterException.class, () -> new ListMembershipSync(list.resources()).sync(1, 1, 2, 3));
+        assertEquals(404, te.getStatusCode());
+        assertTrue(list.requests.isEmpty());
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2007 Yusuke Yamamoto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package twitter4j;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoggerTest {
+
+    @Test
+    void testFormat() {
+        assertEquals("a: b", Logger.format("{}: {}", "a", "b"));
+        assertEquals("waiting for 10 sec", Logger.format("waiting for {} sec", 10));
+        assertEquals("no placeholder", Logger.format("no placeholder", 1, 2));
+        assertEquals("1 {}", Logger.format("{} {}", 1));
+        assertEquals("null", Logger.format("{}", (Object) null));
+    }
+
+    @Test
+    void testSupplierNotCalledWhenDisabled() {
+        Logger logger = new NullLogger();
+        logger.debug(() -> {
+            fail("should not be called");
+            return null;
+        });
+        logger.info("{}", new Object() {
+            @Override
+            public String toString() {
+                fail("should not be called");
+                return null;
+            }
+        });
+    }
+}
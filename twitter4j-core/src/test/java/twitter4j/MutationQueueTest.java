@@ -0,0 +1,320 @@
+/*
+ * Copyright 2007 Yusuke Yamamoto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package twitter4j;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MutationQueueTest {
+
+    /**
+     * Records the calls as "method id" with their times, failing them as the failure function tells, and holding them until released.
+     */
+    private static class FakeTwitter implements InvocationHandler {
+        final List<String> calls = new CopyOnWriteArrayList<>();
+        final List<Long> times = new CopyOnWriteArrayList<>();
+        volatile BiFunction<String, Integer, TwitterException> failure = (call, attempt) -> null;
+        volatile CountDownLatch release = new CountDownLatch(0);
+
+        Twitter twitter() {
+            return (Twitter) Proxy.newProxyInstance(Twitter.class.getClassLoader(), new Class<?>[]{Twitter.class}, this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String call = method.getName() + " " + args[0];
+            int attempt = (int) calls.stream().filter(call::equals).count() + 1;
+            calls.add(call);
+            times.add(System.currentTimeMillis());
+            release.await();
+            TwitterException te = failure.apply(call, attempt);
+            if (te != null) {
+                throw te;
+            }
+            Class<?> type = method.getReturnType();
+            return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (p, m, a) -> null);
+        }
+    }
+
+    private static TwitterException httpError(final int code, String body, final Map<String, String> headers) {
+        HttpResponse response = new HttpResponse() {
+            {
+                statusCode = code;
+            }
+
+            @Override
+            public String getResponseHeader(String name) {
+                return headers.get(name);
+            }
+
+            @Override
+            public Map<String, List<String>> getResponseHeaderFields() {
+                return Collections.emptyMap();
+            }
+
+            @Override
+            public void disconnect() {
+            }
+        };
+        return new TwitterException(body, response);
+    }
+
+    @Test
+    void testSubmit() throws Exception {
+        FakeTwitter fake = new FakeTwitter();
+        try (MutationQueue queue = new MutationQueue(fake.twitter())) {
+            CompletableFuture<TwitterResponse> favorite = queue.favorite(1);
+            CompletableFuture<TwitterResponse> follow = queue.follow(2);
+            CompletableFuture<TwitterResponse> retweet = queue.retweet(3);
+            CompletableFuture<TwitterResponse> mute = queue.mute(4);
+            CompletableFuture<TwitterResponse> block = queue.block(5);
+            CompletableFuture<TwitterResponse> unblock = queue.submit(MutationQueue.Mutation.UNBLOCK, 6);
+            assertTrue(favorite.get(5, TimeUnit.SECONDS) instanceof Status);
+            assertTrue(follow.get(5, TimeUnit.SECONDS) instanceof User);
+            assertTrue(retweet.get(5, TimeUnit.SECONDS) instanceof Status);
+            assertTrue(mute.get(5, TimeUnit.SECONDS) instanceof User);
+            assertTrue(block.get(5, TimeUnit.SECONDS) instanceof User);
+            assertTrue(unblock.get(5, TimeUnit.SECONDS) instanceof User);
+            assertTrue(queue.await(5000));
+            assertEquals(0, queue.size());
+            assertEquals(6, fake.calls.size());
+            assertTrue(fake.calls.containsAll(List.of("createFavorite 1", "createFriendship 2", "retweetStatus 3",
+                    "createMute 4", "createBlock 5", "destroyBlock 6")));
+        }
+        assertEquals(MutationQueue.Mutation.UNFOLLOW, MutationQueue.Mutation.FOLLOW.inverse());
+        assertEquals(MutationQueue.Mutation.RETWEET, MutationQueue.Mutation.UNRETWEET.inverse());
+    }
+
+    @Test
+    void testCoalesce() throws Exception {
+        FakeTwitter fake = new FakeTwitter();
+        fake.release = new CountDownLatch(1);
+        try (MutationQueue queue = new MutationQueue(fake.twitter())) {
+            CompletableFuture<TwitterResponse> first = queue.follow(1);
+            while (fake.calls.isEmpty()) {
+                Thread.sleep(10);
+            }
+            // waiting behind the first one
+            CompletableFuture<TwitterResponse> follow = queue.follow(2);
+            assertSame(follow, queue.follow(2));
+            CompletableFuture<TwitterResponse> unfollow = queue.submit(MutationQueue.Mutation.UNFOLLOW, 2);
+            assertNull(follow.getNow(new TwitterException("not completed")));
+            assertNull(unfollow.getNow(new TwitterException("not completed")));
+            // the first one is being sent: its inverse is sent afterwards
+            CompletableFuture<TwitterResponse> undo = queue.submit(MutationQueue.Mutation.UNFOLLOW, 1);
+            CompletableFuture<TwitterResponse> favorite = queue.favorite(2);
+            assertEquals(3, queue.size());
+            Thread.sleep(100);
+            assertFalse(fake.calls.contains("destroyFriendship 1"));
+
+            fake.release.countDown();
+            assertNotNull(first.get(5, TimeUnit.SECONDS));
+            assertNotNull(undo.get(5, TimeUnit.SECONDS));
+            assertNotNull(favorite.get(5, TimeUnit.SECONDS));
+            assertTrue(queue.await(5000));
+            assertEquals(3, fake.calls.size());
+            assertEquals("createFriendship 1", fake.calls.get(0));
+            assertTrue(fake.calls.indexOf("destroyFriendship 1") > 0);
+            assertTrue(fake.calls.contains("createFavorite 2"));
+        }
+    }
+
+    @Test
+    void testPacing() throws Exception {
+        FakeTwitter fake = new FakeTwitter();
+        try (MutationQueue queue = new MutationQueue(fake.twitter()).setInterval(MutationQueue.Mutation.FAVORITE, 100)) {
+            for (int i = 0; i < 4; i++) {
+                queue.favorite(i);
+            }
+            queue.retweet(1);
+            assertTrue(queue.await(5000));
+            assertEquals(5, fake.calls.size());
+            List<Long> favorites = new CopyOnWriteArrayList<>();
+            for (int i = 0; i < fake.calls.size(); i++) {
+                if (fake.calls.get(i).startsWith("createFavorite")) {
+                    favorites.add(fake.times.get(i));
+                }
+            }
+            for (int i = 1; i < favorites.size(); i++) {
+                assertTrue(favorites.get(i) - favorites.get(i - 1) >= 90, favorites.toString());
+            }
+            // other endpoints are not held back
+            assertTrue(fake.times.get(fake.calls.indexOf("retweetStatus 1")) < favorites.get(2));
+        }
+    }
+
+    @Test
+    void testRateLimited() throws Exception {
+        FakeTwitter fake = new FakeTwitter();
+        fake.failure = (call, attempt) -> "createMute 1".equals(call) && attempt == 1
+                ? httpError(429, "rate limited", Map.of("X-Rate-Limit-Limit", "300", "X-Rate-Limit-Remaining", "0",
+                "X-Rate-Limit-Reset", String.valueOf(System.currentTimeMillis() / 1000 + 2))) : null;
+        try (MutationQueue queue = new MutationQueue(fake.twitter())) {
+            long start = System.currentTimeMillis();
+            assertNotNull(queue.mute(1).get(5, TimeUnit.SECONDS));
+            assertTrue(System.currentTimeMillis() - start >= 500);
+            assertEquals(List.of("createMute 1", "createMute 1"), fake.calls);
+        }
+    }
+
+    @Test
+    void testRetry() throws Exception {
+        FakeTwitter fake = new FakeTwitter();
+        fake.failure = (call, attempt) -> {
+            switch (call) {
+                case "createFavorite 1":
+                    // applied, but the response was lost
+                    return attempt == 1 ? new TwitterException("Connection reset", new IOException(), -1)
+                            : httpError(403, "{\"errors\":[{\"message\":\"You have already favorited this status.\",\"code\":139}]}", Map.of());
+                case "retweetStatus 2":
+                    return attempt < 3 ? httpError(503, "over capacity", Map.of()) : null;
+                case "createFriendship 3":
+                    return httpError(403, "{\"errors\":[{\"message\":\"You are unable to follow more people at this time.\",\"code\":161}]}", Map.of());
+                default:
+                    return null;
+            }
+        };
+        try (MutationQueue queue = new MutationQueue(fake.twitter()).setRetryInterval(10)) {
+            assertNull(queue.favorite(1).get(5, TimeUnit.SECONDS));
+            assertNotNull(queue.retweet(2).get(5, TimeUnit.SECONDS));
+            ExecutionException e = assertThrows(ExecutionException.class, () -> queue.follow(3).get(5, TimeUnit.SECONDS));
+            assertEquals(161, ((TwitterException) e.getCause()).getErrorCode());
+            assertEquals(2, Collections.frequency(fake.calls, "createFavorite 1"));
+            assertEquals(3, Collections.frequency(fake.calls, "retweetStatus 2"));
+            // not retried
+            assertEquals(1, Collections.frequency(fake.calls, "createFriendship 3"));
+        }
+    }
+
+    @Test
+    void testClose() throws Exception {
+        FakeTwitter fake = new FakeTwitter();
+        MutationQueue queue = new MutationQueue(fake.twitter()).setInterval(MutationQueue.Mutation.FAVORITE, 60 * 1000);
+        assertNotNull(queue.favorite(1).get(5, TimeUnit.SECONDS));
+        // the second one waits for the interval, the third one behind it
+        CompletableFuture<TwitterResponse> second = queue.favorite(2);
+        CompletableFuture<TwitterResponse> third = queue.favorite(3);
+        queue.favorite(4);
+        queue.submit(MutationQueue.Mutation.UNFAVORITE, 4);
+        assertEquals(2, queue.size());
+        queue.close();
+        assertTrue(second.isCancelled());
+        assertTrue(third.isCancelled());
+        assertEquals(0, queue.size());
+        assertTrue(queue.await(0));
+        assertEquals(List.of("createFavorite 1"), fake.calls);
+    }
+
+    @Test
+    void testJournal() throws Exception {
+        File journal = File.createTempFile("mutations", ".journal");
+        try {
+            FakeTwitter fake = new FakeTwitter();
+            fake.release = new CountDownLatch(1);
+            // the second block waits for the interval until closed
+            MutationQueue queue = new MutationQueue(fake.twitter(), journal).setInterval(MutationQueue.Mutation.BLOCK, 60 * 1000);
+            CompletableFuture<TwitterResponse> sent = queue.block(1);
+            while (fake.calls.isEmpty()) {
+                Thread.sleep(10);
+            }
+            CompletableFuture<TwitterResponse> waiting = queue.block(2);
+            queue.favorite(3);
+            queue.submit(MutationQueue.Mutation.UNFAVORITE, 3);
+            fake.release.countDown();
+            assertNotNull(sent.get(5, TimeUnit.SECONDS));
+            queue.close();
+            assertTrue(waiting.isCancelled());
+            assertThrows(IllegalStateException.class, () -> queue.block(4));
+
+            FakeTwitter restarted = new FakeTwitter();
+            try (MutationQueue resumed = new MutationQueue(restarted.twitter(), journal)) {
+                // resubmitted once started, after the settings
+                assertTrue(resumed.await(5000));
+                assertTrue(restarted.calls.isEmpty());
+                resumed.setInterval(MutationQueue.Mutation.BLOCK, 10).start();
+                assertTrue(resumed.await(5000));
+                assertEquals(List.of("createBlock 2"), restarted.calls);
+                assertNotNull(resumed.submit(MutationQueue.Mutation.UNBLOCK, 1).get(5, TimeUnit.SECONDS));
+            }
+            // compacted once reopened
+            new MutationQueue(new FakeTwitter().twitter(), journal).close();
+            assertEquals("", new String(Files.readAllBytes(journal.toPath()), StandardCharsets.US_ASCII));
+        } finally {
+            journal.delete();
+        }
+    }
+
+    @Test
+    void testConcurrentJournaling() throws Exception {
+        File journal = File.createTempFile("mutations", ".journal");
+        try {
+            FakeTwitter fake = new FakeTwitter();
+            try (MutationQueue queue = new MutationQueue(fake.twitter(), journal)) {
+                List<Thread> threads = new CopyOnWriteArrayList<>();
+                List<Exception> errors = new CopyOnWriteArrayList<>();
+                for (int t = 0; t < 8; t++) {
+                    final int base = t * 1000;
+                    Thread thread = new Thread(() -> {
+                        try {
+                            for (int i = 0; i < 50; i++) {
+                                queue.favorite(base + i);
+                            }
+                        } catch (IOException e) {
+                            errors.add(e);
+                        }
+                    });
+                    threads.add(thread);
+                    thread.start();
+                }
+                for (Thread thread : threads) {
+                    thread.join();
+                }
+                assertTrue(errors.isEmpty(), errors.toString());
+                assertTrue(queue.await(5000));
+                assertEquals(400, fake.calls.size());
+            }
+            // every submission and completion made it to the journal
+            String[] lines = new String(Files.readAllBytes(journal.toPath()), StandardCharsets.US_ASCII).split("\n");
+            assertEquals(800, lines.length);
+            FakeTwitter restarted = new FakeTwitter();
+            try (MutationQueue resumed = new MutationQueue(restarted.twitter(), journal).start()) {
+                assertTrue(resumed.await(5000));
+                assertTrue(restarted.calls.isEmpty());
+            }
+        } finally {
+            journal.delete();
+        }
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2007 Yusuke Yamamoto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package twitter4j;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManagerFactory;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyStore;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NioStreamConnectionTest {
+    private static final char[] PASSWORD = "twitter4j".toCharArray();
+    private File keyStoreFile;
+    private SSLContext sslContext;
+
+    /**
+     * Generates a self-signed certificate for 127.0.0.1, trusted by the client context.
+     */
+    @BeforeEach
+    void setUp() throws Exception {
+        keyStoreFile = File.createTempFile("twitter4j", ".p12");
+        assertTrue(keyStoreFile.delete());
+        Process keytool = new ProcessBuilder(System.getProperty("java.home") + File.separator + "bin" + File.separator + "keytool",
+                "-genkeypair", "-alias", "server", "-keyalg", "RSA", "-keysize", "2048", "-validity", "1",
+                "-dname", "CN=127.0.0.1", "-ext", "san=ip:127.0.0.1,dns:localhost",
+                "-storetype", "PKCS12", "-keystore", keyStoreFile.getPath(),
+                "-storepass", new String(PASSWORD), "-keypass", new String(PASSWORD))
+                .redirectErrorStream(true).start();
+        keytool.getInputStream().readAllBytes();
+        assertEquals(0, keytool.waitFor());
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        try (InputStream in = new FileInputStream(keyStoreFile)) {
+            keyStore.load(in, PASSWORD);
+        }
+        KeyManagerFactory keyManagers = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        keyManagers.init(keyStore, PASSWORD);
+        TrustManagerFactory trustManagers = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        trustManagers.init(keyStore);
+        sslContext = SSLContext.getInstance("TLS");
+        sslContext.init(keyManagers.getKeyManagers(), trustManagers.getTrustManagers(), null);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (keyStoreFile != null) {
+            keyStoreFile.delete();
+        }
+    }
+
+    /**
+     * Relays the connections to the given port, passing the bytes from the server in small pieces
+     * so that the TLS records arrive split across reads.
+     */
+    private static final class Relay extends Thread {
+        final ServerSocket serverSocket = new ServerSocket(0);
+        final List<Socket> sockets = new CopyOnWriteArrayList<>();
+        private final int port;
+
+        Relay(int port) throws IOException {
+            this.port = port;
+            setDaemon(true);
+            start();
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    Socket client = serverSocket.accept();
+                    Socket server = new Socket("127.0.0.1", port);
+                    client.setTcpNoDelay(true);
+                    sockets.add(client);
+                    sockets.add(server);
+                    pump(client.getInputStream(), server.getOutputStream(), 8192);
+                    pump(server.getInputStream(), client.getOutputStream(), 100);
+                }
+            } catch (IOException ignore) {
+            }
+        }
+
+        private static void pump(InputStream in, OutputStream out, int pieceSize) {
+            Thread pump = new Thread(() -> {
+                byte[] buf = new byte[pieceSize];
+                int read;
+                try {
+                    while ((read = in.read(buf)) != -1) {
+                        out.write(buf, 0, read);
+                        out.flush();
+                        if (pieceSize < 8192) {
+                            Thread.sleep(1);
+                        }
+                    }
+                    out.close();
+                } catch (IOException | InterruptedException ignore) {
+                }
+            });
+            pump.setDaemon(true);
+            pump.start();
+        }
+
+        void close() throws IOException {
+            serverSocket.close();
+            for (Socket socket : sockets) {
+                socket.close();
+            }
+        }
+    }
+
+    @Test
+    void testTLS() throws Exception {
+        StringBuilder text = new StringBuilder();
+        while (text.length() < 40000) {
+            text.append("larger than a record, and than the application buffer. ");
+        }
+        final String large = "{\"id\":2,\"text\":\"" + text + "\"}";
+        StreamTestServer server = new StreamTestServer(sslContext.getServerSocketFactory().createServerSocket(0), (sequence, out) -> {
+            out.write(("HTTP/1.1 200 OK\r\nContent-Type: application/json\r\n\r\n"
+                    + "{\"id\":1,\"text\":\"first\"}\r\n" + large + "\r\n{\"id\":3,\"text\":\"third\"}\r\n").getBytes(StandardCharsets.UTF_8));
+            out.flush();
+        });
+        Relay relay = new Relay(server.serverSocket.getLocalPort());
+        StreamEventLoop eventLoop = new StreamEventLoop();
+        final List<String> lines = new CopyOnWriteArrayList<>();
+        final List<TwitterException> closed = new CopyOnWriteArrayList<>();
+        final CountDownLatch received = new CountDownLatch(3);
+        final CountDownLatch connected = new CountDownLatch(1);
+        NioStreamConnection connection = new NioStreamConnection(eventLoop,
+                new HttpRequest(RequestMethod.GET, "https://127.0.0.1:" + relay.serverSocket.getLocalPort() + "/1.1/statuses/sample.json",
+                        null, null, Collections.emptyMap()),
+                5000, 5000, new NioStreamConnection.Handler() {
+            @Override
+            public void onConnect() {
+                connected.countDown();
+            }
+
+            @Override
+            public void onLine(StreamLine line, boolean more) {
+                lines.add(line.toString());
+                received.countDown();
+            }
+
+            @Override
+            public void onClose(TwitterException cause) {
+                closed.add(cause);
+                while (received.getCount() > 0) {
+                    received.countDown();
+                }
+            }
+        });
+        connection.sslContext = sslContext;
+        connection.applicationBufferSize = 4096;
+        try {
+            connection.open();
+            assertTrue(connected.await(10, TimeUnit.SECONDS));
+            assertTrue(received.await(10, TimeUnit.SECONDS));
+            assertEquals(Collections.emptyList(), closed);
+            assertEquals(List.of("{\"id\":1,\"text\":\"first\"}", large, "{\"id\":3,\"text\":\"third\"}"), lines);
+            String request = server.requests.get(0);
+            assertTrue(request.startsWith("GET /1.1/statuses/sample.json HTTP/1.1\r\n"), request);
+        } finally {
+            connection.close();
+            eventLoop.shutdown();
+            relay.close();
+            server.close();
+        }
+    }
+}
@@ -19,9 +19,12 @@ package twitter4j;
 import org.junit.jupiter.api.Test;
 
 import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
 import java.util.TimeZone;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 /**
  * @author Yusuke Yamamoto - yusuke at mac.com
@@ -47,4 +50,20 @@ class ParseUtilTest {
                 , sdf.format(ParseUtil.parseTrendsDate("2011-07-11T05:31:52Z")));
     }
 
+    @Test
+    void testParseTwitterDate() throws Exception {
+        SimpleDateFormat sdf = new SimpleDateFormat("EEE MMM dd HH:mm:ss z yyyy", Locale.US);
+        sdf.setTimeZone(TimeZone.getTimeZone("UTC"));
+        String[] dates = {"Wed Aug 27 13:08:45 +0000 2008", "Thu Jan 01 00:00:00 +0000 1970",
+                "Thu Feb 29 23:59:59 +0000 2024", "Mon Mar 01 00:00:00 +0000 2100", "Fri Dec 31 23:59:59 +0900 1999",
+                "Sat Jan 01 00:00:00 -0530 2000", "Sun Jul 04 12:30:00 +0000 2010"};
+        for (String date : dates) {
+            assertEquals(sdf.parse(date), ParseUtil.getDate(date, "EEE MMM dd HH:mm:ss z yyyy"));
+            // cached
+            assertEquals(sdf.parse(date), ParseUtil.getDate(date, "EEE MMM d HH:mm:ss z yyyy"));
+        }
+        assertEquals(TwitterDateParser.INVALID, TwitterDateParser.parse("Wed Aug 27 13:08:45 UTC 2008"));
+        assertEquals(new Date(1219842525000L), ParseUtil.getDate("Wed Aug 27 13:08:45 UTC 2008", "EEE MMM dd HH:mm:ss z yyyy"));
+        assertThrows(TwitterException.class, () -> ParseUtil.getDate("Wed Foo 27 13:08:45 +0000 2008", "EEE MMM dd HH:mm:ss z yyyy"));
+    }
 }
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2007 Yusuke Yamamoto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package twitter4j;
+
+import org.junit.jupiter.api.Test;
+import twitter4j.api.PlacesGeoResources;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PlaceIndexTest {
+
+    private static Place place(String id, String type, double west, double south, double east, double north) throws TwitterException {
+        return TwitterObjectFactory.createPlace("{\"id\":\"" + id + "\",\"name\":\"" + id + "\",\"place_type\":\"" + type + "\","
+                + "\"bounding_box\":{\"type\":\"Polygon\",\"coordinates\":[[[" + west + "," + south + "],[" + east + "," + south + "],"
+                + "[" + east + "," + north + "],[" + west + "," + north + "]]]}}");
+    }
+
+    private static List<String> ids(List<Place> places) {
+        List<String> ids = new ArrayList<>();
+        for (Place place : places) {
+            ids.add(place.getId());
+        }
+        return ids;
+    }
+
+    @Test
+    void testQueries() throws Exception {
+        PlaceIndex index = new PlaceIndex();
+        index.add(place("japan", "country", 122.9, 24.0, 153.9, 45.5));
+        index.add(place("tokyo", "admin", 138.9, 35.5, 139.9, 35.9));
+        index.add(place("shibuya", "city", 139.66, 35.64, 139.72, 35.69));
+        index.add(place("sf", "city", -122.51, 37.70, -122.35, 37.81));
+        assertEquals(4, index.size());
+
+        assertEquals(List.of("shibuya", "tokyo", "japan"), ids(index.getPlacesContaining(new GeoLocation(35.66, 139.7))));
+        assertEquals(List.of("tokyo", "japan"), ids(index.getPlacesContaining(new GeoLocation(35.55, 139.0))));
+        assertEquals(List.of(), ids(index.getPlacesContaining(new GeoLocation(0, 0))));
+
+        assertEquals(List.of("shibuya", "tokyo", "japan"), ids(index.getPlacesIntersecting(new GeoLocation(35.6, 139.5), new GeoLocation(35.7, 139.8))));
+        assertEquals(4, index.getPlacesIntersecting(new GeoLocation(-90, -180), new GeoLocation(90, 180)).size());
+
+        assertEquals("shibuya", index.getNearestPlace(new GeoLocation(35.66, 139.7)).getId());
+        assertEquals("sf", index.getNearestPlace(new GeoLocation(37.5, -122.4)).getId());
+        assertEquals("japan", index.getNearestPlace(new GeoLocation(20, 140)).getId());
+        assertEquals(0, PlaceIndex.distanceKilometers(new GeoLocation(35.66, 139.7), index.get("shibuya")));
+        assertEquals(22.2, PlaceIndex.distanceKilometers(new GeoLocation(37.5, -122.4), index.get("sf")), 0.1);
+
+        // replaced by id
+        index.add(place("sf", "city", -74.1, 40.6, -73.8, 40.9));
+        assertEquals(4, index.size());
+        assertEquals(List.of("sf"), ids(index.getPlacesContaining(new GeoLocation(40.7, -74))));
+        assertEquals(List.of(), ids(index.getPlacesContaining(new GeoLocation(37.75, -122.4))));
+        assertEquals("sf", index.remove("sf").getId());
+        assertNull(index.get("sf"));
+        assertEquals("tokyo", index.getNearestPlace(new GeoLocation(35.55, 139.0)).getId());
+        index.clear();
+        assertNull(index.getNearestPlace(new GeoLocation(35.55, 139.0)));
+    }
+
+    @Test
+    void testMatchesLinearScan() throws Exception {
+        Random random = new Random(42);
+        PlaceIndex index = new PlaceIndex();
+        List<Place> places = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            double size = Math.pow(10, random.nextDouble() * 5 - 4) * 10;
+            double west = random.nextDouble() * 340 - 170, south = random.nextDouble() * 160 - 80;
+            Place place = place("p" + i, "city", west, south, west + size, south + size / 2);
+            places.add(place);
+            index.add(place);
+        }
+        for (int i = 0; i < 500; i++) {
+            GeoLocation location = new GeoLocation(random.nextDouble() * 160 - 80, random.nextDouble() * 340 - 170);
+            double nearest = Double.MAX_VALUE;
+            List<String> containing = new ArrayList<>();
+            for (Place place : places) {
+                double distance = PlaceIndex.distanceKilometers(location, place);
+                nearest = Math.min(nearest, distance);
+                if (distance == 0) {
+                    containing.add(place.getId());
+                }
+            }
+            assertEquals(nearest, PlaceIndex.distanceKilometers(location, index.getNearestPlace(location)), 1e-9);
+            assertEquals(new HashSet<>(containing), new HashSet<>(ids(index.getPlacesContaining(location))));
+
+            GeoLocation northEast = new GeoLocation(Math.min(90, location.getLatitude() + 5), Math.min(180, location.getLongitude() + 10));
+            List<String> intersecting = new ArrayList<>();
+            for (Place place : places) {
+                GeoLocation[] box = place.getBoundingBoxCoordinates()[0];
+                if (box[0].getLongitude() <= northEast.getLongitude() && location.getLongitude() <= box[2].getLongitude()
+                        && box[0].getLatitude() <= northEast.getLatitude() && location.getLatitude() <= box[2].getLatitude()) {
+                    intersecting.add(place.getId());
+                }
+            }
+            List<String> found = ids(index.getPlacesIntersecting(location, northEast));
+            assertEquals(intersecting.size(), found.size());
+            assertEquals(new HashSet<>(intersecting), new HashSet<>(found));
+        }
+    }
+
+    @Test
+    void testCache() throws Exception {
+        Place shibuya = place("shibuya", "city", 139.66, 35.64, 139.72, 35.69);
+        Place tokyo = place("tokyo", "admin", 138.9, 35.5, 139.9, 35.9);
+        int[] calls = new int[1];
+        PlacesGeoResources api = new PlacesGeoResources() {
+            @Override
+            public Place getGeoDetails(String placeId) {
+                calls[0]++;
+                return "tokyo".equals(placeId) ? tokyo : shibuya;
+            }
+
+            @Override
+            public ResponseList<Place> reverseGeoCode(GeoQuery query) {
+                calls[0]++;
+                ResponseList<Place> places = new ResponseListImpl<>(null, TwitterResponse.AccessLevel.READ);
+                places.add(shibuya);
+                places.add(tokyo);
+                return places;
+            }
+
+            @Override
+            public ResponseList<Place> searchPlaces(GeoQuery query) {
+                return reverseGeoCode(query);
+            }
+        };
+        PlaceIndex index = new PlaceIndex();
+        PlacesGeoResources cache = index.cache(api);
+        GeoQuery query = new GeoQuery(new GeoLocation(35.66, 139.7)).granularity("city");
+        assertEquals(List.of("shibuya", "tokyo"), ids(cache.reverseGeoCode(query)));
+        assertEquals(List.of("shibuya", "tokyo"), ids(cache.reverseGeoCode(query)));
+        assertEquals(List.of("tokyo"), ids(cache.searchPlaces(new GeoQuery(new GeoLocation(35.66, 139.7)).granularity("admin"))));
+        assertEquals(List.of("shibuya"), ids(cache.reverseGeoCode(new GeoQuery(new GeoLocation(35.66, 139.7)).granularity("city").maxResults(1))));
+        assertEquals(1, calls[0]);
+        // no neighborhood is known, while the API may know one
+        cache.reverseGeoCode(new GeoQuery(new GeoLocation(35.66, 139.7)));
+        assertEquals(2, calls[0]);
+        // nor a country
+        cache.reverseGeoCode(new GeoQuery(new GeoLocation(35.66, 139.7)).granularity("country"));
+        assertEquals(3, calls[0]);
+        // free-form queries go to the API
+        cache.searchPlaces(new GeoQuery("Shibuya", null, new GeoLocation(35.66, 139.7)));
+        assertEquals(4, calls[0]);
+
+        assertSame(tokyo, cache.getGeoDetails("tokyo"));
+        assertSame(tokyo, cache.getGeoDetails("tokyo"));
+        assertEquals(5, calls[0]);
+    }
+}
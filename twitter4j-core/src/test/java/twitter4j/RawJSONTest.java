@@ -0,0 +1,70 @@
+/*
+ * Copyright 2007 Yusuke Yamamoto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package twitter4j;
+
+import org.junit.jupiter.api.Test;
+import twitter4j.conf.Configuration;
+import twitter4j.conf.ConfigurationBuilder;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RawJSONTest {
+    private static final String STATUS1 = "{\"id\":1,\"text\":\"first\",\"user\":{\"id\":10,\"screen_name\":\"a\"}}";
+    private static final String STATUS2 = "{\"id\":2, \"text\":\"second \\u3042\"}";
+
+    @Test
+    void testSlice() {
+        JSONArray array = new JSONArray("\ufeff[" + STATUS1 + ", " + STATUS2 + "]", true);
+        assertEquals("[" + STATUS1 + ", " + STATUS2 + "]", array.getRawJSON().toString());
+        assertEquals(STATUS1, array.getJSONObject(0).getRawJSON().toString());
+        assertEquals(STATUS2, array.getJSONObject(1).getRawJSON().toString());
+        assertEquals("{\"id\":10,\"screen_name\":\"a\"}", array.getJSONObject(0).getJSONObject("user").getRawJSON().toString());
+        assertNull(new JSONObject().getRawJSON());
+        // not recorded unless asked for
+        assertNull(new JSONObject(STATUS1).getRawJSON());
+        assertNull(new JSONArray("[" + STATUS1 + "]").getJSONObject(0).getRawJSON());
+    }
+
+    @Test
+    void testPerObject() throws Exception {
+        Configuration conf = new ConfigurationBuilder().setJSONStoreEnabled(true).setJSONStorePerObject(true).build();
+        // responses record the slices
+        assertTrue(conf.getHttpClientConfiguration().isJSONSourceRecorded());
+        assertFalse(new ConfigurationBuilder().setJSONStoreEnabled(false).setJSONStorePerObject(true).build().getHttpClientConfiguration().isJSONSourceRecorded());
+        JSONArray array = new JSONArray("[" + STATUS1 + "," + STATUS2 + "]", true);
+        Status status1 = new StatusJSONImpl(array.getJSONObject(0), conf);
+        Status status2 = new StatusJSONImpl(array.getJSONObject(1), conf);
+        TwitterObjectFactory.clearThreadLocalMap();
+
+        // available after the thread local map is cleared, and from other threads
+        assertEquals(STATUS1, TwitterObjectFactory.getRawJSON(status1));
+        assertEquals(STATUS2, CompletableFuture.supplyAsync(() -> TwitterObjectFactory.getRawJSON(status2)).get());
+    }
+
+    @Test
+    void testThreadLocal() throws Exception {
+        Configuration conf = new ConfigurationBuilder().setJSONStoreEnabled(true).build();
+        assertFalse(conf.getHttpClientConfiguration().isJSONSourceRecorded());
+        Status status = new StatusJSONImpl(new JSONObject(STATUS1), conf);
+        assertEquals(new JSONObject(STATUS1).toString(), TwitterObjectFactory.getRawJSON(status));
+        assertNull(CompletableFuture.supplyAsync(() -> TwitterObjectFactory.getRawJSON(status)).get());
+        TwitterObjectFactory.clearThreadLocalMap();
+        assertNull(TwitterObjectFactory.getRawJSON(status));
+    }
+}
@@ -0,0 +1,272 @@
+/*
+ * Copyright 2007 Yusuke Yamamoto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package twitter4j;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import twitter4j.conf.Configuration;
+import twitter4j.conf.ConfigurationBuilder;
+import twitter4j.management.ReconnectStatistics;
+import twitter4j.management.ReconnectStatisticsMBean;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReconnectControllerTest {
+    private TwitterStream twitterStream = null;
+
+    @AfterEach
+    void shutdown() {
+        if (twitterStream != null) {
+            twitterStream.shutdown();
+        }
+    }
+
+    private static TwitterException httpError(final int code, final String retryAfter) {
+        HttpResponse response = new HttpResponse() {
+            {
+                statusCode = code;
+            }
+
+            @Override
+            public String getResponseHeader(String name) {
+                return "Retry-After".equals(name) ? retryAfter : null;
+            }
+
+            @Override
+            public Map<String, List<String>> getResponseHeaderFields() {
+                return retryAfter == null ? Collections.emptyMap() : Collections.singletonMap("Retry-After", Collections.singletonList(retryAfter));
+            }
+
+            @Override
+            public void disconnect() {
+            }
+        };
+        return new TwitterException("error", response);
+    }
+
+    @Test
+    void testBackoff() {
+        ReconnectController controller = new ReconnectController(90 * 1000, new ReconnectStatistics());
+        TwitterException networkError = new TwitterException("Connection reset", new IOException(), -1);
+        assertEquals(250, controller.nextWait(networkError));
+        long previous = 250;
+        for (int i = 0; i < 30; i++) {
+            long wait = controller.nextWait(networkError);
+            assertTrue(wait >= 250 && wait <= Math.min(previous * 3, 16 * 1000), wait + " after " + previous);
+            previous = wait;
+        }
+        // the first HTTP error starts over from the initial wait of HTTP errors
+        assertEquals(10 * 1000, controller.nextWait(httpError(503, null)));
+        long wait = controller.nextWait(httpError(503, null));
+        assertTrue(wait >= 10 * 1000 && wait <= 30 * 1000, String.valueOf(wait));
+        assertEquals(60 * 1000, controller.nextWait(httpError(420, null)));
+
+        controller.connected();
+        assertEquals(250, controller.nextWait(networkError));
+    }
+
+    @Test
+    void testRetryAfter() {
+        ReconnectController controller = new ReconnectController(90 * 1000, new ReconnectStatistics());
+        assertEquals(300 * 1000, controller.nextWait(httpError(503, "300")));
+        assertEquals(60 * 1000, controller.nextWait(httpError(420, "1")));
+        ReconnectController other = new ReconnectController(90 * 1000, new ReconnectStatistics());
+        assertEquals(10 * 1000, other.nextWait(httpError(503, "Fri, 31 Dec 1999 23:59:59 GMT")));
+    }
+
+    @Test
+    void testStallTimeout() throws Exception {
+        ReconnectStatistics statistics = new ReconnectStatistics();
+        assertEquals(45 * 1000, new ReconnectController(90 * 1000, statistics).getStallTimeout());
+        // never longer than the read timeout
+        assertEquals(10 * 1000, new ReconnectController(10 * 1000, statistics).getStallTimeout());
+
+        ReconnectController controller = new ReconnectController(90 * 1000, 100, statistics);
+        assertEquals(150, controller.getStallTimeout());
+        controller.connected();
+        controller.received();
+        Thread.sleep(300);
+        controller.received();
+        // sparse keep-alives under steady traffic don't stretch the timeout
+        assertEquals(150, controller.getStallTimeout());
+
+        assertEquals(250, controller.nextWait(new TwitterException("Read timed out", new SocketTimeoutException(), -1)));
+        assertEquals(1, statistics.getStallCount());
+        // nor do stalls
+        assertEquals(150, controller.getStallTimeout());
+        // a connect timeout is not a stall
+        controller.nextWait(new TwitterException("connect timed out", new SocketTimeoutException(), -1));
+        assertEquals(1, statistics.getStallCount());
+    }
+
+    @Test
+    void testGap() throws Exception {
+        ReconnectStatistics statistics = new ReconnectStatistics();
+        ReconnectController controller = new ReconnectController(90 * 1000, statistics);
+        controller.connected();
+        assertEquals(0, statistics.getReconnectCount());
+        controller.received();
+        Thread.sleep(100);
+        controller.connected();
+        assertEquals(1, statistics.getReconnectCount());
+        assertTrue(statistics.getLastGap() >= 100 && statistics.getLastGap() < 5000, String.valueOf(statistics.getLastGap()));
+        assertEquals(statistics.getLastGap(), statistics.getMaxGap());
+        assertEquals(statistics.getLastGap(), statistics.getAverageGap());
+        statistics.reset();
+        assertEquals(0, statistics.getReconnectCount());
+        assertEquals(0, statistics.getTotalGap());
+    }
+
+    @Test
+    void testCancel() throws Exception {
+        final ReconnectController controller = new ReconnectController(90 * 1000, new ReconnectStatistics());
+        assertTrue(controller.await(10));
+        final CountDownLatch waiting = new CountDownLatch(1);
+        final boolean[] result = {true};
+        Thread thread = new Thread(() -> {
+            waiting.countDown();
+            result[0] = controller.await(60 * 1000);
+        });
+        thread.start();
+        waiting.await();
+        Thread.sleep(100);
+        long start = System.currentTimeMillis();
+        controller.cancel();
+        thread.join(5000);
+        assertFalse(thread.isAlive());
+        assertFalse(result[0]);
+        assertTrue(System.currentTimeMillis() - start < 1000);
+        assertFalse(controller.await(60 * 1000));
+    }
+
+    @Test
+    void testHttpClientShared() {
+        Configuration conf = new ConfigurationBuilder().setHttpStreamingReadTimeout(12345).build();
+        StreamingReadTimeoutConfiguration first = new StreamingReadTimeoutConfiguration(conf, 12345);
+        StreamingReadTimeoutConfiguration second = new StreamingReadTimeoutConfiguration(conf, 12345);
+        // streams of the same configuration share a client instead of adding one to the cache each
+        assertEquals(first, second);
+        assertSame(HttpClientFactory.getInstance(first), HttpClientFactory.getInstance(second));
+        assertEquals(12345, first.getHttpReadTimeout());
+        assertNotEquals(first, new StreamingReadTimeoutConfiguration(conf, 45 * 1000));
+    }
+
+    @Test
+    void testCleanUpCancelsWait() throws Exception {
+        StreamTestServer server = StreamTestServer.replying(sequence -> new byte[][]{
+                "HTTP/1.1 503 Service Unavailable\r\nContent-Length: 0\r\n\r\n".getBytes(StandardCharsets.US_ASCII), null});
+        try {
+            final CountDownLatch failed = new CountDownLatch(1);
+            StreamEventLoopTest.LifeCycleCounter counter = new StreamEventLoopTest.LifeCycleCounter();
+            twitterStream = server.newStream()
+                    .addConnectionLifeCycleListener(counter)
+                    .onException(e -> failed.countDown());
+            twitterStream.sample();
+            assertTrue(failed.await(5, TimeUnit.SECONDS));
+            // waiting for 10 seconds before the next attempt
+            Thread.sleep(200);
+            long start = System.currentTimeMillis();
+            twitterStream.cleanUp();
+            assertTrue(counter.cleanUp.await(5, TimeUnit.SECONDS));
+            assertTrue(System.currentTimeMillis() - start < 2000, String.valueOf(System.currentTimeMillis() - start));
+            assertEquals(1, server.requests.size());
+        } finally {
+            server.close();
+        }
+    }
+
+    @Test
+    void testRetryAfterOnEventLoop() throws Exception {
+        StreamTestServer server = StreamTestServer.replying(sequence -> new byte[][]{
+                "HTTP/1.1 420 Enhance Your Calm\r\nretry-after: 67\r\nContent-Length: 4\r\n\r\ncalm".getBytes(StandardCharsets.US_ASCII)});
+        StreamEventLoop eventLoop = new StreamEventLoop();
+        try {
+            final List<Exception> exceptions = new CopyOnWriteArrayList<>();
+            final CountDownLatch failed = new CountDownLatch(1);
+            twitterStream = server.newStream().eventLoop(eventLoop)
+                    .onException(e -> {
+                        exceptions.add(e);
+                        failed.countDown();
+                    });
+            twitterStream.sample();
+            assertTrue(failed.await(5, TimeUnit.SECONDS));
+            TwitterException te = (TwitterException) exceptions.get(0);
+            assertEquals(420, te.getStatusCode());
+            assertEquals(67, te.getRetryAfter());
+            // header names are case insensitive
+            assertEquals("67", te.getResponseHeader("Retry-After"));
+            twitterStream.cleanUp();
+        } finally {
+            eventLoop.shutdown();
+            server.close();
+        }
+    }
+
+    @Test
+    void testStallOnEventLoop() throws Exception {
+        StreamTestServer server = new StreamTestServer((sequence, out) -> {
+            out.write("HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+            if (sequence == 0) {
+                // keep-alives at a fast cadence, then silence
+                for (int j = 0; j < 40; j++) {
+                    out.write("2\r\n\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+                    out.flush();
+                    Thread.sleep(50);
+                }
+            } else {
+                byte[] status = "{\"id\":1,\"text\":\"resumed\"}\r\n".getBytes(StandardCharsets.UTF_8);
+                out.write((Integer.toHexString(status.length) + "\r\n").getBytes(StandardCharsets.US_ASCII));
+                out.write(status);
+                out.write("\r\n".getBytes(StandardCharsets.US_ASCII));
+                out.flush();
+            }
+        });
+        StreamEventLoop eventLoop = new StreamEventLoop();
+        try {
+            final CountDownLatch resumed = new CountDownLatch(1);
+            twitterStream = new TwitterStreamFactory(new ConfigurationBuilder()
+                    .setOAuthConsumerKey("consumer key").setOAuthConsumerSecret("consumer secret")
+                    .setOAuthAccessToken("access token").setOAuthAccessTokenSecret("access token secret")
+                    .setHttpStreamingReadTimeout(60 * 1000)
+                    .setStreamBaseURL(server.getURL()).build()).getInstance()
+                    .eventLoop(eventLoop)
+                    .onStatus(status -> resumed.countDown());
+            ((TwitterStreamImpl) twitterStream).keepAliveInterval = 200;
+            twitterStream.sample();
+            // 2 seconds of keep-alives, then detected within the keep-alive contract instead of the 60 seconds read timeout
+            assertTrue(resumed.await(10, TimeUnit.SECONDS));
+            ReconnectStatisticsMBean statistics = twitterStream.getReconnectStatistics();
+            assertEquals(1, statistics.getStallCount());
+            assertEquals(1, statistics.getReconnectCount());
+            assertTrue(statistics.getLastGap() < 5000, String.valueOf(statistics.getLastGap()));
+            twitterStream.cleanUp();
+        } finally {
+            eventLoop.shutdown();
+            server.close();
+        }
+    }
+}
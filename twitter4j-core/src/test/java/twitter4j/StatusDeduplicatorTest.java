@@ -0,0 +1,201 @@
+/*
+ * Copyright 2007 Yusuke Yamamoto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package twitter4j;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import twitter4j.conf.ConfigurationBuilder;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatusDeduplicatorTest {
+    private TwitterStream twitterStream = null;
+
+    @AfterEach
+    void shutdown() {
+        if (twitterStream != null) {
+            twitterStream.shutdown();
+        }
+    }
+
+    @Test
+    void testWindow() {
+        long[] now = {0};
+        StatusDeduplicator deduplicator = new StatusDeduplicator(60000, 1000, 0.001, false, () -> now[0]);
+        assertTrue(deduplicator.accept(1));
+        assertFalse(deduplicator.accept(1));
+        now[0] = 30000;
+        assertTrue(deduplicator.accept(2));
+        now[0] = 59999;
+        assertFalse(deduplicator.accept(1));
+        assertFalse(deduplicator.accept(2));
+        // forgotten once the window has passed
+        now[0] = 80000;
+        assertFalse(deduplicator.accept(2));
+        assertTrue(deduplicator.accept(1));
+        now[0] = 200000;
+        assertTrue(deduplicator.accept(2));
+        assertEquals(4, deduplicator.getDeliveredCount());
+        assertEquals(4, deduplicator.getSuppressedCount());
+    }
+
+    @Test
+    void testCollapseRetweets() throws Exception {
+        Status original = TwitterObjectFactory.createStatus("{\"id\":1,\"text\":\"original\"}");
+        Status retweet1 = TwitterObjectFactory.createStatus("{\"id\":2,\"text\":\"RT original\",\"retweeted_status\":{\"id\":1,\"text\":\"original\"}}");
+        Status retweet2 = TwitterObjectFactory.createStatus("{\"id\":3,\"text\":\"RT original\",\"retweeted_status\":{\"id\":1,\"text\":\"original\"}}");
+
+        StatusDeduplicator collapsing = new StatusDeduplicator(60000, 1000, 0.001, true);
+        assertTrue(collapsing.accept(retweet1));
+        assertFalse(collapsing.accept(original));
+        assertFalse(collapsing.accept(retweet2));
+
+        StatusDeduplicator deduplicator = new StatusDeduplicator(60000, 1000, 0.001, false);
+        assertTrue(deduplicator.accept(retweet1));
+        assertTrue(deduplicator.accept(original));
+        assertTrue(deduplicator.accept(retweet2));
+        assertFalse(deduplicator.accept(retweet2));
+    }
+
+    @Test
+    void testFalsePositiveRate() {
+        long[] now = {0};
+        // a million ids per minute in less than two megabytes
+        StatusDeduplicator deduplicator = new StatusDeduplicator(60000, 1000000, 0.01, false, () -> now[0]);
+        assertTrue(deduplicator.getMemoryFootprint() < 2 * 1024 * 1024, String.valueOf(deduplicator.getMemoryFootprint()));
+        int falsePositives = 0;
+        long id = 1200000000000000000L;
+        for (int i = 0; i < 3000000; i++) {
+            now[0] = i / 50;
+            if (!deduplicator.accept(id)) {
+                falsePositives++;
+            }
+            id += 1 + (i % 7) * 1000;
+        }
+        assertTrue(falsePositives < 3000000 * 0.01, String.valueOf(falsePositives));
+        assertEquals(falsePositives, deduplicator.getSuppressedCount());
+    }
+
+    @Test
+    void testStream() throws Exception {
+        File file = File.createTempFile("stream", ".json");
+        file.deleteOnExit();
+        try (StreamRecorder recorder = new StreamRecorder(file);
+             BufferedReader br = new BufferedReader(new InputStreamReader(
+                     StatusDeduplicatorTest.class.getResourceAsStream("/streamingapi-testcase.json"), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                recorder.onMessage(line);
+            }
+        }
+        final List<Status> statuses = new CopyOnWriteArrayList<>();
+        final CountDownLatch scrubGeos = new CountDownLatch(2);
+        twitterStream = new TwitterStreamFactory().getInstance().addListener(new StatusAdapter() {
+            @Override
+            public void onStatus(Status status) {
+                statuses.add(status);
+            }
+
+            @Override
+            public void onScrubGeo(long userId, long upToStatusId) {
+                // the last message of the file
+                scrubGeos.countDown();
+            }
+        });
+        StatusDeduplicator deduplicator = new StatusDeduplicator(60000, 1000, 0.001, false);
+        // the same messages twice, as delivered again on a reconnect
+        twitterStream.deduplicate(deduplicator).replay(0, file, file);
+        assertTrue(scrubGeos.await(10, TimeUnit.SECONDS));
+        assertEquals(3, statuses.size());
+        assertEquals(3, deduplicator.getSuppressedCount());
+    }
+
+    @Test
+    void testBatches() throws Exception {
+        final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<Integer>());
+        final CountDownLatch scrubGeos = new CountDownLatch(2);
+        StatusBatchListener listener = new StatusBatchListener() {
+            @Override
+            public void onStatuses(List<Status> batch) {
+                batchSizes.add(batch.size());
+            }
+
+            @Override
+            public void onDeletionNotice(StatusDeletionNotice statusDeletionNotice) {
+            }
+
+            @Override
+            public void onTrackLimitationNotice(int numberOfLimitedStatuses) {
+            }
+
+            @Override
+            public void onScrubGeo(long userId, long upToStatusId) {
+                scrubGeos.countDown();
+            }
+
+            @Override
+            public void onStallWarning(StallWarning warning) {
+            }
+
+            @Override
+            public void onException(Exception ex) {
+            }
+        };
+        StatusDeduplicator deduplicator = new StatusDeduplicator(60000, 1000, 0.001, false);
+        // the same messages twice, as delivered again on a reconnect
+        InputStream is = new SequenceInputStream(StatusDeduplicatorTest.class.getResourceAsStream("/streamingapi-testcase.json"),
+                StatusDeduplicatorTest.class.getResourceAsStream("/streamingapi-testcase.json"));
+        Dispatcher dispatcher = new DispatcherFactory().getInstance();
+        StatusStreamImpl stream = new StatusStreamImpl(dispatcher, is, new ConfigurationBuilder().setStreamBatchSize(4).build());
+        stream.setStatusFilter(deduplicator::accept);
+        try {
+            while (true) {
+                stream.next(new StreamListener[]{listener}, new RawStreamListener[0]);
+            }
+        } catch (TwitterException expected) {
+            // end of the stream
+        } finally {
+            is.close();
+        }
+        try {
+            assertTrue(scrubGeos.await(5, TimeUnit.SECONDS));
+            // accepted statuses still arrive in batches, duplicates are dropped from them
+            int total = 0;
+            for (int size : batchSizes) {
+                total += size;
+            }
+            assertEquals(3, total);
+            assertTrue(batchSizes.contains(2), batchSizes.toString());
+            assertEquals(3, deduplicator.getSuppressedCount());
+        } finally {
+            dispatcher.shutdown();
+        }
+    }
+}
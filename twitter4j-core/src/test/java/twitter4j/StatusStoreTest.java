@@ -0,0 +1,235 @@
+/*
+ * Copyright 2007 Yusuke Yamamoto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package twitter4j;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.NotSerializableException;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatusStoreTest {
+
+    private static String status(long id, String text, long userId, int favoriteCount) {
+        return "{\"id\":" + id + ",\"text\":\"" + text + "\",\"source\":\"web\",\"lang\":\"ja\",\"truncated\":false,"
+                + "\"favorited\":true,\"favorite_count\":" + favoriteCount + ",\"retweet_count\":2,"
+                + "\"created_at\":\"Sat Dec 19 16:01:" + String.format("%02d", id % 60) + " +0000 2009\","
+                + "\"coordinates\":{\"type\":\"Point\",\"coordinates\":[139.7,35.5]},"
+                + "\"user\":{\"id\":" + userId + ",\"screen_name\":\"user" + userId + "\"}}";
+    }
+
+    @Test
+    void testAddAndGet() throws Exception {
+        StatusStore store = new StatusStore(10);
+        store.add(status(1, "hello \\u3053\\u3093\\u306b\\u3061\\u306f", 100, 3));
+        assertEquals(1, store.size());
+        Status status = store.get(1);
+        assertEquals(1, status.getId());
+        assertEquals("hello こんにちは", status.getText());
+        assertEquals("web", status.getSource());
+        assertEquals("ja", status.getLang());
+        assertEquals(3, status.getFavoriteCount());
+        assertEquals(2, status.getRetweetCount());
+        assertTrue(status.isFavorited());
+        assertFalse(status.isRetweeted());
+        assertEquals(new GeoLocation(35.5, 139.7), status.getGeoLocation());
+        assertEquals("user100", status.getUser().getScreenName());
+        assertEquals(TwitterObjectFactory.createStatus(status(1, "x", 100, 3)).getCreatedAt(), status.getCreatedAt());
+        assertEquals(0, status.getHashtagEntities().length);
+        assertNull(status.getRetweetedStatus());
+        assertNull(store.get(2));
+
+        // adding the same status updates counts
+        store.add(status(1, "hello", 100, 10));
+        assertEquals(1, store.size());
+        assertEquals(10, status.getFavoriteCount());
+    }
+
+    @Test
+    void testEviction() throws Exception {
+        StatusStore store = new StatusStore(3, false);
+        for (long id = 1; id <= 5; id++) {
+            store.add(status(id, "status" + id, 100, 0));
+        }
+        assertEquals(3, store.size());
+        assertNull(store.get(1));
+        assertNull(store.get(2));
+        Status status3 = store.get(3);
+        assertEquals("status3", status3.getText());
+        assertNull(status3.getUser());
+
+        store.add(status(6, "status6", 100, 0));
+        assertThrows(IllegalStateException.class, status3::getText);
+        assertEquals("status6", store.get(6).getText());
+        assertEquals("status4", store.get(4).getText());
+    }
+
+    @Test
+    void testTextBlocksAreReleased() throws Exception {
+        StatusStore store = new StatusStore(2, false);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 600 * 1024; i++) {
+            text.append('a');
+        }
+        for (long id = 1; id <= 20; id++) {
+            store.add(status(id, text.toString(), 100, 0));
+        }
+        assertTrue(store.getTextBytes() <= 3 * 1024 * 1024, "text bytes: " + store.getTextBytes());
+        assertEquals(text.toString(), store.get(19).getText());
+        assertEquals(text.toString(), store.get(20).getText());
+    }
+
+    @Test
+    void testUsersAndDictionaryAreReleased() throws Exception {
+        StatusStore store = new StatusStore(3);
+        for (long id = 1; id <= 100; id++) {
+            String reply = "{\"id\":" + id + ",\"text\":\"@user" + id + "\",\"source\":\"client" + id + "\",\"lang\":\"ja\","
+                    + "\"in_reply_to_screen_name\":\"user" + id + "\",\"user\":{\"id\":" + id + ",\"screen_name\":\"user" + id + "\"}}";
+            store.add(reply);
+        }
+        assertEquals(3, store.getUserCount());
+        // source and screen name of each status, and the shared lang
+        assertEquals(7, store.getDictionarySize());
+        Status status = store.get(100);
+        assertEquals("client100", status.getSource());
+        assertEquals("user100", status.getInReplyToScreenName());
+        assertEquals("user100", status.getUser().getScreenName());
+        assertEquals("ja", store.get(98).getLang());
+
+        // a user is kept while any status refers to it
+        store.add(status(101, "status101", 100, 0));
+        store.add(status(102, "status102", 100, 0));
+        assertEquals("user100", store.get(101).getUser().getScreenName());
+        assertEquals(1, store.getUserCount());
+    }
+
+    @Test
+    void testRetweet() throws Exception {
+        StatusStore store = new StatusStore(10);
+        String retweet = "{\"id\":2,\"text\":\"RT hello\",\"created_at\":\"Sat Dec 19 16:01:35 +0000 2009\","
+                + "\"user\":{\"id\":200,\"screen_name\":\"user200\"},\"retweeted_status\":" + status(1, "hello", 100, 0) + "}";
+        store.add(retweet);
+        assertEquals(2, store.size());
+        Status status = store.get(2);
+        assertTrue(status.isRetweet());
+        assertEquals("hello", status.getRetweetedStatus().getText());
+        assertEquals("user100", status.getRetweetedStatus().getUser().getScreenName());
+        assertEquals(status, TwitterObjectFactory.createStatus(retweet));
+    }
+
+    @Test
+    void testScan() throws Exception {
+        StatusStore store = new StatusStore(100);
+        for (long id = 1; id <= 50; id++) {
+            store.add(status(id, "status" + id, id % 5, 0));
+        }
+        List<Long> ids = new ArrayList<>();
+        store.forEachIdBetween(10, 14, s -> ids.add(s.getId()));
+        assertEquals(List.of(10L, 11L, 12L, 13L, 14L), ids);
+
+        ids.clear();
+        Date since = store.get(20).getCreatedAt();
+        Date until = store.get(23).getCreatedAt();
+        store.forEachCreatedBetween(since, until, s -> ids.add(s.getId()));
+        assertEquals(List.of(20L, 21L, 22L), ids);
+    }
+
+    @Test
+    void testAddParsesLikeStatus() throws Exception {
+        String json = "{\"id\":3,\"text\":\"truncated &amp; short\",\"source\":\"<a href=\\\"https://twitter4j.org/\\\">t4j</a>\","
+                + "\"created_at\":\"Sat Dec 19 16:01:35 +0000 2009\",\"truncated\":true,\"retweeted\":true,\"possibly_sensitive\":true,"
+                + "\"in_reply_to_status_id\":1,\"in_reply_to_user_id\":100,\"in_reply_to_screen_name\":\"user100\","
+                + "\"favorite_count\":5,\"retweet_count\":6,\"lang\":\"en\",\"current_user_retweet\":{\"id\":9},"
+                + "\"quoted_status_id\":2,\"quoted_status\":" + status(2, "quoted", 200, 0) + ","
+                + "\"extended_tweet\":{\"full_text\":\"@user100 the full &lt;text&gt;\",\"display_text_range\":[9,29]},"
+                + "\"user\":{\"id\":300,\"screen_name\":\"user300\"}}";
+        StatusStore parsed = new StatusStore(10);
+        parsed.add(json);
+        StatusStore constructed = new StatusStore(10);
+        constructed.add(TwitterObjectFactory.createStatus(json));
+        for (long id : new long[]{2, 3}) {
+            Status expected = constructed.get(id);
+            Status actual = parsed.get(id);
+            assertEquals(expected.getText(), actual.getText());
+            assertEquals(expected.getCreatedAt(), actual.getCreatedAt());
+            assertEquals(expected.getSource(), actual.getSource());
+            assertEquals(expected.getLang(), actual.getLang());
+            assertEquals(expected.getDisplayTextRangeStart(), actual.getDisplayTextRangeStart());
+            assertEquals(expected.getDisplayTextRangeEnd(), actual.getDisplayTextRangeEnd());
+            assertEquals(expected.getInReplyToStatusId(), actual.getInReplyToStatusId());
+            assertEquals(expected.getInReplyToUserId(), actual.getInReplyToUserId());
+            assertEquals(expected.getInReplyToScreenName(), actual.getInReplyToScreenName());
+            assertEquals(expected.getFavoriteCount(), actual.getFavoriteCount());
+            assertEquals(expected.getRetweetCount(), actual.getRetweetCount());
+            assertEquals(expected.getCurrentUserRetweetId(), actual.getCurrentUserRetweetId());
+            assertEquals(expected.getQuotedStatusId(), actual.getQuotedStatusId());
+            assertEquals(expected.getGeoLocation(), actual.getGeoLocation());
+            assertEquals(expected.isTruncated(), actual.isTruncated());
+            assertEquals(expected.isRetweeted(), actual.isRetweeted());
+            assertEquals(expected.isRetweetedByMe(), actual.isRetweetedByMe());
+            assertEquals(expected.isPossiblySensitive(), actual.isPossiblySensitive());
+            assertEquals(expected.getUser(), actual.getUser());
+        }
+        assertEquals("@user100 the full <text>", parsed.get(3).getText());
+        assertEquals("quoted", parsed.get(3).getQuotedStatus().getText());
+        assertTrue(parsed.get(3).isRetweetedByMe());
+
+        StatusStore withoutUsers = new StatusStore(10, false);
+        withoutUsers.add(json);
+        assertNull(withoutUsers.get(3).getUser());
+        assertEquals(0, withoutUsers.getUserCount());
+        assertThrows(TwitterException.class, () -> withoutUsers.add("{\"id\":"));
+    }
+
+    @Test
+    void testAddWhileScanning() throws Exception {
+        StatusStore store = new StatusStore(1000);
+        for (long id = 1; id <= 600; id++) {
+            store.add(status(id, "status" + id, 1, 0));
+        }
+        List<Long> ids = new ArrayList<>();
+        // the action is called without the lock, spanning several chunks
+        store.forEachIdBetween(1, 600, s -> {
+            ids.add(s.getId());
+            try {
+                store.add(status(s.getId() + 1000, "added", 1, 0));
+            } catch (TwitterException e) {
+                throw new AssertionError(e);
+            }
+        });
+        assertEquals(600, ids.size());
+        // the oldest ones have been evicted by the additions
+        assertEquals(1000, store.size());
+        ids.clear();
+        store.forEachIdBetween(1, 1000, s -> ids.add(s.getId()));
+        assertEquals(400, ids.size());
+        assertEquals(201, (long) ids.get(0));
+    }
+
+    @Test
+    void testViewIsNotSerializable() throws Exception {
+        StatusStore store = new StatusStore(10);
+        store.add(status(1, "hello", 100, 0));
+        ObjectOutputStream out = new ObjectOutputStream(new ByteArrayOutputStream());
+        assertThrows(NotSerializableException.class, () -> out.writeObject(store.get(1)));
+    }
+}
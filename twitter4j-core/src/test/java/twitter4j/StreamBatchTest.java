@@ -0,0 +1,99 @@
+/*
+ * Copyright 2007 Yusuke Yamamoto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package twitter4j;
+
+import org.junit.jupiter.api.Test;
+import twitter4j.conf.ConfigurationBuilder;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamBatchTest {
+
+    @Test
+    void testBatchDelivery() throws Exception {
+        final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<Integer>());
+        final List<Status> statuses = Collections.synchronizedList(new ArrayList<Status>());
+        final List<Long> deletions = Collections.synchronizedList(new ArrayList<Long>());
+        // 3 statuses, 1 deletion notice, 1 limit notice and 1 scrub_geo
+        final CountDownLatch latch = new CountDownLatch(6);
+        StatusBatchListener listener = new StatusBatchListener() {
+            @Override
+            public void onStatuses(List<Status> batch) {
+                batchSizes.add(batch.size());
+                statuses.addAll(batch);
+                for (int i = 0; i < batch.size(); i++) {
+                    latch.countDown();
+                }
+            }
+
+            @Override
+            public void onDeletionNotice(StatusDeletionNotice statusDeletionNotice) {
+                deletions.add(statusDeletionNotice.getStatusId());
+                latch.countDown();
+            }
+
+            @Override
+            public void onTrackLimitationNotice(int numberOfLimitedStatuses) {
+                assertEquals(121564, numberOfLimitedStatuses);
+                latch.countDown();
+            }
+
+            @Override
+            public void onScrubGeo(long userId, long upToStatusId) {
+                assertEquals(14090452, userId);
+                latch.countDown();
+            }
+
+            @Override
+            public void onStallWarning(StallWarning warning) {
+            }
+
+            @Override
+            public void onException(Exception ex) {
+            }
+        };
+        InputStream is = StreamBatchTest.class.getResourceAsStream("/streamingapi-testcase.json");
+        Dispatcher dispatcher = new DispatcherFactory().getInstance();
+        StatusStreamImpl stream = new StatusStreamImpl(dispatcher, is,
+                new ConfigurationBuilder().setStreamBatchSize(4).build());
+        try {
+            try {
+                while (true) {
+                    stream.next(new StreamListener[]{listener}, new RawStreamListener[0]);
+                }
+            } catch (TwitterException expected) {
+                // end of the stream
+            }
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+            assertEquals(3, statuses.size());
+            assertEquals(Collections.singletonList(6832057002L), deletions);
+            // lines are batched 4 + 2
+            Collections.sort(batchSizes);
+            assertEquals(List.of(1, 2), batchSizes);
+        } finally {
+            is.close();
+            dispatcher.shutdown();
+        }
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright 2007 Yusuke Yamamoto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package twitter4j;
+
+import org.junit.jupiter.api.Test;
+import twitter4j.conf.ConfigurationBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamEventLoopTest {
+
+    private static final String STATUSES = "{\"id\":1,\"text\":\"first\"}\r\n\r\n{\"id\":2,\"text\":\"二番目\"}\r\n{\"id\":3,\"text\":\"third\"}\r\n";
+
+    /**
+     * @return gzipped body in small chunks, so that every decoder has to resume in the middle of its input
+     */
+    private static byte[][] chunkedGzipResponse(String body) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(body.getBytes(StandardCharsets.UTF_8));
+        }
+        byte[] bytes = compressed.toByteArray();
+        List<byte[]> parts = new ArrayList<>();
+        parts.add(("HTTP/1.1 200 OK\r\nContent-Type: application/json\r\nContent-Encoding: gzip\r\n"
+                + "Transfer-Encoding: chunked\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        for (int i = 0; i < bytes.length; i += 7) {
+            int length = Math.min(7, bytes.length - i);
+            ByteArrayOutputStream chunk = new ByteArrayOutputStream();
+            chunk.write((Integer.toHexString(length) + "\r\n").getBytes(StandardCharsets.US_ASCII));
+            chunk.write(bytes, i, length);
+            chunk.write("\r\n".getBytes(StandardCharsets.US_ASCII));
+            parts.add(chunk.toByteArray());
+        }
+        return parts.toArray(new byte[0][]);
+    }
+
+    static final class LifeCycleCounter implements ConnectionLifeCycleListener {
+        final AtomicInteger connects = new AtomicInteger();
+        final AtomicInteger disconnects = new AtomicInteger();
+        final CountDownLatch cleanUp = new CountDownLatch(1);
+
+        @Override
+        public void onConnect() {
+            connects.incrementAndGet();
+        }
+
+        @Override
+        public void onDisconnect() {
+            disconnects.incrementAndGet();
+        }
+
+        @Override
+        public void onCleanUp() {
+            cleanUp.countDown();
+        }
+    }
+
+    @Test
+    void testManyStreamsOnOneThread() throws Exception {
+        final byte[][] response = chunkedGzipResponse(STATUSES);
+        StreamTestServer server = StreamTestServer.replying(sequence -> response);
+        StreamEventLoop eventLoop = new StreamEventLoop(1);
+        int streams = 20;
+        final List<Status> statuses = new CopyOnWriteArrayList<>();
+        final CountDownLatch latch = new CountDownLatch(streams * 3);
+        List<TwitterStream> twitterStreams = new ArrayList<>();
+        List<LifeCycleCounter> counters = new ArrayList<>();
+        long threads = StreamTestServer.clientThreadCount();
+        try {
+            for (int i = 0; i < streams; i++) {
+                LifeCycleCounter counter = new LifeCycleCounter();
+                TwitterStream twitterStream = server.newStream().eventLoop(eventLoop)
+                        .addConnectionLifeCycleListener(counter)
+                        .onStatus(status -> {
+                            statuses.add(status);
+                            latch.countDown();
+                        });
+                twitterStream.filter(new FilterQuery().track("twitter4j"));
+                twitterStreams.add(twitterStream);
+                counters.add(counter);
+            }
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+            // no thread per stream
+            long added = StreamTestServer.clientThreadCount() - threads;
+            assertTrue(added < streams, String.valueOf(added));
+            assertEquals(streams, eventLoop.getConnectionCount());
+            assertEquals("二番目", statuses.stream().filter(status -> status.getId() == 2).findFirst().get().getText());
+            String request = server.requests.get(0);
+            assertTrue(request.startsWith("POST /1.1/statuses/filter.json HTTP/1.1\r\n"), request);
+            assertTrue(request.contains("Authorization: OAuth "), request);
+            assertTrue(request.endsWith("&track=twitter4j&stall_warnings=true"), request);
+
+            for (int i = 0; i < streams; i++) {
+                twitterStreams.get(i).cleanUp();
+                assertTrue(counters.get(i).cleanUp.await(5, TimeUnit.SECONDS));
+                assertEquals(1, counters.get(i).connects.get());
+                assertEquals(1, counters.get(i).disconnects.get());
+            }
+            for (int i = 0; i < 50 && eventLoop.getConnectionCount() > 0; i++) {
+                Thread.sleep(100);
+            }
+            assertEquals(0, eventLoop.getConnectionCount());
+        } finally {
+            for (TwitterStream twitterStream : twitterStreams) {
+                twitterStream.shutdown();
+            }
+            eventLoop.shutdown();
+            server.close();
+        }
+    }
+
+    @Test
+    void testReconnect() throws Exception {
+        final byte[][] response = chunkedGzipResponse(STATUSES);
+        // the first connection is closed by the server after the first status
+        StreamTestServer server = StreamTestServer.replying(sequence -> sequence == 0
+                ? new byte[][]{("HTTP/1.1 200 OK\r\n\r\n" + STATUSES.substring(0, 30)).getBytes(StandardCharsets.UTF_8), null}
+                : response);
+        StreamEventLoop eventLoop = new StreamEventLoop(2);
+        TwitterStream twitterStream = server.newStream();
+        try {
+            final List<Long> ids = new CopyOnWriteArrayList<>();
+            final List<Exception> exceptions = new CopyOnWriteArrayList<>();
+            final CountDownLatch latch = new CountDownLatch(4);
+            LifeCycleCounter counter = new LifeCycleCounter();
+            twitterStream.eventLoop(eventLoop)
+                    .addConnectionLifeCycleListener(counter)
+                    .addListener(new StatusAdapter() {
+                        @Override
+                        public void onStatus(Status status) {
+                            ids.add(status.getId());
+                            latch.countDown();
+                        }
+
+                        @Override
+                        public void onException(Exception ex) {
+                            exceptions.add(ex);
+                        }
+                    });
+            twitterStream.sample();
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+            List<Long> sorted = new ArrayList<>(ids);
+            sorted.sort(null);
+            assertEquals(List.of(1L, 1L, 2L, 3L), sorted);
+            assertEquals(1, exceptions.size());
+            assertEquals(2, counter.connects.get());
+            assertEquals(1, counter.disconnects.get());
+            assertTrue(server.requests.get(1).startsWith("GET /1.1/statuses/sample.json?stall_warnings=true HTTP/1.1\r\n"));
+            twitterStream.cleanUp();
+            assertTrue(counter.cleanUp.await(5, TimeUnit.SECONDS));
+        } finally {
+            twitterStream.shutdown();
+            eventLoop.shutdown();
+            server.close();
+        }
+    }
+
+    @Test
+    void testForbidden() throws Exception {
+        StreamTestServer server = StreamTestServer.replying(sequence -> new byte[][]{("HTTP/1.1 403 Forbidden\r\nContent-Length: 9\r\n\r\nForbidden").getBytes(StandardCharsets.US_ASCII)});
+        StreamEventLoop eventLoop = new StreamEventLoop();
+        TwitterStream twitterStream = server.newStream();
+        try {
+            final List<Exception> exceptions = new CopyOnWriteArrayList<>();
+            LifeCycleCounter counter = new LifeCycleCounter();
+            twitterStream.eventLoop(eventLoop)
+                    .addConnectionLifeCycleListener(counter)
+                    .onException(exceptions::add)
+                    .filter("twitter4j");
+            assertTrue(counter.cleanUp.await(5, TimeUnit.SECONDS));
+            assertEquals(1, exceptions.size());
+            assertEquals(403, ((TwitterException) exceptions.get(0)).getStatusCode());
+            assertEquals(0, counter.connects.get());
+            assertEquals(1, server.requests.size());
+        } finally {
+            twitterStream.shutdown();
+            eventLoop.shutdown();
+            server.close();
+        }
+    }
+
+    @Test
+    void testProxyFallsBackToThread() throws Exception {
+        final byte[][] response = chunkedGzipResponse(STATUSES);
+        // the server acts as the proxy
+        StreamTestServer proxy = StreamTestServer.replying(sequence -> response);
+        StreamEventLoop eventLoop = new StreamEventLoop();
+        TwitterStream twitterStream = new TwitterStreamFactory(new ConfigurationBuilder()
+                .setOAuthConsumerKey("consumer key").setOAuthConsumerSecret("consumer secret")
+                .setOAuthAccessToken("access token").setOAuthAccessTokenSecret("access token secret")
+                .setHttpProxyHost("127.0.0.1").setHttpProxyPort(proxy.serverSocket.getLocalPort())
+                .setStreamBaseURL("http://stream.twitter4j.invalid/1.1/").build()).getInstance();
+        try {
+            final CountDownLatch latch = new CountDownLatch(3);
+            twitterStream.eventLoop(eventLoop)
+                    .onStatus(status -> latch.countDown())
+                    .sample();
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+            assertEquals(0, eventLoop.getConnectionCount());
+            String request = proxy.requests.get(0);
+            assertTrue(request.startsWith("GET http://stream.twitter4j.invalid/1.1/statuses/sample.json"), request);
+        } finally {
+            twitterStream.shutdown();
+            eventLoop.shutdown();
+            proxy.close();
+        }
+    }
+}
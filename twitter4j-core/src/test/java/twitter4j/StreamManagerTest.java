@@ -0,0 +1,96 @@
+/*
+ * Copyright 2007 Yusuke Yamamoto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package twitter4j;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamManagerTest {
+
+    @Test
+    void testPartition() {
+        String[] track = new String[1000];
+        for (int i = 0; i < track.length; i++) {
+            track[i] = "keyword" + i;
+        }
+        long[] follow = new long[]{1L, 2L, 3L, 3L};
+        FilterQuery rules = new FilterQuery().track(track).follow(follow).language("en");
+        FilterQuery[] partitions = StreamManager.partition(rules, 3, 400, 5000, 25);
+        assertEquals(3, partitions.length);
+
+        Set<String> keywords = new HashSet<>();
+        Set<Long> ids = new HashSet<>();
+        for (FilterQuery partition : partitions) {
+            assertNotNull(partition);
+            assertEquals("en", partition.getLanguage()[0]);
+            if (partition.getTrack() != null) {
+                assertTrue(partition.getTrack().length <= 400);
+                for (String keyword : partition.getTrack()) {
+                    assertTrue(keywords.add(keyword));
+                }
+            }
+            if (partition.getFollow() != null) {
+                for (long id : partition.getFollow()) {
+                    assertTrue(ids.add(id));
+                }
+            }
+        }
+        assertEquals(1000, keywords.size());
+        assertEquals(3, ids.size());
+    }
+
+    @Test
+    void testRebalanceIsStable() {
+        FilterQuery[] before = StreamManager.partition(new FilterQuery().track("a", "b", "c", "d"), 4, 400, 5000, 25);
+        FilterQuery[] after = StreamManager.partition(new FilterQuery().track("a", "b", "c", "d", "e"), 4, 400, 5000, 25);
+        int changed = 0;
+        for (int i = 0; i < before.length; i++) {
+            if (before[i] == null ? after[i] != null : !before[i].equals(after[i])) {
+                changed++;
+            }
+        }
+        assertEquals(1, changed);
+    }
+
+    @Test
+    void testLocations() {
+        double[][] locations = {{-122.75, 36.8}, {-121.75, 37.8}, {-74, 40}, {-73, 41}};
+        FilterQuery[] partitions = StreamManager.partition(new FilterQuery().locations(locations), 2, 400, 5000, 1);
+        assertEquals(2, partitions[0].getLocations().length);
+        assertEquals(2, partitions[1].getLocations().length);
+        try {
+            StreamManager.partition(new FilterQuery().locations(locations), 1, 400, 5000, 1);
+            fail("expecting IllegalArgumentException");
+        } catch (IllegalArgumentException ignored) {
+        }
+    }
+
+    @Test
+    void testRecentStatusIds() {
+        RecentStatusIds ids = new RecentStatusIds(2);
+        assertTrue(ids.add(1L));
+        assertFalse(ids.add(1L));
+        assertTrue(ids.add(2L));
+        assertTrue(ids.add(3L));
+        assertEquals(2, ids.size());
+        assertTrue(ids.add(1L));
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2007 Yusuke Yamamoto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package twitter4j;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import twitter4j.conf.ConfigurationBuilder;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamReplayTest {
+    private TwitterStream twitterStream = null;
+
+    @AfterEach
+    void shutdown() {
+        if (twitterStream != null) {
+            twitterStream.shutdown();
+        }
+    }
+
+    @Test
+    void testRecordAndReplay() throws Exception {
+        File file = File.createTempFile("stream", ".json.gz");
+        file.deleteOnExit();
+        try (StreamRecorder recorder = new StreamRecorder(file);
+             BufferedReader br = new BufferedReader(new InputStreamReader(
+                     StreamReplayTest.class.getResourceAsStream("/streamingapi-testcase.json"), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                recorder.onMessage(line);
+            }
+            recorder.onMessage("");
+            assertEquals(6, recorder.getCount());
+        }
+
+        final List<Status> statuses = new ArrayList<>();
+        final CountDownLatch latch = new CountDownLatch(4);
+        twitterStream = new TwitterStreamFactory().getInstance().addListener(new StatusAdapter() {
+            @Override
+            public void onStatus(Status status) {
+                statuses.add(status);
+                latch.countDown();
+            }
+
+            @Override
+            public void onDeletionNotice(StatusDeletionNotice statusDeletionNotice) {
+                assertEquals(6832057002L, statusDeletionNotice.getStatusId());
+                latch.countDown();
+            }
+        });
+        twitterStream.replay(0, file);
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertEquals("aaa minha irma ta enchendo aki querendo entra --'", statuses.get(0).getText());
+    }
+
+    @Test
+    void testRecordInReadOrder() throws Exception {
+        File source = File.createTempFile("stream", ".json");
+        source.deleteOnExit();
+        File recorded = File.createTempFile("stream", ".json.gz");
+        recorded.deleteOnExit();
+        List<String> lines = new ArrayList<>();
+        StringBuilder text = new StringBuilder();
+        while (text.length() < 100 * 1024) {
+            text.append("longer than the read buffer ");
+        }
+        try (StreamRecorder recorder = new StreamRecorder(source)) {
+            for (int i = 1; i <= 300; i++) {
+                lines.add("{\"id\":" + i + ",\"text\":\"" + (i == 150 ? text : "status " + i) + "\"}");
+                recorder.onMessage(lines.get(i - 1));
+            }
+        }
+
+        final CountDownLatch latch = new CountDownLatch(lines.size());
+        StreamRecorder recorder = new StreamRecorder(recorded);
+        // dispatched to several threads
+        twitterStream = new TwitterStreamFactory(new ConfigurationBuilder().setAsyncNumThreads(4).build()).getInstance()
+                .addListener(recorder)
+                .onStatus(status -> latch.countDown());
+        twitterStream.replay(0, source);
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        recorder.close();
+        assertEquals(lines.size(), recorder.getCount());
+        List<String> replayed = new ArrayList<>();
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(
+                new ReplayInputStream(new File[]{recorded}, 0), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                replayed.add(line);
+            }
+        }
+        assertEquals(lines, replayed);
+    }
+
+    @Test
+    void testPacing() throws Exception {
+        File file = File.createTempFile("stream", ".json");
+        file.deleteOnExit();
+        try (StreamRecorder recorder = new StreamRecorder(file)) {
+            recorder.onMessage("{\"id\":1,\"timestamp_ms\":\"1000000\"}");
+            recorder.onMessage("{\"id\":2,\"timestamp_ms\":\"1002000\"}");
+        }
+        long start = System.currentTimeMillis();
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(
+                new ReplayInputStream(new File[]{file, file}, 10), StandardCharsets.UTF_8))) {
+            assertEquals("{\"id\":1,\"timestamp_ms\":\"1000000\"}", br.readLine());
+            assertEquals("{\"id\":2,\"timestamp_ms\":\"1002000\"}", br.readLine());
+            // 2 seconds replayed 10 times faster
+            assertTrue(System.currentTimeMillis() - start >= 200);
+            assertEquals("{\"id\":1,\"timestamp_ms\":\"1000000\"}", br.readLine());
+            assertEquals("{\"id\":2,\"timestamp_ms\":\"1002000\"}", br.readLine());
+            assertNull(br.readLine());
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2007 Yusuke Yamamoto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package twitter4j;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamSpoolTest {
+
+    @Test
+    void testAppendAndPoll() throws Exception {
+        File dir = Files.createTempDirectory("spool").toFile();
+        try (StreamSpool spool = new StreamSpool(dir, 64, 0)) {
+            StreamSpool.Reader reader = spool.getReader("test");
+            assertNull(reader.poll(10));
+            spool.append("{\"id\":1}");
+            spool.append("");
+            spool.append("{\"text\":\"あ\"}");
+            assertEquals("{\"id\":1}", reader.poll(10));
+            assertEquals("", reader.poll(10));
+            assertEquals("{\"text\":\"あ\"}", reader.poll(10));
+            assertNull(reader.poll(10));
+        }
+    }
+
+    @Test
+    void testResumeFromCheckpoint() throws Exception {
+        File dir = Files.createTempDirectory("spool").toFile();
+        try (StreamSpool spool = new StreamSpool(dir, 32, 0)) {
+            StreamSpool.Reader reader = spool.getReader("test");
+            for (int i = 0; i < 10; i++) {
+                spool.append("line" + i);
+            }
+            assertTrue(spool.getSegmentCount() > 1);
+            for (int i = 0; i < 4; i++) {
+                assertEquals("line" + i, reader.poll(10));
+            }
+            reader.acknowledge();
+            // consumed but not acknowledged
+            assertEquals("line4", reader.poll(10));
+        }
+        try (StreamSpool spool = new StreamSpool(dir, 32, 0)) {
+            StreamSpool.Reader reader = spool.getReader("test");
+            for (int i = 4; i < 10; i++) {
+                assertEquals("line" + i, reader.poll(10));
+            }
+            assertNull(reader.poll(10));
+            spool.append("line10");
+            assertEquals("line10", reader.poll(10));
+            reader.acknowledge();
+            assertEquals(0, reader.getLag());
+            assertEquals(1, spool.getSegmentCount());
+        }
+    }
+
+    @Test
+    void testSlowestReaderKeepsSegments() throws Exception {
+        File dir = Files.createTempDirectory("spool").toFile();
+        StreamSpool.Reader slow;
+        try (StreamSpool spool = new StreamSpool(dir, 32, 0)) {
+            StreamSpool.Reader fast = spool.getReader("fast");
+            slow = spool.getReader("slow");
+            for (int i = 0; i < 10; i++) {
+                spool.append("line" + i);
+            }
+            while (fast.poll(10) != null) {
+                fast.acknowledge();
+            }
+            int segments = spool.getSegmentCount();
+            assertTrue(segments > 1);
+            assertEquals("line0", slow.poll(10));
+        }
+        try {
+            slow.poll(10);
+            fail("expecting IllegalStateException");
+        } catch (IllegalStateException ignored) {
+        }
+    }
+
+    @Test
+    void testMaxBytesDropsLaggingMessages() throws Exception {
+        File dir = Files.createTempDirectory("spool").toFile();
+        try (StreamSpool spool = new StreamSpool(dir, 32, 0, 64, 0)) {
+            StreamSpool.Reader stuck = spool.getReader("stuck");
+            for (int i = 0; i < 10; i++) {
+                spool.append("line" + i);
+            }
+            // the reader never acknowledges, yet the spool stays within its bound
+            assertTrue(spool.getSegmentCount() <= 2, String.valueOf(spool.getSegmentCount()));
+            assertTrue(spool.getDroppedBytes() > 0);
+            assertEquals(spool.getDroppedBytes(), stuck.getCheckpoint());
+            String first = stuck.poll(10);
+            assertNotEquals("line0", first);
+            assertTrue(first.startsWith("line"));
+            assertEquals(2, dir.listFiles((d, name) -> name.endsWith(".spool")).length);
+        }
+    }
+
+    @Test
+    void testMaxAgeDropsLaggingMessages() throws Exception {
+        File dir = Files.createTempDirectory("spool").toFile();
+        try (StreamSpool spool = new StreamSpool(dir, 32, 0, 0, 100)) {
+            StreamSpool.Reader stuck = spool.getReader("stuck");
+            for (int i = 0; i < 3; i++) {
+                spool.append("line" + i);
+            }
+            Thread.sleep(150);
+            for (int i = 3; i < 6; i++) {
+                spool.append("line" + i);
+            }
+            assertTrue(spool.getDroppedBytes() > 0);
+            assertEquals("line3", stuck.poll(10));
+        }
+    }
+
+    @Test
+    void testAbsentReaderExpires() throws Exception {
+        File dir = Files.createTempDirectory("spool").toFile();
+        try (StreamSpool spool = new StreamSpool(dir, 32, 0)) {
+            spool.getReader("gone");
+        }
+        File checkpoint = new File(dir, "gone.checkpoint");
+        assertTrue(checkpoint.exists());
+        try (StreamSpool spool = new StreamSpool(dir, 32, 0, 0, 100)) {
+            Thread.sleep(150);
+            for (int i = 0; i < 10; i++) {
+                spool.append("line" + i);
+            }
+            // the checkpoint left by the previous run doesn't hold segments back
+            assertFalse(checkpoint.exists());
+            assertEquals(1, spool.getSegmentCount());
+            assertEquals(0, spool.getDroppedBytes());
+        }
+    }
+}
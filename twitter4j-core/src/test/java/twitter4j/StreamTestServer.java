@@ -0,0 +1,167 @@
+/*
+ * Copyright 2007 Yusuke Yamamoto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package twitter4j;
+
+import twitter4j.conf.ConfigurationBuilder;
+
+import javax.net.ssl.SSLServerSocket;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.IntFunction;
+
+/**
+ * Serves streaming requests for the tests, each connection on a thread of its own.<br>
+ * Records the requests, and the connections closed by the client.
+ *
+ * @author Yusuke Yamamoto - yusuke at mac.com
+ * @since Twitter4J 4.0.8
+ */
+final class StreamTestServer extends Thread {
+    interface Script {
+        /**
+         * Writes the response of the connection. The connection is held open until the client goes away.
+         *
+         * @param sequence sequence number of the connection
+         * @param out      output stream of the connection
+         */
+        void serve(int sequence, OutputStream out) throws Exception;
+    }
+
+    static final String THREAD_NAME = "StreamTestServer";
+    final ServerSocket serverSocket;
+    final List<String> requests = new CopyOnWriteArrayList<>();
+    final List<Integer> closed = new CopyOnWriteArrayList<>();
+    final List<Socket> sockets = new CopyOnWriteArrayList<>();
+    private final Script script;
+
+    StreamTestServer(Script script) throws IOException {
+        this(new ServerSocket(0), script);
+    }
+
+    StreamTestServer(ServerSocket serverSocket, Script script) {
+        this.serverSocket = serverSocket;
+        this.script = script;
+        setName(THREAD_NAME);
+        setDaemon(true);
+        start();
+    }
+
+    /**
+     * @param responses parts of the response given the sequence number of the connection. a null part closes the connection
+     * @return server writing the parts
+     */
+    static StreamTestServer replying(IntFunction<byte[][]> responses) throws IOException {
+        return new StreamTestServer((sequence, out) -> {
+            for (byte[] part : responses.apply(sequence)) {
+                if (part == null) {
+                    out.close();
+                    break;
+                }
+                out.write(part);
+                out.flush();
+            }
+        });
+    }
+
+    String getURL() {
+        return (serverSocket instanceof SSLServerSocket ? "https" : "http") + "://127.0.0.1:" + serverSocket.getLocalPort() + "/1.1/";
+    }
+
+    /**
+     * @return stream connecting to this server
+     */
+    TwitterStream newStream() {
+        return newStream(getURL());
+    }
+
+    static TwitterStream newStream(String streamBaseURL) {
+        return new TwitterStreamFactory(new ConfigurationBuilder()
+                .setOAuthConsumerKey("consumer key").setOAuthConsumerSecret("consumer secret")
+                .setOAuthAccessToken("access token").setOAuthAccessTokenSecret("access token secret")
+                .setStreamBaseURL(streamBaseURL).build()).getInstance();
+    }
+
+    @Override
+    public void run() {
+        try {
+            for (int sequence = 0; ; sequence++) {
+                final Socket socket = serverSocket.accept();
+                sockets.add(socket);
+                final int number = sequence;
+                Thread connection = new Thread(() -> serve(number, socket), THREAD_NAME);
+                connection.setDaemon(true);
+                connection.start();
+            }
+        } catch (IOException ignore) {
+        }
+    }
+
+    private void serve(int sequence, Socket socket) {
+        try {
+            InputStream in = socket.getInputStream();
+            String head = readHead(in);
+            int contentLength = 0;
+            for (String line : head.split("\r\n")) {
+                if (line.toLowerCase().startsWith("content-length:")) {
+                    contentLength = Integer.parseInt(line.substring(15).trim());
+                }
+            }
+            requests.add(head + new String(in.readNBytes(contentLength), StandardCharsets.UTF_8));
+            script.serve(sequence, socket.getOutputStream());
+            // held open until the client goes away
+            while (in.read() != -1) {
+            }
+            closed.add(sequence);
+        } catch (Exception ignore) {
+        }
+    }
+
+    /**
+     * @return request line and headers, including the blank line terminating them
+     */
+    static String readHead(InputStream in) throws IOException {
+        ByteArrayOutputStream head = new ByteArrayOutputStream();
+        int matched = 0;
+        int b;
+        while (matched < 4 && (b = in.read()) != -1) {
+            head.write(b);
+            matched = b == (matched % 2 == 0 ? '\r' : '\n') ? matched + 1 : b == '\r' ? 1 : 0;
+        }
+        return head.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return number of live threads, other than the ones serving the connections
+     */
+    static long clientThreadCount() {
+        return Thread.getAllStackTraces().keySet().stream().filter(thread -> !THREAD_NAME.equals(thread.getName())).count();
+    }
+
+    void close() throws IOException {
+        serverSocket.close();
+        for (Socket socket : sockets) {
+            socket.close();
+        }
+    }
+}
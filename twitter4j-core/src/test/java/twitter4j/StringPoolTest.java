@@ -0,0 +1,62 @@
+/*
+ * Copyright 2007 Yusuke Yamamoto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package twitter4j;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StringPoolTest {
+
+    @Test
+    void testIntern() {
+        StringPool pool = new StringPool(100);
+        assertEquals(128, pool.getCapacity());
+        String ja = new String("ja");
+        assertSame(ja, pool.intern(ja));
+        assertSame(ja, pool.intern(new String("ja")));
+        assertSame(ja, pool.intern(new String("ja")));
+        assertNull(pool.intern(null));
+        assertEquals(2, pool.getHitCount());
+        assertEquals(1, pool.getMissCount());
+        assertEquals(2d / 3, pool.getHitRate(), 0.0001);
+    }
+
+    @Test
+    void testBounded() {
+        StringPool pool = new StringPool(4);
+        for (int i = 0; i < 1000; i++) {
+            pool.intern("value" + i);
+        }
+        assertEquals(4, pool.getCapacity());
+        assertEquals(1000, pool.getMissCount());
+        // the latest value stays in the pool
+        String latest = pool.intern(new String("value999"));
+        assertSame(latest, pool.intern(new String("value999")));
+    }
+
+    @Test
+    void testDisabled() {
+        StringPool pool = new StringPool(0);
+        assertFalse(pool.isEnabled());
+        String en = new String("en");
+        assertSame(en, pool.intern(en));
+        assertNotSame(en, pool.intern(new String("en")));
+        assertEquals(0, pool.getHitCount());
+        assertEquals(0, pool.getHitRate());
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2007 Yusuke Yamamoto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package twitter4j;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SubscriptionRouterTest {
+
+    private static Status status(long id, String text, long userId, String extra) throws TwitterException {
+        return TwitterObjectFactory.createStatus("{\"id\":" + id + ",\"text\":\"" + text + "\",\"lang\":\"en\","
+                + "\"user\":{\"id\":" + userId + ",\"screen_name\":\"user" + userId + "\"}" + extra + "}");
+    }
+
+    private static final class Collector extends StatusAdapter {
+        final List<Long> ids = new ArrayList<>();
+
+        @Override
+        public void onStatus(Status status) {
+            ids.add(status.getId());
+        }
+    }
+
+    @Test
+    void testTrack() throws Exception {
+        SubscriptionRouter router = new SubscriptionRouter();
+        Collector java = new Collector();
+        Collector phrase = new Collector();
+        Collector hashtag = new Collector();
+        router.subscribe(new FilterQuery().track("Java"), java)
+                .subscribe(new FilterQuery().track("twitter api", "nothing"), phrase)
+                .subscribe(new FilterQuery().track("#t4j"), hashtag);
+
+        router.onStatus(status(1, "I love JAVA and #t4j", 10, ""));
+        router.onStatus(status(2, "javascript is not java's sibling", 10, ""));
+        router.onStatus(status(3, "the API of Twitter", 10, ""));
+        router.onStatus(status(4, "twitter only", 10, ""));
+        router.onStatus(status(5, "javajava t4j", 10, ""));
+        router.onStatus(status(6, "see link", 10,
+                ",\"entities\":{\"urls\":[{\"url\":\"https://t.co/a\",\"expanded_url\":\"https://java.example.com/\",\"display_url\":\"java.example.com\",\"indices\":[4,8]}]}"));
+
+        assertEquals(List.of(1L, 2L, 6L), java.ids);
+        assertEquals(List.of(3L), phrase.ids);
+        assertEquals(List.of(1L), hashtag.ids);
+    }
+
+    @Test
+    void testFailingSubscriber() throws Exception {
+        SubscriptionRouter router = new SubscriptionRouter();
+        final List<String> notices = new ArrayList<>();
+        StatusListener failing = new StatusAdapter() {
+            @Override
+            public void onStatus(Status status) {
+                throw new IllegalStateException("onStatus");
+            }
+
+            @Override
+            public void onDeletionNotice(StatusDeletionNotice statusDeletionNotice) {
+                throw new IllegalStateException("onDeletionNotice");
+            }
+
+            @Override
+            public void onScrubGeo(long userId, long upToStatusId) {
+                throw new IllegalStateException("onScrubGeo");
+            }
+
+            @Override
+            public void onException(Exception ex) {
+                throw new IllegalStateException("onException");
+            }
+        };
+        StatusListener collector = new StatusAdapter() {
+            @Override
+            public void onStatus(Status status) {
+                notices.add("status " + status.getId());
+            }
+
+            @Override
+            public void onDeletionNotice(StatusDeletionNotice statusDeletionNotice) {
+                notices.add("delete " + statusDeletionNotice.getStatusId());
+            }
+
+            @Override
+            public void onScrubGeo(long userId, long upToStatusId) {
+                notices.add("scrub_geo " + userId);
+            }
+
+            @Override
+            public void onException(Exception ex) {
+                notices.add(ex.getMessage());
+            }
+        };
+        // the failing subscriber comes first
+        router.subscribe(new FilterQuery(), failing).subscribe(new FilterQuery(), collector);
+
+        router.onStatus(status(1, "hello", 10, ""));
+        router.onDeletionNotice(new StatusDeletionNoticeImpl(new JSONObject("{\"id\":2,\"user_id\":10}")));
+        router.onScrubGeo(10, 3);
+        router.onException(new TwitterException("Stream closed."));
+
+        assertEquals(List.of("status 1", "delete 2", "scrub_geo 10", "Stream closed."), notices);
+    }
+
+    @Test
+    void testOverlappingTerms() throws Exception {
+        SubscriptionRouter router = new SubscriptionRouter();
+        Collector he = new Collector();
+        Collector she = new Collector();
+        Collector hers = new Collector();
+        router.subscribe(new FilterQuery().track("he"), he)
+                .subscribe(new FilterQuery().track("she"), she)
+                .subscribe(new FilterQuery().track("hers"), hers);
+        router.onStatus(status(1, "ushers she", 10, ""));
+        router.onStatus(status(2, "he said", 10, ""));
+        router.onStatus(status(3, "hers", 10, ""));
+        assertEquals(List.of(2L), he.ids);
+        assertEquals(List.of(1L), she.ids);
+        assertEquals(List.of(3L), hers.ids);
+    }
+
+    @Test
+    void testFollowAndLocations() throws Exception {
+        SubscriptionRouter router = new SubscriptionRouter();
+        Collector follow = new Collector();
+        Collector tokyo = new Collector();
+        Collector world = new Collector();
+        Collector all = new Collector();
+        router.subscribe(new FilterQuery().follow(10, 20), follow)
+                .subscribe(new FilterQuery().locations(new double[]{139.5, 35.5}, new double[]{140.0, 36.0}), tokyo)
+                .subscribe(new FilterQuery().locations(new double[]{-180, -90}, new double[]{180, 90}), world)
+                .subscribe(new FilterQuery().language("ja"), all);
+
+        router.onStatus(status(1, "from followed user", 10, ""));
+        router.onStatus(status(2, "reply", 30, ",\"in_reply_to_user_id\":20"));
+        router.onStatus(status(3, "geo", 30, ",\"coordinates\":{\"type\":\"Point\",\"coordinates\":[139.7,35.6]}"));
+        router.onStatus(status(4, "place", 30, ",\"place\":{\"id\":\"a\",\"name\":\"Shibuya\",\"bounding_box\":{\"type\":\"Polygon\","
+                + "\"coordinates\":[[[139.66,35.64],[139.72,35.64],[139.72,35.69],[139.66,35.69]]]}}"));
+        router.onStatus(status(5, "elsewhere", 30, ",\"coordinates\":{\"type\":\"Point\",\"coordinates\":[-122.4,37.7]}"));
+        router.onStatus(status(6, "no location", 30, ""));
+        router.onStatus(TwitterObjectFactory.createStatus("{\"id\":7,\"text\":\"japanese\",\"lang\":\"ja\",\"user\":{\"id\":10}}"));
+
+        assertEquals(List.of(1L, 2L, 7L), follow.ids);
+        assertEquals(List.of(3L, 4L), tokyo.ids);
+        assertEquals(List.of(3L, 4L, 5L), world.ids);
+        assertEquals(List.of(7L), all.ids);
+    }
+
+    @Test
+    void testSubscriptionChanges() throws Exception {
+        SubscriptionRouter router = new SubscriptionRouter();
+        Collector collector = new Collector();
+        router.subscribe(new FilterQuery().track("java"), collector);
+        router.onStatus(status(1, "java", 10, ""));
+        router.subscribe(new FilterQuery().track("kotlin"), collector);
+        assertEquals(1, router.size());
+        router.onStatus(status(2, "java", 10, ""));
+        router.onStatus(status(3, "kotlin", 10, ""));
+        router.unsubscribe(collector);
+        router.onStatus(status(4, "kotlin", 10, ""));
+        assertEquals(List.of(1L, 3L), collector.ids);
+        assertEquals(0, router.size());
+    }
+}
@@ -0,0 +1,264 @@
+/*
+ * Copyright 2007 Yusuke Yamamoto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package twitter4j;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UpdateFilterTest {
+    private static final long OVERLAP = 300;
+
+    private static void ok(OutputStream out) throws IOException {
+        out.write("HTTP/1.1 200 OK\r\nContent-Type: application/json\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+
+    private static void status(OutputStream out, long id) throws IOException {
+        out.write(("{\"id\":" + id + ",\"text\":\"status " + id + "\"}\r\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private static final class Recorder extends StatusAdapter implements ConnectionLifeCycleListener {
+        final List<Long> ids = new CopyOnWriteArrayList<>();
+        final List<Exception> exceptions = new CopyOnWriteArrayList<>();
+        final AtomicInteger connects = new AtomicInteger();
+        final AtomicInteger cleanUps = new AtomicInteger();
+
+        @Override
+        public void onStatus(Status status) {
+            ids.add(status.getId());
+        }
+
+        @Override
+        public void onException(Exception ex) {
+            exceptions.add(ex);
+        }
+
+        @Override
+        public void onConnect() {
+            connects.incrementAndGet();
+        }
+
+        @Override
+        public void onDisconnect() {
+        }
+
+        @Override
+        public void onCleanUp() {
+            cleanUps.incrementAndGet();
+        }
+
+        void await(long id) throws InterruptedException {
+            for (int i = 0; i < 100 && !ids.contains(id); i++) {
+                Thread.sleep(50);
+            }
+            assertTrue(ids.contains(id), id + " not received: " + ids);
+        }
+    }
+
+    private static TwitterStream newStream(StreamTestServer server, Recorder recorder) {
+        TwitterStream twitterStream = server.newStream()
+                .addListener(recorder)
+                .addConnectionLifeCycleListener(recorder);
+        ((TwitterStreamImpl) twitterStream).handoverOverlap = OVERLAP;
+        return twitterStream;
+    }
+
+    @Test
+    void testHandOver() throws Exception {
+        final CountDownLatch connected = new CountDownLatch(1);
+        StreamTestServer server = new StreamTestServer((sequence, out) -> {
+            ok(out);
+            if (sequence == 0) {
+                status(out, 1);
+                connected.await();
+                // sent on both connections while they overlap
+                status(out, 2);
+            } else {
+                connected.countDown();
+                status(out, 2);
+                status(out, 3);
+            }
+        });
+        Recorder recorder = new Recorder();
+        TwitterStream twitterStream = newStream(server, recorder);
+        try {
+            twitterStream.filter(new FilterQuery().track("first"));
+            recorder.await(1);
+            twitterStream.updateFilter(new FilterQuery().track("second"));
+            recorder.await(3);
+            // the previous connection is closed after the overlap
+            for (int i = 0; i < 100 && server.closed.isEmpty(); i++) {
+                Thread.sleep(50);
+            }
+            assertEquals(List.of(0), server.closed);
+            Thread.sleep(OVERLAP * 2);
+            assertEquals(1, Collections.frequency(recorder.ids, 2L), recorder.ids.toString());
+            assertEquals(2, recorder.connects.get());
+            assertEquals(1, recorder.cleanUps.get());
+            assertTrue(server.requests.get(1).endsWith("track=second&stall_warnings=true"), server.requests.get(1));
+        } finally {
+            twitterStream.shutdown();
+            server.close();
+        }
+    }
+
+    @Test
+    void testSpooledHandOver() throws Exception {
+        final CountDownLatch connected = new CountDownLatch(1);
+        StreamTestServer server = new StreamTestServer((sequence, out) -> {
+            ok(out);
+            if (sequence == 0) {
+                status(out, 1);
+                connected.await();
+                status(out, 2);
+            } else {
+                connected.countDown();
+                status(out, 2);
+                status(out, 3);
+            }
+        });
+        File dir = Files.createTempDirectory("spool").toFile();
+        StreamSpool spool = new StreamSpool(dir, 1024, 0);
+        Recorder recorder = new Recorder();
+        TwitterStream twitterStream = newStream(server, recorder).spool(spool);
+        try {
+            twitterStream.filter(new FilterQuery().track("first"));
+            recorder.await(1);
+            twitterStream.updateFilter(new FilterQuery().track("second"));
+            recorder.await(3);
+            Thread.sleep(OVERLAP);
+            assertEquals(1, Collections.frequency(recorder.ids, 2L), recorder.ids.toString());
+            // both consumers append to the spool read by one pump
+            int pumps = 0;
+            for (Thread thread : Thread.getAllStackTraces().keySet()) {
+                if (thread.getName().startsWith("Twitter Stream spool reader")) {
+                    pumps++;
+                }
+            }
+            assertEquals(1, pumps);
+        } finally {
+            twitterStream.shutdown();
+            server.close();
+            spool.close();
+            for (File file : dir.listFiles()) {
+                file.delete();
+            }
+            dir.delete();
+        }
+    }
+
+    @Test
+    void testSuccessiveUpdates() throws Exception {
+        final CountDownLatch thirdConnected = new CountDownLatch(1);
+        StreamTestServer server = new StreamTestServer((sequence, out) -> {
+            if (sequence == 2) {
+                // connects after the hand over to the second connection would have stopped suppressing duplicates
+                Thread.sleep(OVERLAP * 3);
+                ok(out);
+                thirdConnected.countDown();
+                Thread.sleep(50);
+                status(out, 100);
+                return;
+            }
+            ok(out);
+            status(out, sequence + 1);
+            if (sequence == 1) {
+                thirdConnected.await();
+                Thread.sleep(50);
+                status(out, 100);
+            }
+        });
+        Recorder recorder = new Recorder();
+        TwitterStream twitterStream = newStream(server, recorder);
+        try {
+            twitterStream.filter(new FilterQuery().track("first"));
+            recorder.await(1);
+            twitterStream.updateFilter(new FilterQuery().track("second"));
+            recorder.await(2);
+            twitterStream.updateFilter(new FilterQuery().track("third"));
+            recorder.await(100);
+            Thread.sleep(OVERLAP);
+            // the second connection kept sharing ids with the third one
+            assertEquals(1, Collections.frequency(recorder.ids, 100L), recorder.ids.toString());
+            for (int i = 0; i < 100 && server.closed.size() < 2; i++) {
+                Thread.sleep(50);
+            }
+            assertEquals(List.of(0, 1), server.closed.stream().sorted().toList());
+        } finally {
+            twitterStream.shutdown();
+            server.close();
+        }
+    }
+
+    @Test
+    void testRollBack() throws Exception {
+        final CountDownLatch rejected = new CountDownLatch(1);
+        StreamTestServer server = new StreamTestServer((sequence, out) -> {
+            if (sequence == 1) {
+                out.write("HTTP/1.1 403 Forbidden\r\nContent-Length: 9\r\n\r\nForbidden".getBytes(StandardCharsets.US_ASCII));
+                out.flush();
+                out.close();
+                rejected.countDown();
+                return;
+            }
+            ok(out);
+            status(out, 1);
+            if (sequence == 0) {
+                rejected.await();
+                Thread.sleep(200);
+                // the previous connection keeps going
+                status(out, 2);
+            }
+        });
+        Recorder recorder = new Recorder();
+        TwitterStream twitterStream = newStream(server, recorder);
+        try {
+            twitterStream.filter(new FilterQuery().track("first"));
+            recorder.await(1);
+            twitterStream.updateFilter(new FilterQuery().track("rejected"));
+            recorder.await(2);
+            assertEquals(1, recorder.exceptions.size());
+            assertEquals(403, ((TwitterException) recorder.exceptions.get(0)).getStatusCode());
+            assertEquals(1, recorder.cleanUps.get());
+            assertTrue(server.closed.isEmpty());
+
+            // updates the filter of the previous connection again
+            twitterStream.updateFilter(new FilterQuery().track("third"));
+            for (int i = 0; i < 100 && server.closed.isEmpty(); i++) {
+                Thread.sleep(50);
+            }
+            assertEquals(List.of(0), server.closed);
+            assertEquals(3, server.requests.size());
+        } finally {
+            twitterStream.shutdown();
+            server.close();
+        }
+    }
+}
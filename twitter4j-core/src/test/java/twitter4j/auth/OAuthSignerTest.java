@@ -0,0 +1,80 @@
+/*
+ * Copyright 2007 Yusuke Yamamoto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package twitter4j.auth;
+
+import org.junit.jupiter.api.Test;
+import twitter4j.HttpParameter;
+import twitter4j.PercentEncoder;
+import twitter4j.conf.ConfigurationBuilder;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OAuthSignerTest {
+
+    @Test
+    void testEncodeAsHttpParameter() {
+        String[] values = {"", "abcABC123", "-._~", "%", "+", "&=*", "\n", " ", "\u007F", "\u0080", "、",
+                "😀", "\uD83D", "日本語 テキスト!", "http://example.com/path?a=b&c=d"};
+        for (String value : values) {
+            assertEquals(HttpParameter.encode(value), PercentEncoder.buffer().appendEncoded(value, false).toString());
+            assertEquals(HttpParameter.encode(HttpParameter.encode(value)), PercentEncoder.buffer().appendEncoded(value, true).toString());
+        }
+    }
+
+    @Test
+    void testSignerIsCachedPerSecrets() {
+        OAuthAuthorization oauth = new OAuthAuthorization(new ConfigurationBuilder().build());
+        oauth.setOAuthConsumer("dpf43f3p2l4k3l03", "kd94hf93k423kf44");
+        String baseStr = "GET&http%3A%2F%2Fphotos.example.net%2Fphotos&file%3Dvacation.jpg%26oauth_consumer_key%3Ddpf43f3p2l4k3l03%26oauth_nonce%3Dkllo9940pd9333jh%26oauth_signature_method%3DHMAC-SHA1%26oauth_timestamp%3D1191242096%26oauth_token%3Dnnch734d00sl2jdk%26oauth_version%3D1.0%26size%3Doriginal";
+        //http://wiki.oauth.net/TestCases
+        assertEquals("tR3+Ty81lMeYAr/Fid0kMTYa/WM=", oauth.generateSignature(baseStr, new RequestToken("nnch734d00sl2jdk", "pfkkdhi9sl3r4s00")));
+        assertEquals("tR3+Ty81lMeYAr/Fid0kMTYa/WM=", oauth.generateSignature(baseStr, new RequestToken("nnch734d00sl2jdk", "pfkkdhi9sl3r4s00")));
+        oauth.setOAuthConsumer("dpf43f3p2l4k3l03", "cs");
+        assertEquals("egQqG5AJep5sJ7anhXju1unge2I=", oauth.generateSignature("bs", new RequestToken("nnch734d00sl2jdk", "")));
+        assertEquals("egQqG5AJep5sJ7anhXju1unge2I=", oauth.generateSignature("bs"));
+        assertEquals("VZVjXceV7JgPq/dOTnNmEfO0Fv8=", oauth.generateSignature("bs", new RequestToken("nnch734d00sl2jdk", "ts")));
+    }
+
+    @Test
+    void testHeader() throws Exception {
+        HttpParameter[] params = {new HttpParameter("file", "vacation.jpg"), new HttpParameter("size", "original")};
+        OAuthAuthorization oauth = new OAuthAuthorization(new ConfigurationBuilder().build());
+        oauth.setOAuthConsumer("dpf43f3p2l4k3l03", "kd94hf93k423kf44");
+        String expected = "OAuth oauth_consumer_key=\"dpf43f3p2l4k3l03\",oauth_signature_method=\"HMAC-SHA1\",oauth_timestamp=\"1191242096\",oauth_nonce=\"kllo9940pd9333jh\",oauth_version=\"1.0\",oauth_token=\"nnch734d00sl2jdk\",oauth_signature=\"tR3%2BTy81lMeYAr%2FFid0kMTYa%2FWM%3D\"";
+        RequestToken token = new RequestToken("nnch734d00sl2jdk", "pfkkdhi9sl3r4s00");
+        assertEquals(expected, oauth.generateAuthorizationHeader("GET", "http://photos.example.net/photos", params, "kllo9940pd9333jh", "1191242096", token));
+        // parameters in the query string are signed as well
+        assertEquals(expected, oauth.generateAuthorizationHeader("GET", "http://photos.example.net/photos?size=original", new HttpParameter[]{params[0]}, "kllo9940pd9333jh", "1191242096", token));
+
+        oauth.setOAuthRealm("http://photos.example.net/");
+        assertTrue(oauth.generateAuthorizationHeader("GET", "http://photos.example.net/photos", params, "kllo9940pd9333jh", "1191242096", token)
+                .endsWith(",realm=\"http%3A%2F%2Fphotos.example.net%2F\""));
+    }
+
+    @Test
+    void testSignatureHttpParams() {
+        OAuthAuthorization oauth = new OAuthAuthorization(new ConfigurationBuilder().build());
+        oauth.setOAuthConsumer("dpf43f3p2l4k3l03", "kd94hf93k423kf44");
+        oauth.setOAuthAccessToken(new AccessToken("nnch734d00sl2jdk", "pfkkdhi9sl3r4s00"));
+        List<HttpParameter> params = oauth.generateOAuthSignatureHttpParams("GET", "http://photos.example.net/photos");
+        assertEquals(7, params.size());
+        assertEquals("oauth_token", params.get(5).getName());
+        assertEquals("oauth_signature", params.get(6).getName());
+    }
+}
@@ -307,6 +307,31 @@ public class ConfigurationTest {
         deleteFile("./twitter4j.properties");
     }
 
+    @Test
+    void testCanonicalInstance() throws Exception {
+        deleteFile("./twitter4j.properties");
+        Configuration conf = new ConfigurationBuilder().setOAuthConsumerKey("canonical").build();
+        assertSame(conf, new ConfigurationBuilder().setOAuthConsumerKey("canonical").build());
+        assertSame(conf, serializeDeserialize(conf));
+        Configuration other = new ConfigurationBuilder().setOAuthConsumerKey("another").build();
+        assertFalse(conf.equals(other));
+        PropertyConfiguration uncached = new PropertyConfiguration();
+        uncached.setOAuthConsumerKey("canonical");
+        assertEquals(conf, uncached);
+        assertSame(conf, uncached.canonicalInstance());
+
+        PropertyConfigurationFactory factory = new PropertyConfigurationFactory();
+        writeFile("./twitter4j.properties", "china.user=two");
+        Configuration china = factory.getInstance("/china");
+        assertEquals("two", china.getUser());
+        writeFile("./twitter4j.properties", "china.user=three");
+        assertSame(china, factory.getInstance("/china"));
+        factory.dispose();
+        assertEquals("three", factory.getInstance("/china").getUser());
+        factory.dispose();
+        deleteFile("./twitter4j.properties");
+    }
+
 
     private static Object serializeDeserialize(Object obj) throws Exception {
         ByteArrayOutputStream byteOutputStream = new ByteArrayOutputStream();
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2007 Yusuke Yamamoto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package twitter4j.http;
+
+import org.junit.jupiter.api.Test;
+import twitter4j.HttpParameter;
+import twitter4j.PercentEncoder;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PercentEncoderTest {
+    private static final String[] VALUES = {"", "abcABC123", "-._~", "%", "%7", "%7E", "~%", "+", "&=*", "\n", " ", "\u007F", "\u0080",
+            "、", "😀", "\uD83D", "a\uDE00b", "日本語 テキスト!", "http://example.com/path?a=b&c=d"};
+
+    // URLEncoder based encoding with the RFC 3986 fixes applied afterwards
+    private static String reference(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8)
+                .replace("*", "%2A").replace("+", "%20").replace("%7E", "~");
+    }
+
+    @Test
+    void testEncode() {
+        for (String value : VALUES) {
+            assertEquals(reference(value), HttpParameter.encode(value), value);
+            assertEquals(reference(value), new String(PercentEncoder.encodeToBytes(value), StandardCharsets.US_ASCII), value);
+            assertEquals(reference(reference(value)), PercentEncoder.buffer().appendEncoded(value, true).toString(), value);
+            assertEquals(reference(reference(value)), PercentEncoder.buffer()
+                    .appendEncoded(PercentEncoder.encodeToBytes(value), true).toString(), value);
+        }
+        String unreserved = "abc-._~";
+        assertSame(unreserved, HttpParameter.encode(unreserved));
+    }
+
+    @Test
+    void testEncodeParameters() {
+        HttpParameter[] params = {new HttpParameter("status", "hello world*"), new HttpParameter("in_reply_to", 1234L),
+                new HttpParameter("名前", "値")};
+        String expected = "status=hello%20world%2A&in_reply_to=1234&%E5%90%8D%E5%89%8D=%E5%80%A4";
+        assertEquals(expected, HttpParameter.encodeParameters(params));
+        // cached encoded forms are reused
+        assertEquals(expected, HttpParameter.encodeParameters(params));
+        assertEquals(expected, new String(HttpParameter.encodeParametersToBytes(params), StandardCharsets.US_ASCII));
+        assertEquals("", HttpParameter.encodeParameters(null));
+        assertThrows(IllegalArgumentException.class, () -> HttpParameter.encodeParameters(
+                new HttpParameter[]{new HttpParameter("media", new java.io.File("a.jpg"))}));
+    }
+
+    @Test
+    void testGrow() {
+        StringBuilder value = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            value.append("日本語 ");
+        }
+        PercentEncoder buffer = new PercentEncoder(1);
+        buffer.appendAscii("a=").appendEncoded(value.toString(), false);
+        assertEquals("a=" + reference(value.toString()), buffer.toString());
+        assertEquals(buffer.length(), buffer.toByteArray().length);
+    }
+}
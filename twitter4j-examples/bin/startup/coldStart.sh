@@ -0,0 +1,6 @@
+#!/bin/sh
+cd ..
+. ./setEnv.sh
+RUN_CMD="$JAVA_HOME/bin/java $MEM_ARGS -cp $CLASSPATH examples.startup.ColdStart"
+echo $RUN_CMD ${1+"$@"}
+exec $RUN_CMD ${1+"$@"}
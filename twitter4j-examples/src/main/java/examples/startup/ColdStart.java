@@ -0,0 +1,60 @@
+/*
+ * Copyright 2007 Yusuke Yamamoto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package examples.startup;
+
+import twitter4j.Twitter;
+import twitter4j.TwitterException;
+import twitter4j.TwitterFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Measures the time from JVM start to the first API response.<br>
+ * Run it in a fresh JVM each time. To try class data sharing, create an archive with
+ * {@code -XX:ArchiveClassesAtExit=twitter4j.jsa} once and start with {@code -XX:SharedArchiveFile=twitter4j.jsa}.
+ *
+ * @author Yusuke Yamamoto - yusuke at mac.com
+ * @since Twitter4J 4.0.8
+ */
+public final class ColdStart {
+    /**
+     * Usage: java examples.startup.ColdStart
+     *
+     * @param args String[]
+     */
+    public static void main(String[] args) {
+        long mainStart = System.nanoTime();
+        Instant now = Instant.now();
+        ProcessHandle.current().info().startInstant().ifPresent(jvmStart ->
+                System.out.println("JVM start to main:        " + Duration.between(jvmStart, now).toMillis() + "ms"));
+        try {
+            Twitter twitter = TwitterFactory.getSingleton();
+            long initialized = System.nanoTime();
+            twitter.help().getLanguages();
+            long responded = System.nanoTime();
+
+            System.out.println("main to Twitter instance: " + (initialized - mainStart) / 1000000 + "ms");
+            System.out.println("first request:            " + (responded - initialized) / 1000000 + "ms");
+            System.exit(0);
+        } catch (TwitterException te) {
+            te.printStackTrace();
+            System.out.println("Failed to get languages: " + te.getMessage());
+            System.exit(-1);
+        }
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * example codes measuring the startup cost
+ */
+package examples.startup;